@@ -190,6 +190,47 @@ public class DSpotMojo extends AbstractMojo {
     @Parameter(defaultValue = "false", property = "use-maven-to-exe-test")
     private Boolean useMavenToExeTest = false;
 
+    /**
+     * If enabled, DSpot will compile the amplified test classes in memory, without printing them in target/dspot/tmp_test_sources.
+     */
+    @Parameter(defaultValue = "false", property = "in-memory-compilation")
+    private Boolean inMemoryCompilation = false;
+
+    /**
+     * If enabled, DSpot will execute the JUnit4 tests in a persistent JVM, that loads the classes of the project only once.
+     */
+    @Parameter(defaultValue = "false", property = "use-test-worker")
+    private Boolean useTestWorker = false;
+
+    /**
+     * [optional] specify the number of test classes to be amplified in parallel. Each test class is amplified with its own compiler output directory, counters, test selector and test worker. When it is greater than 1, this option implies --use-test-worker: the JUnit4 tests of each test class are run in its own test worker. PitMutantScoreSelector and ChangeDetectorSelector always amplify test classes one by one.
+     */
+    @Parameter(defaultValue = "1", property = "parallel-classes")
+    private Integer parallelClasses = 1;
+
+    /**
+     * If enabled, DSpot will cache the results of the compilation and the execution of the amplified test methods, and will not compile nor execute twice the same test method. The compilation errors and the passing test methods are persisted in target/dspot-cache of the project, to be reused by the next runs of DSpot. The failing test methods are cached for the current run only, since they can be flaky.
+     */
+    @Parameter(defaultValue = "false", property = "cache-test-results")
+    private Boolean cacheTestResults = false;
+
+    /**
+     * [optional] specify the number of executions of the instrumented test methods, used to detect the values that are not deterministic, e.g. based on the time or on random numbers. The instrumented test methods are copied this number of times, and all the copies are run in a single JVM. With --use-test-worker, a single copy is run again in the test worker, from fresh static state, at most this number of times: DSpot stops as soon as an execution observes the same values as the previous ones, i.e. after two executions of deterministic test methods.
+     */
+    @Parameter(defaultValue = "3", property = "observation-runs")
+    private Integer observationRuns = 3;
+
+    /**
+     * [optional] run PIT directly from its command line entry point, in a forked JVM, with the classpath computed by DSpot, instead of running it through Maven or Gradle. The jars of PIT, and of Descartes, are taken from the local Maven repository. If they are not found, PIT is run through Maven or Gradle. This option is used only by PitMutantScoreSelector.
+     */
+    @Parameter(defaultValue = "false", property = "standalone-pit")
+    private Boolean standalonePit = false;
+
+    /**
+     * [optional] at the end of the amplification of each test class, keep only a near-minimal subset of the amplified test methods that covers, on each line, as many instructions as all the amplified test methods. This subset is computed with a greedy set cover, before printing the amplified test class. This option is used only by JacocoCoverageSelector.
+     */
+    @Parameter(defaultValue = "false", property = "greedy-selection")
+    private Boolean greedySelection = false;
 
     /**
      * run the example of DSpot and leave
@@ -266,6 +307,13 @@ public class DSpotMojo extends AbstractMojo {
                     .setGenerateAmplifiedTestClass(this.generateNewTestClass)
                     .setKeepOriginalTestMethods(this.keepOriginalTestMethods)
                     .setUseMavenToExecuteTest(this.useMavenToExeTest)
+                    .setUseInMemoryCompilation(this.inMemoryCompilation)
+                    .setUseTestWorker(this.useTestWorker)
+                    .setNbParallelClasses(this.parallelClasses)
+                    .setCacheTestResults(this.cacheTestResults)
+                    .setMaxNumberOfObservationRuns(this.observationRuns)
+                    .setStandalonePit(this.standalonePit)
+                    .setGreedySelection(this.greedySelection)
                     .setTargetOneTestClass(this.targetOneTestClass);
 
             InputConfiguration.get().setOutputDirectory(
@@ -2,6 +2,8 @@ package eu.stamp_project.automaticbuilder;
 
 import spoon.reflect.declaration.CtType;
 
+import java.util.Collection;
+
 /**
  * Created by Benjamin DANGLOT
  * benjamin.danglot@inria.fr
@@ -19,6 +21,16 @@ public interface AutomaticBuilder {
 
     void runPit(CtType<?>... testClasses);
 
+    /**
+     * Runs PIT on the given test classes, without mutating the given classes and methods,
+     * e.g. because all their mutants are already killed.
+     *
+     * @param excludedClasses the full qualified names of the classes that must not be mutated
+     * @param excludedMethods the names of the methods that must not be mutated, whatever their class
+     * @param testClasses     the test classes to be run against the mutants
+     */
+    void runPit(Collection<String> excludedClasses, Collection<String> excludedMethods, CtType<?>... testClasses);
+
     void runPit();
 
     String getOutputDirectoryPit();
@@ -13,6 +13,8 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.stream.Collectors;
 
 import static eu.stamp_project.automaticbuilder.gradle.GradlePitTaskAndOptions.ARGUMENTS_SKIP_COMPILE_TEST;
@@ -87,9 +89,16 @@ public class GradleAutomaticBuilder implements AutomaticBuilder {
 
     @Override
     public void runPit(CtType<?>... testClasses) {
+        runPit(Collections.emptyList(), Collections.emptyList(), testClasses);
+    }
+
+    @Override
+    public void runPit(Collection<String> excludedClasses, Collection<String> excludedMethods, CtType<?>... testClasses) {
         try {
             LOGGER.info("Injecting  Gradle task to run Pit...");
-            this.gradleInjector.injectPitTask(InputConfiguration.get().getAbsolutePathToProjectRoot(), testClasses);
+            // no test class means all the test classes, as in runPit()
+            this.gradleInjector.injectPitTask(InputConfiguration.get().getAbsolutePathToProjectRoot(),
+                    excludedClasses, excludedMethods, testClasses != null && testClasses.length == 0 ? null : testClasses);
             LOGGER.info("Running Pit...");
             runTasks(true, CMD_PIT_MUTATION_COVERAGE);
         } catch (Exception e) {
@@ -14,7 +14,11 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import static eu.stamp_project.automaticbuilder.gradle.GradlePitTaskAndOptions.*;
@@ -62,10 +66,17 @@ public class GradleInjector {
     }
 
     void injectPitTask(String pathToRootOfProject, CtType<?>... testClasses) throws IOException {
+        injectPitTask(pathToRootOfProject, Collections.emptyList(), Collections.emptyList(), testClasses);
+    }
+
+    void injectPitTask(String pathToRootOfProject,
+                       Collection<String> excludedClasses,
+                       Collection<String> excludedMethods,
+                       CtType<?>... testClasses) throws IOException {
         String originalGradleBuildFilename = pathToRootOfProject + File.separator + GRADLE_BUILD_FILE;
         File gradleBuildFile = new File(originalGradleBuildFilename);
         makeBackup(gradleBuildFile);
-        String pitTask = getPitTask(testClasses);
+        String pitTask = getPitTask(excludedClasses, excludedMethods, testClasses);
         Files.write(Paths.get(originalGradleBuildFilename), pitTask.getBytes(), StandardOpenOption.WRITE);
     }
 
@@ -129,6 +140,10 @@ public class GradleInjector {
 
 
     public String getPitTask(CtType<?>... testClasses) {
+        return getPitTask(Collections.emptyList(), Collections.emptyList(), testClasses);
+    }
+
+    public String getPitTask(Collection<String> excludedClasses, Collection<String> excludedMethods, CtType<?>... testClasses) {
         String pitTaskConfiguration = "";
         final String contentOfOriginalGradle = readContentOfOrigianlGradleFile();
         if (!contentOfOriginalGradle.contains("buildscript")) { // this means that there is no buildscript section in the original gradle build
@@ -156,7 +171,7 @@ public class GradleInjector {
         return pitTaskConfiguration +
                 AmplificationHelper.LINE_SEPARATOR + AmplificationHelper.LINE_SEPARATOR +
                 getApplyPluginPit() +
-                getPitTaskOptions(testClasses);
+                getPitTaskOptions(excludedClasses, excludedMethods, testClasses);
     }
 
     public static String getContentOfGivenSectionFromGivenString(String sectionName, String content) {
@@ -238,7 +253,7 @@ public class GradleInjector {
         return "\'" + option + "\'";
     }
 
-    private String getPitTaskOptions(CtType<?>... testClasses) {
+    private String getPitTaskOptions(Collection<String> excludedClasses, Collection<String> excludedMethods, CtType<?>... testClasses) {
         if (InputConfiguration.get().getFilter() == null || InputConfiguration.get().getFilter().isEmpty()) {
             AutomaticBuilderHelper.getFilter();
         }
@@ -257,9 +272,22 @@ public class GradleInjector {
                 (!InputConfiguration.get().getAdditionalClasspathElements().isEmpty() ?
                         "    " + OPT_ADDITIONAL_CP_ELEMENTS + "['" + InputConfiguration.get().getAdditionalClasspathElements() + "']" + AmplificationHelper.LINE_SEPARATOR : "") +
                 "    " + (InputConfiguration.get().isDescartesMode() ? OPT_MUTATION_ENGINE : OPT_MUTATORS + VALUE_MUTATORS_ALL) + AmplificationHelper.LINE_SEPARATOR +
-                (!InputConfiguration.get().getExcludedClasses().isEmpty() ?
-                        "    " + OPT_EXCLUDED_CLASSES + "['" + InputConfiguration.get().getExcludedClasses() + "']" + AmplificationHelper.LINE_SEPARATOR : "") +
+                getExcludedClassesOption(excludedClasses) +
+                (!excludedMethods.isEmpty() ?
+                        "    " + OPT_EXCLUDED_METHODS + "[" + excludedMethods.stream().map(this::wrapWithSingleQuote).collect(Collectors.joining(",")) + "]" + AmplificationHelper.LINE_SEPARATOR : "") +
+                (!excludedClasses.isEmpty() ? // all the mutated classes might be excluded
+                        "    " + OPT_FAIL_WHEN_NO_MUTATIONS + "false" + AmplificationHelper.LINE_SEPARATOR : "") +
                 "}" + AmplificationHelper.LINE_SEPARATOR;
     }
 
+    private String getExcludedClassesOption(Collection<String> excludedClasses) {
+        final List<String> allExcludedClasses = new ArrayList<>();
+        if (!InputConfiguration.get().getExcludedClasses().isEmpty()) {
+            allExcludedClasses.add(InputConfiguration.get().getExcludedClasses());
+        }
+        allExcludedClasses.addAll(excludedClasses);
+        return !allExcludedClasses.isEmpty() ?
+                "    " + OPT_EXCLUDED_CLASSES + "[" + allExcludedClasses.stream().map(this::wrapWithSingleQuote).collect(Collectors.joining(",")) + "]" + AmplificationHelper.LINE_SEPARATOR : "";
+    }
+
 }
@@ -27,6 +27,10 @@ public class GradlePitTaskAndOptions {
 
     public static final String OPT_EXCLUDED_CLASSES = "excludedClasses = ";
 
+    public static final String OPT_EXCLUDED_METHODS = "excludedMethods = ";
+
+    public static final String OPT_FAIL_WHEN_NO_MUTATIONS = "failWhenNoMutations = ";
+
     public static final String OPT_MUTATION_ENGINE = "mutationEngine = 'descartes'";
 
     public static final String CMD_PIT_MUTATION_COVERAGE = "pitest";
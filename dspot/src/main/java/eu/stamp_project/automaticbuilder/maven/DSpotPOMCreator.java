@@ -300,9 +300,9 @@ public class DSpotPOMCreator {
 
     private static final String DEPENDENCY = "dependency";
 
-    private static final String JUNIT5_PIT_PLUGIN = "pitest-junit5-plugin";
+    public static final String JUNIT5_PIT_PLUGIN = "pitest-junit5-plugin";
 
-    private static final String JUNIT5_PIT_PLUGIN_VERSION = "0.7";
+    public static final String JUNIT5_PIT_PLUGIN_VERSION = "0.7";
 
     private Element createDependencies(Document document) {
         final Element dependencies = document.createElement(DEPENDENCIES);
@@ -11,14 +11,19 @@ import org.apache.maven.shared.invoker.Invoker;
 import org.apache.maven.shared.invoker.MavenInvocationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.NodeList;
 import spoon.reflect.declaration.CtType;
 
+import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.function.Function;
@@ -36,6 +41,12 @@ public class MavenAutomaticBuilder implements AutomaticBuilder {
 
     public static final String OPT_TARGET_TESTS = "-DtargetTests=";
 
+    public static final String OPT_EXCLUDED_CLASSES = "-DexcludedClasses=";
+
+    public static final String OPT_EXCLUDED_METHODS = "-DexcludedMethods=";
+
+    public static final String OPT_FAIL_WHEN_NO_MUTATIONS = "-DfailWhenNoMutations=";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(MavenAutomaticBuilder.class);
 
     private String classpath = null;
@@ -123,21 +134,35 @@ public class MavenAutomaticBuilder implements AutomaticBuilder {
 
     @Override
     public void runPit(CtType<?>... testClasses) {
+        this.runPit(Collections.emptyList(), Collections.emptyList(), testClasses);
+    }
+
+    @Override
+    public void runPit(Collection<String> excludedClasses, Collection<String> excludedMethods, CtType<?>... testClasses) {
         try {
             FileUtils.deleteDirectory(new File(InputConfiguration.get().getAbsolutePathToProjectRoot() + "/target/pit-reports"));
         } catch (Exception ignored) {
 
         }
         try {
-            String[] goals = new String[]{
-                    CMD_PIT_MUTATION_COVERAGE, //
-                    testClasses.length > 0 ?
-                            OPT_TARGET_TESTS + Arrays.stream(testClasses)
-                                    .map(DSpotUtils::ctTypeToFullQualifiedName)
-                                    .collect(Collectors.joining(",")) :
-                            "" //
-            };
-            if (this.runGoals(true, goals) != 0) {
+            final List<String> goals = new ArrayList<>();
+            goals.add(CMD_PIT_MUTATION_COVERAGE);
+            goals.add(testClasses.length > 0 ?
+                    OPT_TARGET_TESTS + Arrays.stream(testClasses)
+                            .map(DSpotUtils::ctTypeToFullQualifiedName)
+                            .collect(Collectors.joining(",")) :
+                    ""
+            );
+            // these options are not set in the generated pom, so we can give them on the command line
+            if (!excludedClasses.isEmpty()) {
+                goals.add(OPT_EXCLUDED_CLASSES + String.join(",", excludedClasses));
+                // all the mutated classes might be excluded
+                goals.add(OPT_FAIL_WHEN_NO_MUTATIONS + "false");
+            }
+            if (!excludedMethods.isEmpty()) {
+                goals.add(OPT_EXCLUDED_METHODS + String.join(",", excludedMethods));
+            }
+            if (this.runGoals(true, goals.toArray(new String[0])) != 0) {
                 throw new RuntimeException("Maven build failed! Enable verbose mode for more information (--verbose)");
             }
         } catch (Exception e) {
@@ -225,6 +250,45 @@ public class MavenAutomaticBuilder implements AutomaticBuilder {
         return mavenHome;
     }
 
+    /**
+     * @return the path to the local repository of Maven, as configured in the settings read by the runs of Maven, i.e.
+     * the user settings, then the global settings of the Maven home. By default, <code>~/.m2/repository</code>.
+     */
+    public static String getPathToLocalRepository() {
+        final InputConfiguration configuration = InputConfiguration.get();
+        return getPathToLocalRepository(System.getProperty("user.home"),
+                configuration == null ? null : configuration.getMavenHome()
+        );
+    }
+
+    public static String getPathToLocalRepository(String userHome, String mavenHome) {
+        final List<File> settings = new ArrayList<>();
+        settings.add(new File(userHome, ".m2/settings.xml"));
+        if (mavenHome != null && !mavenHome.isEmpty()) {
+            settings.add(new File(mavenHome, "conf/settings.xml"));
+        }
+        return settings.stream()
+                .filter(File::exists)
+                .map(MavenAutomaticBuilder::readLocalRepository)
+                .filter(localRepository -> localRepository != null && !localRepository.isEmpty())
+                .map(localRepository -> localRepository.replace("${user.home}", userHome))
+                .findFirst()
+                .orElse(userHome + "/.m2/repository");
+    }
+
+    private static String readLocalRepository(File settings) {
+        try {
+            final NodeList localRepository = DocumentBuilderFactory.newInstance()
+                    .newDocumentBuilder()
+                    .parse(settings)
+                    .getElementsByTagName("localRepository");
+            return localRepository.getLength() == 0 ? null : localRepository.item(0).getTextContent().trim();
+        } catch (Exception e) {
+            LOGGER.warn("Could not read the local repository from {}", settings.getAbsolutePath());
+            return null;
+        }
+    }
+
     private String getMavenHome(Predicate<String> conditional,
                                 Function<String, String> getFunction,
                                 String... possibleValues) {
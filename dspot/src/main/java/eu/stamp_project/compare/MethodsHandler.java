@@ -1,5 +1,8 @@
 package eu.stamp_project.compare;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
@@ -10,6 +13,10 @@ public class MethodsHandler {
 
     private Map<Class<?>, List<Method>> cache;
 
+    private Map<Method, MethodHandle> methodHandles;
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
     @Deprecated
     private static final List<String> forbiddenMethods;
 
@@ -54,6 +61,27 @@ public class MethodsHandler {
 
     public MethodsHandler() {
         this.cache = new HashMap<>();
+        this.methodHandles = new HashMap<>();
+    }
+
+    /**
+     * The method handle is built once per method, and then reused for each observed object.
+     *
+     * @param method a method returned by {@link #getAllMethods(Class)}
+     * @return a method handle of type (Object)Object on the given method,
+     * or null if the method cannot be accessed through a method handle, e.g. it is declared by a class that is not visible from this package.
+     */
+    public MethodHandle getMethodHandle(Method method) {
+        if (!methodHandles.containsKey(method)) {
+            MethodHandle methodHandle;
+            try {
+                methodHandle = MethodHandles.lookup().unreflect(method).asType(GETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                methodHandle = null;
+            }
+            methodHandles.put(method, methodHandle);
+        }
+        return methodHandles.get(method);
     }
 
     private boolean matchOnForbiddenPackage(String className) {
@@ -3,24 +3,23 @@ package eu.stamp_project.compare;
 
 import eu.stamp_project.testrunner.EntryPoint;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * User: Simon
@@ -31,9 +30,21 @@ public class ObjectLog {
 
     private static ObjectLog singleton;
 
+    private static final long TIME_OUT_OF_INVOCATION_IN_MS = 1000L;
+
+    /*
+        The single thread that invokes the observed methods, reused across all the observations of a test class.
+        It is replaced when an invocation times out, since it is then stuck in the observed method.
+        It is stopped by save() and reset(): the test worker loads this class once per run of the observations,
+        and a live thread would retain the class loader of the run, and thus all the classes of the project.
+     */
+    private static ExecutorService watchdog;
+
     private Map<String, Observation> observations;
     private MethodsHandler methodsHandler;
     private int maxDeep = 3;
+    private DataOutputStream observationLog; // see ObservationLog, opened at the first observation
+    private boolean observationLogOpened; // the default log is truncated the first time this instance opens it
 
     private ObjectLog() {
         this.observations = new LinkedHashMap<>();
@@ -47,8 +58,32 @@ public class ObjectLog {
         return singleton;
     }
 
+    /*
+        This method is invoked by the test worker before the test class is loaded, in a class loader that does not contain
+        the test runner: it must not resolve EntryPoint, see load().
+        Only the log set explicitly is deleted, the default one is truncated by the next ObjectLog that opens it.
+     */
     public static void reset() {
+        if (singleton != null) {
+            singleton.closeObservationLog();
+        }
         singleton = new ObjectLog();
+        discardWatchdog();
+        if (pathToObservationLog != null) {
+            new File(pathToObservationLog).delete();
+        }
+    }
+
+    /**
+     * Sets the path of the log of the observations, see {@link ObservationLog}.
+     * The instrumented test classes call this method when they are initialized, i.e. before their first observation,
+     * so the test classes amplified in parallel do not share their log.
+     */
+    public static void setPathToObservationLog(String pathToObservationLog) {
+        if (singleton != null) {
+            singleton.closeObservationLog();
+        }
+        ObjectLog.pathToObservationLog = pathToObservationLog;
     }
 
     public static void log(Object objectToObserve, String objectObservedAsString, String id) {
@@ -58,8 +93,7 @@ public class ObjectLog {
                 null,
                 objectObservedAsString,
                 id,
-                0,
-                new ArrayList<>()
+                0
         );
     }
 
@@ -68,16 +102,15 @@ public class ObjectLog {
                       Class<?> currentObservedClass,
                       String observedObjectAsString,
                       String id,
-                      int deep,
-                      List<Method> methodsToReachCurrentObject) {
+                      int deep) {
         if (deep <= maxDeep) {
             final boolean primitive = Utils.isPrimitive(objectToObserve);
             final boolean primitiveArray = Utils.isPrimitiveArray(objectToObserve);
             final boolean primitiveCollectionOrMap = Utils.isNonEmptyPrimitiveCollectionOrMap(objectToObserve);
             if (objectToObserve == null) {
                 addObservation(id, observedObjectAsString, null);
-            } else if (isSerializable(objectToObserve) &&
-                    (primitive || primitiveArray || primitiveCollectionOrMap)) {
+            } else if ((primitive || primitiveArray || primitiveCollectionOrMap) &&
+                    isSerializable(objectToObserve)) {
                 addObservation(id, observedObjectAsString, objectToObserve);
             } else if (Utils.isCollection(objectToObserve)) { // the object is empty here
                 addObservation(id, observedObjectAsString + ".isEmpty()", ((Collection) objectToObserve).isEmpty());
@@ -86,27 +119,23 @@ public class ObjectLog {
             } else if (!objectToObserve.getClass().getName().toLowerCase().contains("mock")) {
                 observeNotNullObject(
                         startingObject,
+                        objectToObserve,
                         currentObservedClass == null ? objectToObserve.getClass() : currentObservedClass,
                         observedObjectAsString,
                         id,
-                        deep,
-                        methodsToReachCurrentObject
+                        deep
                 );
             }
         }
     }
 
     public static boolean isSerializable(Object candidate) {
-        try {
-            new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(candidate);
-            return true;
-        } catch (IOException e) {
-            return false;
-        }
+        return Utils.isSerializable(candidate);
     }
 
     private void addObservation(String id, String observedObjectAsString, Object actualValue) {
-        if (isSerializable(actualValue)) {
+        final byte[] record = ObservationLog.encode(id, observedObjectAsString, actualValue);
+        if (record != null) {
             if (actualValue instanceof String &&
                     // we forbid absolute paths
                     // we allow relative paths
@@ -119,61 +148,107 @@ public class ObjectLog {
                 observations.put(id, new Observation());
             }
             observations.get(id).add(observedObjectAsString, actualValue);
+            try {
+                ObservationLog.append(getObservationLog(), record);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
         }
     }
 
-    private Object chainInvocationOfMethods(List<Method> methodsToInvoke, Object startingObject) throws FailToObserveException {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        FutureTask task = null;
-        Object currentObject = null;
-        try {
+    private DataOutputStream getObservationLog() throws IOException {
+        if (this.observationLog == null) {
+            final File log = new File(getPathToObservationLogToWrite()).getAbsoluteFile();
+            log.getParentFile().mkdirs();
+            final boolean append = pathToObservationLog != null || this.observationLogOpened;
+            this.observationLog = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(log, append)));
+            this.observationLogOpened = true;
+        }
+        return this.observationLog;
+    }
+
+    private void closeObservationLog() {
+        if (this.observationLog != null) {
             try {
-                task = new FutureTask<>(() -> methodsToInvoke.get(0).invoke(startingObject));
-                executor.execute(task);
-                currentObject = task.get(1, TimeUnit.SECONDS);
-            } catch (Exception e) {
-                throw new FailToObserveException();
-            }
-            for (int i = 1; i < methodsToInvoke.size(); i++) {
-                Method method = methodsToInvoke.get(i);
-                try {
-                    final Object finalCurrentObject = currentObject;
-                    task = new FutureTask<>(() -> method.invoke(finalCurrentObject));
-                    executor.execute(task);
-                    currentObject = task.get(1, TimeUnit.SECONDS);
-                } catch (Exception e) {
-                    throw new FailToObserveException();
-                }
-            }
-        } finally {
-            if (task != null) {
-                task.cancel(true);
+                this.observationLog.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
-            executor.shutdown();
+            this.observationLog = null;
+        }
+    }
+
+    private static synchronized ExecutorService getWatchdog() {
+        if (watchdog == null) {
+            watchdog = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "dspot-observation-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return watchdog;
+    }
+
+    private static synchronized void discardWatchdog() {
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+            watchdog = null;
+        }
+    }
+
+    /*
+        Invokes the given method on the given object, with a time out.
+        The object is the result of the previous invocations of the chain of methods,
+        i.e. each method of a chain is invoked once, whatever the number of methods that are invoked on its result.
+     */
+    private Object invoke(Method method, Object target) throws FailToObserveException {
+        final MethodHandle methodHandle = this.methodsHandler.getMethodHandle(method);
+        final Future<Object> task = getWatchdog().submit(() -> invoke(methodHandle, method, target));
+        try {
+            return task.get(TIME_OUT_OF_INVOCATION_IN_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            discardWatchdog();
+            throw new FailToObserveException();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new FailToObserveException();
+        } catch (ExecutionException e) {
+            throw new FailToObserveException();
+        }
+    }
+
+    private static Object invoke(MethodHandle methodHandle, Method method, Object target) throws Exception {
+        if (methodHandle == null) {
+            return method.invoke(target);
+        }
+        try {
+            return (Object) methodHandle.invokeExact(target);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new Exception(throwable);
         }
-        return currentObject;
     }
 
     private void observeNotNullObject(Object startingObject,
+                                      Object objectToObserve,
                                       Class<?> currentObservedClass,
                                       String stringObject,
                                       String id,
-                                      int deep,
-                                      List<Method> methodsToReachCurrentObject) {
+                                      int deep) {
         try {
             for (Method method : methodsHandler.getAllMethods(currentObservedClass)) {
                 try {
-                    final ArrayList<Method> tmpListOfMethodsToReachCurrentObject = new ArrayList<>(methodsToReachCurrentObject);
-                    tmpListOfMethodsToReachCurrentObject.add(method);
-                    final Object result = chainInvocationOfMethods(tmpListOfMethodsToReachCurrentObject, startingObject);
+                    final Object result = invoke(method, objectToObserve);
                     if (startingObject.getClass().isAnonymousClass()) {
                         _log(startingObject,
                                 result,
                                 method.getReturnType(),
                                 "(" + stringObject + ")." + method.getName() + "()",
                                 id,
-                                deep + 1,
-                                tmpListOfMethodsToReachCurrentObject
+                                deep + 1
                         );
                     } else {
                         String nameOfVisibleClass = getVisibleClass(currentObservedClass);
@@ -182,11 +257,9 @@ public class ObjectLog {
                                 method.getReturnType(),
                                 "(" + nameOfVisibleClass + stringObject + ")." + method.getName() + "()",
                                 id,
-                                deep + 1,
-                                tmpListOfMethodsToReachCurrentObject
+                                deep + 1
                         );
                     }
-                    tmpListOfMethodsToReachCurrentObject.remove(method);
                 } catch (FailToObserveException ignored) {
                     // ignored, we just do nothing...
                 }
@@ -215,37 +288,51 @@ public class ObjectLog {
         }
     }
 
-    private static final String OBSERVATIONS_PATH_FILE_NAME = "target/dspot/observations.ser";
+    private static final String OBSERVATIONS_PATH_FILE_NAME = "target/dspot/observations.bin";
+
+    private static String pathToObservationLog;
+
+    // the log is written by the test classes, relatively to the directory in which they run
+    private static String getPathToObservationLogToWrite() {
+        return pathToObservationLog != null ? pathToObservationLog : OBSERVATIONS_PATH_FILE_NAME;
+    }
 
+    /**
+     * The observations are appended to the log as they happen, this method flushes and closes the log.
+     * The log is created even if there is no observation.
+     */
     public static void save() {
-        getSingleton().observations.values().forEach(Observation::purify);
-        try (FileOutputStream fout = new FileOutputStream(OBSERVATIONS_PATH_FILE_NAME)) {
-            try (ObjectOutputStream oos = new ObjectOutputStream(fout)) {
-                oos.writeObject(getSingleton().observations);
-                System.out.println(
-                        String.format("File saved to the following path: %s",
-                                new File(OBSERVATIONS_PATH_FILE_NAME).getAbsolutePath())
-                );
-            } catch (Exception e) {
-                e.printStackTrace();
-                throw new RuntimeException(e);
-            }
-        } catch (Exception e) {
+        try {
+            getSingleton().getObservationLog();
+        } catch (IOException e) {
             e.printStackTrace();
             throw new RuntimeException(e);
         }
+        getSingleton().closeObservationLog();
+        discardWatchdog();
+        System.out.println(
+                String.format("File saved to the following path: %s",
+                        new File(getPathToObservationLogToWrite()).getAbsolutePath())
+        );
     }
 
+    // the log is read by DSpot, which knows the directory in which the test classes ran
     public static Map<String, Observation> load() {
-        try (FileInputStream fi = new FileInputStream(new File(
-                (EntryPoint.workingDirectory != null ? // in case we modified the working directory
-                        EntryPoint.workingDirectory.getAbsolutePath() + "/" : "") +
-                        OBSERVATIONS_PATH_FILE_NAME))) {
-            try (ObjectInputStream oi = new ObjectInputStream(fi)) {
-                return (Map) oi.readObject();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+        if (pathToObservationLog != null) {
+            return load(pathToObservationLog);
+        }
+        return load((EntryPoint.workingDirectory != null ? // in case we modified the working directory
+                EntryPoint.workingDirectory.getAbsolutePath() + "/" : "") +
+                OBSERVATIONS_PATH_FILE_NAME);
+    }
+
+    /**
+     * @param pathToObservationLog the log written by the instrumented test classes, see {@link #setPathToObservationLog(String)}
+     * @return the observations of the given log
+     */
+    public static Map<String, Observation> load(String pathToObservationLog) {
+        try {
+            return ObservationLog.read(new File(pathToObservationLog));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
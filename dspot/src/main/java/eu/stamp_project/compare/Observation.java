@@ -43,6 +43,23 @@ public class Observation implements Serializable {
         }
     }
 
+    /**
+     * Adds the values observed by another execution of the same observation point.
+     *
+     * @param other the observation of another execution
+     * @return true if the other execution agrees with the previous ones, i.e. it observed the same expressions,
+     * with the same values, and it did not reveal any new non-deterministic value.
+     */
+    public boolean merge(Observation other) {
+        final boolean sameObservedExpressions = this.observationValues.keySet().equals(other.observationValues.keySet());
+        final int numberOfNotDeterministValues = this.notDeterministValues.size();
+        this.notDeterministValues.addAll(other.notDeterministValues);
+        for (String observedExpression : other.observationValues.keySet()) {
+            this.add(observedExpression, other.observationValues.get(observedExpression));
+        }
+        return sameObservedExpressions && numberOfNotDeterministValues == this.notDeterministValues.size();
+    }
+
     protected boolean equals(Object o1, Object o2) {
         boolean isArray1 = o1.getClass().isArray();
         boolean isArray2 = o2.getClass().isArray();
@@ -86,22 +103,6 @@ public class Observation implements Serializable {
         }
     }
 
-    public void purify() {
-        List<String> keysToBeRemoved = new ArrayList<>();
-        for (String key : this.observationValues.keySet()) {
-            try {
-                if (!ObjectLog.isSerializable(this.observationValues.get(key))) {
-                    keysToBeRemoved.add(key);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                keysToBeRemoved.add(key);
-                continue;
-            }
-        }
-        keysToBeRemoved.forEach(this.observationValues::remove);
-    }
-
     public Set<String> getNotDeterministValues() {
         return notDeterministValues;
     }
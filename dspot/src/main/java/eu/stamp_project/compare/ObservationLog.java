@@ -0,0 +1,318 @@
+package eu.stamp_project.compare;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The binary format of the observations, written by the instrumented tests and read by DSpot.
+ * The log is a stream of length-prefixed records, one record per observation: the id of the observation point,
+ * the observed expression, and the observed value. The instrumented tests append the records as the observations
+ * happen, and DSpot replays them through {@link Observation#add(String, Object)}, without any Java serialization.
+ *
+ * The supported values are null, the primitives, their wrappers and strings, the arrays of them,
+ * and the collections and maps of supported values, see {@link Utils}.
+ */
+public class ObservationLog {
+
+    private static final byte NULL = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte BYTE = 2;
+    private static final byte SHORT = 3;
+    private static final byte INT = 4;
+    private static final byte LONG = 5;
+    private static final byte FLOAT = 6;
+    private static final byte DOUBLE = 7;
+    private static final byte CHAR = 8;
+    private static final byte STRING = 9;
+    private static final byte PRIMITIVE_ARRAY = 10;
+    private static final byte WRAPPER_ARRAY = 11;
+    private static final byte LIST = 12;
+    private static final byte SET = 13;
+    private static final byte MAP = 14;
+
+    /**
+     * @param id                     the id of the observation point
+     * @param observedObjectAsString the observed expression
+     * @param value                  the observed value
+     * @return the record of the given observation, or null if the given value is not supported
+     */
+    public static byte[] encode(String id, String observedObjectAsString, Object value) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            writeString(out, id);
+            writeString(out, observedObjectAsString);
+            if (!writeValue(out, value)) {
+                return null;
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Appends the given record, prefixed by its length, to the given log.
+     */
+    public static void append(DataOutputStream log, byte[] record) throws IOException {
+        log.writeInt(record.length);
+        log.write(record);
+    }
+
+    /**
+     * Reads the given log, record by record.
+     * A truncated record at the end of the log, e.g. if the instrumented tests have been killed, is ignored.
+     *
+     * @param log the log written by the instrumented tests
+     * @return the observations, indexed by the id of their observation point
+     */
+    public static Map<String, Observation> read(File log) throws IOException {
+        final Map<String, Observation> observations = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(log)))) {
+            while (true) {
+                final byte[] record;
+                try {
+                    record = new byte[in.readInt()];
+                    in.readFully(record);
+                } catch (EOFException endOfLog) {
+                    return observations;
+                }
+                final DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record));
+                final String id = readString(recordIn);
+                final String observedObjectAsString = readString(recordIn);
+                final Object value = readValue(recordIn);
+                if (!observations.containsKey(id)) {
+                    observations.put(id, new Observation());
+                }
+                observations.get(id).add(observedObjectAsString, value);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return true;
+        }
+        final byte tag = tagOf(value.getClass());
+        if (tag != NULL) {
+            out.writeByte(tag);
+            writeScalar(out, tag, value);
+            return true;
+        } else if (value.getClass().isArray()) {
+            final Class<?> componentType = value.getClass().getComponentType();
+            final byte componentTag = tagOf(componentType);
+            if (componentTag == NULL) {
+                return false;
+            }
+            final int length = Array.getLength(value);
+            out.writeByte(componentType.isPrimitive() ? PRIMITIVE_ARRAY : WRAPPER_ARRAY);
+            out.writeByte(componentTag);
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                final Object element = Array.get(value, i);
+                if (componentType.isPrimitive()) {
+                    writeScalar(out, componentTag, element);
+                } else {
+                    writeValue(out, element);
+                }
+            }
+            return true;
+        } else if (value instanceof Collection) {
+            final Collection<?> collection = (Collection<?>) value;
+            out.writeByte(value instanceof Set ? SET : LIST);
+            out.writeInt(collection.size());
+            for (Object element : collection) {
+                if (!writeValue(out, element)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (value instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!writeValue(out, entry.getKey()) || !writeValue(out, entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    // returns NULL if the given type is not a primitive, a wrapper or a string
+    private static byte tagOf(Class<?> type) {
+        if (type == boolean.class || type == Boolean.class) {
+            return BOOLEAN;
+        } else if (type == byte.class || type == Byte.class) {
+            return BYTE;
+        } else if (type == short.class || type == Short.class) {
+            return SHORT;
+        } else if (type == int.class || type == Integer.class) {
+            return INT;
+        } else if (type == long.class || type == Long.class) {
+            return LONG;
+        } else if (type == float.class || type == Float.class) {
+            return FLOAT;
+        } else if (type == double.class || type == Double.class) {
+            return DOUBLE;
+        } else if (type == char.class || type == Character.class) {
+            return CHAR;
+        } else if (type == String.class) {
+            return STRING;
+        } else {
+            return NULL;
+        }
+    }
+
+    private static void writeScalar(DataOutputStream out, byte tag, Object value) throws IOException {
+        switch (tag) {
+            case BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case BYTE:
+                out.writeByte((Byte) value);
+                break;
+            case SHORT:
+                out.writeShort((Short) value);
+                break;
+            case INT:
+                out.writeInt((Integer) value);
+                break;
+            case LONG:
+                out.writeLong((Long) value);
+                break;
+            case FLOAT:
+                out.writeFloat((Float) value);
+                break;
+            case DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case CHAR:
+                out.writeChar((Character) value);
+                break;
+            default:
+                writeString(out, (String) value);
+        }
+    }
+
+    private static Object readScalar(DataInputStream in, byte tag) throws IOException {
+        switch (tag) {
+            case BOOLEAN:
+                return in.readBoolean();
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case CHAR:
+                return in.readChar();
+            case STRING:
+                return readString(in);
+            default:
+                throw new IOException("Unknown tag " + tag);
+        }
+    }
+
+    private static Class<?> typeOf(byte tag, boolean primitive) throws IOException {
+        switch (tag) {
+            case BOOLEAN:
+                return primitive ? boolean.class : Boolean.class;
+            case BYTE:
+                return primitive ? byte.class : Byte.class;
+            case SHORT:
+                return primitive ? short.class : Short.class;
+            case INT:
+                return primitive ? int.class : Integer.class;
+            case LONG:
+                return primitive ? long.class : Long.class;
+            case FLOAT:
+                return primitive ? float.class : Float.class;
+            case DOUBLE:
+                return primitive ? double.class : Double.class;
+            case CHAR:
+                return primitive ? char.class : Character.class;
+            case STRING:
+                return String.class;
+            default:
+                throw new IOException("Unknown component tag " + tag);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case PRIMITIVE_ARRAY:
+            case WRAPPER_ARRAY: {
+                final boolean primitive = tag == PRIMITIVE_ARRAY;
+                final byte componentTag = in.readByte();
+                final int length = in.readInt();
+                final Object array = Array.newInstance(typeOf(componentTag, primitive), length);
+                for (int i = 0; i < length; i++) {
+                    Array.set(array, i, primitive ? readScalar(in, componentTag) : readValue(in));
+                }
+                return array;
+            }
+            case LIST:
+            case SET: {
+                final int size = in.readInt();
+                final Collection<Object> collection = tag == LIST ? new ArrayList<>(size) : new LinkedHashSet<>();
+                for (int i = 0; i < size; i++) {
+                    collection.add(readValue(in));
+                }
+                return collection;
+            }
+            case MAP: {
+                final int size = in.readInt();
+                final Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    final Object key = readValue(in);
+                    map.put(key, readValue(in));
+                }
+                return map;
+            }
+            default:
+                return readScalar(in, tag);
+        }
+    }
+}
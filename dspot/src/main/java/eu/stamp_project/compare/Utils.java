@@ -1,6 +1,11 @@
 package eu.stamp_project.compare;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * User: Simon
@@ -11,6 +16,108 @@ public class Utils {
 
     protected static Set<Class<?>> WRAPPER_TYPES = getWrapperTypes();
 
+    // the verdicts that can be given only by looking at the class of a value
+    private static final int SERIALIZABLE = 0;
+    private static final int NOT_SERIALIZABLE = 1;
+    private static final int CONTAINER = 2; // collections, maps and arrays of objects: it depends on their elements
+    private static final int UNKNOWN = 3; // it depends on the values of the fields
+
+    private static final Map<Class<?>, Integer> VERDICT_OF_CLASS = new ConcurrentHashMap<>();
+
+    // above these bounds, we fall back on the serialization of the value
+    private static final int MAX_NUMBER_OF_ELEMENTS_TO_CHECK = 1000;
+    private static final int MAX_DEPTH_TO_CHECK = 3;
+
+    /**
+     * Checks if the given value can be serialized, without serializing it when possible.
+     * The verdict is given by the class of the value, and cached per class, e.g. primitives, wrappers, strings, enums
+     * and arrays of primitives are serializable, and classes that do not implement {@link Serializable} are not.
+     * The elements of collections, maps and arrays of objects are checked as well, up to a bound.
+     * Other values, and values beyond the bounds, are actually serialized.
+     *
+     * @param value the value to check
+     * @return true if the given value can be serialized.
+     */
+    public static boolean isSerializable(Object value) {
+        return isSerializable(value, 0);
+    }
+
+    private static boolean isSerializable(Object value, int depth) {
+        if (value == null) {
+            return true;
+        }
+        switch (VERDICT_OF_CLASS.computeIfAbsent(value.getClass(), Utils::getVerdictOfClass)) {
+            case SERIALIZABLE:
+                return true;
+            case NOT_SERIALIZABLE:
+                return false;
+            case CONTAINER:
+                return depth < MAX_DEPTH_TO_CHECK ? areElementsSerializable(value, depth) : serialize(value);
+            default:
+                return serialize(value);
+        }
+    }
+
+    private static int getVerdictOfClass(Class<?> clazz) {
+        if (isPrimitive(clazz) || clazz.isEnum() ||
+                (clazz.isArray() && clazz.getComponentType().isPrimitive())) {
+            return SERIALIZABLE;
+        } else if (clazz.isArray()) {
+            return CONTAINER;
+        } else if (!Serializable.class.isAssignableFrom(clazz)) {
+            return NOT_SERIALIZABLE;
+        } else if ((Collection.class.isAssignableFrom(clazz) || Map.class.isAssignableFrom(clazz)) &&
+                clazz.getName().startsWith("java.")) {
+            // we trust only the collections and maps of the JDK to have no other state than their elements and comparator
+            return CONTAINER;
+        } else {
+            return UNKNOWN;
+        }
+    }
+
+    private static boolean areElementsSerializable(Object container, int depth) {
+        final Collection<?> elements;
+        if (container instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) container;
+            if (map.size() > MAX_NUMBER_OF_ELEMENTS_TO_CHECK ||
+                    (map instanceof SortedMap && !isSerializable(((SortedMap<?, ?>) map).comparator(), depth + 1))) {
+                return serialize(container);
+            }
+            elements = map.entrySet();
+        } else if (container instanceof Collection) {
+            elements = (Collection<?>) container;
+            if (elements.size() > MAX_NUMBER_OF_ELEMENTS_TO_CHECK ||
+                    (elements instanceof SortedSet && !isSerializable(((SortedSet<?>) elements).comparator(), depth + 1))) {
+                return serialize(container);
+            }
+        } else {
+            elements = Arrays.asList((Object[]) container);
+            if (elements.size() > MAX_NUMBER_OF_ELEMENTS_TO_CHECK) {
+                return serialize(container);
+            }
+        }
+        for (Object element : elements) {
+            if (element instanceof Map.Entry) {
+                if (!isSerializable(((Map.Entry<?, ?>) element).getKey(), depth + 1) ||
+                        !isSerializable(((Map.Entry<?, ?>) element).getValue(), depth + 1)) {
+                    return false;
+                }
+            } else if (!isSerializable(element, depth + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean serialize(Object value) {
+        try {
+            new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(value);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     public static boolean isNonEmptyPrimitiveCollectionOrMap(Object collectionOrMap) {
         try {
             return collectionOrMap != null &&
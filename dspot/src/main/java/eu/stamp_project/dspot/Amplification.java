@@ -6,7 +6,6 @@ import eu.stamp_project.dspot.assertgenerator.AssertGenerator;
 import eu.stamp_project.dspot.budget.Budgetizer;
 import eu.stamp_project.dspot.selector.TestSelector;
 import eu.stamp_project.test_framework.TestFramework;
-import eu.stamp_project.testrunner.EntryPoint;
 import eu.stamp_project.utils.program.InputConfiguration;
 import eu.stamp_project.utils.compilation.DSpotCompiler;
 import eu.stamp_project.utils.compilation.TestCompiler;
@@ -82,7 +81,6 @@ public class Amplification {
         // the user should provide whether JUnit3/4 OR JUnit5 but not both at the same time.
         // TODO DSpot could be able to switch from one to another version of JUnit, but I believe that the ROI is not worth it.
         final boolean jUnit5 = TestFramework.isJUnit5(tests.get(0));
-        EntryPoint.jUnit5Mode = jUnit5;
         InputConfiguration.get().setJUnit5(jUnit5);
         if (!this.testSelector.init()) {
             return;
@@ -0,0 +1,138 @@
+package eu.stamp_project.dspot;
+
+import eu.stamp_project.dspot.amplifier.Amplifier;
+import eu.stamp_project.dspot.budget.Budgetizer;
+import eu.stamp_project.dspot.selector.TestSelector;
+import eu.stamp_project.utils.Counter;
+import eu.stamp_project.utils.TestMethodLineage;
+import eu.stamp_project.utils.compilation.DSpotCompiler;
+import eu.stamp_project.utils.execution.worker.TestWorkerClient;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Holds everything that is specific to the amplification of one test class: the compiler (and thus its own directory
+ * of temporary sources), the amplifiers, the test selector, the budgetizer and the lineage of the
+ * test methods, with their counters. The test worker of the context, if any, is stopped at the end of {@link #run(Callable, int)},
+ * see {@link TestWorkerClient}.
+ *
+ * When test classes are amplified in parallel (see {@link eu.stamp_project.utils.program.InputConfiguration#getNbParallelClasses()}),
+ * each test class is amplified inside {@link #run(Callable, int)}, i.e. by threads that are bound to its context.
+ * The static accessors used across DSpot, such as {@link Counter} or {@link DSpotCompiler#getPathToAmplifiedTestSrc()},
+ * rely on {@link #current()} to use the right context.
+ * The contexts share the Spoon model, so the types are added to the model, and the model is scanned, only while
+ * holding {@link #MODEL_LOCK}.
+ */
+public class AmplificationContext {
+
+    private static final ThreadLocal<AmplificationContext> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The lock of the Spoon model: the packages of the model are not thread-safe, and a type added to a package by a
+     * context must not be seen half-added by another context scanning the model.
+     */
+    public static final Object MODEL_LOCK = new Object();
+
+    /**
+     * @return the context bound to the current thread, or null if there is none, i.e. the amplification is sequential.
+     */
+    public static AmplificationContext current() {
+        return CURRENT.get();
+    }
+
+    private final DSpotCompiler compiler;
+
+    private final List<Amplifier> amplifiers;
+
+    private final TestSelector testSelector;
+
+    private final Budgetizer budgetizer;
+
+    private final TestMethodLineage lineage;
+
+    private boolean jUnit5;
+
+    public AmplificationContext(DSpotCompiler compiler,
+                                List<Amplifier> amplifiers,
+                                TestSelector testSelector,
+                                Budgetizer budgetizer) {
+        this.compiler = compiler;
+        this.amplifiers = amplifiers;
+        this.testSelector = testSelector;
+        this.budgetizer = budgetizer;
+        this.lineage = new TestMethodLineage();
+    }
+
+    public DSpotCompiler getCompiler() {
+        return compiler;
+    }
+
+    public List<Amplifier> getAmplifiers() {
+        return amplifiers;
+    }
+
+    public TestSelector getTestSelector() {
+        return testSelector;
+    }
+
+    public Budgetizer getBudgetizer() {
+        return budgetizer;
+    }
+
+    public TestMethodLineage getLineage() {
+        return lineage;
+    }
+
+    /**
+     * @return true if the test class of this context is a JUnit5 test class, see {@link eu.stamp_project.utils.program.InputConfiguration#isJUnit5()}
+     */
+    public boolean isJUnit5() {
+        return jUnit5;
+    }
+
+    public void setJUnit5(boolean jUnit5) {
+        this.jUnit5 = jUnit5;
+    }
+
+    /**
+     * Runs the given task in a dedicated {@link ForkJoinPool}, whose threads are all bound to this context.
+     * Parallel streams used during the amplification, e.g. by the budgetizers, are executed by this pool too,
+     * and thus see this context as well.
+     *
+     * @param task        the task to run, typically the amplification of one test class
+     * @param parallelism the number of threads of the dedicated pool
+     * @return the result of the task
+     */
+    public <T> T run(Callable<T> task, int parallelism) {
+        final ForkJoinPool pool = new ForkJoinPool(
+                Math.max(1, parallelism),
+                forkJoinPool -> new ForkJoinWorkerThread(forkJoinPool) {
+                    @Override
+                    protected void onStart() {
+                        super.onStart();
+                        CURRENT.set(AmplificationContext.this);
+                    }
+                },
+                null,
+                false
+        );
+        try {
+            return pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+            TestWorkerClient.stop(this);
+        }
+    }
+}
@@ -4,7 +4,9 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import eu.stamp_project.Main;
 import eu.stamp_project.dspot.amplifier.Amplifier;
+import eu.stamp_project.dspot.amplifier.value.ModelIndex;
 import eu.stamp_project.dspot.budget.Budgetizer;
+import eu.stamp_project.dspot.selector.ChangeDetectorSelector;
 import eu.stamp_project.dspot.selector.PitMutantScoreSelector;
 import eu.stamp_project.dspot.selector.TestSelector;
 import eu.stamp_project.test_framework.TestFramework;
@@ -26,6 +28,10 @@ import spoon.reflect.declaration.CtType;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -48,6 +54,8 @@ public class DSpot {
 
     private Budgetizer budgetizer;
 
+    private BudgetizerEnum budgetizerEnum;
+
     private DSpotCompiler compiler;
 
     private ProjectTimeJSON projectTimeJSON;
@@ -105,6 +113,7 @@ public class DSpot {
         } else {
             this.projectTimeJSON = new ProjectTimeJSON(splittedPath[splittedPath.length - 1]);
         }
+        this.budgetizerEnum = budgetizer;
         this.budgetizer = budgetizer.getBudgetizer(this.amplifiers);
     }
 
@@ -250,43 +259,126 @@ public class DSpot {
         final List<CtType<?>> testClassesToBeAmplifiedModel = testClassesToBeAmplified.stream()
                 .flatMap(this::findTestClasses)
                 .collect(Collectors.toList());
-        return testClassesToBeAmplifiedModel.stream()
-                .map(ctType ->
-                        this._amplify(ctType, this.buildListOfTestMethodsToBeAmplified(ctType, testMethods))
-                ).collect(Collectors.toList());
+        return this._amplifyTestClasses(testClassesToBeAmplifiedModel,
+                ctType -> this.buildListOfTestMethodsToBeAmplified(ctType, testMethods)
+        );
     }
 
     private List<CtType<?>> _amplifyTestClasses(List<CtType<?>> testClassesToBeAmplified) {
-        return testClassesToBeAmplified.stream()
-                .map(this::_amplifyTestClass)
-                .collect(Collectors.toList());
+        return this._amplifyTestClasses(testClassesToBeAmplified, TestFramework::getAllTest);
     }
 
-    private CtType<?> _amplifyTestClass(CtType<?> test) {
-        return this._amplify(test, TestFramework.getAllTest(test));
+    private List<CtType<?>> _amplifyTestClasses(List<CtType<?>> testClassesToBeAmplified,
+                                                Function<CtType<?>, List<CtMethod<?>>> testMethodsToBeAmplified) {
+        final int nbParallelClasses = InputConfiguration.get().getNbParallelClasses();
+        if (nbParallelClasses <= 1 || testClassesToBeAmplified.size() <= 1 || !this.canAmplifyInParallel()) {
+            return testClassesToBeAmplified.stream()
+                    .map(ctType -> this._amplify(ctType, testMethodsToBeAmplified.apply(ctType)))
+                    .collect(Collectors.toList());
+        }
+        LOGGER.info("Amplification of {} test classes, {} at the same time.", testClassesToBeAmplified.size(), nbParallelClasses);
+        final int parallelismPerTestClass = Math.max(1, Runtime.getRuntime().availableProcessors() / nbParallelClasses);
+        ModelIndex.of(InputConfiguration.get().getFactory()).build();
+        final ExecutorService executor = Executors.newFixedThreadPool(nbParallelClasses);
+        try {
+            final List<Future<CtType<?>>> amplifications = testClassesToBeAmplified.stream()
+                    .map(ctType -> executor.submit(() ->
+                            this.createAmplificationContext(ctType).run(
+                                    () -> this._amplify(ctType, testMethodsToBeAmplified.apply(ctType)),
+                                    parallelismPerTestClass
+                            )
+                    )).collect(Collectors.toList());
+            final List<CtType<?>> amplifiedTestClasses = new ArrayList<>();
+            for (Future<CtType<?>> amplification : amplifications) {
+                amplifiedTestClasses.add(amplification.get());
+            }
+            return amplifiedTestClasses;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test classes can be amplified in parallel only if each of them can have its own copy of the test selector and of
+     * the amplifiers, see {@link TestSelector#copy()} and {@link Amplifier#copy()}, and if the test selector does not
+     * rely on the build tool, i.e. Maven or Gradle, which works on the shared directory of the project.
+     */
+    private boolean canAmplifyInParallel() {
+        if (this.testSelector instanceof PitMutantScoreSelector || this.testSelector instanceof ChangeDetectorSelector) {
+            LOGGER.warn("{} does not support parallel amplification, test classes will be amplified one by one.",
+                    this.testSelector.getClass().getSimpleName());
+            return false;
+        }
+        if (!isCopyOf(this.testSelector.copy(), this.testSelector)) {
+            LOGGER.warn("{} cannot be copied, see TestSelector#copy(), test classes will be amplified one by one.",
+                    this.testSelector.getClass().getSimpleName());
+            return false;
+        }
+        for (Amplifier amplifier : this.amplifiers) {
+            if (!isCopyOf(amplifier.copy(), amplifier)) {
+                LOGGER.warn("{} cannot be copied, see Amplifier#copy(), test classes will be amplified one by one.",
+                        amplifier.getClass().getSimpleName());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // a copy inherited from a super class would be an instance of the super class, without the behavior of the original
+    private static boolean isCopyOf(Object copy, Object original) {
+        return copy != null && copy != original && copy.getClass() == original.getClass();
+    }
+
+    private AmplificationContext createAmplificationContext(CtType<?> testClass) {
+        final List<Amplifier> amplifiers = this.amplifiers.stream()
+                .map(Amplifier::copy)
+                .collect(Collectors.toList());
+        return new AmplificationContext(
+                this.compiler.createCompilerForTestClass(InputConfiguration.get(), testClass.getQualifiedName()),
+                amplifiers,
+                this.testSelector.copy(),
+                this.budgetizerEnum.getBudgetizer(amplifiers)
+        );
     }
 
     protected CtType<?> _amplify(CtType<?> test, List<CtMethod<?>> methods) {
         Counter.reset();
-        Amplification testAmplification = new Amplification(this.compiler, this.amplifiers, this.testSelector, this.budgetizer);
+        final AmplificationContext context = AmplificationContext.current();
+        final DSpotCompiler compiler = context == null ? this.compiler : context.getCompiler();
+        final TestSelector testSelector = context == null ? this.testSelector : context.getTestSelector();
+        Amplification testAmplification = new Amplification(compiler,
+                context == null ? this.amplifiers : context.getAmplifiers(),
+                testSelector,
+                context == null ? this.budgetizer : context.getBudgetizer()
+        );
         final List<CtMethod<?>> filteredTestCases = this.filterTestCases(methods);
         long time = System.currentTimeMillis();
         testAmplification.amplification(test, filteredTestCases, numberOfIterations);
         final long elapsedTime = System.currentTimeMillis() - time;
         LOGGER.info("elapsedTime {}", elapsedTime);
-        this.projectTimeJSON.add(new ClassTimeJSON(test.getQualifiedName(), elapsedTime));
+        synchronized (this.projectTimeJSON) {
+            this.projectTimeJSON.add(new ClassTimeJSON(test.getQualifiedName(), elapsedTime));
+        }
         final CtType clone = test.clone();
-        test.getPackage().addType(clone);
+        synchronized (AmplificationContext.MODEL_LOCK) {
+            test.getPackage().addType(clone);
+        }
+        if (InputConfiguration.get().shouldUseGreedySelection()) {
+            testSelector.keepCoveringSubset();
+        }
         final CtType<?> amplification = AmplificationHelper.createAmplifiedTest(testSelector.getAmplifiedTestCases(), clone);
         final File outputDirectory = new File(InputConfiguration.get().getOutputDirectory());
 
         //Optimization: this object is not required anymore
         //and holds a dictionary with large number of cloned CtMethods.
         testAmplification = null;
-        //Optimization: this.testSelector.getAmplifiedTestCases() also holds a large number of cloned CtMethods,
-        //but it is clear before iterating again for next test class
-        LOGGER.debug("OPTIMIZATION: GC invoked");
-        System.gc(); //Optimization: cleaning up heap before printing the amplified class
+        //this.testSelector.getAmplifiedTestCases() holds the cloned CtMethods that are kept,
+        //the variants that have not been selected have never been cloned, see TestMethodVariant
         if (!testSelector.getAmplifiedTestCases().isEmpty()) {
             Main.GLOBAL_REPORT.addNumberAmplifiedTestMethodsToTotal(testSelector.getAmplifiedTestCases().size());
             Main.GLOBAL_REPORT.addPrintedTestClasses(
@@ -354,10 +446,12 @@ public class DSpot {
         Gson gson = new GsonBuilder().setPrettyPrinting().create();
         final File file = new File(InputConfiguration.get().getOutputDirectory() +
                 "/" + this.projectTimeJSON.projectName + ".json");
-        try (FileWriter writer = new FileWriter(file, false)) {
-            writer.write(gson.toJson(this.projectTimeJSON));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        synchronized (this.projectTimeJSON) {
+            try (FileWriter writer = new FileWriter(file, false)) {
+                writer.write(gson.toJson(this.projectTimeJSON));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
         }
     }
 }
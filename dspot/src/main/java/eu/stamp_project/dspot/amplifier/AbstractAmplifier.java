@@ -88,6 +88,15 @@ public abstract class AbstractAmplifier<T extends CtElement> implements Amplifie
 
     @Override
     public Stream<CtMethod<?>> amplify(CtMethod<?> testMethod, int iteration) {
+        return this.amplifyLazily(testMethod, iteration).map(TestMethodVariant::materialize);
+    }
+
+    /**
+     * The variants are the pairs of an original element and of an amplified element,
+     * the test method is cloned when a variant is materialized, see {@link #replace(CtElement, CtElement, CtMethod)}.
+     */
+    @Override
+    public Stream<TestMethodVariant> amplifyLazily(CtMethod<?> testMethod, int iteration) {
         List<T> originals = this.getOriginals(testMethod);
         List<T> reducedOriginals = this.reduceAlreadyAmplifiedElements(originals);
         return reducedOriginals.stream()
@@ -97,7 +106,7 @@ public abstract class AbstractAmplifier<T extends CtElement> implements Amplifie
                 ).flatMap(original ->
                         this.amplify(original, testMethod)
                                 .stream()
-                                .map(amplified -> this.replace(original, amplified, testMethod))
+                                .map(amplified -> TestMethodVariant.of(() -> this.replace(original, amplified, testMethod)))
                 );
     }
 }
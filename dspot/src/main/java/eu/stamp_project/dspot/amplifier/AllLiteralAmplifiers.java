@@ -30,8 +30,18 @@ public class AllLiteralAmplifiers implements Amplifier {
         return this.literalAmplifiers.stream().flatMap(amplifier -> amplifier.amplify(testMethod, 0));
     }
 
+    @Override
+    public Stream<TestMethodVariant> amplifyLazily(CtMethod<?> testMethod, int iteration) {
+        return this.literalAmplifiers.stream().flatMap(amplifier -> amplifier.amplifyLazily(testMethod, 0));
+    }
+
     @Override
     public void reset(CtType testClass) {
         this.literalAmplifiers.forEach(amplifier -> amplifier.reset(testClass));
     }
+
+    @Override
+    public Amplifier copy() {
+        return new AllLiteralAmplifiers();
+    }
 }
@@ -22,6 +22,27 @@ public interface Amplifier {
      */
     Stream<CtMethod<?>> amplify(CtMethod<?> testMethod, int iteration);
 
+    /**
+     * Input amplify lazily the given test method. The resulting stream contains all the variants of the test method,
+     * and the amplified test methods are built only when the variants are materialized, see {@link TestMethodVariant}.
+     * By default, the amplified test methods are built by {@link #amplify(CtMethod, int)}, i.e. when the stream is consumed.
+     * @param testMethod to be amplified
+     * @param iteration of the main loop of DSpot
+     * @return all the variants of the test method
+     */
+    default Stream<TestMethodVariant> amplifyLazily(CtMethod<?> testMethod, int iteration) {
+        return this.amplify(testMethod, iteration).map(amplifiedTestMethod -> TestMethodVariant.of(amplifiedTestMethod));
+    }
+
     void reset(CtType<?> testClass);
 
+    /**
+     * @return a new amplifier, with the same configuration as this one, to amplify another test class in parallel,
+     * see {@link eu.stamp_project.dspot.AmplificationContext}. By default, null, i.e. this amplifier cannot be copied,
+     * and the test classes are amplified one by one.
+     */
+    default Amplifier copy() {
+        return null;
+    }
+
 }
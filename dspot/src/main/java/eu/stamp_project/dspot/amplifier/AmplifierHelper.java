@@ -1,7 +1,7 @@
 package eu.stamp_project.dspot.amplifier;
 
+import eu.stamp_project.dspot.amplifier.value.ModelIndex;
 import eu.stamp_project.dspot.amplifier.value.ValueCreator;
-import eu.stamp_project.dspot.amplifier.value.ValueCreatorHelper;
 import eu.stamp_project.utils.CloneHelper;
 import eu.stamp_project.utils.RandomHelper;
 import spoon.reflect.code.CtBlock;
@@ -14,7 +14,6 @@ import spoon.reflect.code.CtStatementList;
 import spoon.reflect.declaration.CtElement;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtParameter;
-import spoon.reflect.declaration.ModifierKind;
 import spoon.reflect.factory.Factory;
 import spoon.reflect.reference.CtLocalVariableReference;
 import spoon.reflect.reference.CtTypeReference;
@@ -23,7 +22,6 @@ import spoon.reflect.visitor.filter.TypeFilter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Created by Benjamin DANGLOT
@@ -49,19 +47,7 @@ public class AmplifierHelper {
         if (type == null || type.getTypeDeclaration() == null) {
             return Collections.emptyList();
         } else {
-            return type.getTypeDeclaration().getMethods().stream()
-                    .filter(method -> method.getModifiers().contains(ModifierKind.PUBLIC)) // TODO checks this predicate
-                    // TODO we could also access to method with default or protected modifiers
-                    .filter(method -> !method.getModifiers().contains(ModifierKind.STATIC)) // TODO checks this predicate
-                    // TODO we can't amplify test on full static classes with this predicate
-                    .filter(method -> !method.getModifiers().contains(ModifierKind.ABSTRACT)) // TODO checks this predicate
-                    // TODO maybe we would like to call of abstract method, since the abstract would be implemented
-                    // TODO inherited classes. However, the semantic of the test to be amplified may be to test the abstract class
-                    .filter(method -> method.getParameters()
-                            .stream()
-                            .map(CtParameter::getType)
-                            .allMatch(ValueCreatorHelper::canGenerateAValueForType)
-                    ).collect(Collectors.toList());
+            return ModelIndex.of(type.getFactory()).getCallableMethodsOf(type.getTypeDeclaration());
         }
     }
 
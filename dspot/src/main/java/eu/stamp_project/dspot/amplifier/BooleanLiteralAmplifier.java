@@ -23,4 +23,9 @@ public class BooleanLiteralAmplifier extends AbstractLiteralAmplifier<Boolean> {
     protected Class<?> getTargetedClass() {
         return Boolean.class;
     }
+
+    @Override
+    public Amplifier copy() {
+        return new BooleanLiteralAmplifier();
+    }
 }
@@ -35,4 +35,9 @@ public class CharLiteralAmplifier extends AbstractLiteralAmplifier<Character> {
     protected Class<?> getTargetedClass() {
         return Character.class;
     }
+
+    @Override
+    public Amplifier copy() {
+        return new CharLiteralAmplifier();
+    }
 }
@@ -23,8 +23,17 @@ public abstract class DecoratorAmplifier implements Amplifier {
         return this.internalAmplifier.amplify(testMethod, 0);
     }
 
+    @Override
+    public Stream<TestMethodVariant> amplifyLazily(CtMethod<?> testMethod, int iteration) {
+        return this.internalAmplifier.amplifyLazily(testMethod, 0);
+    }
+
     @Override
     public void reset(CtType testClass) {
         this.internalAmplifier.reset(testClass);
     }
+
+    protected Amplifier getInternalAmplifier() {
+        return this.internalAmplifier;
+    }
 }
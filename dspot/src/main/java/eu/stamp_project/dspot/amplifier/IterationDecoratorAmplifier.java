@@ -33,4 +33,22 @@ public class IterationDecoratorAmplifier extends DecoratorAmplifier {
             return Stream.empty();
         }
     }
+
+    @Override
+    public Stream<TestMethodVariant> amplifyLazily(CtMethod<?> testMethod, int iteration) {
+        if (iteration % this.frequency == 0) {
+            return super.amplifyLazily(testMethod, iteration);
+        } else {
+            return Stream.empty();
+        }
+    }
+
+    @Override
+    public Amplifier copy() {
+        final Amplifier copyOfInternalAmplifier = this.getInternalAmplifier().copy();
+        if (copyOfInternalAmplifier == null || copyOfInternalAmplifier.getClass() != this.getInternalAmplifier().getClass()) {
+            return null;
+        }
+        return new IterationDecoratorAmplifier(copyOfInternalAmplifier, this.frequency);
+    }
 }
@@ -24,6 +24,11 @@ public class MethodGeneratorAmplifier implements Amplifier {
 
     @Override
     public Stream<CtMethod<?>> amplify(CtMethod<?> testMethod, int iteration) {
+        return this.amplifyLazily(testMethod, iteration).map(TestMethodVariant::materialize);
+    }
+
+    @Override
+    public Stream<TestMethodVariant> amplifyLazily(CtMethod<?> testMethod, int iteration) {
         List<CtLocalVariable<?>> existingObjects = getExistingObjects(testMethod);
         return existingObjects.stream()
                 .flatMap(existingObject -> AmplifierHelper.findMethodsWithTargetType(existingObject.getType()).stream()
@@ -35,16 +40,15 @@ public class MethodGeneratorAmplifier implements Amplifier {
                                 .stream()
                                 .map(CtParameter::getType)
                                 .allMatch(ValueCreatorHelper::canGenerateAValueForType)
-                        ).map(methodToBeAdd ->
-                                AmplifierHelper.addInvocation(testMethod,
-                                        methodToBeAdd,
-                                        AmplifierHelper.createLocalVarRef(existingObject),
-                                        existingObject,
-                                        "_mg")
-                        ).map(amplifiedTestMethod -> {
+                        ).map(methodToBeAdd -> TestMethodVariant.of(() -> {
+                                    final CtMethod<?> amplifiedTestMethod = AmplifierHelper.addInvocation(testMethod,
+                                            methodToBeAdd,
+                                            AmplifierHelper.createLocalVarRef(existingObject),
+                                            existingObject,
+                                            "_mg");
                                     Counter.updateInputOf(amplifiedTestMethod, 1);
                                     return amplifiedTestMethod;
-                                }
+                                })
                         )
                         .collect(Collectors.toList()).stream()
                 );
@@ -66,4 +70,9 @@ public class MethodGeneratorAmplifier implements Amplifier {
     public void reset(CtType<?> testClass) {
         AmplificationHelper.reset();
     }
+
+    @Override
+    public Amplifier copy() {
+        return new MethodGeneratorAmplifier();
+    }
 }
@@ -29,6 +29,11 @@ public class NullifierAmplifier extends AbstractAmplifier<CtExpression<?>> {
         // unused
     }
 
+    @Override
+    public Amplifier copy() {
+        return new NullifierAmplifier();
+    }
+
     @Override
     protected String getSuffix() {
         return "null";
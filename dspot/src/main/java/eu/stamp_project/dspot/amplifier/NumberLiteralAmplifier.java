@@ -107,4 +107,9 @@ public class NumberLiteralAmplifier extends AbstractLiteralAmplifier<Number> {
     protected Class<?> getTargetedClass() {
         return Number.class;
     }
+
+    @Override
+    public Amplifier copy() {
+        return new NumberLiteralAmplifier();
+    }
 }
@@ -54,4 +54,9 @@ public class ObjectGenerator implements Amplifier {
 	public void reset(CtType testClass) {
 
 	}
+
+	@Override
+	public Amplifier copy() {
+		return new ObjectGenerator();
+	}
 }
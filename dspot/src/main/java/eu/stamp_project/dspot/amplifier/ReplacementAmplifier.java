@@ -43,4 +43,9 @@ public class ReplacementAmplifier implements Amplifier {
     public void reset(CtType testClass) {
         AmplificationHelper.reset();
     }
+
+    @Override
+    public Amplifier copy() {
+        return new ReplacementAmplifier();
+    }
 }
@@ -103,4 +103,9 @@ public class ReturnValueAmplifier implements Amplifier {
     public void reset(CtType<?> testClass) {
 
     }
+
+    @Override
+    public Amplifier copy() {
+        return new ReturnValueAmplifier();
+    }
 }
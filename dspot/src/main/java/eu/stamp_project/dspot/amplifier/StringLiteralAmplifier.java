@@ -71,6 +71,11 @@ public class StringLiteralAmplifier extends AbstractLiteralAmplifier<String> {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Amplifier copy() {
+        return new StringLiteralAmplifier();
+    }
+
     @Override
     protected String getSuffix() {
         return "litString";
@@ -5,12 +5,11 @@ package eu.stamp_project.dspot.amplifier;
 import eu.stamp_project.test_framework.TestFramework;
 import eu.stamp_project.utils.AmplificationChecker;
 import eu.stamp_project.utils.AmplificationHelper;
-import eu.stamp_project.utils.CloneHelper;
-import eu.stamp_project.utils.Counter;
 import eu.stamp_project.utils.DSpotUtils;
 import eu.stamp_project.utils.RandomHelper;
 import spoon.reflect.code.*;
 import spoon.reflect.declaration.*;
+import spoon.reflect.path.CtRole;
 import spoon.reflect.visitor.Query;
 import spoon.reflect.visitor.filter.TypeFilter;
 
@@ -42,8 +41,88 @@ public class TestDataMutator implements Amplifier {
 		}
 	}
 
+	/**
+	 * The position of a literal in the body of a test method, so that the same literal can be found in each clone of
+	 * the test method, without scanning the clone: it is the role of each element in its parent, from the body to the
+	 * literal, and the index of the element when its parent holds a list for this role.
+	 * If the literal cannot be reached by roles, e.g. it is in a set, the literal is found by its index among the
+	 * literals to be muted of the clone.
+	 */
+	private class LiteralPath {
+
+		private final int literalIndex;
+
+		private final List<CtRole> roles;
+
+		private final List<Integer> indexes;
+
+		private LiteralPath(CtLiteral<?> literal, CtBlock<?> body, int literalIndex) {
+			this.literalIndex = literalIndex;
+			final List<CtRole> roles = new ArrayList<>();
+			final List<Integer> indexes = new ArrayList<>();
+			CtElement current = literal;
+			while (current != body && current != null && current.isParentInitialized()) {
+				final CtElement parent = current.getParent();
+				final CtRole role = current.getRoleInParent();
+				final Object value = role == null ? null : parent.getValueByRole(role);
+				if (value instanceof List) {
+					final int index = indexOf((List<?>) value, current);
+					if (index < 0) {
+						break;
+					}
+					indexes.add(0, index);
+				} else if (value == current) {
+					indexes.add(0, -1);
+				} else {
+					break;
+				}
+				roles.add(0, role);
+				current = parent;
+			}
+			if (current == body) {
+				this.roles = roles;
+				this.indexes = indexes;
+			} else {
+				this.roles = null;
+				this.indexes = null;
+			}
+		}
+
+		private int indexOf(List<?> elements, CtElement element) {
+			for (int i = 0; i < elements.size(); i++) {
+				if (elements.get(i) == element) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private CtLiteral getLiteralIn(CtMethod<?> clonedMethod) {
+			if (this.roles == null) {
+				return Query.getElements(clonedMethod.getBody(), new LiteralToBeMutedFilter()).get(this.literalIndex);
+			}
+			Object current = clonedMethod.getBody();
+			for (int i = 0; i < this.roles.size(); i++) {
+				current = ((CtElement) current).getValueByRole(this.roles.get(i));
+				if (this.indexes.get(i) >= 0) {
+					current = ((List<?>) current).get(this.indexes.get(i));
+				}
+			}
+			return (CtLiteral) current;
+		}
+	}
+
 	public Stream<CtMethod<?>> amplify(CtMethod<?> method, int iteration) {
-		List<CtMethod<?>> methods = new ArrayList<>();
+		return amplifyLazily(method, iteration).map(TestMethodVariant::materialize);
+	}
+
+	/**
+	 * The new values of all the literals are computed, and each of them is an edit of the test method:
+	 * the test method is cloned only when a variant is materialized.
+	 */
+	@Override
+	public Stream<TestMethodVariant> amplifyLazily(CtMethod<?> method, int iteration) {
+		List<TestMethodVariant> methods = new ArrayList<>();
 		//get the list of literals in the method
 		List<CtLiteral> literals = Query.getElements(method.getBody(), new LiteralToBeMutedFilter());
 		//this index serves to replace ith literal is replaced by zero in the ith clone of the method
@@ -51,17 +130,21 @@ public class TestDataMutator implements Amplifier {
 		for (CtLiteral lit : literals) {
 			try {
 				if (!TestFramework.get().isInAssert(lit) && !AmplificationChecker.isCase(lit) && lit.getValue() != null) {
+					// the literal is located once, and found by its path in each clone
+					final LiteralPath path = new LiteralPath(lit, method.getBody(), lit_index);
 					if (lit.getValue() instanceof Number) {
-						methods.addAll(createAllNumberMutant(method, lit, lit_index));
+						methods.addAll(createAllNumberMutant(method, lit, path));
 					}
 					if (lit.getValue() instanceof String) {
-						methods.addAll(createAllStringMutant(method, lit, lit_index));
+						methods.addAll(createAllStringMutant(method, lit, path));
 					}
 					if (lit.getValue() instanceof Boolean) {
-						methods.add(createBooleanMutant(method, lit));
+						methods.add(TestMethodVariant.of(method, "_literalMutationBoolean",
+								cloned_method -> mutateBoolean(cloned_method, path))
+						);
 					}
 					if (lit.getValue() instanceof Character) {
-						methods.addAll(createAllCharacterMutant(method, lit, lit_index));
+						methods.addAll(createAllCharacterMutant(method, lit, path));
 					}
 				}
 			} catch (Exception e) {
@@ -80,12 +163,14 @@ public class TestDataMutator implements Amplifier {
 				.collect(Collectors.groupingBy(lit -> lit.getClass()));
 	}
 
-	private CtMethod<?> createNumberMutant(CtMethod<?> method, int original_lit_index, Number newValue) {
-		//clone the method
-		CtMethod cloned_method = CloneHelper.cloneTestMethodForAmp(method, "_literalMutationNumber");
-		//get the lit_indexth literal of the cloned method
-		CtLiteral newLiteral = Query.getElements(cloned_method.getBody(), new LiteralToBeMutedFilter())
-				.get(original_lit_index);
+	@Override
+	public Amplifier copy() {
+		return new TestDataMutator();
+	}
+
+	private void mutateNumber(CtMethod<?> cloned_method, LiteralPath path, Number newValue) {
+		//get the literal of the cloned method
+		CtLiteral newLiteral = path.getLiteralIn(cloned_method);
 
 		CtElement toReplace = newLiteral;
 
@@ -109,48 +194,44 @@ public class TestDataMutator implements Amplifier {
 			}
 		}
 		toReplace.replace(newLiteral);
-		Counter.updateInputOf(cloned_method, 1);
 		DSpotUtils.addComment(toReplace, "TestDataMutator on numbers", CtComment.CommentType.INLINE);
-		return cloned_method;
 	}
 
-	private List<CtMethod<?>> createAllNumberMutant(CtMethod<?> method, CtLiteral literal, int lit_index) {
+	private List<TestMethodVariant> createAllNumberMutant(CtMethod<?> method, CtLiteral literal, LiteralPath path) {
 		return numberMutated(literal).stream()
-				.map(newValue -> createNumberMutant(method, lit_index, newValue))
+				.map(newValue -> TestMethodVariant.of(method, "_literalMutationNumber",
+						cloned_method -> mutateNumber(cloned_method, path, newValue))
+				)
 				.collect(Collectors.toList());
 	}
 
 
-	private List<CtMethod<?>> createAllStringMutant(CtMethod<?> method, CtLiteral literal, int original_lit_index) {
+	private List<TestMethodVariant> createAllStringMutant(CtMethod<?> method, CtLiteral literal, LiteralPath path) {
 		return stringMutated(literal).stream()
-				.map(literalMutated -> createStringMutant(method, original_lit_index, literalMutated))
+				.map(literalMutated -> TestMethodVariant.of(method, "_literalMutationString",
+						cloned_method -> mutateString(cloned_method, path, literalMutated))
+				)
 				.collect(Collectors.toList());
 	}
 
-	private CtMethod<?> createStringMutant(CtMethod<?> method, int original_lit_index, String newValue) {
-		CtMethod<?> cloned_method = CloneHelper.cloneTestMethodForAmp(method, "_literalMutationString");
-		Counter.updateInputOf(cloned_method, 1);
-		CtLiteral toReplace = Query.getElements(cloned_method.getBody(), new LiteralToBeMutedFilter())
-				.get(original_lit_index);
+	private void mutateString(CtMethod<?> cloned_method, LiteralPath path, String newValue) {
+		CtLiteral toReplace = path.getLiteralIn(cloned_method);
 		toReplace.replace(cloned_method.getFactory().Code().createLiteral(newValue));
 		DSpotUtils.addComment(toReplace, "TestDataMutator on strings", CtComment.CommentType.INLINE);
-		return cloned_method;
 	}
 
-	private List<CtMethod<?>> createAllCharacterMutant(CtMethod method, CtLiteral lit, int original_lit_index) {
+	private List<TestMethodVariant> createAllCharacterMutant(CtMethod method, CtLiteral lit, LiteralPath path) {
 		return characterMutated(lit).stream()
-				.map(character -> createCharacterMutant(method, original_lit_index, character))
+				.map(character -> TestMethodVariant.of(method, "_literalMutationChar",
+						cloned_method -> mutateCharacter(cloned_method, path, character))
+				)
 				.collect(Collectors.toList());
 	}
 
-	private CtMethod<?> createCharacterMutant(CtMethod method, int original_lit_index, Character newValue) {
-		CtMethod cloned_method = CloneHelper.cloneTestMethodForAmp(method, "_literalMutationChar");
-		Counter.updateInputOf(cloned_method, 1);
-		CtLiteral toReplace = Query.getElements(cloned_method.getBody(), new LiteralToBeMutedFilter())
-				.get(original_lit_index);
+	private void mutateCharacter(CtMethod<?> cloned_method, LiteralPath path, Character newValue) {
+		CtLiteral toReplace = path.getLiteralIn(cloned_method);
 		toReplace.replace(cloned_method.getFactory().Code().createLiteral(newValue));
 		DSpotUtils.addComment(toReplace, "TestDataMutator on strings", CtComment.CommentType.INLINE);
-		return cloned_method;
 	}
 
 	private List<Character> characterMutated(CtLiteral lit) {
@@ -211,20 +292,10 @@ public class TestDataMutator implements Amplifier {
 	}
 
 
-	private CtMethod<?> createBooleanMutant(CtMethod test, CtLiteral booleanLiteral) {
-		Boolean value = (Boolean) booleanLiteral.getValue();
-		CtMethod cloned_method = CloneHelper.cloneTestMethodForAmp(test, "_literalMutationBoolean");
-		CtLiteral newValue = cloned_method.getElements(new TypeFilter<CtLiteral>(CtLiteral.class) {
-			@Override
-			public boolean matches(CtLiteral element) {
-				return element.equals(booleanLiteral);
-			}
-		}).get(0);
-		newValue.setValue(!value);
-		newValue.setTypeCasts(booleanLiteral.getTypeCasts());
-		Counter.updateInputOf(cloned_method, 1);
+	private void mutateBoolean(CtMethod<?> cloned_method, LiteralPath path) {
+		CtLiteral newValue = path.getLiteralIn(cloned_method);
+		newValue.setValue(!(Boolean) newValue.getValue());
 		DSpotUtils.addComment(newValue, "TestDataMutator on boolean", CtComment.CommentType.INLINE);
-		return cloned_method;
 	}
 
 	private Set<Object> getLiterals(Set<CtType> codeFragmentsProvide) {
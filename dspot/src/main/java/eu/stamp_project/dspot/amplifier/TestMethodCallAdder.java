@@ -39,6 +39,11 @@ public class TestMethodCallAdder implements Amplifier {
         AmplificationHelper.reset();
     }
 
+    @Override
+    public Amplifier copy() {
+        return new TestMethodCallAdder();
+    }
+
     private CtStatement getRightInsertionPoint(CtInvocation<?> invocation) {
         CtStatement currentPoint = invocation;
         while (! (currentPoint.getParent(CtStatement.class) instanceof CtBlock<?>)
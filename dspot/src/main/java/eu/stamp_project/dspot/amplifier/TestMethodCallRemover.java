@@ -42,6 +42,11 @@ public class TestMethodCallRemover implements Amplifier {
         AmplificationHelper.reset();
     }
 
+    @Override
+    public Amplifier copy() {
+        return new TestMethodCallRemover();
+    }
+
     private CtMethod<?> apply(CtMethod<?> method, CtInvocation<?> invocation) {
         final CtStatementList ctStatementList = AmplifierHelper.getParent(invocation);
         final int indexOfInvocation = ctStatementList.getStatements().indexOf(invocation) - 1;
@@ -0,0 +1,87 @@
+package eu.stamp_project.dspot.amplifier;
+
+import eu.stamp_project.utils.CloneHelper;
+import eu.stamp_project.utils.Counter;
+import spoon.reflect.declaration.CtMethod;
+
+import java.util.function.Supplier;
+
+/**
+ * A variant of a test method, produced by the input amplification, represented as the test method it comes from and the
+ * edit to apply on it, e.g. the new value of a literal.
+ * The variant is materialized into a new test method, i.e. a clone of the base test method on which the edit is
+ * applied, only when it is needed, e.g. when it has been selected by a budgetizer to be compiled.
+ * The variants share their base test method, so building a variant does not clone anything.
+ * A variant holds a single edit: the amplifiers are applied independently on the base test method, and the base test
+ * method of the next iteration is an amplified test method that has been compiled and run, i.e. materialized, so no
+ * variant is built on top of another one. Once materialized, a variant is a full clone of its base test method, since an
+ * element of Spoon has a single parent and cannot be shared by two test methods.
+ */
+public class TestMethodVariant {
+
+    /**
+     * An edit of a test method, applied on the clone of the base test method of a variant.
+     * Since it is applied on a clone, the edit must find the element to modify in the given test method, e.g. by its path
+     * in the base test method, rather than keep a reference to an element of the base test method.
+     */
+    @FunctionalInterface
+    public interface Edit {
+        void applyOn(CtMethod<?> testMethod);
+    }
+
+    private final CtMethod<?> base;
+
+    private final String suffix;
+
+    private final Edit edit;
+
+    private final Supplier<CtMethod<?>> builder;
+
+    private TestMethodVariant(CtMethod<?> base, String suffix, Edit edit, Supplier<CtMethod<?>> builder) {
+        this.base = base;
+        this.suffix = suffix;
+        this.edit = edit;
+        this.builder = builder;
+    }
+
+    /**
+     * @param base   the test method to amplify
+     * @param suffix the suffix of the name of the amplified test method
+     * @param edit   the edit to apply on the test method
+     * @return a variant of the given test method
+     */
+    public static TestMethodVariant of(CtMethod<?> base, String suffix, Edit edit) {
+        return new TestMethodVariant(base, suffix, edit, null);
+    }
+
+    /**
+     * @param builder builds the amplified test method, for the amplifiers that do not express their amplification as edits
+     * @return a variant materialized by the given builder
+     */
+    public static TestMethodVariant of(Supplier<CtMethod<?>> builder) {
+        return new TestMethodVariant(null, null, null, builder);
+    }
+
+    /**
+     * @param amplifiedTestMethod an amplified test method that has already been built
+     * @return a variant that is already materialized
+     */
+    public static TestMethodVariant of(CtMethod<?> amplifiedTestMethod) {
+        return of(() -> amplifiedTestMethod);
+    }
+
+    /**
+     * Builds the amplified test method. Each call builds a new amplified test method.
+     *
+     * @return the amplified test method
+     */
+    public CtMethod<?> materialize() {
+        if (this.builder != null) {
+            return this.builder.get();
+        }
+        final CtMethod<?> clone = CloneHelper.cloneTestMethodForAmp(this.base, this.suffix);
+        this.edit.applyOn(clone);
+        Counter.updateInputOf(clone, 1);
+        return clone;
+    }
+}
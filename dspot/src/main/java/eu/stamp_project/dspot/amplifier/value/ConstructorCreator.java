@@ -13,7 +13,6 @@ import spoon.reflect.declaration.CtInterface;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtParameter;
 import spoon.reflect.declaration.CtType;
-import spoon.reflect.declaration.ModifierKind;
 import spoon.reflect.factory.Factory;
 import spoon.reflect.reference.CtTypeReference;
 import spoon.reflect.visitor.filter.TypeFilter;
@@ -24,7 +23,6 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -113,14 +111,8 @@ public class ConstructorCreator {
         CtType<?> typeDeclaration = type.getDeclaration() == null ? type.getTypeDeclaration() : type.getDeclaration();
         if (typeDeclaration != null && typeDeclaration instanceof CtClass<?>) {
             // We take public constructor that have only parameter that can be generated
-            final List<CtConstructor<?>> constructors = ((CtClass<?>) typeDeclaration).getConstructors()
-                    .stream()
-                    .filter(ctConstructor ->
-                            ctConstructor.hasModifier(ModifierKind.PUBLIC) &&
-                                    ctConstructor.getParameters().stream()
-                                            .map(CtParameter::getType)
-                                            .allMatch(ValueCreatorHelper::canGenerateAValueForType)
-                    ).collect(Collectors.toList());
+            final List<CtConstructor<?>> constructors = ModelIndex.of(type.getFactory())
+                    .getPublicConstructorsOf((CtClass<?>) typeDeclaration);
             if (!constructors.isEmpty()) {
                 CtConstructorCall<?> constructorCall = type.getFactory().createConstructorCall();
                 constructorCall.setType(type);
@@ -162,49 +154,25 @@ public class ConstructorCreator {
     }
 
     // we may need to be more exhaustive in the name convention of factories
-    private static final String[] NAME_OF_FACTORY_METHOD = {"build", "create"};
-
-    static final class FILTER_FACTORY_METHOD extends TypeFilter<CtMethod<?>> {
-        private final CtTypeReference type;
-
-        public FILTER_FACTORY_METHOD(CtTypeReference type) {
-            super(CtMethod.class);
-            this.type = type;
-        }
-
-        @Override
-        public boolean matches(CtMethod<?> element) {
-            return element.getModifiers().contains(ModifierKind.STATIC) &&
-                    Arrays.stream(NAME_OF_FACTORY_METHOD)
-                            .anyMatch(element.getSimpleName().toLowerCase()::contains) &&
-                    element.getType().equals(type) &&
-                    element.getParameters().stream()
-                            .map(CtParameter::getType)
-                            .allMatch(ValueCreatorHelper::canGenerateAValueForType);
-        }
-    }
+    static final String[] NAME_OF_FACTORY_METHOD = {"build", "create"};
 
     static List<CtExpression<?>> generateConstructorUsingFactory(final CtTypeReference type) {
         // this method will return an invocation of method that return the given type.
         // the usage of Factory classes/methods is well spread
         final Factory factory = type.getFactory();
         final CtTypeReference<?> referenceToBeBuild;
+        final ModelIndex modelIndex = ModelIndex.of(factory);
         if (type.getDeclaration() instanceof CtInterface<?>) { // we will find a sub class to build
-            final Optional<CtClass<?>> first = factory.getModel().getElements(new TypeFilter<CtClass<?>>(CtClass.class) {
-                @Override
-                public boolean matches(CtClass<?> element) {
-                    return element.getSuperInterfaces().contains(type.getDeclaration());
-                }
-            }).stream().findFirst();
-            if (!first.isPresent()) {
+            final List<CtClass<?>> implementors = modelIndex.getImplementorsOf(type);
+            if (implementors.isEmpty()) {
                 return Collections.emptyList();
             } else {
-                referenceToBeBuild = first.get().getReference();
+                referenceToBeBuild = implementors.get(0).getReference();
             }
         } else {
             referenceToBeBuild = type;
         }
-        final List<CtMethod<?>> factoryMethod = factory.getModel().getElements(new FILTER_FACTORY_METHOD(referenceToBeBuild));
+        final List<CtMethod<?>> factoryMethod = modelIndex.getFactoryMethodsOf(referenceToBeBuild);
         return factoryMethod.stream()
                 .map(method ->
                         factory.createInvocation(factory.createTypeAccess(method.getParent(CtType.class).getReference(), true),
@@ -0,0 +1,178 @@
+package eu.stamp_project.dspot.amplifier.value;
+
+import eu.stamp_project.dspot.AmplificationContext;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtConstructor;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtParameter;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.declaration.ModifierKind;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Index of the Spoon model used to generate values, so that a lookup does not scan the whole model.
+ * The index gives:
+ * <ul>
+ * <li>the classes that implement an interface,</li>
+ * <li>the static factory methods that return a type, i.e. the static methods whose name contains build or create,</li>
+ * <li>the public constructors of a class, and the methods of a type that the amplifiers can call.</li>
+ * </ul>
+ * The model-wide part of the index is built lazily, with a single scan of the model, on the first lookup. The
+ * constructors and the methods of a type are indexed on the first lookup of the type.
+ * The index keeps only the structural properties of the elements: whether DSpot can generate a value for each
+ * parameter is checked on lookup, since it is itself computed with the index, see {@link ValueCreatorHelper}.
+ * Only the index of the last model is kept: the indexed elements refer to their factory, so an index cannot be
+ * weakly keyed by its factory. The index of a previous model is dropped, and built again if that model is used again.
+ * The types added to the model after the index has been built, e.g. the amplified test classes, are not indexed.
+ * When test classes are amplified in parallel, the index is built before, see {@link #build()}, so that it does not
+ * depend on the amplified test classes that the other test classes have already added to the model.
+ */
+public class ModelIndex {
+
+    private static ModelIndex lastIndex;
+
+    /**
+     * @return the index of the model of the given factory
+     */
+    public static synchronized ModelIndex of(Factory factory) {
+        if (lastIndex == null || lastIndex.factory != factory) {
+            lastIndex = new ModelIndex(factory);
+        }
+        return lastIndex;
+    }
+
+    private final Factory factory;
+
+    private Map<String, List<CtClass<?>>> implementorsPerInterface;
+
+    private Map<String, List<CtMethod<?>>> factoryMethodsPerReturnType;
+
+    private final Map<CtClass<?>, List<CtConstructor<?>>> publicConstructorsPerClass = new ConcurrentHashMap<>();
+
+    private final Map<CtType<?>, List<CtMethod<?>>> callableMethodsPerType = new ConcurrentHashMap<>();
+
+    private ModelIndex(Factory factory) {
+        this.factory = factory;
+    }
+
+    private synchronized void buildIfNeeded() {
+        if (this.implementorsPerInterface != null) {
+            return;
+        }
+        final List<CtClass<?>> classes;
+        final List<CtMethod<?>> methods;
+        synchronized (AmplificationContext.MODEL_LOCK) {
+            classes = this.factory.getModel().getElements(new TypeFilter<CtClass<?>>(CtClass.class));
+            methods = this.factory.getModel().getElements(new TypeFilter<CtMethod<?>>(CtMethod.class));
+        }
+        final Map<String, List<CtClass<?>>> implementorsPerInterface = new HashMap<>();
+        classes.forEach(ctClass -> ctClass.getSuperInterfaces().forEach(superInterface ->
+                implementorsPerInterface.computeIfAbsent(superInterface.getQualifiedName(), name -> new ArrayList<>())
+                        .add(ctClass)
+        ));
+        final Map<String, List<CtMethod<?>>> factoryMethodsPerReturnType = new HashMap<>();
+        methods.stream()
+                .filter(ModelIndex::isFactoryMethod)
+                .forEach(method -> factoryMethodsPerReturnType.computeIfAbsent(method.getType().getQualifiedName(),
+                        name -> new ArrayList<>()).add(method)
+                );
+        this.factoryMethodsPerReturnType = factoryMethodsPerReturnType;
+        this.implementorsPerInterface = implementorsPerInterface;
+    }
+
+    /**
+     * Builds the model-wide part of the index now, rather than on the first lookup.
+     *
+     * @return this index
+     */
+    public ModelIndex build() {
+        this.buildIfNeeded();
+        return this;
+    }
+
+    // the structural part of the filter, i.e. without the types of the parameters
+    private static boolean isFactoryMethod(CtMethod<?> method) {
+        return method.getModifiers().contains(ModifierKind.STATIC) &&
+                method.getType() != null &&
+                Arrays.stream(ConstructorCreator.NAME_OF_FACTORY_METHOD)
+                        .anyMatch(method.getSimpleName().toLowerCase()::contains);
+    }
+
+    /**
+     * @return the classes of the model that implement directly the given interface, in the order of the model
+     */
+    public List<CtClass<?>> getImplementorsOf(CtTypeReference<?> anInterface) {
+        this.buildIfNeeded();
+        return new ArrayList<>(this.implementorsPerInterface.getOrDefault(anInterface.getQualifiedName(), Collections.emptyList()));
+    }
+
+    /**
+     * @return the static factory methods of the model that return the given type, and for which DSpot can generate
+     * all the parameters, in the order of the model
+     */
+    public List<CtMethod<?>> getFactoryMethodsOf(CtTypeReference<?> type) {
+        this.buildIfNeeded();
+        return this.factoryMethodsPerReturnType.getOrDefault(type.getQualifiedName(), Collections.emptyList())
+                .stream()
+                .filter(method -> method.getType().equals(type))
+                .filter(ModelIndex::canGenerateAllParametersOf)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the public constructors of the given class for which DSpot can generate all the parameters, in the order
+     * of the class
+     */
+    public List<CtConstructor<?>> getPublicConstructorsOf(CtClass<?> ctClass) {
+        return this.publicConstructorsPerClass.computeIfAbsent(ctClass, key ->
+                key.getConstructors()
+                        .stream()
+                        .filter(ctConstructor -> ctConstructor.hasModifier(ModifierKind.PUBLIC))
+                        .collect(Collectors.toList())
+        ).stream()
+                .filter(ctConstructor -> ctConstructor.getParameters()
+                        .stream()
+                        .map(CtParameter::getType)
+                        .allMatch(ValueCreatorHelper::canGenerateAValueForType)
+                ).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the public non-static and non-abstract methods of the given type, that the amplifiers can call, i.e.
+     * for which DSpot can generate all the parameters
+     */
+    public List<CtMethod<?>> getCallableMethodsOf(CtType<?> type) {
+        return this.callableMethodsPerType.computeIfAbsent(type, key ->
+                key.getMethods()
+                        .stream()
+                        .filter(method -> method.getModifiers().contains(ModifierKind.PUBLIC)) // TODO checks this predicate
+                        // TODO we could also access to method with default or protected modifiers
+                        .filter(method -> !method.getModifiers().contains(ModifierKind.STATIC)) // TODO checks this predicate
+                        // TODO we can't amplify test on full static classes with this predicate
+                        .filter(method -> !method.getModifiers().contains(ModifierKind.ABSTRACT)) // TODO checks this predicate
+                        // TODO maybe we would like to call of abstract method, since the abstract would be implemented
+                        // TODO inherited classes. However, the semantic of the test to be amplified may be to test the abstract class
+                        .collect(Collectors.toList())
+        ).stream()
+                .filter(ModelIndex::canGenerateAllParametersOf)
+                .collect(Collectors.toList());
+    }
+
+    private static boolean canGenerateAllParametersOf(CtMethod<?> method) {
+        return method.getParameters()
+                .stream()
+                .map(CtParameter::getType)
+                .allMatch(ValueCreatorHelper::canGenerateAValueForType);
+    }
+}
@@ -88,7 +88,7 @@ public class ValueCreatorHelper {
             }
         }).isEmpty()) ||
                 // or we can use a factor method
-                !(type.getFactory().getModel().getElements(new ConstructorCreator.FILTER_FACTORY_METHOD(type)).isEmpty());
+                !(ModelIndex.of(type.getFactory()).getFactoryMethodsOf(type).isEmpty());
         // above, when we say use, it means that we can find one element that match filters, i.e. the returned list is not empty
 
         return (type.getActualTypeArguments().isEmpty() || // There is no type arguments
@@ -12,9 +12,14 @@ import spoon.reflect.code.CtStatement;
 import spoon.reflect.code.CtTypeAccess;
 import spoon.reflect.code.CtVariableAccess;
 import spoon.reflect.code.CtVariableWrite;
+import spoon.reflect.declaration.CtAnonymousExecutable;
+import spoon.reflect.declaration.CtClass;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtNamedElement;
+import spoon.reflect.declaration.CtType;
 import spoon.reflect.declaration.CtTypedElement;
+import spoon.reflect.declaration.ModifierKind;
+import spoon.reflect.factory.Factory;
 import spoon.reflect.reference.CtExecutableReference;
 import spoon.reflect.reference.CtTypeReference;
 import spoon.reflect.reference.CtWildcardReference;
@@ -34,6 +39,30 @@ import java.util.regex.Pattern;
  */
 public class AssertGeneratorHelper {
 
+    /**
+     * Adds to the given instrumented test class a static initializer that sets the path of the log of its observations,
+     * see {@link ObjectLog#setPathToObservationLog(String)}.
+     */
+    public static void setPathToObservationLog(CtType<?> testClass, String pathToObservationLog) {
+        if (!(testClass instanceof CtClass)) {
+            return;
+        }
+        final Factory factory = testClass.getFactory();
+        final CtTypeReference<ObjectLog> objectLogReference = factory.Type().createReference(ObjectLog.class);
+        final CtExecutableReference<?> reference = objectLogReference
+                .getTypeDeclaration()
+                .getMethodsByName("setPathToObservationLog")
+                .get(0)
+                .getReference();
+        final CtAnonymousExecutable staticInitializer = factory.Core().createAnonymousExecutable();
+        staticInitializer.addModifier(ModifierKind.STATIC);
+        staticInitializer.setBody(factory.createCtBlock(
+                factory.createInvocation(factory.createTypeAccess(objectLogReference), reference,
+                        factory.createLiteral(pathToObservationLog))
+        ));
+        ((CtClass<?>) testClass).addAnonymousExecutable(staticInitializer);
+    }
+
     public static boolean canGenerateAnAssertionFor(String candidate) {
         return !AssertGeneratorHelper.containsObjectReferences(candidate)
                 && !AssertGeneratorHelper.containsAPath(candidate);
@@ -82,8 +111,15 @@ public class AssertGeneratorHelper {
                 invocation.getType().equals(invocation.getFactory().Type().voidPrimitiveType()));
     }
 
-    static CtMethod<?> createTestWithLog(CtMethod test, final String filter,
-                                         List<CtLocalVariable<?>> ctVariableReads) {
+    /**
+     * Instruments a copy of the given test method, named <code>test_withlog</code>, to observe the values of its statements,
+     * see {@link ObjectLog#log(Object, String, String)}. The ids of the observation points are read by {@link ObservationIndex}.
+     *
+     * @param filter          the package of the tested program, the local variables of its types are observed
+     * @param ctVariableReads the local variables to observe in any case
+     */
+    public static CtMethod<?> createTestWithLog(CtMethod test, final String filter,
+                                                List<CtLocalVariable<?>> ctVariableReads) {
         CtMethod clone = CloneHelper.cloneTestMethodNoAmp(test);
         clone.setSimpleName(test.getSimpleName() + "_withlog");
         final List<CtStatement> allStatement = clone.getElements(new TypeFilter<>(CtStatement.class));
@@ -2,6 +2,7 @@ package eu.stamp_project.dspot.assertgenerator;
 
 import eu.stamp_project.compare.ObjectLog;
 import eu.stamp_project.compare.Observation;
+import eu.stamp_project.dspot.AmplificationContext;
 import eu.stamp_project.dspot.AmplificationException;
 import eu.stamp_project.test_framework.TestFramework;
 import eu.stamp_project.testrunner.listener.TestResult;
@@ -11,6 +12,7 @@ import eu.stamp_project.utils.Counter;
 import eu.stamp_project.utils.DSpotUtils;
 import eu.stamp_project.utils.compilation.DSpotCompiler;
 import eu.stamp_project.utils.compilation.TestCompiler;
+import eu.stamp_project.utils.execution.TestRunner;
 import eu.stamp_project.utils.program.InputConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,12 +23,15 @@ import spoon.reflect.code.CtLocalVariable;
 import spoon.reflect.code.CtStatement;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
+import spoon.reflect.declaration.ModifierKind;
 import spoon.reflect.factory.Factory;
 import spoon.reflect.visitor.Query;
 import spoon.reflect.visitor.filter.TypeFilter;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -76,7 +81,9 @@ public class MethodsAssertGenerator {
      */
     public List<CtMethod<?>> addAssertions(CtType<?> testClass, List<CtMethod<?>> testCases) {
         CtType clone = testClass.clone();
-        testClass.getPackage().addType(clone);
+        synchronized (AmplificationContext.MODEL_LOCK) {
+            testClass.getPackage().addType(clone);
+        }
         LOGGER.info("Add observations points in passing tests.");
         LOGGER.info("Instrumentation...");
 
@@ -98,65 +105,119 @@ public class MethodsAssertGenerator {
         }
 
         // clone and set up tests with added logs
+        // the values that are not deterministic are detected by running the instrumented tests several times:
+        // in the test worker, a single copy of the tests is run again, until a run agrees with the previous ones,
+        // otherwise, the tests are copied in the instrumented class, so a single JVM runs all the copies
+        final boolean runsInTestWorker = TestRunner.runsInTestWorker() &&
+                !clone.getModifiers().contains(ModifierKind.ABSTRACT);
+        final int numberOfObservations = Math.max(1, this.configuration.getMaxNumberOfObservationRuns());
+        final int numberOfCopies = runsInTestWorker ? 1 : numberOfObservations;
+        final int maxNumberOfRuns = runsInTestWorker ? numberOfObservations : 1;
         final List<CtMethod<?>> testsToRun = new ArrayList<>();
-        IntStream.range(0, 3).forEach(i -> testsToRun.addAll(
+        IntStream.range(0, numberOfCopies).forEach(i -> testsToRun.addAll(
                 testCasesWithLogs.stream()
 
-                	//Optimization: Tracking cloned test methods using AmplificationHelper as candidates
-                	//for caching their associated Test Framework
+                        //Optimization: Tracking cloned test methods using AmplificationHelper as candidates
+                        //for caching their associated Test Framework
                         .map(CloneHelper::cloneMethod)
-                        .peek(ctMethod -> ctMethod.setSimpleName(ctMethod.getSimpleName() + i))
+                        .peek(ctMethod -> {
+                            if (numberOfCopies > 1) {
+                                ctMethod.setSimpleName(ctMethod.getSimpleName() + i);
+                            }
+                        })
                         .peek(clone::addMethod)
                         .collect(Collectors.toList())
         ));
-        ObjectLog.reset();
-
-        // compile and run tests with added logs
-        LOGGER.info("Run instrumented tests. ({})", testsToRun.size());
+        final Map<String, Observation> observations = new LinkedHashMap<>();
+        // the observations are logged in a file of the current context, so the test classes amplified in parallel do not mix them
+        final String pathToObservationLog = getPathToObservationLog();
+        AssertGeneratorHelper.setPathToObservationLog(clone, pathToObservationLog);
         TestFramework.get().generateAfterClassToSaveObservations(clone, testsToRun);
-        try {
-            final TestResult result = TestCompiler.compileAndRun(
-                    clone,
-                    this.compiler,
-                    testsToRun,
-                    this.configuration
-            );
-            if (!result.getFailingTests().isEmpty()) {
-                LOGGER.warn("Some instrumented test failed!");
+        for (int run = 0; run < maxNumberOfRuns; run++) {
+            new File(pathToObservationLog).delete();
+
+            // compile (the first time) and run tests with added logs
+            // each run starts from fresh static state, so the runs are independent from each other
+            LOGGER.info("Run instrumented tests. ({}, run {})", testsToRun.size(), run + 1);
+            try {
+                final TestResult result = run == 0 ?
+                        TestCompiler.compileAndRun(clone, this.compiler, testsToRun, this.configuration, true) :
+                        TestCompiler.run(clone, this.compiler, testsToRun, this.configuration, true);
+                if (!result.getFailingTests().isEmpty()) {
+                    LOGGER.warn("Some instrumented test failed!");
+                }
+            } catch (AmplificationException e) {
+                e.printStackTrace();
+                if (run == 0) {
+                    return Collections.emptyList();
+                }
+                break;
+            }
+            if (run == 0) {
+                // the uncompilable tests have been removed from the clone
+                testsToRun.removeIf(testToRun -> !clone.getMethods().contains(testToRun));
             }
-        } catch (AmplificationException e) {
-            e.printStackTrace();
-            return Collections.emptyList();
-        }
 
-        // add assertions with values retrieved from logs in tests
-        Map<String, Observation> observations = ObjectLog.getObservations();
+            // add assertions with values retrieved from logs in tests
+            // we stop as soon as a run agrees with the previous ones
+            if (mergeObservations(observations, ObjectLog.load(pathToObservationLog)) && run > 0) {
+                LOGGER.info("The observations of {} runs agree.", run + 1);
+                break;
+            }
+        }
         LOGGER.info("Generating assertions...");
+        final ObservationIndex observationIndex = new ObservationIndex(observations);
         return testCases.stream()
-                .map(ctMethod -> this.buildTestWithAssert(ctMethod, observations))
+                .map(ctMethod -> this.buildTestWithAssert(ctMethod, observationIndex))
                 .collect(Collectors.toList());
     }
 
+    private static String getPathToObservationLog() {
+        return DSpotCompiler.getPathToAmplifiedTestSrc() + "_observations.bin";
+    }
+
+    /**
+     * Merges the observations of a run of the instrumented tests into the observations of the previous runs.
+     * The values that differ from a run to another are considered as non-deterministic,
+     * see {@link Observation#merge(Observation)}.
+     *
+     * @return true if the observations of the run agree with the observations of the previous runs
+     */
+    public static boolean mergeObservations(Map<String, Observation> observations,
+                                            Map<String, Observation> observationsOfRun) {
+        boolean agree = observations.keySet().equals(observationsOfRun.keySet());
+        for (String id : observationsOfRun.keySet()) {
+            if (observations.containsKey(id)) {
+                agree &= observations.get(id).merge(observationsOfRun.get(id));
+            } else {
+                observations.put(id, observationsOfRun.get(id));
+            }
+        }
+        return agree;
+    }
+
     /**
      * Adds new assertions to a test from observation points.
      *
-     * @param test         Test method
-     * @param observations Observation points of the test suite
+     * @param test             Test method
+     * @param observationIndex Observation points of the test suite, indexed by test method
      * @return Test with new assertions
      */
     @SuppressWarnings("unchecked")
-    private CtMethod<?> buildTestWithAssert(CtMethod test, Map<String, Observation> observations) {
+    private CtMethod<?> buildTestWithAssert(CtMethod test, ObservationIndex observationIndex) {
         CtMethod testWithAssert = CloneHelper.cloneTestMethodForAmp(test, "");
         int numberOfAddedAssertion = 0;
-        List<CtStatement> statements = Query.getElements(testWithAssert, new TypeFilter(CtStatement.class));
-        for (String id : observations.keySet()) {
-            if (!id.split("__")[0].equals(testWithAssert.getSimpleName())) {
-                continue;
-            }
+        final List<ObservationIndex.ObservationPoint> observationPoints =
+                observationIndex.getObservationPointsOf(testWithAssert.getSimpleName());
+        // the statements are collected once per test method, and only if there is something to assert
+        List<CtStatement> statements = observationPoints.isEmpty() ?
+                Collections.emptyList() : Query.getElements(testWithAssert, new TypeFilter(CtStatement.class));
+        for (ObservationIndex.ObservationPoint observationPoint : observationPoints) {
+            final String id = observationPoint.getId();
             final List<CtStatement> assertStatements = AssertBuilder.buildAssert(
                     test,
-                    observations.get(id).getNotDeterministValues(),
-                    observations.get(id).getObservationValues(),
+                    observationPoint.getObservation().getNotDeterministValues(),
+                    observationPoint.getObservation().getObservationValues(),
                     Double.parseDouble(configuration.getDelta())
             );
 
@@ -166,7 +227,7 @@ public class MethodsAssertGenerator {
                     .anyMatch(testWithAssert.getBody().getLastStatement().toString()::equals)) {
                 continue;
             }
-            int line = Integer.parseInt(id.split("__")[1]);
+            int line = observationPoint.getIndexOfStatement();
             CtStatement lastStmt = null;
             for (CtStatement assertStatement : assertStatements) {
                 DSpotUtils.addComment(assertStatement, "AssertGenerator add assertion", CtComment.CommentType.INLINE);
@@ -190,11 +251,11 @@ public class MethodsAssertGenerator {
                         statementToBeAsserted.replace(localVariable);
                         DSpotUtils.addComment(localVariable, "AssertGenerator create local variable with return value of invocation", CtComment.CommentType.INLINE);
                         localVariable.setParent(statementToBeAsserted.getParent());
-                        addAtCorrectPlace(id, localVariable, assertStatement, statementToBeAsserted);
+                        addAtCorrectPlace(observationPoint, localVariable, assertStatement, statementToBeAsserted);
                         statements.remove(line);
                         statements.add(line, localVariable);
                     } else {
-                        addAtCorrectPlace(id, lastStmt, assertStatement, statementToBeAsserted);
+                        addAtCorrectPlace(observationPoint, lastStmt, assertStatement, statementToBeAsserted);
                     }
                     lastStmt = assertStatement;
                     numberOfAddedAssertion++;
@@ -212,11 +273,11 @@ public class MethodsAssertGenerator {
         }
     }
 
-    private void addAtCorrectPlace(String id,
+    private void addAtCorrectPlace(ObservationIndex.ObservationPoint observationPoint,
                                    CtStatement lastStmt,
                                    CtStatement assertStatement,
                                    CtStatement statementToBeAsserted) {
-        if (id.endsWith("end")) {
+        if (observationPoint.isAtTheEnd()) {
             statementToBeAsserted.getParent(CtBlock.class).insertEnd(assertStatement);
         } else {
             lastStmt.insertAfter(assertStatement);
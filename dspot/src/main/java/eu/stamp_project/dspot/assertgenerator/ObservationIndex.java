@@ -0,0 +1,95 @@
+package eu.stamp_project.dspot.assertgenerator;
+
+import eu.stamp_project.compare.Observation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes the observations by the name of the test method that made them.
+ * The id of an observation point is built by {@link AssertGeneratorHelper} as
+ * <code>testName__indexOfStatement</code>, or <code>testName__indexOfStatement___end</code> for the observations
+ * made at the end of the test method. The ids are parsed once, when the index is built.
+ * The name of a test method may contain <code>__</code> as well, so the index of the statement is the part after the
+ * last <code>__</code>. The ids that cannot be parsed are ignored.
+ */
+public class ObservationIndex {
+
+    /**
+     * An observation point of a test method, i.e. an observation with its parsed id.
+     */
+    public static class ObservationPoint {
+
+        private final String id;
+
+        private final int indexOfStatement;
+
+        private final Observation observation;
+
+        private ObservationPoint(String id, int indexOfStatement, Observation observation) {
+            this.id = id;
+            this.indexOfStatement = indexOfStatement;
+            this.observation = observation;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return the index of the observed statement, in the list of the statements of the test method
+         */
+        public int getIndexOfStatement() {
+            return indexOfStatement;
+        }
+
+        public boolean isAtTheEnd() {
+            return id.endsWith("end");
+        }
+
+        public Observation getObservation() {
+            return observation;
+        }
+    }
+
+    private static final String SEPARATOR = "__";
+
+    private static final String SUFFIX_AT_THE_END = "___end";
+
+    private final Map<String, List<ObservationPoint>> observationPointsPerTestName;
+
+    /**
+     * @param observations the observations, indexed by the id of their observation point, in the order of the ids
+     */
+    public ObservationIndex(Map<String, Observation> observations) {
+        this.observationPointsPerTestName = new HashMap<>();
+        for (Map.Entry<String, Observation> observation : observations.entrySet()) {
+            final String id = observation.getKey();
+            final String idWithoutSuffix = id.endsWith(SUFFIX_AT_THE_END) ?
+                    id.substring(0, id.length() - SUFFIX_AT_THE_END.length()) : id;
+            final int indexOfSeparator = idWithoutSuffix.lastIndexOf(SEPARATOR);
+            if (indexOfSeparator < 0) {
+                continue;
+            }
+            final int indexOfStatement;
+            try {
+                indexOfStatement = Integer.parseInt(idWithoutSuffix.substring(indexOfSeparator + SEPARATOR.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            this.observationPointsPerTestName.computeIfAbsent(idWithoutSuffix.substring(0, indexOfSeparator), testName -> new ArrayList<>())
+                    .add(new ObservationPoint(id, indexOfStatement, observation.getValue()));
+        }
+    }
+
+    /**
+     * @param testName the name of a test method
+     * @return the observation points of the given test method, in the order of their ids, or an empty list
+     */
+    public List<ObservationPoint> getObservationPointsOf(String testName) {
+        return this.observationPointsPerTestName.getOrDefault(testName, Collections.emptyList());
+    }
+}
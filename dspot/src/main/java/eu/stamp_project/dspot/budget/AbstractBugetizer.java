@@ -1,9 +1,18 @@
 package eu.stamp_project.dspot.budget;
 
+import eu.stamp_project.dspot.amplifier.TestMethodVariant;
 import eu.stamp_project.dspot.amplifier.Amplifier;
+import eu.stamp_project.utils.TestMethodFingerprint;
 import eu.stamp_project.utils.program.InputConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spoon.reflect.declaration.CtMethod;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * created by Benjamin DANGLOT
@@ -12,6 +21,8 @@ import java.util.List;
  */
 public abstract class AbstractBugetizer implements Budgetizer {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractBugetizer.class);
+
     protected List<Amplifier> amplifiers;
 
     public AbstractBugetizer() {
@@ -22,4 +33,71 @@ public abstract class AbstractBugetizer implements Budgetizer {
         this.amplifiers = amplifiers;
     }
 
+    /**
+     * @param testMethods test methods
+     * @return the fingerprints of the given test methods, see {@link TestMethodFingerprint}
+     */
+    protected Set<String> fingerprintsOf(List<CtMethod<?>> testMethods) {
+        return testMethods.parallelStream()
+                .map(TestMethodFingerprint::of)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Removes the amplified test methods that are structurally identical to a known test method,
+     * or to a previous amplified test method of the given list, see {@link TestMethodFingerprint}.
+     * This is done before anything is compiled, so DSpot never compiles, runs or analyses a duplicated test method.
+     *
+     * @param amplifiedTestMethods the amplified test methods
+     * @param knownFingerprints    the fingerprints of the known test methods, e.g. the test methods that have been amplified.
+     *                             The fingerprints of the kept amplified test methods are added to this set.
+     * @return the amplified test methods that are not duplicated, in the same order
+     */
+    protected List<CtMethod<?>> removeDuplicates(List<CtMethod<?>> amplifiedTestMethods, Set<String> knownFingerprints) {
+        final List<String> fingerprints = amplifiedTestMethods.parallelStream()
+                .map(TestMethodFingerprint::of)
+                .collect(Collectors.toList());
+        final List<CtMethod<?>> uniqueAmplifiedTestMethods = new ArrayList<>();
+        for (int i = 0; i < amplifiedTestMethods.size(); i++) {
+            if (knownFingerprints.add(fingerprints.get(i))) {
+                uniqueAmplifiedTestMethods.add(amplifiedTestMethods.get(i));
+            }
+        }
+        if (uniqueAmplifiedTestMethods.size() < amplifiedTestMethods.size()) {
+            LOGGER.info("{} duplicated amplified test methods have been removed.",
+                    amplifiedTestMethods.size() - uniqueAmplifiedTestMethods.size());
+        }
+        return uniqueAmplifiedTestMethods;
+    }
+
+    /**
+     * Materializes the given variants, in order, until the given number of amplified test methods that are not
+     * duplicated is reached, see {@link #removeDuplicates(List, Set)}.
+     * The variants that are not needed are not materialized, i.e. their test method is not cloned.
+     *
+     * @param variants          the variants, the materialized variants are removed from this list
+     * @param budget            the maximum number of amplified test methods to build
+     * @param knownFingerprints the fingerprints of the known test methods.
+     *                          The fingerprints of the built amplified test methods are added to this set.
+     * @return the amplified test methods that are not duplicated, in the order of the variants
+     */
+    protected List<CtMethod<?>> materialize(List<TestMethodVariant> variants, int budget, Set<String> knownFingerprints) {
+        final List<CtMethod<?>> amplifiedTestMethods = new ArrayList<>();
+        int numberOfDuplicates = 0;
+        final Iterator<TestMethodVariant> iterator = variants.iterator();
+        while (amplifiedTestMethods.size() < budget && iterator.hasNext()) {
+            final CtMethod<?> amplifiedTestMethod = iterator.next().materialize();
+            iterator.remove();
+            if (knownFingerprints.add(TestMethodFingerprint.of(amplifiedTestMethod))) {
+                amplifiedTestMethods.add(amplifiedTestMethod);
+            } else {
+                numberOfDuplicates++;
+            }
+        }
+        if (numberOfDuplicates > 0) {
+            LOGGER.info("{} duplicated amplified test methods have been removed.", numberOfDuplicates);
+        }
+        return amplifiedTestMethods;
+    }
+
 }
@@ -1,16 +1,18 @@
 package eu.stamp_project.dspot.budget;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import eu.stamp_project.dspot.amplifier.TestMethodVariant;
 import eu.stamp_project.dspot.amplifier.Amplifier;
 import eu.stamp_project.utils.DSpotUtils;
+import eu.stamp_project.utils.RandomHelper;
 import eu.stamp_project.utils.program.InputConfiguration;
 import spoon.reflect.declaration.CtMethod;
 
@@ -44,6 +46,8 @@ public class RandomBudgetizer extends AbstractBugetizer {
 
     /**
      * Input amplification of multiple tests.
+     * The variants are sampled before the amplified tests are built, so only the selected variants
+     * are materialized into new tests, see {@link Amplifier#amplifyLazily(CtMethod, int)}.
      *
      * @param testMethods Test methods
      * @return New generated tests
@@ -51,20 +55,29 @@ public class RandomBudgetizer extends AbstractBugetizer {
     @Override
     public List<CtMethod<?>> inputAmplify(List<CtMethod<?>> testMethods, int i) {
         LOGGER.info("Amplification of inputs...");
-        List<CtMethod<?>> inputAmplifiedTests = testMethods.parallelStream()
+        final List<TestMethodVariant> variants = testMethods.stream()
                 .flatMap(test -> {
-                    final Stream<CtMethod<?>> inputAmplifiedTestMethods = inputAmplifyTest(test, i);
+                    final List<TestMethodVariant> variantsOfTest = this.amplifiers.stream()
+                            .flatMap(amplifier -> amplifier.amplifyLazily(test, i))
+                            .collect(Collectors.toList());
                     DSpotUtils.printProgress(testMethods.indexOf(test), testMethods.size());
-                    return inputAmplifiedTestMethods;
+                    return variantsOfTest.stream();
                 }).collect(Collectors.toList());
+        final int maxNumTests = InputConfiguration.get().getMaxTestAmplified();
+        if (variants.size() > maxNumTests) {
+            LOGGER.warn("Too many tests can be generated: {}", variants.size());
+            // the tests to keep are randomly selected, without replacement
+            Collections.shuffle(variants, RandomHelper.getRandom());
+        }
+        final List<CtMethod<?>> inputAmplifiedTests = materialize(variants, maxNumTests, fingerprintsOf(testMethods));
         LOGGER.info("{} new tests generated", inputAmplifiedTests.size());
-        return reduce(inputAmplifiedTests);
+        return inputAmplifiedTests;
     }
 
     /**
      * Reduces the number of amplified tests to a practical threshold (see {@link InputConfiguration#getMaxTestAmplified()}).
      * <p>
-     * <p>This method randomly selects the tests to keep
+     * <p>This method randomly selects the tests to keep, without replacement
      * <p>
      * @param tests List of tests to be reduced
      * @return A subset of the input tests
@@ -75,11 +88,10 @@ public class RandomBudgetizer extends AbstractBugetizer {
         final int maxNumTests = InputConfiguration.get().getMaxTestAmplified();
         final int testsSize = tests.size();
         if (testsSize > maxNumTests) {
-            Random random = new Random();
             LOGGER.warn("Too many tests have been generated: {}", testsSize);
-            for (int i=0;i<maxNumTests; i++) {
-                reducedTests.add(tests.get(random.nextInt(testsSize)));
-            }
+            final List<CtMethod<?>> shuffledTests = new ArrayList<>(tests);
+            Collections.shuffle(shuffledTests, RandomHelper.getRandom());
+            reducedTests.addAll(shuffledTests.subList(0, maxNumTests));
             LOGGER.info("Number of generated test reduced to {}", reducedTests.size());
         }
         if (reducedTests.isEmpty()) {
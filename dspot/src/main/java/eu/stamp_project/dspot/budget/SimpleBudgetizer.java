@@ -1,5 +1,6 @@
 package eu.stamp_project.dspot.budget;
 
+import eu.stamp_project.dspot.amplifier.TestMethodVariant;
 import eu.stamp_project.dspot.amplifier.Amplifier;
 import eu.stamp_project.utils.program.InputConfiguration;
 import eu.stamp_project.utils.DSpotUtils;
@@ -13,6 +14,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -24,6 +26,12 @@ public class SimpleBudgetizer extends AbstractBugetizer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SimpleBudgetizer.class);
 
+    /**
+     * The fingerprints of the test methods amplified and of the amplified test methods built during the current
+     * input amplification, used to not select twice the same amplified test method
+     */
+    private Set<String> knownFingerprints;
+
     public SimpleBudgetizer() {
     }
 
@@ -46,9 +54,10 @@ public class SimpleBudgetizer extends AbstractBugetizer {
         final List<Amplifier> amplifiers = new ArrayList<>(this.amplifiers);
         // copy the test methods to be amplified
         final ArrayList<CtMethod<?>> testMethodsToBeAmplified = new ArrayList<>(testMethods);
+        this.knownFingerprints = fingerprintsOf(testMethodsToBeAmplified);
         // Amplify all method using all amplifiers
         long time = System.currentTimeMillis();
-        final Map<Amplifier, Map<CtMethod<?>, List<CtMethod<?>>>> amplifiedTestMethodPerAmplifierPerTestMethod =
+        final Map<Amplifier, Map<CtMethod<?>, List<TestMethodVariant>>> amplifiedTestMethodPerAmplifierPerTestMethod =
                 amplify(amplifiers, testMethodsToBeAmplified, iteration);
         LOGGER.info("Time to amplify: {}ms", System.currentTimeMillis() - time);
 
@@ -75,14 +84,16 @@ public class SimpleBudgetizer extends AbstractBugetizer {
         return amplifiedTestMethods;
     }
 
-    private Map<Amplifier, Map<CtMethod<?>, List<CtMethod<?>>>> amplify(List<Amplifier> amplifiers,
+    private Map<Amplifier, Map<CtMethod<?>, List<TestMethodVariant>>> amplify(List<Amplifier> amplifiers,
                                                                         ArrayList<CtMethod<?>> testMethodsToBeAmplified,
                                                                         int iteration) {
-        Map<Amplifier, Map<CtMethod<?>, List<CtMethod<?>>>> amplifiedTestMethodPerAmplifierPerTestMethod = new HashMap<>();
+        Map<Amplifier, Map<CtMethod<?>, List<TestMethodVariant>>> amplifiedTestMethodPerAmplifierPerTestMethod = new HashMap<>();
         for (Amplifier amplifier : amplifiers) {
             amplifiedTestMethodPerAmplifierPerTestMethod.put(amplifier, new HashMap<>());
             for (CtMethod<?> testMethod : testMethodsToBeAmplified) {
-                final List<CtMethod<?>> amplification = amplifier.amplify(testMethod, 0).collect(Collectors.toList());
+                // the amplified test methods are built only when they are selected, see materialize()
+                final List<TestMethodVariant> amplification = amplifier.amplifyLazily(testMethod, 0)
+                        .collect(Collectors.toList());
                 Collections.shuffle(amplification, RandomHelper.getRandom());
                 amplifiedTestMethodPerAmplifierPerTestMethod.get(amplifier).put(testMethod, amplification);
             }
@@ -91,11 +102,11 @@ public class SimpleBudgetizer extends AbstractBugetizer {
     }
 
     private int selectAndAddAmplifiedTestMethods(int totalBudget,
-                                                 Map<Amplifier, Map<CtMethod<?>, List<CtMethod<?>>>> amplifiedTestMethodPerAmplifierPerTestMethod,
+                                                 Map<Amplifier, Map<CtMethod<?>, List<TestMethodVariant>>> amplifiedTestMethodPerAmplifierPerTestMethod,
                                                  List<CtMethod<?>> amplifiedTestMethods,
                                                  int budgetPerAmplifier,
                                                  Amplifier amplifier) {
-        final Map<CtMethod<?>, List<CtMethod<?>>> amplificationPerTestMethod = amplifiedTestMethodPerAmplifierPerTestMethod.get(amplifier);
+        final Map<CtMethod<?>, List<TestMethodVariant>> amplificationPerTestMethod = amplifiedTestMethodPerAmplifierPerTestMethod.get(amplifier);
         // in case there is less budget per amplifier than methods, we take the correct upper bound
         int upperBound = Math.min(amplificationPerTestMethod.size(), budgetPerAmplifier);
         int budgetPerAmplifierPerTestMethod = Math.max(1, budgetPerAmplifier / upperBound);
@@ -108,22 +119,21 @@ public class SimpleBudgetizer extends AbstractBugetizer {
 
     private int selectAndAddAmplifiedTestMethodsFromAnOriginalTestMethod(int totalBudget,
                                                                          List<CtMethod<?>> amplifiedTestMethods,
-                                                                         Map<CtMethod<?>, List<CtMethod<?>>> amplificationPerTestMethod,
+                                                                         Map<CtMethod<?>, List<TestMethodVariant>> amplificationPerTestMethod,
                                                                          int budgetPerAmplifierPerTestMethod,
                                                                          CtMethod<?> ctMethod) {
-        final List<CtMethod<?>> candidate = amplificationPerTestMethod.get(ctMethod);
-        int minSize = Math.min(budgetPerAmplifierPerTestMethod, candidate.size());
-        totalBudget = totalBudget - minSize; // decrease the budget
-        final List<CtMethod<?>> selectedAmplifiedTestMethods = candidate.subList(0, minSize);
+        final List<TestMethodVariant> candidate = amplificationPerTestMethod.get(ctMethod);
+        // the selected variants are materialized, and removed from the candidates
+        final List<CtMethod<?>> selectedAmplifiedTestMethods = materialize(candidate, budgetPerAmplifierPerTestMethod, this.knownFingerprints);
+        totalBudget = totalBudget - selectedAmplifiedTestMethods.size(); // decrease the budget
         amplifiedTestMethods.addAll(selectedAmplifiedTestMethods); // adding all selected method to the list
-        candidate.removeAll(selectedAmplifiedTestMethods);
         return totalBudget;
     }
 
     private List<CtMethod<?>> getLastAmplifiedMethods(int totalBudget,
-                                                      Map<Amplifier, Map<CtMethod<?>, List<CtMethod<?>>>>
+                                                      Map<Amplifier, Map<CtMethod<?>, List<TestMethodVariant>>>
                                                               amplifiedTestMethodPerAmplifierPerTestMethod) {
-        final List<CtMethod<?>> allAmplifiedTestMethods = amplifiedTestMethodPerAmplifierPerTestMethod.keySet()
+        final List<TestMethodVariant> allAmplifiedTestMethods = amplifiedTestMethodPerAmplifierPerTestMethod.keySet()
                 .stream()
                 .flatMap(amplifier ->
                         amplifiedTestMethodPerAmplifierPerTestMethod.get(amplifier).keySet()
@@ -132,13 +142,9 @@ public class SimpleBudgetizer extends AbstractBugetizer {
                                         amplifiedTestMethodPerAmplifierPerTestMethod.get(amplifier).get(ctMethod).stream()
                                 )
                 ).collect(Collectors.toList());
-        List<CtMethod<?>> lastAmplifiedTestMethods = new ArrayList<>();
-        while (totalBudget > 0) {
-            lastAmplifiedTestMethods.add(
-                    allAmplifiedTestMethods.get(RandomHelper.getRandom().nextInt(allAmplifiedTestMethods.size())));
-            totalBudget--;
-        }
-        return lastAmplifiedTestMethods;
+        // we select them without replacement, to not select twice the same amplified test method
+        Collections.shuffle(allAmplifiedTestMethods, RandomHelper.getRandom());
+        return materialize(allAmplifiedTestMethods, totalBudget, this.knownFingerprints);
     }
 
 }
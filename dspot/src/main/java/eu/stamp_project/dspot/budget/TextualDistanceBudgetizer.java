@@ -61,7 +61,7 @@ public class TextualDistanceBudgetizer extends AbstractBugetizer {
                     return inputAmplifiedTestMethods;
                 }).collect(Collectors.toList());
         LOGGER.info("{} new tests generated", inputAmplifiedTests.size());
-        return reduce(inputAmplifiedTests);
+        return reduce(removeDuplicates(inputAmplifiedTests, fingerprintsOf(testMethods)));
     }
 
     /**
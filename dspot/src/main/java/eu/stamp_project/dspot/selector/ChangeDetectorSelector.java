@@ -3,6 +3,11 @@ package eu.stamp_project.dspot.selector;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import eu.stamp_project.automaticbuilder.maven.DSpotPOMCreator;
+import eu.stamp_project.compare.ObjectLog;
+import eu.stamp_project.compare.Observation;
+import eu.stamp_project.dspot.assertgenerator.AssertGeneratorHelper;
+import eu.stamp_project.dspot.assertgenerator.MethodsAssertGenerator;
+import eu.stamp_project.dspot.assertgenerator.ObservationIndex;
 import eu.stamp_project.utils.report.output.selector.TestSelectorElementReport;
 import eu.stamp_project.utils.report.output.selector.TestSelectorElementReportImpl;
 import eu.stamp_project.utils.report.output.selector.change.json.TestCaseJSON;
@@ -16,14 +21,28 @@ import eu.stamp_project.utils.Counter;
 import eu.stamp_project.utils.DSpotUtils;
 import eu.stamp_project.utils.compilation.DSpotCompiler;
 import eu.stamp_project.utils.execution.TestRunner;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 /**
  * Created by Benjamin DANGLOT
@@ -32,6 +51,13 @@ import java.util.Map;
  */
 public class ChangeDetectorSelector implements TestSelector {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeDetectorSelector.class);
+
+    private static final String PATH_TO_DIFFERENTIAL_TEST_CLASSES = "target/dspot/change-detector-test-classes";
+
+    // the second versions that have already been compiled during this run of DSpot, keyed by their path and the hash of their sources
+    private static final Set<String> COMPILED_SECOND_VERSIONS = ConcurrentHashMap.newKeySet();
+
     private String pathToFirstVersionOfProgram;
 
     private String pathToSecondVersionOfProgram;
@@ -49,16 +75,46 @@ public class ChangeDetectorSelector implements TestSelector {
         try {
             this.pathToFirstVersionOfProgram = InputConfiguration.get().getAbsolutePathToProjectRoot();
             this.pathToSecondVersionOfProgram = InputConfiguration.get().getAbsolutePathToSecondVersionProjectRoot();
+            final String keyOfSecondVersion = this.pathToSecondVersionOfProgram + "#" + fingerprintOfSecondVersion();
+            if (COMPILED_SECOND_VERSIONS.contains(keyOfSecondVersion) &&
+                    new File(this.pathToSecondVersionOfProgram + InputConfiguration.get().getPathToClasses()).exists()) {
+                // the second version does not change during the amplification, it is built only once
+                return true;
+            }
             InputConfiguration.get().setAbsolutePathToProjectRoot(this.pathToSecondVersionOfProgram);
             DSpotPOMCreator.createNewPom();
             InputConfiguration.get().getBuilder().compile();
             InputConfiguration.get().setAbsolutePathToProjectRoot(this.pathToFirstVersionOfProgram);
+            COMPILED_SECOND_VERSIONS.add(keyOfSecondVersion);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         return true;
     }
 
+    // the sources and the test sources of the second version are hashed, so that it is built again if they are modified
+    private String fingerprintOfSecondVersion() {
+        final MessageDigest digest = DSpotUtils.newMessageDigest();
+        final List<File> filesToHash = new ArrayList<>();
+        for (String pathToSources : new String[]{InputConfiguration.get().getPathToSourceCode(), InputConfiguration.get().getPathToTestSourceCode()}) {
+            final File sources = new File(this.pathToSecondVersionOfProgram + pathToSources);
+            if (sources.isDirectory()) {
+                filesToHash.addAll(FileUtils.listFiles(sources, new String[]{"java"}, true));
+            }
+        }
+        filesToHash.stream()
+                .sorted(Comparator.comparing(File::getAbsolutePath))
+                .forEach(file -> {
+                    digest.update(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+                    try {
+                        digest.update(FileUtils.readFileToByteArray(file));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+        return DSpotUtils.toHexString(digest.digest());
+    }
+
     @Override
     public List<CtMethod<?>> selectToAmplify(CtType<?> classTest, List<CtMethod<?>> testsToBeAmplified) {
         if (this.currentClassTestToBeAmplified == null) {
@@ -81,8 +137,11 @@ public class ChangeDetectorSelector implements TestSelector {
                 .forEach(clone::removeMethod);
         amplifiedTestToBeKept.forEach(clone::addMethod);
 
-        DSpotUtils.printCtTypeToGivenDirectory(clone, new File(DSpotCompiler.getPathToAmplifiedTestSrc()));
         final String pathToAmplifiedTestSrc = DSpotCompiler.getPathToAmplifiedTestSrc();
+        if (this.shouldRunOnBothVersionsInWorker()) {
+            return this.selectToKeepWithDifferentialExecution(clone, pathToAmplifiedTestSrc, amplifiedTestToBeKept);
+        }
+        DSpotUtils.printCtTypeToGivenDirectory(clone, new File(pathToAmplifiedTestSrc));
 
         InputConfiguration.get().setAbsolutePathToProjectRoot(this.pathToSecondVersionOfProgram);
         DSpotCompiler.compile(
@@ -123,6 +182,220 @@ public class ChangeDetectorSelector implements TestSelector {
         return amplifiedThatWillBeKept;
     }
 
+    // the test worker can load both versions side by side, see TestWorkerClient#getDifferential()
+    private boolean shouldRunOnBothVersionsInWorker() {
+        return InputConfiguration.get().shouldUseTestWorker() &&
+                !InputConfiguration.get().shouldUseMavenToExecuteTest() &&
+                !InputConfiguration.get().isJUnit5();
+    }
+
+    /*
+        The amplified test methods are compiled once, against the first version,
+        then the same bytecode is run against both versions, in the same worker.
+        An amplified test method is kept if it passes on the first version and fails on the second one.
+        Since the bytecode is not compiled against the second version, a failure that comes from a change of API,
+        i.e. a LinkageError such as NoSuchMethodError, is not a detected change, and the test method is discarded.
+        An amplified test method that passes on both versions is kept as well if it observes different values,
+        see #selectObservingDifferentValues().
+     */
+    private List<CtMethod<?>> selectToKeepWithDifferentialExecution(CtType<?> clone,
+                                                                   String pathToAmplifiedTestSrc,
+                                                                   List<CtMethod<?>> amplifiedTestToBeKept) {
+        final String firstClasspath = InputConfiguration.get().getFullClassPathWithExtraDependencies();
+        final String secondClasspath;
+        try {
+            InputConfiguration.get().setAbsolutePathToProjectRoot(this.pathToSecondVersionOfProgram);
+            secondClasspath = InputConfiguration.get().getFullClassPathWithExtraDependencies();
+            // the instrumented test methods log their observations with the ObjectLog of the version they run against
+            DSpotUtils.copyPackageFromResources();
+        } finally {
+            InputConfiguration.get().setAbsolutePathToProjectRoot(this.pathToFirstVersionOfProgram);
+        }
+
+        // the amplified test methods are compiled along with their instrumented copies, that log the observed values
+        final List<CtMethod<?>> testsWithLog = amplifiedTestToBeKept.stream()
+                .map(ctMethod -> AssertGeneratorHelper.createTestWithLog(
+                        ctMethod,
+                        this.currentClassTestToBeAmplified.getPackage().getQualifiedName(),
+                        Collections.emptyList())
+                ).filter(ctMethod -> !ctMethod.getBody().getStatements().isEmpty())
+                .collect(Collectors.toList());
+        final String pathToObservationLog = pathToAmplifiedTestSrc + "_change_detector_observations.bin";
+        if (!testsWithLog.isEmpty()) {
+            testsWithLog.forEach(clone::addMethod);
+            AssertGeneratorHelper.setPathToObservationLog(clone, pathToObservationLog);
+            TestFramework.get().generateAfterClassToSaveObservations(clone, testsWithLog);
+        }
+        DSpotUtils.printCtTypeToGivenDirectory(clone, new File(pathToAmplifiedTestSrc));
+        final File binaryOutputDirectory = new File(this.pathToFirstVersionOfProgram + PATH_TO_DIFFERENTIAL_TEST_CLASSES);
+        binaryOutputDirectory.mkdirs();
+        DSpotCompiler.compile(InputConfiguration.get(), pathToAmplifiedTestSrc, firstClasspath, binaryOutputDirectory);
+
+        final List<TestResult> results;
+        try {
+            results = TestRunner.runOnBothVersions(
+                    firstClasspath,
+                    secondClasspath,
+                    this.pathToFirstVersionOfProgram,
+                    binaryOutputDirectory.getAbsolutePath(),
+                    clone.getQualifiedName(),
+                    amplifiedTestToBeKept.stream()
+                            .map(CtMethod::getSimpleName)
+                            .toArray(String[]::new));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        final Set<String> failingTestsOnFirstVersion = results.get(0).getFailingTests()
+                .stream()
+                .map(failure -> failure.testCaseName)
+                .collect(Collectors.toSet());
+        final List<CtMethod<?>> amplifiedThatWillBeKept = new ArrayList<>();
+        results.get(1).getFailingTests()
+                .stream()
+                .filter(failure -> !failingTestsOnFirstVersion.contains(failure.testCaseName))
+                .filter(failure -> !isLinkageError(failure))
+                .forEach(failure -> amplifiedTestToBeKept.stream()
+                        .filter(ctMethod -> ctMethod.getSimpleName().equals(failure.testCaseName))
+                        .findFirst()
+                        .ifPresent(key -> {
+                            amplifiedThatWillBeKept.add(key);
+                            this.failurePerAmplifiedTest.put(key, failure);
+                        })
+                );
+
+        final List<CtMethod<?>> passingOnBothVersions = amplifiedTestToBeKept.stream()
+                .filter(ctMethod -> results.get(0).getPassingTests().contains(ctMethod.getSimpleName()) &&
+                        results.get(1).getPassingTests().contains(ctMethod.getSimpleName()))
+                .collect(Collectors.toList());
+        if (testsWithLog.isEmpty() || passingOnBothVersions.isEmpty()) {
+            return amplifiedThatWillBeKept;
+        }
+        try {
+            final String[] namesOfTestsWithLog = testsWithLog.stream()
+                    .map(CtMethod::getSimpleName)
+                    .toArray(String[]::new);
+            // the values that are not deterministic are detected by observing the first version several times,
+            // as the assertion generation does, see MethodsAssertGenerator#addAssertions()
+            final Map<String, Observation> observationsOnFirstVersion = new LinkedHashMap<>();
+            final int maxNumberOfRuns = Math.max(1, InputConfiguration.get().getMaxNumberOfObservationRuns());
+            for (int run = 0; run < maxNumberOfRuns; run++) {
+                if (MethodsAssertGenerator.mergeObservations(observationsOnFirstVersion,
+                        this.observe(0, pathToObservationLog, firstClasspath, secondClasspath, binaryOutputDirectory,
+                                clone, namesOfTestsWithLog)) && run > 0) {
+                    break;
+                }
+            }
+            final Map<String, Observation> observationsOnSecondVersion = this.observe(1, pathToObservationLog,
+                    firstClasspath, secondClasspath, binaryOutputDirectory, clone, namesOfTestsWithLog);
+            amplifiedThatWillBeKept.addAll(this.selectObservingDifferentValues(clone, passingOnBothVersions,
+                    new ObservationIndex(observationsOnFirstVersion), observationsOnSecondVersion));
+        } catch (TimeoutException e) {
+            LOGGER.warn("Timeout during the observation of {} on both versions, only the failing amplified test methods are kept.",
+                    clone.getQualifiedName());
+        }
+        return amplifiedThatWillBeKept;
+    }
+
+    // each observation starts from fresh static state, so the observations of both versions are independent
+    private Map<String, Observation> observe(int version, String pathToObservationLog, String firstClasspath,
+                                             String secondClasspath, File binaryOutputDirectory, CtType<?> clone,
+                                             String[] namesOfTestsWithLog) throws TimeoutException {
+        new File(pathToObservationLog).delete();
+        TestRunner.runOnVersion(version,
+                true,
+                firstClasspath,
+                secondClasspath,
+                this.pathToFirstVersionOfProgram,
+                binaryOutputDirectory.getAbsolutePath(),
+                clone.getQualifiedName(),
+                namesOfTestsWithLog
+        );
+        return ObjectLog.load(pathToObservationLog);
+    }
+
+    /*
+        An amplified test method that passes on both versions observes different values if one of its deterministic
+        values, on which an assertion could be generated, is not the same on the second version.
+        The first of these differences is reported as the failure of the amplified test method.
+     */
+    private List<CtMethod<?>> selectObservingDifferentValues(CtType<?> clone,
+                                                             List<CtMethod<?>> passingOnBothVersions,
+                                                             ObservationIndex observationsOnFirstVersion,
+                                                             Map<String, Observation> observationsOnSecondVersion) {
+        final double delta = Double.parseDouble(InputConfiguration.get().getDelta());
+        final List<CtMethod<?>> observingDifferentValues = new ArrayList<>();
+        for (CtMethod<?> amplifiedTest : passingOnBothVersions) {
+            for (ObservationIndex.ObservationPoint observationPoint :
+                    observationsOnFirstVersion.getObservationPointsOf(amplifiedTest.getSimpleName())) {
+                final Observation observationOnSecondVersion = observationsOnSecondVersion.get(observationPoint.getId());
+                final String difference = observationOnSecondVersion == null ? null :
+                        findDifference(observationPoint.getObservation(), observationOnSecondVersion, delta);
+                if (difference != null) {
+                    observingDifferentValues.add(amplifiedTest);
+                    this.failurePerAmplifiedTest.put(amplifiedTest, new Failure(amplifiedTest.getSimpleName(),
+                            clone.getQualifiedName(), new AssertionError(difference)));
+                    break;
+                }
+            }
+        }
+        return observingDifferentValues;
+    }
+
+    private static String findDifference(Observation observationOnFirstVersion, Observation observationOnSecondVersion,
+                                         double delta) {
+        for (Map.Entry<String, Object> observedValue : observationOnFirstVersion.getObservationValues().entrySet()) {
+            final String observedExpression = observedValue.getKey();
+            if (observationOnFirstVersion.getNotDeterministValues().contains(observedExpression) ||
+                    observationOnSecondVersion.getNotDeterministValues().contains(observedExpression) ||
+                    !observationOnSecondVersion.getObservationValues().containsKey(observedExpression) ||
+                    observedValue.getValue() instanceof String &&
+                            !AssertGeneratorHelper.canGenerateAnAssertionFor((String) observedValue.getValue())) {
+                continue;
+            }
+            final Object valueOnFirstVersion = observedValue.getValue();
+            final Object valueOnSecondVersion = observationOnSecondVersion.getObservationValues().get(observedExpression);
+            if (!areEqual(valueOnFirstVersion, valueOnSecondVersion, delta)) {
+                return observedExpression + " expected:<" + toString(valueOnFirstVersion) +
+                        "> on the first version but was:<" + toString(valueOnSecondVersion) + "> on the second version";
+            }
+        }
+        return null;
+    }
+
+    // the floating-point values are compared with the delta of the generated assertions
+    private static boolean areEqual(Object valueOnFirstVersion, Object valueOnSecondVersion, double delta) {
+        if ((valueOnFirstVersion instanceof Double || valueOnFirstVersion instanceof Float) &&
+                (valueOnSecondVersion instanceof Double || valueOnSecondVersion instanceof Float)) {
+            final double first = ((Number) valueOnFirstVersion).doubleValue();
+            final double second = ((Number) valueOnSecondVersion).doubleValue();
+            return Double.compare(first, second) == 0 || Math.abs(first - second) <= delta;
+        }
+        return Objects.deepEquals(valueOnFirstVersion, valueOnSecondVersion);
+    }
+
+    private static String toString(Object value) {
+        if (value == null || !value.getClass().isArray()) {
+            return String.valueOf(value);
+        }
+        final String valueInArray = Arrays.deepToString(new Object[]{value});
+        return valueInArray.substring(1, valueInArray.length() - 1);
+    }
+
+    private static boolean isLinkageError(Failure failure) {
+        if (failure.fullQualifiedNameOfException == null) {
+            return false;
+        }
+        try {
+            // the class of the exception is not initialized, it could run code of the program
+            return LinkageError.class.isAssignableFrom(
+                    Class.forName(failure.fullQualifiedNameOfException, false, ChangeDetectorSelector.class.getClassLoader())
+            );
+        } catch (ClassNotFoundException e) {
+            // an exception of the program, which is not a LinkageError
+            return false;
+        }
+    }
+
     @Override
     public List<CtMethod<?>> getAmplifiedTestCases() {
         return new ArrayList<>(this.failurePerAmplifiedTest.keySet());
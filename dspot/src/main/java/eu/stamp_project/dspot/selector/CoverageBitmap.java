@@ -0,0 +1,270 @@
+package eu.stamp_project.dspot.selector;
+
+import eu.stamp_project.testrunner.listener.Coverage;
+import eu.stamp_project.utils.DSpotUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The coverage of a test method, as a bitmap of the covered lines of each class, keyed by the id of the class,
+ * see {@link ClassIndex}, and the number of instructions covered on each of these lines.
+ * The execution path of the test-runner, i.e. for each class, the number of instructions covered on each of its lines,
+ * is not kept: only its digest is, so that two coverages that have different execution paths are told apart without
+ * comparing long strings. Two coverages are equal if they have the same digest and cover the same instructions on each
+ * line, so that a collision of the digests is never taken for a duplicated coverage.
+ */
+public class CoverageBitmap {
+
+    /**
+     * Gives an id to each covered class, shared by the bitmaps of the same amplification of a test class.
+     */
+    public static class ClassIndex {
+
+        private final Map<String, Integer> idPerClass = new HashMap<>();
+
+        private final List<int[]> maxInstructionsPerLineOfClass = new ArrayList<>();
+
+        int getId(String className, int[] instructionsPerLine) {
+            final int id = this.idPerClass.computeIfAbsent(className, newClassName -> {
+                this.maxInstructionsPerLineOfClass.add(new int[0]);
+                return this.idPerClass.size();
+            });
+            final int[] maxInstructionsPerLine = this.maxInstructionsPerLineOfClass.get(id).length < instructionsPerLine.length ?
+                    Arrays.copyOf(this.maxInstructionsPerLineOfClass.get(id), instructionsPerLine.length) :
+                    this.maxInstructionsPerLineOfClass.get(id);
+            for (int line = 0; line < instructionsPerLine.length; line++) {
+                maxInstructionsPerLine[line] = Math.max(maxInstructionsPerLine[line], instructionsPerLine[line]);
+            }
+            this.maxInstructionsPerLineOfClass.set(id, maxInstructionsPerLine);
+            return id;
+        }
+
+        /**
+         * @return the offset of each line of each class, so that each instruction covered on each line of each class
+         * has its own index, see {@link #toBitSet(int[][])}
+         */
+        int[][] getOffsetOfLines() {
+            final int[][] offsetOfLines = new int[this.maxInstructionsPerLineOfClass.size()][];
+            int offset = 0;
+            for (int id = 0; id < offsetOfLines.length; id++) {
+                final int[] maxInstructionsPerLine = this.maxInstructionsPerLineOfClass.get(id);
+                offsetOfLines[id] = new int[maxInstructionsPerLine.length];
+                for (int line = 0; line < maxInstructionsPerLine.length; line++) {
+                    offsetOfLines[id][line] = offset;
+                    offset += maxInstructionsPerLine[line];
+                }
+            }
+            return offsetOfLines;
+        }
+    }
+
+    private final Map<Integer, BitSet> coveredLinesPerClass;
+
+    private final Map<Integer, int[]> instructionsPerLineOfClass;
+
+    private final long digest;
+
+    private final int instructionsCovered;
+
+    private final int instructionsTotal;
+
+    private CoverageBitmap(Map<Integer, int[]> instructionsPerLineOfClass, long digest, int instructionsCovered, int instructionsTotal) {
+        this.instructionsPerLineOfClass = instructionsPerLineOfClass;
+        this.coveredLinesPerClass = new HashMap<>();
+        instructionsPerLineOfClass.forEach((classId, instructionsPerLine) -> {
+            final BitSet coveredLines = new BitSet(instructionsPerLine.length);
+            for (int line = 0; line < instructionsPerLine.length; line++) {
+                if (instructionsPerLine[line] > 0) {
+                    coveredLines.set(line);
+                }
+            }
+            this.coveredLinesPerClass.put(classId, coveredLines);
+        });
+        this.digest = digest;
+        this.instructionsCovered = instructionsCovered;
+        this.instructionsTotal = instructionsTotal;
+    }
+
+    public static CoverageBitmap of(Coverage coverage, ClassIndex classIndex) {
+        return of(coverage.getExecutionPath(), coverage.getInstructionsCovered(), coverage.getInstructionsTotal(), classIndex);
+    }
+
+    static CoverageBitmap of(String executionPath, int instructionsCovered, int instructionsTotal, ClassIndex classIndex) {
+        return new CoverageBitmap(
+                toInstructionsPerLineOfClass(executionPath, classIndex),
+                digest(String.valueOf(executionPath)),
+                instructionsCovered,
+                instructionsTotal
+        );
+    }
+
+    // the execution path is e.g. fr/inria/A:0,2,1;fr/inria/B:0,0, i.e. the number of instructions covered on each line
+    // if it cannot be read, no line is covered, and only the digest identifies the coverage
+    private static Map<Integer, int[]> toInstructionsPerLineOfClass(String executionPath, ClassIndex classIndex) {
+        final Map<Integer, int[]> instructionsPerLineOfClass = new HashMap<>();
+        if (executionPath == null) {
+            return instructionsPerLineOfClass;
+        }
+        for (String coverageOfClass : executionPath.split(";")) {
+            final int indexOfSeparator = coverageOfClass.lastIndexOf(':');
+            if (indexOfSeparator < 0) {
+                continue;
+            }
+            final String[] counts = coverageOfClass.substring(indexOfSeparator + 1).split(",");
+            final int[] instructionsPerLine = new int[counts.length];
+            boolean covered = false;
+            for (int line = 0; line < counts.length; line++) {
+                try {
+                    if (!counts[line].isEmpty()) {
+                        instructionsPerLine[line] = Math.max(0, Integer.parseInt(counts[line]));
+                        covered |= instructionsPerLine[line] > 0;
+                    }
+                } catch (NumberFormatException ignored) {
+                    // ignored
+                }
+            }
+            if (covered) {
+                instructionsPerLineOfClass.put(
+                        classIndex.getId(coverageOfClass.substring(0, indexOfSeparator), instructionsPerLine),
+                        instructionsPerLine
+                );
+            }
+        }
+        return instructionsPerLineOfClass;
+    }
+
+    private static long digest(String executionPath) {
+        return DSpotUtils.fnv1a(DSpotUtils.FNV1A_OFFSET_BASIS, executionPath);
+    }
+
+    // the digest of a coverage that has no execution path, e.g. an union, computed from its covered instructions
+    private static long digest(Map<Integer, int[]> instructionsPerLineOfClass) {
+        final StringBuilder lines = new StringBuilder();
+        instructionsPerLineOfClass.keySet()
+                .stream()
+                .sorted()
+                .forEach(classId -> lines.append(classId).append(Arrays.toString(instructionsPerLineOfClass.get(classId))).append(';'));
+        return digest(lines.toString());
+    }
+
+    /**
+     * @return the digest of the execution path, two coverages that have different digests are different
+     */
+    public long getDigest() {
+        return this.digest;
+    }
+
+    public int getInstructionsCovered() {
+        return this.instructionsCovered;
+    }
+
+    public int getInstructionsTotal() {
+        return this.instructionsTotal;
+    }
+
+    /**
+     * @return true if this coverage covers all the lines covered by the given one
+     */
+    public boolean subsumes(CoverageBitmap that) {
+        for (Map.Entry<Integer, BitSet> coveredLinesOfClass : that.coveredLinesPerClass.entrySet()) {
+            final BitSet notCoveredLines = (BitSet) coveredLinesOfClass.getValue().clone();
+            final BitSet coveredLines = this.coveredLinesPerClass.get(coveredLinesOfClass.getKey());
+            if (coveredLines != null) {
+                notCoveredLines.andNot(coveredLines);
+            }
+            if (!notCoveredLines.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if this coverage covers more instructions than the given one, or a line that it does not cover
+     */
+    public boolean isBetterThan(CoverageBitmap that) {
+        return that == null || this.instructionsCovered > that.instructionsCovered || !that.subsumes(this);
+    }
+
+    /**
+     * @return a new coverage, that covers the lines covered by this coverage or by the given one, with the greatest
+     * number of instructions covered on each line.
+     * Its number of covered instructions is a lower bound, i.e. the greatest of the two.
+     */
+    public CoverageBitmap union(CoverageBitmap that) {
+        final Map<Integer, int[]> instructionsPerLineOfClass = new HashMap<>();
+        this.instructionsPerLineOfClass.forEach((classId, instructionsPerLine) ->
+                instructionsPerLineOfClass.put(classId, instructionsPerLine.clone())
+        );
+        that.instructionsPerLineOfClass.forEach((classId, instructionsPerLine) ->
+                instructionsPerLineOfClass.merge(classId, instructionsPerLine.clone(), CoverageBitmap::max)
+        );
+        return new CoverageBitmap(instructionsPerLineOfClass,
+                digest(instructionsPerLineOfClass),
+                Math.max(this.instructionsCovered, that.instructionsCovered),
+                Math.max(this.instructionsTotal, that.instructionsTotal)
+        );
+    }
+
+    private static int[] max(int[] instructionsPerLine, int[] otherInstructionsPerLine) {
+        final int[] maxInstructionsPerLine = Arrays.copyOf(instructionsPerLine,
+                Math.max(instructionsPerLine.length, otherInstructionsPerLine.length));
+        for (int line = 0; line < otherInstructionsPerLine.length; line++) {
+            maxInstructionsPerLine[line] = Math.max(maxInstructionsPerLine[line], otherInstructionsPerLine[line]);
+        }
+        return maxInstructionsPerLine;
+    }
+
+    /**
+     * The k-th instruction covered on a line has its own index, so that the union of such bitmaps covers, on each line,
+     * the greatest number of instructions covered by one of the coverages, see {@link #union(CoverageBitmap)}.
+     *
+     * @param offsetOfLines the offsets of the lines of the classes, see {@link ClassIndex#getOffsetOfLines()}
+     * @return the covered instructions of all the lines of all the classes in a single bitmap
+     */
+    public BitSet toBitSet(int[][] offsetOfLines) {
+        final BitSet coveredInstructions = new BitSet();
+        this.instructionsPerLineOfClass.forEach((classId, instructionsPerLine) -> {
+            for (int line = 0; line < instructionsPerLine.length; line++) {
+                coveredInstructions.set(offsetOfLines[classId][line], offsetOfLines[classId][line] + instructionsPerLine[line]);
+            }
+        });
+        return coveredInstructions;
+    }
+
+    /**
+     * @return the number of covered lines, in all the classes
+     */
+    public int getNumberOfCoveredLines() {
+        return this.coveredLinesPerClass.values().stream().mapToInt(BitSet::cardinality).sum();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final CoverageBitmap that = (CoverageBitmap) o;
+        return this.digest == that.digest &&
+                this.instructionsPerLineOfClass.keySet().equals(that.instructionsPerLineOfClass.keySet()) &&
+                this.instructionsPerLineOfClass.keySet()
+                        .stream()
+                        .allMatch(classId -> Arrays.equals(
+                                this.instructionsPerLineOfClass.get(classId),
+                                that.instructionsPerLineOfClass.get(classId))
+                        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.digest);
+    }
+}
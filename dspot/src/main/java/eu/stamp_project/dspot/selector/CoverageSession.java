@@ -0,0 +1,108 @@
+package eu.stamp_project.dspot.selector;
+
+import eu.stamp_project.testrunner.listener.Coverage;
+import eu.stamp_project.testrunner.listener.CoveragePerTestMethod;
+import eu.stamp_project.utils.AmplificationHelper;
+import eu.stamp_project.utils.TestMethodFingerprint;
+import eu.stamp_project.utils.execution.TestRunner;
+import eu.stamp_project.utils.program.InputConfiguration;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtType;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * The coverage of the test methods of one test class, computed during its amplification.
+ * The classpath is built once for the whole session, and the coverage of each test method is computed once: the
+ * test methods kept at an iteration are the test methods to amplify at the next one, so their coverage is not
+ * computed again. The test methods whose coverage is unknown are all run in a single JVM.
+ * The coverage of a test method is identified by its name and its fingerprint, see {@link TestMethodFingerprint}, so a
+ * test method that has been modified is run again. It is kept as a {@link CoverageBitmap}.
+ */
+class CoverageSession {
+
+    private final CtType<?> testClass;
+
+    private final String classpath;
+
+    private final String targetClasses;
+
+    private final CoverageBitmap.ClassIndex classIndex = new CoverageBitmap.ClassIndex();
+
+    private final Map<String, CoverageBitmap> coveragePerKey = new HashMap<>();
+
+    CoverageSession(CtType<?> testClass) {
+        this.testClass = testClass;
+        String classpath = InputConfiguration.get().getBuilder().buildClasspath();
+        if (!InputConfiguration.get().getAdditionalClasspathElements().isEmpty()) {
+            classpath += AmplificationHelper.PATH_SEPARATOR + InputConfiguration.get().getProcessedAddtionalClasspathElements();
+        }
+        this.targetClasses = InputConfiguration.get().getClasspathClassesProject();
+        this.classpath = classpath + AmplificationHelper.PATH_SEPARATOR + this.targetClasses;
+    }
+
+    CoverageBitmap.ClassIndex getClassIndex() {
+        return this.classIndex;
+    }
+
+    /**
+     * @return the coverage of the whole test class
+     */
+    Coverage runCoverageOfTestClass() throws TimeoutException {
+        return TestRunner.runCoverage(this.classpath, this.targetClasses, this.testClass);
+    }
+
+    /**
+     * @param testMethods the test methods, which must be compiled in the test class of the session
+     * @return the coverage of each given test method, by name. The test methods that could not be run have no coverage.
+     */
+    Map<String, CoverageBitmap> getCoverageOf(List<CtMethod<?>> testMethods) {
+        final Map<String, String> keyPerName = new LinkedHashMap<>();
+        testMethods.stream()
+                .filter(Objects::nonNull)
+                .forEach(testMethod -> keyPerName.put(testMethod.getSimpleName(), getKey(testMethod)));
+        final String[] namesToRun = keyPerName.keySet()
+                .stream()
+                .filter(name -> !this.coveragePerKey.containsKey(keyPerName.get(name)))
+                .toArray(String[]::new);
+        if (namesToRun.length > 0) {
+            final CoveragePerTestMethod coveragePerTestMethod;
+            try {
+                coveragePerTestMethod = this.runCoveragePerTestMethods(namesToRun);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            for (String name : namesToRun) {
+                final Coverage coverage = coveragePerTestMethod.getCoverageOf(name);
+                if (coverage != null) {
+                    this.coveragePerKey.put(keyPerName.get(name), CoverageBitmap.of(coverage, this.classIndex));
+                }
+            }
+        }
+        return keyPerName.keySet()
+                .stream()
+                .filter(name -> this.coveragePerKey.containsKey(keyPerName.get(name)))
+                .collect(Collectors.toMap(name -> name, name -> this.coveragePerKey.get(keyPerName.get(name)),
+                        (coverage, sameCoverage) -> coverage, LinkedHashMap::new));
+    }
+
+    // runs the given test methods of the test class of the session, in a single JVM
+    CoveragePerTestMethod runCoveragePerTestMethods(String... names) throws TimeoutException {
+        return TestRunner.runCoveragePerTestMethods(
+                this.classpath,
+                this.targetClasses,
+                this.testClass.getQualifiedName(),
+                names
+        );
+    }
+
+    private static String getKey(CtMethod<?> testMethod) {
+        return testMethod.getSimpleName() + "#" + TestMethodFingerprint.of(testMethod);
+    }
+}
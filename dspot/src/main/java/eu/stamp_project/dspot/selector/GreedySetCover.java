@@ -0,0 +1,76 @@
+package eu.stamp_project.dspot.selector;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Selects a near-minimal subset of candidates that covers all the elements covered by the candidates, e.g. the
+ * amplified test methods that kill all the mutants killed by the amplified test methods.
+ * This is the greedy algorithm of the set cover problem: it takes the candidate that covers the most elements that are
+ * not covered yet, until all the elements are covered. The gains are computed lazily: the gain of a candidate can only
+ * decrease, so the gain stored in the heap is an upper bound, and it is computed again only when the candidate is on
+ * the top of the heap.
+ */
+public class GreedySetCover {
+
+    private static class Candidate {
+
+        private final int index;
+
+        private final BitSet elements;
+
+        private int gain;
+
+        private Candidate(int index, BitSet elements) {
+            this.index = index;
+            this.elements = elements;
+            this.gain = elements.cardinality();
+        }
+    }
+
+    /**
+     * @param candidates     the candidates
+     * @param elementsOf     the elements covered by each candidate
+     * @param alreadyCovered the elements that do not need to be covered, e.g. the elements covered by the original tests
+     * @return the selected candidates, in the order of the given candidates
+     */
+    public static <T> List<T> select(List<T> candidates, Function<T, BitSet> elementsOf, BitSet alreadyCovered) {
+        final PriorityQueue<Candidate> heap = new PriorityQueue<>(Math.max(1, candidates.size()),
+                Comparator.<Candidate>comparingInt(candidate -> candidate.gain).reversed()
+                        .thenComparingInt(candidate -> candidate.index)
+        );
+        for (int i = 0; i < candidates.size(); i++) {
+            final BitSet elements = (BitSet) elementsOf.apply(candidates.get(i)).clone();
+            elements.andNot(alreadyCovered);
+            if (!elements.isEmpty()) {
+                heap.add(new Candidate(i, elements));
+            }
+        }
+        final BitSet covered = new BitSet();
+        final BitSet selected = new BitSet(candidates.size());
+        while (!heap.isEmpty()) {
+            final Candidate candidate = heap.poll();
+            final BitSet newElements = (BitSet) candidate.elements.clone();
+            newElements.andNot(covered);
+            final int gain = newElements.cardinality();
+            if (gain == 0) {
+                continue;
+            }
+            if (gain < candidate.gain) {
+                // the gain is outdated, the candidate goes back into the heap with its actual gain
+                candidate.gain = gain;
+                heap.add(candidate);
+                continue;
+            }
+            covered.or(candidate.elements);
+            selected.set(candidate.index);
+        }
+        final List<T> selectedCandidates = new ArrayList<>();
+        selected.stream().forEach(index -> selectedCandidates.add(candidates.get(index)));
+        return selectedCandidates;
+    }
+}
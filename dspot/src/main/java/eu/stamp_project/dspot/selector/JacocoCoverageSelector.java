@@ -2,19 +2,21 @@ package eu.stamp_project.dspot.selector;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import eu.stamp_project.dspot.AmplificationContext;
 import eu.stamp_project.utils.report.output.selector.TestSelectorElementReport;
 import eu.stamp_project.utils.report.output.selector.TestSelectorElementReportImpl;
 import eu.stamp_project.utils.report.output.selector.coverage.json.TestCaseJSON;
 import eu.stamp_project.utils.report.output.selector.coverage.json.TestClassJSON;
 import eu.stamp_project.testrunner.listener.Coverage;
-import eu.stamp_project.testrunner.listener.CoveragePerTestMethod;
 import eu.stamp_project.utils.program.InputConfiguration;
-import eu.stamp_project.testrunner.EntryPoint;
+import eu.stamp_project.utils.execution.TestRunner;
 import eu.stamp_project.utils.AmplificationHelper;
 import eu.stamp_project.utils.Counter;
 import eu.stamp_project.utils.DSpotUtils;
 import eu.stamp_project.utils.compilation.DSpotCompiler;
 import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtNamedElement;
 import spoon.reflect.declaration.CtType;
@@ -24,8 +26,11 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -39,11 +44,16 @@ import static eu.stamp_project.utils.AmplificationHelper.PATH_SEPARATOR;
  */
 public class JacocoCoverageSelector extends TakeAllSelector {
 
-    private Map<String, Coverage> selectedToBeAmplifiedCoverageResultsMap;
+    private static final Logger LOGGER = LoggerFactory.getLogger(JacocoCoverageSelector.class);
+
+    private Map<String, CoverageBitmap> selectedToBeAmplifiedCoverageResultsMap;
 
     private Coverage initialCoverage;
 
-    private List<String> pathExecuted = new ArrayList<>();
+    private CoverageSession coverageSession;
+
+    // the coverages of the selected test methods, compared with their digests first, see CoverageBitmap#equals(Object)
+    private Set<CoverageBitmap> pathExecuted = new HashSet<>();
 
     private TestSelectorElementReport lastReport;
 
@@ -58,96 +68,55 @@ public class JacocoCoverageSelector extends TakeAllSelector {
     public List<CtMethod<?>> selectToAmplify(CtType<?> classTest, List<CtMethod<?>> testsToBeAmplified) {
         if (this.currentClassTestToBeAmplified == null) {
             this.currentClassTestToBeAmplified = classTest;
-            String classpath = InputConfiguration.get().getBuilder().buildClasspath();
-            if (!InputConfiguration.get().getAdditionalClasspathElements().isEmpty()) {
-                classpath += PATH_SEPARATOR + InputConfiguration.get().getProcessedAddtionalClasspathElements();
-            }
-            final String targetClasses = InputConfiguration.get().getClasspathClassesProject();
+            this.coverageSession = new CoverageSession(classTest);
             try {
-                this.initialCoverage = EntryPoint.runCoverage(
-                        classpath + AmplificationHelper.PATH_SEPARATOR + targetClasses,
-                        targetClasses,
-                        this.currentClassTestToBeAmplified.getQualifiedName()
-                );
+                this.initialCoverage = this.coverageSession.runCoverageOfTestClass();
             } catch (TimeoutException e) {
                 throw new RuntimeException(e);
             }
             this.selectedToBeAmplifiedCoverageResultsMap = null;
             this.selectedAmplifiedTest.clear();
         }
-        final CoveragePerTestMethod coveragePerTestMethod = computeCoverageForGivenTestMethods(testsToBeAmplified);
-        final List<String> pathExecuted = new ArrayList<>();
+        final Map<String, CoverageBitmap> coveragePerTestMethod = this.coverageSession.getCoverageOf(testsToBeAmplified);
+        final Set<CoverageBitmap> pathExecuted = new HashSet<>();
         final List<CtMethod<?>> filteredTests = testsToBeAmplified.stream()
                 .filter(ctMethod -> ctMethod != null &&
-                        coveragePerTestMethod.getCoverageOf(ctMethod.getSimpleName()) != null)
-                .filter(ctMethod -> {
-                    final String pathByExecInstructions = coveragePerTestMethod.getCoverageOf(ctMethod.getSimpleName()).getExecutionPath();
-                    if (pathExecuted.contains(pathByExecInstructions)) {
-                        return false;
-                    } else {
-                        pathExecuted.add(pathByExecInstructions);
-                        return true;
-                    }
-                }).collect(Collectors.toList());
+                        coveragePerTestMethod.get(ctMethod.getSimpleName()) != null)
+                .filter(ctMethod -> pathExecuted.add(coveragePerTestMethod.get(ctMethod.getSimpleName())))
+                .collect(Collectors.toList());
         if (this.selectedToBeAmplifiedCoverageResultsMap == null) {
             final List<String> filteredMethodNames = filteredTests.stream()
                     .map(CtNamedElement::getSimpleName)
                     .collect(Collectors.toList());
-            this.selectedToBeAmplifiedCoverageResultsMap = coveragePerTestMethod.getCoverageResultsMap()
+            this.selectedToBeAmplifiedCoverageResultsMap = coveragePerTestMethod
                     .keySet()
                     .stream()
                     .filter(filteredMethodNames::contains)
-                    .collect(Collectors.toMap(Function.identity(), coveragePerTestMethod.getCoverageResultsMap()::get));
+                    .collect(Collectors.toMap(Function.identity(), coveragePerTestMethod::get));
         }
         return filteredTests;
     }
 
-    private CoveragePerTestMethod computeCoverageForGivenTestMethods(List<CtMethod<?>> testsToBeAmplified) {
-        final String[] methodNames = testsToBeAmplified.stream().map(CtNamedElement::getSimpleName).toArray(String[]::new);
-        String classpath = InputConfiguration.get().getBuilder().buildClasspath();
-        if (!InputConfiguration.get().getAdditionalClasspathElements().isEmpty()) {
-            classpath += PATH_SEPARATOR + InputConfiguration.get().getProcessedAddtionalClasspathElements();
-        }
-        final String targetClasses = InputConfiguration.get().getClasspathClassesProject();
-        try {
-            return EntryPoint.runCoveragePerTestMethods(
-                    classpath + AmplificationHelper.PATH_SEPARATOR + targetClasses,
-                    targetClasses,
-                    this.currentClassTestToBeAmplified.getQualifiedName(),
-                    methodNames
-            );
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     @Override
     public List<CtMethod<?>> selectToKeep(List<CtMethod<?>> amplifiedTestToBeKept) {
         if (amplifiedTestToBeKept.isEmpty()) {
             return amplifiedTestToBeKept;
         }
-        final CoveragePerTestMethod coveragePerTestMethod = computeCoverageForGivenTestMethods(amplifiedTestToBeKept);
+        final Map<String, CoverageBitmap> coveragePerTestMethod = this.coverageSession.getCoverageOf(amplifiedTestToBeKept);
         final List<CtMethod<?>> methodsKept = amplifiedTestToBeKept.stream()
                 .filter(ctMethod -> {
                     final String simpleNameOfFirstParent = getFirstParentThatHasBeenRun(ctMethod).getSimpleName();
                     return this.selectedToBeAmplifiedCoverageResultsMap.get(simpleNameOfFirstParent) == null ||
-                            coveragePerTestMethod.getCoverageOf(ctMethod.getSimpleName()).isBetterThan(
+                            coveragePerTestMethod.get(ctMethod.getSimpleName()).isBetterThan(
                                     this.selectedToBeAmplifiedCoverageResultsMap.get(simpleNameOfFirstParent));
                 })
-                .filter(ctMethod -> {
-                    final String pathByExecInstructions = coveragePerTestMethod.getCoverageOf(ctMethod.getSimpleName()).getExecutionPath();
-                    if (pathExecuted.contains(pathByExecInstructions)) {
-                        return false;
-                    } else {
-                        pathExecuted.add(pathByExecInstructions);
-                        return true;
-                    }
-                }).collect(Collectors.toList());
+                .filter(ctMethod -> pathExecuted.add(coveragePerTestMethod.get(ctMethod.getSimpleName())))
+                .collect(Collectors.toList());
 
         this.selectedToBeAmplifiedCoverageResultsMap.putAll(methodsKept.stream()
                 .map(CtNamedElement::getSimpleName)
                 .collect(
-                        Collectors.toMap(Function.identity(), coveragePerTestMethod.getCoverageResultsMap()::get)
+                        Collectors.toMap(Function.identity(), coveragePerTestMethod::get)
                 )
         );
 
@@ -155,6 +124,29 @@ public class JacocoCoverageSelector extends TakeAllSelector {
         return methodsKept;
     }
 
+    /**
+     * The amplified test methods are kept if they cover more instructions than their parent, see {@link #selectToKeep(List)}.
+     * The subset covers therefore, on each line, the greatest number of instructions covered by one of the
+     * amplified test methods, and not only their lines, see {@link CoverageBitmap#toBitSet(int[][])}.
+     */
+    @Override
+    public void keepCoveringSubset() {
+        if (this.coverageSession == null) {
+            return;
+        }
+        final int[][] offsetOfLines = this.coverageSession.getClassIndex().getOffsetOfLines();
+        final List<CtMethod<?>> coveringSubset = GreedySetCover.select(this.selectedAmplifiedTest,
+                amplifiedTest -> {
+                    final CoverageBitmap coverage = this.selectedToBeAmplifiedCoverageResultsMap.get(amplifiedTest.getSimpleName());
+                    return coverage == null ? new BitSet() : coverage.toBitSet(offsetOfLines);
+                },
+                new BitSet()
+        );
+        LOGGER.info("{} amplified test methods over {} cover all the instructions covered on each line by the amplified test methods.",
+                coveringSubset.size(), this.selectedAmplifiedTest.size());
+        this.selectedAmplifiedTest.retainAll(coveringSubset);
+    }
+
     protected CtMethod<?> getFirstParentThatHasBeenRun(CtMethod<?> test) {
         CtMethod<?> currentParent = AmplificationHelper.getAmpTestParent(test);
         while (AmplificationHelper.getAmpTestParent(currentParent) != null) {
@@ -167,6 +159,11 @@ public class JacocoCoverageSelector extends TakeAllSelector {
         return currentParent;
     }
 
+    @Override
+    public TestSelector copy() {
+        return new JacocoCoverageSelector();
+    }
+
     @Override
     public TestSelectorElementReport report() {
         if(currentClassTestToBeAmplified == null) {
@@ -188,13 +185,21 @@ public class JacocoCoverageSelector extends TakeAllSelector {
 
         // compute the new coverage obtained by the amplification
         final CtType<?> clone = this.currentClassTestToBeAmplified.clone();
-        this.currentClassTestToBeAmplified.getPackage().addType(clone);
+        synchronized (AmplificationContext.MODEL_LOCK) {
+            this.currentClassTestToBeAmplified.getPackage().addType(clone);
+        }
         this.selectedAmplifiedTest.forEach(clone::addMethod);
+
+        // the amplified test class is compiled in the directories of the current context, and not in the test classes
+        // of the project, that are shared by the test classes amplified in parallel
+        final File binaryOutputDirectory = new File(DSpotCompiler.getPathToAmplifiedTestClasses());
         try {
             FileUtils.deleteDirectory(new File(DSpotCompiler.getPathToAmplifiedTestSrc()));
+            FileUtils.deleteDirectory(binaryOutputDirectory);
         } catch (IOException ignored) {
             //ignored
         }
+        binaryOutputDirectory.mkdirs();
         DSpotUtils.printCtTypeToGivenDirectory(clone, new File(DSpotCompiler.getPathToAmplifiedTestSrc()));
 
         String classpath = InputConfiguration.get().getFullClassPathWithExtraDependencies();
@@ -203,14 +208,15 @@ public class JacocoCoverageSelector extends TakeAllSelector {
         }
 
         DSpotCompiler.compile(InputConfiguration.get(), DSpotCompiler.getPathToAmplifiedTestSrc(), classpath,
-                new File(InputConfiguration.get().getAbsolutePathToTestClasses()));
+                binaryOutputDirectory);
+        classpath = binaryOutputDirectory.getAbsolutePath() + PATH_SEPARATOR + classpath;
 
         final String targetClasses = InputConfiguration.get().getClasspathClassesProject();
         try {
-            final Coverage coverageResults = EntryPoint.runCoverage(
+            final Coverage coverageResults = TestRunner.runCoverage(
                     classpath,
                     targetClasses,
-                    this.currentClassTestToBeAmplified.getQualifiedName()
+                    clone
             );
             report.append("Amplified instruction coverage: ")
                     .append(coverageResults.getInstructionsCovered())
@@ -227,6 +233,7 @@ public class JacocoCoverageSelector extends TakeAllSelector {
             throw new RuntimeException(e);
         } finally {
             this.currentClassTestToBeAmplified = null;
+            this.coverageSession = null;
         }
 
     }
@@ -6,6 +6,8 @@ import eu.stamp_project.Main;
 import eu.stamp_project.automaticbuilder.AutomaticBuilder;
 import eu.stamp_project.utils.pit.*;
 import eu.stamp_project.test_framework.TestFramework;
+import eu.stamp_project.utils.execution.TestRunner;
+import eu.stamp_project.testrunner.listener.Coverage;
 import eu.stamp_project.utils.compilation.DSpotCompiler;
 import eu.stamp_project.utils.AmplificationHelper;
 import eu.stamp_project.utils.report.error.Error;
@@ -25,7 +27,10 @@ import spoon.reflect.declaration.CtType;
 
 import java.io.*;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Created by Benjamin DANGLOT
@@ -38,13 +43,25 @@ public class PitMutantScoreSelector extends TakeAllSelector {
 
     private int numberOfMutant;
 
-    private List<AbstractPitResult> originalKilledMutants;
+    /*
+        The sets of mutants are bitsets of their ids in the index.
+        The ids of the original mutants are lower than the number of mutants.
+        No result of PIT is kept: the index keeps what the reports need to know about each mutant.
+     */
 
-    private List<AbstractPitResult> baselineKilledMutants;
+    private Map<String, Integer> numberOfMutantKilledOriginallyByClass;
 
-    private Map<CtMethod, Set<AbstractPitResult>> testThatKilledMutants;
+    private Map<CtMethod, BitSet> testThatKilledMutants;
 
-    private List<AbstractPitResult> mutantNotTestedByOriginal;
+    private MutantIndex mutantIndex;
+
+    private BitSet originalKilledMutantIds;
+
+    private BitSet baselineKilledMutants;
+
+    private BitSet mutantNotTestedByOriginal;
+
+    private BitSet mutantNotKilledByOriginal;
 
     private AbstractParser parser;
 
@@ -52,6 +69,8 @@ public class PitMutantScoreSelector extends TakeAllSelector {
 
     private TestSelectorElementReport lastReport;
 
+    private Boolean standalonePitAvailable;
+
     public PitMutantScoreSelector() {
         this(OutputFormat.XML);
     }
@@ -79,53 +98,101 @@ public class PitMutantScoreSelector extends TakeAllSelector {
                 parser = originalResultParser = new PitXMLResultParser();
                 break;
         }
-        initOriginalPitResult(originalResultParser.parse(new File(pathToOriginalResultOfPit)));
+        this.startIndexOfOriginalPitResult();
+        try {
+            originalResultParser.parse(new File(pathToOriginalResultOfPit), this::indexOriginalPitResult);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        this.endIndexOfOriginalPitResult();
     }
 
     @Override
     public boolean init() {
-        if (this.originalKilledMutants == null) {
-            final AutomaticBuilder automaticBuilder = InputConfiguration.get().getBuilder();
-            if (InputConfiguration.get().shouldTargetOneTestClass()) {
-                automaticBuilder.runPit(
-                        InputConfiguration.get().getFactory().Class().get(InputConfiguration.get().getTestClasses().get(0))
-                );
-            } else {
-                try {
-                    automaticBuilder.runPit();
-                } catch (Throwable e) {
-                    LOGGER.error(ErrorEnum.ERROR_ORIGINAL_MUTATION_SCORE.getMessage());
-                    Main.GLOBAL_REPORT.addError(new Error(ErrorEnum.ERROR_ORIGINAL_MUTATION_SCORE, e));
-                    return false;
-                }
+        if (this.mutantIndex == null) {
+            final String pitConfiguration = KillMatrix.getConfiguration();
+            final KillMatrix killMatrix = KillMatrix.load(InputConfiguration.get().getOutputDirectory());
+            final Set<String> reusableClasses = killMatrix == null ?
+                    Collections.emptySet() : killMatrix.getReusableClasses(pitConfiguration);
+            if (!reusableClasses.isEmpty()) {
+                LOGGER.info("The results of PIT on {} classes are reused from {}", reusableClasses.size(), KillMatrix.FILE_NAME);
             }
-            initOriginalPitResult(parser.parseAndDelete(InputConfiguration.get().getAbsolutePathToProjectRoot() + automaticBuilder.getOutputDirectoryPit()));
-        } else {
-            baselineKilledMutants = new ArrayList<>();
-            for(AbstractPitResult r : originalKilledMutants) {
-                baselineKilledMutants.add(r.clone());
+
+            // the results of PIT are streamed both to the index and to the new matrix, without being kept
+            final KillMatrix newKillMatrix = KillMatrix.of(pitConfiguration);
+            final Consumer<AbstractPitResult> consumer = result -> {
+                this.indexOriginalPitResult(result);
+                newKillMatrix.add(result);
+            };
+            this.startIndexOfOriginalPitResult();
+            try {
+                this.runPitOnOriginalTestSuite(reusableClasses, consumer);
+            } catch (Throwable e) {
+                this.mutantIndex = null;
+                LOGGER.error(ErrorEnum.ERROR_ORIGINAL_MUTATION_SCORE.getMessage());
+                Main.GLOBAL_REPORT.addError(new Error(ErrorEnum.ERROR_ORIGINAL_MUTATION_SCORE, e));
+                return false;
+            }
+            if (!reusableClasses.isEmpty()) {
+                killMatrix.getResultsOf(reusableClasses, this.parser instanceof PitXMLResultParser, consumer);
             }
+            newKillMatrix.save(InputConfiguration.get().getOutputDirectory());
+            this.endIndexOfOriginalPitResult();
+        } else {
+            baselineKilledMutants = (BitSet) originalKilledMutantIds.clone();
         }
         return true;
     }
 
-    private void initOriginalPitResult(List<AbstractPitResult> results) {
-        this.numberOfMutant = results.size();
-        this.mutantNotTestedByOriginal = results.stream()
-                .filter(result -> result.getStateOfMutant() != AbstractPitResult.State.KILLED)
-                .filter(result -> result.getStateOfMutant() != AbstractPitResult.State.SURVIVED)
-                .filter(result -> result.getStateOfMutant() != AbstractPitResult.State.NO_COVERAGE)
-                .collect(Collectors.toList());
-        this.originalKilledMutants = results.stream()
-                .filter(result -> result.getStateOfMutant() == AbstractPitResult.State.KILLED)
-                .collect(Collectors.toList());
-        LOGGER.info("The original test suite kill {} / {}", this.originalKilledMutants.size(), results.size());
-        baselineKilledMutants = new ArrayList<>();
-        for(AbstractPitResult r : originalKilledMutants) {
-            baselineKilledMutants.add(r.clone());
+    private void runPitOnOriginalTestSuite(Set<String> excludedClasses, Consumer<AbstractPitResult> consumer) {
+        final CtType<?>[] testClasses = InputConfiguration.get().shouldTargetOneTestClass() ?
+                new CtType<?>[]{InputConfiguration.get().getFactory().Class().get(InputConfiguration.get().getTestClasses().get(0))} :
+                new CtType<?>[0];
+        this.runPit(excludedClasses, Collections.emptyList(), consumer, testClasses);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runPit(Collection<String> excludedClasses, Collection<String> excludedMethods,
+                        Consumer<AbstractPitResult> consumer, CtType<?>... testClasses) {
+        if (this.shouldRunStandalonePit()) {
+            PitRunner.run(consumer, excludedClasses, excludedMethods, testClasses);
+        } else {
+            final AutomaticBuilder automaticBuilder = InputConfiguration.get().getBuilder();
+            automaticBuilder.runPit(excludedClasses, excludedMethods, testClasses);
+            parser.parseAndDelete(InputConfiguration.get().getAbsolutePathToProjectRoot() + automaticBuilder.getOutputDirectoryPit(), consumer);
         }
     }
 
+    private void startIndexOfOriginalPitResult() {
+        this.mutantIndex = new MutantIndex();
+        this.originalKilledMutantIds = new BitSet();
+        this.mutantNotKilledByOriginal = new BitSet();
+        this.mutantNotTestedByOriginal = new BitSet();
+        this.numberOfMutantKilledOriginallyByClass = new HashMap<>();
+    }
+
+    private void indexOriginalPitResult(AbstractPitResult result) {
+        final int id = this.mutantIndex.index(result);
+        switch (result.getStateOfMutant()) {
+            case KILLED:
+                this.originalKilledMutantIds.set(id);
+                this.numberOfMutantKilledOriginallyByClass.merge(result.getFullQualifiedNameOfKiller(), 1, Integer::sum);
+                break;
+            case SURVIVED:
+            case NO_COVERAGE:
+                this.mutantNotKilledByOriginal.set(id);
+                break;
+            default:
+                this.mutantNotTestedByOriginal.set(id);
+        }
+    }
+
+    private void endIndexOfOriginalPitResult() {
+        this.numberOfMutant = this.mutantIndex.size();
+        LOGGER.info("The original test suite kill {} / {}", this.originalKilledMutantIds.cardinality(), this.numberOfMutant);
+        baselineKilledMutants = (BitSet) originalKilledMutantIds.clone();
+    }
+
     @Override
     public List<CtMethod<?>> selectToAmplify(CtType<?> classTest, List<CtMethod<?>> testsToBeAmplified) {
         if (this.currentClassTestToBeAmplified == null && !testsToBeAmplified.isEmpty()) {
@@ -141,6 +208,14 @@ public class PitMutantScoreSelector extends TakeAllSelector {
             return amplifiedTestToBeKept;
         }
 
+        // only the mutants that are not killed yet can make an amplified test to be selected
+        final BitSet mutantsAlive = (BitSet) this.mutantNotKilledByOriginal.clone();
+        mutantsAlive.andNot(this.baselineKilledMutants);
+        if (mutantsAlive.isEmpty()) {
+            LOGGER.info("All the mutants are already killed, PIT is not run.");
+            return Collections.emptyList();
+        }
+
         // prepare clone of the test class
         CtType clone = this.currentClassTestToBeAmplified.clone();
         clone.setParent(this.currentClassTestToBeAmplified.getParent());
@@ -153,7 +228,6 @@ public class PitMutantScoreSelector extends TakeAllSelector {
 
         // print clone to file and run pit on it
         DSpotUtils.printCtTypeToGivenDirectory(clone, new File(DSpotCompiler.getPathToAmplifiedTestSrc()));
-        final AutomaticBuilder automaticBuilder = InputConfiguration.get().getBuilder();
         final String classpath = InputConfiguration.get().getBuilder()
                 .buildClasspath()
                 + AmplificationHelper.PATH_SEPARATOR +
@@ -162,57 +236,152 @@ public class PitMutantScoreSelector extends TakeAllSelector {
         DSpotCompiler.compile(InputConfiguration.get(), DSpotCompiler.getPathToAmplifiedTestSrc(), classpath,
                 new File(InputConfiguration.get().getAbsolutePathToTestClasses()));
 
-        InputConfiguration.get().getBuilder().runPit(clone);
-        final List<AbstractPitResult> results = parser.parseAndDelete(InputConfiguration.get().getAbsolutePathToProjectRoot() + automaticBuilder.getOutputDirectoryPit());
-        Set<CtMethod<?>> selectedTests = new HashSet<>();
-        if (results != null) {
-            LOGGER.info("{} mutants has been generated ({})", results.size(), this.numberOfMutant);
-            if (results.size() != this.numberOfMutant) {
-                LOGGER.warn("Number of generated mutant is different than the original one.");
+        // the amplified tests cannot kill the mutants of the classes that they do not execute
+        final Set<String> coveredClasses = this.getClassesCoveredBy(clone);
+        if (coveredClasses != null) {
+            final BitSet notCovered = new BitSet();
+            mutantsAlive.stream()
+                    .filter(id -> !coveredClasses.contains(this.mutantIndex.getNameOfMutatedClass(id)))
+                    .forEach(notCovered::set);
+            mutantsAlive.andNot(notCovered);
+            if (mutantsAlive.isEmpty()) {
+                LOGGER.info("The amplified tests do not execute any mutant alive, PIT is not run.");
+                return Collections.emptyList();
             }
+        }
+        final Set<String> excludedClasses = this.getExcluded(mutantsAlive, this.mutantIndex::getNameOfMutatedClass);
+        final Set<String> excludedMethods = this.getExcluded(mutantsAlive, this.mutantIndex::getNameOfMutatedMethod);
+        final long expectedNumberOfMutant = IntStream.range(0, this.numberOfMutant)
+                .filter(id -> !excludedClasses.contains(this.mutantIndex.getNameOfMutatedClass(id)) &&
+                        !excludedMethods.contains(this.mutantIndex.getNameOfMutatedMethod(id)))
+                .count();
+
+        // keep results where amplified tests kill a mutant not killed (but tested) by original test
+        final Set<CtMethod<?>> selectedTests = new HashSet<>();
+        final int[] numberOfResults = new int[1];
+        this.runPit(excludedClasses, excludedMethods, result -> {
+            numberOfResults[0]++;
+            if (result.getStateOfMutant() != AbstractPitResult.State.KILLED) {
+                return;
+            }
+            final int id = this.mutantIndex.index(result);
+            if (this.mutantNotTestedByOriginal.get(id)) {
+                return;
+            }
+            CtMethod method = result.getMethod(clone);
 
-            // keep results where amplified tests kill a mutant not killed (but tested) by original test
-            results.stream()
-                    .filter(result -> result.getStateOfMutant() == AbstractPitResult.State.KILLED &&
-                            !this.baselineKilledMutants.contains(result) &&
-                            !this.mutantNotTestedByOriginal.contains(result))
-                    .forEach(result -> {
-                        CtMethod method = result.getMethod(clone);
-
-                        // keep methods that kill mutants not killed before
-                        if (killsNewMutant(result)) {
-                            if (!testThatKilledMutants.containsKey(method)) {
-                                testThatKilledMutants.put(method, new HashSet<>());
-                            }
-                            testThatKilledMutants.get(method).add(result);
-                            if (method == null) {
-
-                                // output of pit test does not allow us to know which test case kill new mutants... we keep them all...
-                                selectedTests.addAll(amplifiedTestToBeKept);
-                            } else {
-                                selectedTests.add(method);
-                            }
-                        }
-                    });
+            // keep methods that kill mutants not killed before
+            if (killsNewMutant(id)) {
+                testThatKilledMutants.computeIfAbsent(method, key -> new BitSet()).set(id);
+                if (method == null) {
+
+                    // output of pit test does not allow us to know which test case kill new mutants... we keep them all...
+                    selectedTests.addAll(amplifiedTestToBeKept);
+                } else {
+                    selectedTests.add(method);
+                }
+            }
+        }, clone);
+        LOGGER.info("{} mutants has been generated ({} / {})", numberOfResults[0], expectedNumberOfMutant, this.numberOfMutant);
+        if (numberOfResults[0] != expectedNumberOfMutant) {
+            LOGGER.warn("Number of generated mutant is different than the original one.");
         }
         this.selectedAmplifiedTest.addAll(selectedTests);
         selectedTests.forEach(selectedTest ->
                 LOGGER.info("{} kills {} more mutants",
                         selectedTest == null ?
                                 this.currentClassTestToBeAmplified.getSimpleName() : selectedTest.getSimpleName(),
-                        this.testThatKilledMutants.containsKey(selectedTest) ?
-                                this.testThatKilledMutants.get(selectedTest).size() : this.testThatKilledMutants.get(null))
+                        this.testThatKilledMutants.getOrDefault(selectedTest, this.testThatKilledMutants.get(null)).cardinality())
         );
         return new ArrayList<>(selectedTests);
     }
 
-    private boolean killsNewMutant(AbstractPitResult result) {
-        if (baselineKilledMutants.contains(result)) {
+    // returns null if the coverage cannot be computed
+    private Set<String> getClassesCoveredBy(CtType<?> testClass) {
+        String classpath = InputConfiguration.get().getBuilder().buildClasspath();
+        if (!InputConfiguration.get().getAdditionalClasspathElements().isEmpty()) {
+            classpath += AmplificationHelper.PATH_SEPARATOR + InputConfiguration.get().getProcessedAddtionalClasspathElements();
+        }
+        final String targetClasses = InputConfiguration.get().getClasspathClassesProject();
+        try {
+            final Coverage coverage = TestRunner.runCoverage(
+                    classpath + AmplificationHelper.PATH_SEPARATOR + targetClasses +
+                            AmplificationHelper.PATH_SEPARATOR + DSpotUtils.getAbsolutePathToDSpotDependencies(),
+                    targetClasses,
+                    testClass
+            );
+            final Set<String> coveredClasses = getClassesCoveredBy(coverage.getExecutionPath());
+            if (coveredClasses == null) {
+                LOGGER.warn("Could not read the coverage of the amplified tests, PIT is run on all the mutants alive.");
+            }
+            return coveredClasses;
+        } catch (Exception e) {
+            LOGGER.warn("Could not compute the coverage of the amplified tests, PIT is run on all the mutants alive.");
+            return null;
+        }
+    }
+
+    /**
+     * @param executionPath the execution path computed by JaCoCo, i.e. for each class, its name followed by the number
+     *                      of instructions executed on each of its lines: <code>fr/inria/A:0,2,1;fr/inria/B:0,0</code>
+     * @return the full qualified names of the classes that have at least one executed instruction,
+     * or null if the given execution path cannot be read
+     */
+    static Set<String> getClassesCoveredBy(String executionPath) {
+        final Set<String> coveredClasses = new HashSet<>();
+        for (String coverageOfClass : executionPath.split(";")) {
+            final int indexOfSeparator = coverageOfClass.lastIndexOf(':');
+            if (indexOfSeparator < 0) {
+                return null;
+            }
+            try {
+                if (Arrays.stream(coverageOfClass.substring(indexOfSeparator + 1).split(","))
+                        .filter(count -> !count.isEmpty())
+                        .anyMatch(count -> Integer.parseInt(count) > 0)) {
+                    coveredClasses.add(coverageOfClass.substring(0, indexOfSeparator).replace('/', '.'));
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return coveredClasses;
+    }
+
+    private boolean shouldRunStandalonePit() {
+        if (!InputConfiguration.get().isStandalonePit()) {
+            return false;
+        }
+        if (this.standalonePitAvailable == null) {
+            this.standalonePitAvailable = PitRunner.isAvailable();
+            if (!this.standalonePitAvailable) {
+                LOGGER.warn("PIT will be run through the automatic builder.");
+            }
+        }
+        return this.standalonePitAvailable;
+    }
+
+    /**
+     * @return the classes, or the methods, according to the given key, that have been mutated but that do not contain
+     * any mutant alive. Since PIT excludes the methods by their names, a method is excluded only if all the mutants of
+     * all the methods with the same name are killed.
+     */
+    private Set<String> getExcluded(BitSet mutantsAlive, IntFunction<String> key) {
+        final Set<String> excluded = IntStream.range(0, this.numberOfMutant)
+                .mapToObj(key)
+                .collect(Collectors.toSet());
+        mutantsAlive.stream()
+                .mapToObj(key)
+                .forEach(excluded::remove);
+        return excluded;
+    }
+
+    private boolean killsNewMutant(int id) {
+        if (baselineKilledMutants.get(id)) {
             return false;
         }
 
         // add result to baseline to prohibit selection of identical amplified tests
-        baselineKilledMutants.add(result);
+        baselineKilledMutants.set(id);
         return true;
     }
 
@@ -235,7 +404,7 @@ public class PitMutantScoreSelector extends TakeAllSelector {
         return "Test class that has been amplified: " + this.currentClassTestToBeAmplified.getQualifiedName() +
                 AmplificationHelper.LINE_SEPARATOR +
                 "The original test suite kills " +
-                this.originalKilledMutants.size() +
+                this.originalKilledMutantIds.cardinality() +
                 " mutants" + AmplificationHelper.LINE_SEPARATOR +
                 "The amplification results with " +
                 this.testThatKilledMutants.size() +
@@ -245,11 +414,9 @@ public class PitMutantScoreSelector extends TakeAllSelector {
     }
 
     private long getNbTotalNewMutantKilled() {
-        return this.testThatKilledMutants.keySet()
-                .stream()
-                .flatMap(method -> this.testThatKilledMutants.get(method).stream())
-                .distinct()
-                .count();
+        final BitSet newMutantKilled = new BitSet();
+        this.testThatKilledMutants.values().forEach(newMutantKilled::or);
+        return newMutantKilled.cardinality();
     }
 
     private TestClassJSON reportJSONMutants() {
@@ -282,12 +449,11 @@ public class PitMutantScoreSelector extends TakeAllSelector {
         }
         List<CtMethod> keys = new ArrayList<>(this.testThatKilledMutants.keySet());
         keys.forEach(amplifiedTest -> {
-                    List<AbstractPitResult> pitResults = new ArrayList<>(this.testThatKilledMutants.get(amplifiedTest));
                     final List<MutantJSON> mutantsJson = new ArrayList<>();
-                    pitResults.forEach(pitResult -> mutantsJson.add(new MutantJSON(
-                            pitResult.getFullQualifiedNameMutantOperator(),
-                            pitResult.getLineNumber(),
-                            pitResult.getNameOfMutatedMethod()
+                    this.testThatKilledMutants.get(amplifiedTest).stream().forEach(id -> mutantsJson.add(new MutantJSON(
+                            this.mutantIndex.getNameOfMutator(id),
+                            this.mutantIndex.getLineNumber(id),
+                            this.mutantIndex.getNameOfMutatedMethod(id)
                     )));
                     if (amplifiedTest == null) {
                         testClassJSON.addTestCase(new TestCaseJSON(
@@ -310,11 +476,7 @@ public class PitMutantScoreSelector extends TakeAllSelector {
     }
 
     private int getNbMutantKilledOriginally(String qualifiedName) {
-        return (int) this.originalKilledMutants.stream()
-                .filter(pitResult ->
-                        qualifiedName.equals(pitResult.getFullQualifiedNameOfKiller())
-                )
-                .count();
+        return this.numberOfMutantKilledOriginallyByClass.getOrDefault(qualifiedName, 0);
     }
 
 }
@@ -55,6 +55,11 @@ public class TakeAllSelector implements TestSelector {
 		return this.selectedAmplifiedTest;
 	}
 
+	@Override
+	public TestSelector copy() {
+		return new TakeAllSelector();
+	}
+
 	protected void reset() {
 		this.currentClassTestToBeAmplified = null;
 	}
@@ -43,6 +43,24 @@ public interface TestSelector {
      */
     TestSelectorElementReport report();
 
+    /**
+     * This method reduces the selected amplified test methods to a near-minimal subset that satisfies the test
+     * criterion as well as all of them, see {@link GreedySetCover}. It is called before printing the amplified test class.
+     * By default, all the selected amplified test methods are kept.
+     */
+    default void keepCoveringSubset() {
+        // all the selected amplified test methods are kept
+    }
+
     List<CtMethod<?>> getAmplifiedTestCases();
 
+    /**
+     * @return a new test selector, with the same configuration as this one, to amplify another test class in parallel,
+     * see {@link eu.stamp_project.dspot.AmplificationContext}. By default, null, i.e. this test selector cannot be
+     * copied, and the test classes are amplified one by one.
+     */
+    default TestSelector copy() {
+        return null;
+    }
+
 }
@@ -1,5 +1,6 @@
 package eu.stamp_project.test_framework;
 
+import eu.stamp_project.dspot.AmplificationContext;
 import eu.stamp_project.test_framework.assertions.AssertEnum;
 import eu.stamp_project.test_framework.implementations.AssertJTestFramework;
 import eu.stamp_project.test_framework.implementations.GoogleTruthTestFramework;
@@ -184,11 +185,11 @@ public class TestFramework implements TestFrameworkSupport {
      * We consider a class as test class if at least one of its method match {@link TestFramework#isTest(CtMethod)}
      */
     public static Stream<CtType<?>> getAllTestClassesAsStream() {
-        return InputConfiguration.get()
-                .getFactory()
-                .Type()
-                .getAll()
-                .stream()
+        final List<CtType<?>> types;
+        synchronized (AmplificationContext.MODEL_LOCK) {
+            types = InputConfiguration.get().getFactory().Type().getAll();
+        }
+        return types.stream()
                 .filter(ctType ->
                         ctType.getMethods()
                                 .stream()
@@ -1,11 +1,11 @@
 package eu.stamp_project.utils;
 
+import eu.stamp_project.dspot.AmplificationContext;
 import eu.stamp_project.test_framework.TestFramework;
 import eu.stamp_project.testrunner.listener.TestResult;
 import eu.stamp_project.utils.program.InputConfiguration;
 import eu.stamp_project.utils.compilation.DSpotCompiler;
 
-import org.apache.cxf.common.util.WeakIdentityHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,7 +23,6 @@ import spoon.reflect.visitor.filter.TypeFilter;
 
 import java.text.DecimalFormat;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -50,23 +49,12 @@ public class AmplificationHelper {
 
     public static int timeOutInMs = 10000;
 
-    /**
-     * Link between an amplified test and its parent (i.e. the original test).
-     */
-    public static Map<CtMethod<?>, CtMethod> ampTestToParent = Collections.synchronizedMap(new WeakIdentityHashMap<>());
-
-
-    //(Optimisation) - trace bounds between cloned test methods and their original ones
-    //This additional map is added (and ampTestToParent is not used) because
-    //existing map does not account for all cloned test methods
-    private static Map<CtMethod<?>, CtMethod> originalTestBindings = Collections.synchronizedMap(new WeakIdentityHashMap<>());
-
     @Deprecated
     private static Map<CtType, Set<CtType>> importByClass = new HashMap<>();
 
     public static void reset() {
         CloneHelper.reset();
-        ampTestToParent.clear();
+        TestMethodLineage.get().removeParents();
         importByClass.clear();
     }
 
@@ -114,7 +102,9 @@ public class AmplificationHelper {
                     stringCtLiteral.setValue(((String) stringCtLiteral.getValue()).replaceAll(classTest.getSimpleName(), amplifiedName))
             );
         }
-        classTest.getPackage().addType(currentTestClass);
+        synchronized (AmplificationContext.MODEL_LOCK) {
+            classTest.getPackage().addType(currentTestClass);
+        }
         return currentTestClass;
     }
 
@@ -125,40 +115,41 @@ public class AmplificationHelper {
                 "Ampl" + classTest.getSimpleName();
     }
 
+    /*
+        The links between an amplified test and its parent, and between a cloned test and its original one, are kept
+        by the lineage of the current amplification context, see TestMethodLineage.
+     */
+
     public static CtMethod getAmpTestParent(CtMethod amplifiedTest) {
-        return ampTestToParent.get(amplifiedTest);
+        return TestMethodLineage.get().getParent(amplifiedTest);
     }
 
     public static CtMethod removeAmpTestParent(CtMethod amplifiedTest) {
-        return ampTestToParent.remove(amplifiedTest);
+        return TestMethodLineage.get().removeParent(amplifiedTest);
     }
 
     public static int getAmpTestParentSize() {
-        return ampTestToParent.size();
+        return TestMethodLineage.get().getNumberOfTestMethodsWithParent();
     }
 
     public static void addTestBindingToOriginal(CtMethod clonedTest, CtMethod fromTest) {
-        CtMethod originalTest = fromTest;
-        if (originalTestBindings.containsKey(fromTest)) {
-            originalTest = originalTestBindings.get(fromTest);
-        }
-        originalTestBindings.put(clonedTest, originalTest);
+        TestMethodLineage.get().addClone(clonedTest, fromTest);
     }
 
     public static void removeTestBindingToOriginal(CtMethod clonedTest) {
-        originalTestBindings.remove(clonedTest);
+        TestMethodLineage.get().removeOriginal(clonedTest);
     }
 
     public static CtMethod getOriginalTestMethod(CtMethod clonedTest) {
-        return originalTestBindings.get(clonedTest);
+        return TestMethodLineage.get().getOriginal(clonedTest);
     }
 
     public static int getTestBindingToOriginalSize() {
-        return originalTestBindings.size();
+        return TestMethodLineage.get().getNumberOfTestMethodsWithOriginal();
     }
 
     public static void resetTestBindingToOriginal() {
-          originalTestBindings.clear();
+        TestMethodLineage.get().removeOriginals();
     }
 
     @Deprecated
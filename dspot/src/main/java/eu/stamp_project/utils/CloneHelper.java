@@ -1,5 +1,6 @@
 package eu.stamp_project.utils;
 
+import eu.stamp_project.dspot.AmplificationContext;
 import eu.stamp_project.test_framework.TestFramework;
 import spoon.reflect.declaration.CtAnnotation;
 import spoon.reflect.declaration.CtMethod;
@@ -29,14 +30,16 @@ public class CloneHelper {
      */
     public static CtType cloneTestClassAndAddGivenTest(CtType original, List<CtMethod<?>> methods) {
         CtType clone = original.clone();
-        original.getPackage().addType(clone);
+        synchronized (AmplificationContext.MODEL_LOCK) {
+            original.getPackage().addType(clone);
+        }
         methods.forEach(clone::addMethod);
         return clone;
     }
 
     public static CtMethod cloneTestMethodForAmp(CtMethod method, String suffix) {
         CtMethod clonedMethod = cloneTestMethod(method, suffix);
-        AmplificationHelper.ampTestToParent.put(clonedMethod, method);
+        TestMethodLineage.get().addAmplifiedTestMethod(clonedMethod, method);
         return clonedMethod;
     }
 
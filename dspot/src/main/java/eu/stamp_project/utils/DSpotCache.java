@@ -5,29 +5,122 @@ import org.ehcache.CacheManager;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
 import org.ehcache.config.builders.CacheManagerBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import eu.stamp_project.test_framework.TestFrameworkSupport;
+import eu.stamp_project.utils.execution.CachedTestResult;
 import eu.stamp_project.utils.program.ConstantsProperties;
+import eu.stamp_project.utils.program.InputConfiguration;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DSpotCache {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DSpotCache.class);
+
 	private static Cache<String, TestFrameworkSupport> frameworkCache;
 	private static CacheManager cacheManager;
 
+	/**
+	 * Results of the compilation and the execution of amplified test methods, see {@link eu.stamp_project.utils.compilation.TestCompiler}.
+	 * This cache has a persistent tier on the disk, in target/dspot-cache of the project,
+	 * so a second run of DSpot on the same version of the project can reuse them.
+	 */
+	private static Cache<String, CachedTestResult> testResultCache;
+	private static CacheManager testResultCacheManager;
+
+	/**
+	 * Results that are not properties of a single test method, e.g. failures, which can be flaky, or the test methods
+	 * that could not be compiled because of the other test methods of their test class.
+	 * They are kept in memory only, i.e. for the current run of DSpot.
+	 */
+	private static Cache<String, CachedTestResult> transientTestResultCache;
+
+	/**
+	 * Fingerprints of the classpaths of the project, see {@link eu.stamp_project.utils.compilation.TestCompiler}.
+	 */
+	private static final Map<String, String> fingerprintOfClasspath = new ConcurrentHashMap<>();
+
+	private static final String PATH_TO_PERSISTENT_CACHE = "target/dspot-cache";
+
+	private static final long SIZE_OF_PERSISTENT_CACHE_IN_MB = 256L;
+
 	static {
 		cacheManager = CacheManagerBuilder.newCacheManagerBuilder()
 				.withCache("frameworkCache", CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class,
 						TestFrameworkSupport.class, ResourcePoolsBuilder.heap(
 								Long.parseLong(ConstantsProperties.CACHE_SIZE.getDefaultValue()))).build())
+				.withCache("transientTestResultCache", CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class,
+						CachedTestResult.class, ResourcePoolsBuilder.heap(
+								Long.parseLong(ConstantsProperties.CACHE_SIZE.getDefaultValue()))).build())
 				.build(true);
 
 		frameworkCache = cacheManager.getCache("frameworkCache", String.class, TestFrameworkSupport.class);
+		transientTestResultCache = cacheManager.getCache("transientTestResultCache", String.class, CachedTestResult.class);
+
+		Runtime.getRuntime().addShutdownHook(new Thread(DSpotCache::closeTestResultCache));
 	}
 
 	public static Cache<String, TestFrameworkSupport> getTestFrameworkCache() {
 		return frameworkCache;
 	}
 
+	public static synchronized Cache<String, CachedTestResult> getTestResultCache() {
+		if (testResultCache == null) {
+			final long heapSize = Long.parseLong(ConstantsProperties.CACHE_SIZE.getDefaultValue());
+			final File persistentDirectory =
+					new File(InputConfiguration.get().getAbsolutePathToProjectRoot() + PATH_TO_PERSISTENT_CACHE);
+			try {
+				testResultCacheManager = CacheManagerBuilder.newCacheManagerBuilder()
+						.with(CacheManagerBuilder.persistence(persistentDirectory))
+						.withCache("testResultCache", CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class,
+								CachedTestResult.class, ResourcePoolsBuilder.newResourcePoolsBuilder()
+										.heap(heapSize, EntryUnit.ENTRIES)
+										.disk(SIZE_OF_PERSISTENT_CACHE_IN_MB, MemoryUnit.MB, true)).build())
+						.build(true);
+			} catch (Exception e) {
+				// e.g. the directory is already used by another instance of DSpot
+				LOGGER.warn("Could not use {} to persist the results of the tests, they will be kept only in memory.",
+						persistentDirectory.getAbsolutePath());
+				testResultCacheManager = CacheManagerBuilder.newCacheManagerBuilder()
+						.withCache("testResultCache", CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class,
+								CachedTestResult.class, ResourcePoolsBuilder.heap(heapSize)).build())
+						.build(true);
+			}
+			testResultCache = testResultCacheManager.getCache("testResultCache", String.class, CachedTestResult.class);
+		}
+		return testResultCache;
+	}
+
+	public static Cache<String, CachedTestResult> getTransientTestResultCache() {
+		return transientTestResultCache;
+	}
+
+	public static Map<String, String> getFingerprintOfClasspath() {
+		return fingerprintOfClasspath;
+	}
+
+	/**
+	 * Closes the cache of test results, which writes its persistent tier on the disk.
+	 */
+	public static synchronized void closeTestResultCache() {
+		if (testResultCacheManager != null) {
+			testResultCacheManager.close();
+			testResultCacheManager = null;
+			testResultCache = null;
+		}
+	}
+
 	public static void reset() {
 		frameworkCache.clear();
+		transientTestResultCache.clear();
+		// the program may have been compiled again
+		fingerprintOfClasspath.clear();
+		closeTestResultCache();
 	}
 }
@@ -1,6 +1,7 @@
 package eu.stamp_project.utils;
 
 import eu.stamp_project.Main;
+import eu.stamp_project.dspot.AmplificationContext;
 import eu.stamp_project.utils.compilation.DSpotCompiler;
 import eu.stamp_project.utils.program.InputConfiguration;
 import eu.stamp_project.utils.report.error.Error;
@@ -22,7 +23,12 @@ import spoon.reflect.visitor.DefaultJavaPrettyPrinter;
 import spoon.support.JavaOutputProcessor;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -75,6 +81,32 @@ public class DSpotUtils {
         }
     }
 
+    /**
+     * Print the given type, i.e. its package declaration, imports and body, as it would be written in its .java file.
+     * This method does not write anything on the disk.
+     *
+     * @param type the type to be printed
+     * @return the source code of the compilation unit of the given type
+     */
+    public static String printCtTypeToString(CtType<?> type) {
+        try {
+            Factory factory = type.getFactory();
+            Environment env = factory.getEnvironment();
+            env.setAutoImports(false);
+            env.setNoClasspath(true);
+            env.setCommentEnabled(InputConfiguration.get().withComment());
+            DefaultJavaPrettyPrinter printer = new DefaultJavaPrettyPrinter(env);
+            printer.calculate(factory.CompilationUnit().getOrCreate(type), Collections.singletonList(type));
+            return printer.getResult();
+        } catch (Exception e) {
+            LOGGER.warn("Something bad happened when trying to print {}, using toString() instead", type.getQualifiedName());
+            if (type.getPackage() == null || type.getPackage().isUnnamedPackage()) {
+                return type.toString();
+            }
+            return "package " + type.getPackage().getQualifiedName() + ";" + AmplificationHelper.LINE_SEPARATOR + type.toString();
+        }
+    }
+
     static void printCtTypUsingToStringToGivenDirectory(CtType<?> type, File directory) {
         LOGGER.warn("Something bad happened when trying to output {} in {}", type.getQualifiedName(), directory.getAbsolutePath());
         LOGGER.warn("DSpot will now print the toString() in the given file instead of using Spoon...");
@@ -164,7 +196,7 @@ public class DSpotUtils {
 
     private static final String PACKAGE_PATH = "eu/stamp_project/" + PACKAGE_NAME + "/";
 
-    private static final String[] DSPOT_CLASSES = new String[]{"MethodsHandler", "ObjectLog", "Observation", "Utils", "FailToObserveException"};
+    private static final String[] DSPOT_CLASSES = new String[]{"MethodsHandler", "ObjectLog", "Observation", "ObservationLog", "Utils", "FailToObserveException"};
 
     public static String getAbsolutePathToDSpotDependencies() {
         return InputConfiguration.get().getAbsolutePathToProjectRoot() + PATH_TO_DSPOT_DEPENDENCIES;
@@ -207,7 +239,11 @@ public class DSpotUtils {
     public static String ctTypeToFullQualifiedName(CtType<?> testClass) {
         if (testClass.getModifiers().contains(ModifierKind.ABSTRACT)) {
             CtTypeReference<?> referenceOfSuperClass = testClass.getReference();
-            return testClass.getFactory().Class().getAll().stream()
+            final List<CtClass<?>> classes;
+            synchronized (AmplificationContext.MODEL_LOCK) {
+                classes = testClass.getFactory().Class().getAll();
+            }
+            return classes.stream()
                     .filter(ctType -> referenceOfSuperClass.equals(ctType.getSuperclass()))
                     .map(CtType::getQualifiedName).collect(Collectors.joining(","));
         } else {
@@ -215,4 +251,42 @@ public class DSpotUtils {
         }
     }
 
+    public static final long FNV1A_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    /**
+     * @param hash  the hash to continue, {@link #FNV1A_OFFSET_BASIS} to start a new one
+     * @param value the value to hash
+     * @return the 64 bits hash (FNV-1a) of the given value, continued from the given hash.
+     * It is much cheaper than {@link #hash(String)}, but it may collide.
+     */
+    public static long fnv1a(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @return the SHA-256 of the given content, as an hexadecimal string.
+     */
+    public static String hash(String content) {
+        return toHexString(newMessageDigest().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static String toHexString(byte[] bytes) {
+        final StringBuilder hexString = new StringBuilder();
+        for (byte b : bytes) {
+            hexString.append(String.format("%02x", b));
+        }
+        return hexString.toString();
+    }
+
 }
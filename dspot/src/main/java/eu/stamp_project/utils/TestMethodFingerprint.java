@@ -0,0 +1,140 @@
+package eu.stamp_project.utils;
+
+import spoon.reflect.code.CtBinaryOperator;
+import spoon.reflect.code.CtCatchVariable;
+import spoon.reflect.code.CtComment;
+import spoon.reflect.code.CtExpression;
+import spoon.reflect.code.CtLiteral;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtOperatorAssignment;
+import spoon.reflect.code.CtUnaryOperator;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtModifiable;
+import spoon.reflect.declaration.CtNamedElement;
+import spoon.reflect.path.CtRole;
+import spoon.reflect.reference.CtCatchVariableReference;
+import spoon.reflect.reference.CtLocalVariableReference;
+import spoon.reflect.reference.CtReference;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.CtScanner;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Computes a canonical fingerprint of the AST of a test method. Two test methods that have the same fingerprint are
+ * structurally identical, even if they differ by:
+ * <ul>
+ * <li>their names,</li>
+ * <li>their comments,</li>
+ * <li>the names of their local variables, e.g. __DSPOT_ variables generated by the amplifiers,</li>
+ * <li>the way their constants are written, e.g. <code>-1</code>, <code>(0 - 1)</code> or <code>-(1)</code>.</li>
+ * </ul>
+ */
+public class TestMethodFingerprint extends CtScanner {
+
+    /**
+     * @param testMethod the test method
+     * @return the SHA-256 of the canonical form of the given test method
+     */
+    public static String of(CtMethod<?> testMethod) {
+        final TestMethodFingerprint scanner = new TestMethodFingerprint();
+        scanner.scan(CtRole.ANNOTATION, testMethod.getAnnotations());
+        scanner.scan(CtRole.THROWN, testMethod.getThrownTypes());
+        scanner.scan(CtRole.BODY, testMethod.getBody());
+        return DSpotUtils.hash(scanner.canonicalForm.toString());
+    }
+
+    private final StringBuilder canonicalForm = new StringBuilder();
+
+    private final Map<String, String> canonicalNameOfVariable = new HashMap<>();
+
+    private TestMethodFingerprint() {
+    }
+
+    @Override
+    public void scan(CtRole role, CtElement element) {
+        if (element == null || element instanceof CtComment) {
+            return;
+        }
+        final CtLiteral<?> foldedConstant = foldConstant(element);
+        if (foldedConstant != null) {
+            this.canonicalForm.append('(').append(role).append(" Literal");
+            this.appendLiteral(foldedConstant);
+            ((CtExpression<?>) element).getTypeCasts()
+                    .forEach(typeCast -> this.canonicalForm.append(" cast ").append(typeCast.getQualifiedName()));
+            this.canonicalForm.append(')');
+            return;
+        }
+        this.canonicalForm.append('(').append(role).append(' ').append(element.getClass().getSimpleName());
+        this.appendAttributes(element);
+        super.scan(role, element);
+        this.canonicalForm.append(')');
+    }
+
+    private void appendAttributes(CtElement element) {
+        if (element instanceof CtLiteral) {
+            this.appendLiteral((CtLiteral<?>) element);
+        } else if (element instanceof CtLocalVariable || element instanceof CtCatchVariable) {
+            final String name = ((CtNamedElement) element).getSimpleName();
+            this.canonicalNameOfVariable.putIfAbsent(name, "v" + this.canonicalNameOfVariable.size());
+            this.canonicalForm.append(' ').append(this.canonicalNameOfVariable.get(name));
+        } else if (element instanceof CtLocalVariableReference || element instanceof CtCatchVariableReference) {
+            final String name = ((CtReference) element).getSimpleName();
+            this.canonicalForm.append(' ').append(this.canonicalNameOfVariable.getOrDefault(name, name));
+        } else if (element instanceof CtTypeReference) {
+            this.canonicalForm.append(' ').append(((CtTypeReference<?>) element).getQualifiedName());
+        } else if (element instanceof CtReference) {
+            this.canonicalForm.append(' ').append(((CtReference) element).getSimpleName());
+        } else if (element instanceof CtNamedElement) {
+            this.canonicalForm.append(' ').append(((CtNamedElement) element).getSimpleName());
+        } else if (element instanceof CtBinaryOperator) {
+            this.canonicalForm.append(' ').append(((CtBinaryOperator<?>) element).getKind());
+        } else if (element instanceof CtUnaryOperator) {
+            this.canonicalForm.append(' ').append(((CtUnaryOperator<?>) element).getKind());
+        } else if (element instanceof CtOperatorAssignment) {
+            this.canonicalForm.append(' ').append(((CtOperatorAssignment<?, ?>) element).getKind());
+        }
+        if (element instanceof CtModifiable) {
+            this.canonicalForm.append(' ').append(((CtModifiable) element).getModifiers()
+                    .stream()
+                    .map(Enum::name)
+                    .sorted()
+                    .collect(Collectors.joining(","))
+            );
+        }
+        if (element.isImplicit()) {
+            this.canonicalForm.append(" implicit");
+        }
+    }
+
+    private void appendLiteral(CtLiteral<?> literal) {
+        final Object value = literal.getValue();
+        this.canonicalForm.append(' ')
+                .append(value == null ? "null" : value.getClass().getName())
+                .append(' ')
+                .append(value);
+    }
+
+    // fold the unary and binary operators that involve only literals, e.g. -1 or 1 + 1
+    private static CtLiteral<?> foldConstant(CtElement element) {
+        if (!(element instanceof CtUnaryOperator || element instanceof CtBinaryOperator) ||
+                !element.getElements(new TypeFilter<>(CtExpression.class))
+                        .stream()
+                        .allMatch(expression -> expression instanceof CtLiteral ||
+                                expression instanceof CtUnaryOperator ||
+                                expression instanceof CtBinaryOperator)) {
+            return null;
+        }
+        try {
+            final CtExpression<?> evaluated = ((CtExpression<?>) element).partiallyEvaluate();
+            return evaluated instanceof CtLiteral ? (CtLiteral<?>) evaluated : null;
+        } catch (RuntimeException e) {
+            // the partial evaluation can fail, e.g. on a division by zero, we keep the operator as it is
+            return null;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package eu.stamp_project.utils;
+
+import eu.stamp_project.dspot.AmplificationContext;
+import spoon.reflect.declaration.CtMethod;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The lineage of the test methods of the amplification of one test class.
+ * Each test method gets a compact id when it is first seen, e.g. when it is cloned, see {@link CloneHelper}. For each id,
+ * the id of its parent, i.e. the test method it has been amplified from, and the id of its original test method are kept
+ * in arrays, so that the queries on the ancestors of a test method are walks in these arrays.
+ * The number of inputs and assertions added to each test method are attached to its id, see {@link Counter}.
+ *
+ * Each {@link AmplificationContext} owns its lineage, so the lineages of the test classes amplified in parallel do not
+ * share anything. Outside of such a context, the static methods of this class use a global instance.
+ *
+ * The test methods are weakly referenced by their id, and only the test methods that are the parent or the original
+ * test method of another one are kept by the lineage. The parents are kept until {@link #removeParents()}, i.e. at most
+ * during the amplification of one test class, which also reclaims the ids of the test methods that have been
+ * garbage collected. The counters are reset with {@link #resetCounters()}, without forgetting the lineage.
+ *
+ * The lineage is used by the parallel streams of the amplification, so it takes no lock but to allocate a new chunk of
+ * ids, i.e. once per {@link #CHUNK_SIZE} test methods: the ids are kept in a concurrent map, and the arrays of the ids
+ * are atomic arrays. {@link #removeParents()} and {@link #resetCounters()} start a new step of the amplification, they
+ * must not run while test methods are added to the same lineage.
+ */
+public class TestMethodLineage {
+
+    private static final int NONE = -1;
+
+    private static final int CHUNK_BITS = 10;
+
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private static TestMethodLineage _instance;
+
+    /**
+     * @return the lineage of the current amplification context, or the global one if there is none
+     */
+    public static TestMethodLineage get() {
+        final AmplificationContext context = AmplificationContext.current();
+        if (context != null) {
+            return context.getLineage();
+        }
+        synchronized (TestMethodLineage.class) {
+            if (_instance == null) {
+                _instance = new TestMethodLineage();
+            }
+            return _instance;
+        }
+    }
+
+    // a weak reference to a test method, compared by identity, so that clones that are equal are different keys
+    private static class TestMethodReference extends WeakReference<CtMethod<?>> {
+
+        private final int hash;
+
+        private TestMethodReference(CtMethod<?> testMethod, ReferenceQueue<CtMethod<?>> queue) {
+            super(testMethod, queue);
+            this.hash = System.identityHashCode(testMethod);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TestMethodReference)) {
+                return false;
+            }
+            final CtMethod<?> testMethod = this.get();
+            return testMethod != null && testMethod == ((TestMethodReference) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    // the ids from id << CHUNK_BITS to ((id + 1) << CHUNK_BITS) - 1
+    private static class Chunk {
+
+        private final AtomicIntegerArray parentIds = new AtomicIntegerArray(CHUNK_SIZE);
+
+        private final AtomicIntegerArray originalIds = new AtomicIntegerArray(CHUNK_SIZE);
+
+        private final AtomicIntegerArray numberOfInputAdded = new AtomicIntegerArray(CHUNK_SIZE);
+
+        private final AtomicIntegerArray numberOfAssertionAdded = new AtomicIntegerArray(CHUNK_SIZE);
+
+        // the test methods that are the parent or the original test method of another test method
+        private final AtomicReferenceArray<CtMethod<?>> ancestors = new AtomicReferenceArray<>(CHUNK_SIZE);
+
+        private Chunk() {
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                this.parentIds.set(i, NONE);
+                this.originalIds.set(i, NONE);
+            }
+        }
+    }
+
+    private final Map<TestMethodReference, Integer> idPerTestMethod = new ConcurrentHashMap<>();
+
+    private final ReferenceQueue<CtMethod<?>> collectedTestMethods = new ReferenceQueue<>();
+
+    private final AtomicInteger numberOfIds = new AtomicInteger();
+
+    // the ids of the test methods that have been garbage collected, reused by the next test methods
+    private final Queue<Integer> freeIds = new ConcurrentLinkedQueue<>();
+
+    // a published array of chunks is never modified, a new one is published when a chunk is added
+    private volatile Chunk[] chunks = new Chunk[0];
+
+    // the totals are kept apart, since the counters of the reclaimed ids are dropped
+    private final LongAdder allInput = new LongAdder();
+
+    private final LongAdder allAssertion = new LongAdder();
+
+    private Chunk chunkOf(int id) {
+        final Chunk[] chunks = this.chunks;
+        final int index = id >>> CHUNK_BITS;
+        return index < chunks.length ? chunks[index] : this.addChunks(index);
+    }
+
+    private synchronized Chunk addChunks(int index) {
+        if (index >= this.chunks.length) {
+            final Chunk[] chunks = Arrays.copyOf(this.chunks, Math.max(index + 1, this.chunks.length * 2));
+            for (int i = this.chunks.length; i < chunks.length; i++) {
+                chunks[i] = new Chunk();
+            }
+            this.chunks = chunks;
+        }
+        return this.chunks[index];
+    }
+
+    private static int offsetOf(int id) {
+        return id & (CHUNK_SIZE - 1);
+    }
+
+    private Integer findId(CtMethod<?> testMethod) {
+        return this.idPerTestMethod.get(new TestMethodReference(testMethod, null));
+    }
+
+    private int idOf(CtMethod<?> testMethod) {
+        final Integer id = this.findId(testMethod);
+        if (id != null) {
+            return id;
+        }
+        return this.idPerTestMethod.computeIfAbsent(new TestMethodReference(testMethod, this.collectedTestMethods), reference -> {
+            final Integer freeId = this.freeIds.poll();
+            final int newId = freeId == null ? this.numberOfIds.getAndIncrement() : freeId;
+            this.chunkOf(newId);
+            return newId;
+        });
+    }
+
+    private int parentIdOf(int id) {
+        return this.chunkOf(id).parentIds.get(offsetOf(id));
+    }
+
+    private int originalIdOf(int id) {
+        return this.chunkOf(id).originalIds.get(offsetOf(id));
+    }
+
+    private CtMethod<?> ancestor(int id) {
+        return id == NONE ? null : this.chunkOf(id).ancestors.get(offsetOf(id));
+    }
+
+    /**
+     * Binds the given clone to the original test method of the given test method,
+     * i.e. the given test method itself if it is not bound to an original test method.
+     */
+    public void addClone(CtMethod<?> clone, CtMethod<?> testMethod) {
+        final int id = this.idOf(testMethod);
+        final Chunk chunk = this.chunkOf(id);
+        if (chunk.originalIds.compareAndSet(offsetOf(id), NONE, id)) {
+            chunk.ancestors.set(offsetOf(id), testMethod);
+        }
+        final int cloneId = this.idOf(clone);
+        this.chunkOf(cloneId).originalIds.set(offsetOf(cloneId), chunk.originalIds.get(offsetOf(id)));
+    }
+
+    /**
+     * Records that the given amplified test method has been amplified from the given parent.
+     */
+    public void addAmplifiedTestMethod(CtMethod<?> amplifiedTestMethod, CtMethod<?> parent) {
+        final int parentId = this.idOf(parent);
+        this.chunkOf(parentId).ancestors.set(offsetOf(parentId), parent);
+        final int id = this.idOf(amplifiedTestMethod);
+        this.chunkOf(id).parentIds.set(offsetOf(id), parentId);
+    }
+
+    /**
+     * @return the test method the given one has been amplified from, or null if there is none
+     */
+    public CtMethod<?> getParent(CtMethod<?> testMethod) {
+        final Integer id = this.findId(testMethod);
+        return id == null ? null : this.ancestor(this.parentIdOf(id));
+    }
+
+    /**
+     * Forgets the parent of the given test method.
+     *
+     * @return the parent of the given test method, or null if there was none
+     */
+    public CtMethod<?> removeParent(CtMethod<?> testMethod) {
+        final Integer id = this.findId(testMethod);
+        if (id == null) {
+            return null;
+        }
+        return this.ancestor(this.chunkOf(id).parentIds.getAndSet(offsetOf(id), NONE));
+    }
+
+    /**
+     * Forgets the parents of all the test methods, e.g. before the input amplification of a test class.
+     * The test methods that are not the original test method of another one are no longer kept, and the ids of the
+     * test methods that have been garbage collected are reclaimed.
+     */
+    public void removeParents() {
+        final int numberOfIds = this.numberOfIds.get();
+        final boolean[] isOriginal = new boolean[numberOfIds];
+        for (int id = 0; id < numberOfIds; id++) {
+            final int originalId = this.originalIdOf(id);
+            if (originalId != NONE) {
+                isOriginal[originalId] = true;
+            }
+        }
+        for (int id = 0; id < numberOfIds; id++) {
+            final Chunk chunk = this.chunkOf(id);
+            chunk.parentIds.set(offsetOf(id), NONE);
+            if (!isOriginal[id]) {
+                chunk.ancestors.set(offsetOf(id), null);
+            }
+        }
+        for (Reference<? extends CtMethod<?>> collected = this.collectedTestMethods.poll();
+             collected != null;
+             collected = this.collectedTestMethods.poll()) {
+            final Integer id = this.idPerTestMethod.remove(collected);
+            if (id != null) {
+                final Chunk chunk = this.chunkOf(id);
+                chunk.originalIds.set(offsetOf(id), NONE);
+                chunk.numberOfInputAdded.set(offsetOf(id), 0);
+                chunk.numberOfAssertionAdded.set(offsetOf(id), 0);
+                this.freeIds.add(id);
+            }
+        }
+    }
+
+    /**
+     * @return the number of ids in use, i.e. the number of test methods known by the lineage
+     */
+    public int size() {
+        return this.numberOfIds.get() - this.freeIds.size();
+    }
+
+    /**
+     * @return the number of test methods that have a parent
+     */
+    public int getNumberOfTestMethodsWithParent() {
+        return this.count(this::parentIdOf);
+    }
+
+    /**
+     * @return the original test method of the given one, or null if it is not bound to an original test method
+     */
+    public CtMethod<?> getOriginal(CtMethod<?> testMethod) {
+        final Integer id = this.findId(testMethod);
+        return id == null ? null : this.ancestor(this.originalIdOf(id));
+    }
+
+    public void removeOriginal(CtMethod<?> testMethod) {
+        final Integer id = this.findId(testMethod);
+        if (id != null) {
+            this.chunkOf(id).originalIds.set(offsetOf(id), NONE);
+        }
+    }
+
+    /**
+     * @return the number of test methods that are bound to an original test method
+     */
+    public int getNumberOfTestMethodsWithOriginal() {
+        return this.count(this::originalIdOf);
+    }
+
+    public void removeOriginals() {
+        for (int id = 0; id < this.numberOfIds.get(); id++) {
+            this.chunkOf(id).originalIds.set(offsetOf(id), NONE);
+        }
+    }
+
+    private int count(IntUnaryOperator ancestorIdOf) {
+        int count = 0;
+        for (int id = 0; id < this.numberOfIds.get(); id++) {
+            if (ancestorIdOf.applyAsInt(id) != NONE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void addInput(CtMethod<?> testMethod, int number) {
+        final int id = this.idOf(testMethod);
+        this.chunkOf(id).numberOfInputAdded.addAndGet(offsetOf(id), number);
+        this.allInput.add(number);
+    }
+
+    public void addAssertion(CtMethod<?> testMethod, int number) {
+        final int id = this.idOf(testMethod);
+        this.chunkOf(id).numberOfAssertionAdded.addAndGet(offsetOf(id), number);
+        this.allAssertion.add(number);
+    }
+
+    /**
+     * Resets the numbers of inputs and assertions added to the test methods, but keeps their parents and their original
+     * test methods.
+     */
+    public void resetCounters() {
+        for (int id = 0; id < this.numberOfIds.get(); id++) {
+            final Chunk chunk = this.chunkOf(id);
+            chunk.numberOfInputAdded.set(offsetOf(id), 0);
+            chunk.numberOfAssertionAdded.set(offsetOf(id), 0);
+        }
+        this.allInput.reset();
+        this.allAssertion.reset();
+    }
+
+    public int getInput(CtMethod<?> testMethod) {
+        final Integer id = this.findId(testMethod);
+        return id == null ? 0 : this.chunkOf(id).numberOfInputAdded.get(offsetOf(id));
+    }
+
+    public int getAssertion(CtMethod<?> testMethod) {
+        final Integer id = this.findId(testMethod);
+        return id == null ? 0 : this.chunkOf(id).numberOfAssertionAdded.get(offsetOf(id));
+    }
+
+    /**
+     * @return the number of inputs added to the given test method and to all its parents
+     */
+    public int getInputSinceOrigin(CtMethod<?> testMethod) {
+        return this.sumSinceOrigin(testMethod, chunk -> chunk.numberOfInputAdded);
+    }
+
+    /**
+     * @return the number of assertions added to the given test method and to all its parents
+     */
+    public int getAssertionSinceOrigin(CtMethod<?> testMethod) {
+        return this.sumSinceOrigin(testMethod, chunk -> chunk.numberOfAssertionAdded);
+    }
+
+    private int sumSinceOrigin(CtMethod<?> testMethod, Function<Chunk, AtomicIntegerArray> numberPerId) {
+        final Integer id = this.findId(testMethod);
+        int sum = 0;
+        for (int currentId = id == null ? NONE : id; currentId != NONE; currentId = this.parentIdOf(currentId)) {
+            sum += numberPerId.apply(this.chunkOf(currentId)).get(offsetOf(currentId));
+        }
+        return sum;
+    }
+
+    public int getAllInput() {
+        return this.allInput.intValue();
+    }
+
+    public int getAllAssertion() {
+        return this.allAssertion.intValue();
+    }
+}
@@ -1,9 +1,11 @@
 package eu.stamp_project.utils.compilation;
 
+import eu.stamp_project.dspot.AmplificationContext;
 import eu.stamp_project.utils.DSpotUtils;
 import eu.stamp_project.utils.program.InputConfiguration;
 import org.apache.commons.io.FileUtils;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spoon.Launcher;
@@ -15,13 +17,16 @@ import spoon.compiler.builder.ClasspathOptions;
 import spoon.compiler.builder.ComplianceOptions;
 import spoon.compiler.builder.JDTBuilderImpl;
 import spoon.compiler.builder.SourceOptions;
+import spoon.reflect.declaration.CtType;
 import spoon.support.compiler.FileSystemFolder;
 import spoon.support.compiler.jdt.JDTBasedSpoonCompiler;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static eu.stamp_project.utils.AmplificationHelper.PATH_SEPARATOR;
 
@@ -42,12 +47,28 @@ public class DSpotCompiler extends JDTBasedSpoonCompiler {
 		return new DSpotCompiler(launcher, configuration, pathToDependencies);
 	}
 
+	/**
+	 * Creates a compiler that shares the Spoon model of this compiler, but that uses its own directory for the .java of
+	 * the amplified test classes. This is used to amplify several test classes in parallel.
+	 * @param configuration the configuration of DSpot
+	 * @param testClassName the full qualified name of the test class to be amplified with the new compiler
+	 * @return a new compiler, whose source output directory is dedicated to the given test class
+	 */
+	public DSpotCompiler createCompilerForTestClass(InputConfiguration configuration, String testClassName) {
+		return new DSpotCompiler(this.launcher, configuration, this.dependencies,
+				new File(getPathToAmplifiedTestSrc() + "_" + testClassName));
+	}
+
 	private DSpotCompiler(Launcher launcher, InputConfiguration configuration, String pathToDependencies) {
+		this(launcher, configuration, pathToDependencies, new File(getPathToAmplifiedTestSrc()));
+	}
+
+	private DSpotCompiler(Launcher launcher, InputConfiguration configuration, String pathToDependencies, File sourceOutputDirectory) {
 		super(launcher.getFactory());
 		this.dependencies = pathToDependencies;
 		this.launcher = launcher;
 		this.binaryOutputDirectory = new File(configuration.getAbsolutePathToTestClasses());
-		this.sourceOutputDirectory = new File(getPathToAmplifiedTestSrc());
+		this.sourceOutputDirectory = sourceOutputDirectory;
 		if (!this.sourceOutputDirectory.exists()) {
 			this.sourceOutputDirectory.mkdir();
 		} else {
@@ -101,6 +122,73 @@ public class DSpotCompiler extends JDTBasedSpoonCompiler {
 		return compiler.globalErrorsCount == 0;
 	}
 
+	/**
+	 * Compile the given type without going through the disk:
+	 * the source code of the type is printed in memory and given to the JDT batch compiler as a compilation unit,
+	 * and the produced bytecode is kept in memory, see {@link #getInMemoryClassFiles()}.
+	 * Only the resulting .class files are then written in the binary output directory, in order to be executed.
+	 *
+	 * @param type                         the type to be compiled
+	 * @param pathToAdditionalDependencies additional dependencies required to compile the given type
+	 * @return a list that contains compilation problems
+	 */
+	public List<CategorizedProblem> compileInMemoryAndReturnProblems(CtType<?> type, String pathToAdditionalDependencies) {
+		if (this.factory == null) {
+			this.factory = this.launcher.getFactory();
+		}
+		javaCompliance = factory.getEnvironment().getComplianceLevel();
+		DSpotJDTBatchCompiler compiler = new DSpotJDTBatchCompiler(this, null);
+		this.inMemorySourceCode = DSpotUtils.printCtTypeToString(type);
+		final String encoding = getEnvironment().getEncoding().displayName();
+		final String pathToJavaFile = this.sourceOutputDirectory.getAbsolutePath() + "/"
+				+ type.getQualifiedName().replaceAll("\\.", "/") + ".java";
+		compiler.setInMemoryCompilationUnits(new CompilationUnit[]{
+				new CompilationUnit(this.inMemorySourceCode.toCharArray(), pathToJavaFile, encoding)
+		});
+
+		this.reportProblems(this.factory.getEnvironment());
+
+		String[] classpath = (this.dependencies + PATH_SEPARATOR + pathToAdditionalDependencies).split(PATH_SEPARATOR);
+		final ClasspathOptions classpathOptions = new ClasspathOptions()
+				.encoding(encoding)
+				.classpath(classpath);
+
+		final String[] args = new JDTBuilderImpl() //
+				.classpathOptions(classpathOptions) //
+				.complianceOptions(new ComplianceOptions().compliance(javaCompliance)) //
+				.advancedOptions(new AdvancedOptions().preserveUnusedVars().continueExecution().enableJavadoc()) //
+				.annotationProcessingOptions(new AnnotationProcessingOptions().compileProcessors()) //
+				.build();
+
+		// the bytecode is collected by the DSpotJDTBatchCompiler, the JDT must not write any .class file
+		// the path to the .java file is never read, but it is required by the JDT to proceed with the compilation
+		final String[] finalArgs = new String[args.length + 4];
+		finalArgs[0] = "-proceedOnError";
+		System.arraycopy(args, 0, finalArgs, 1, args.length);
+		finalArgs[args.length + 1] = "-d";
+		finalArgs[args.length + 2] = "none";
+		finalArgs[args.length + 3] = pathToJavaFile;
+
+		LOGGER.info("Compiling in memory {}", type.getQualifiedName());
+
+		compiler.compile(finalArgs);
+		environment = compiler.getEnvironment();
+		this.inMemoryClassFiles = compiler.getInMemoryClassFiles();
+		this.writeInMemoryClassFiles();
+		return getProblems();
+	}
+
+	private void writeInMemoryClassFiles() {
+		this.inMemoryClassFiles.forEach((internalName, bytecode) -> {
+			final File classFile = new File(this.binaryOutputDirectory, internalName + ".class");
+			try {
+				FileUtils.writeByteArrayToFile(classFile, bytecode);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+	}
+
 	public static Launcher getSpoonModelOf(String pathToSources, String pathToDependencies) {
 		Launcher launcher = new Launcher();
 		launcher.getEnvironment().setNoClasspath(true);
@@ -151,14 +239,28 @@ public class DSpotCompiler extends JDTBasedSpoonCompiler {
 	 * This constants represent the path of the .java of the amplified test classes.
 	 * This .java contains amplified test methods at different step of the process of DSpot.
 	 * The {@link DSpotCompiler} use this path to compile the amplified test class.
+	 * When test classes are amplified in parallel, each {@link AmplificationContext} uses its own directory.
 	 */
 
 	private static final String PATH_TO_AMPLIFIED_TEST_SRC = "target/dspot/tmp_test_sources";
 
 	public static String getPathToAmplifiedTestSrc() {
+		final AmplificationContext context = AmplificationContext.current();
+		if (context != null) {
+			return context.getCompiler().getSourceOutputDirectory().getAbsolutePath();
+		}
 		return InputConfiguration.get().getAbsolutePathToProjectRoot() + PATH_TO_AMPLIFIED_TEST_SRC;
 	}
 
+	/**
+	 * @return the path of the binaries of the amplified test classes that are compiled apart from the test classes of
+	 * the project, e.g. to compute their coverage. As {@link #getPathToAmplifiedTestSrc()}, it is specific to the
+	 * current {@link AmplificationContext}.
+	 */
+	public static String getPathToAmplifiedTestClasses() {
+		return getPathToAmplifiedTestSrc() + "_classes";
+	}
+
 	private Launcher launcher;
 
 	private File binaryOutputDirectory;
@@ -167,6 +269,10 @@ public class DSpotCompiler extends JDTBasedSpoonCompiler {
 
 	private File sourceOutputDirectory;
 
+	private String inMemorySourceCode;
+
+	private Map<String, byte[]> inMemoryClassFiles = Collections.emptyMap();
+
 	public File getBinaryOutputDirectory() {
 		return binaryOutputDirectory;
 	}
@@ -175,6 +281,21 @@ public class DSpotCompiler extends JDTBasedSpoonCompiler {
 		return sourceOutputDirectory;
 	}
 
+	/**
+	 * @return the source code given to the last call to {@link #compileInMemoryAndReturnProblems(CtType, String)}
+	 */
+	public String getInMemorySourceCode() {
+		return inMemorySourceCode;
+	}
+
+	/**
+	 * @return the bytecode produced by the last call to {@link #compileInMemoryAndReturnProblems(CtType, String)},
+	 * indexed by the internal name of the classes, <i>e.g.</i> fr/inria/MyClass$1.
+	 */
+	public Map<String, byte[]> getInMemoryClassFiles() {
+		return inMemoryClassFiles;
+	}
+
 	public String getDependencies() {
 		return dependencies;
 	}
@@ -1,6 +1,9 @@
 package eu.stamp_project.utils.compilation;
 
+import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
 import org.eclipse.jdt.internal.compiler.Compiler;
+import org.eclipse.jdt.internal.compiler.ICompilerRequestor;
 import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
 import org.eclipse.jdt.internal.compiler.batch.FileSystem;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
@@ -11,6 +14,8 @@ import spoon.support.compiler.jdt.JDTBatchCompiler;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 
 /**
@@ -22,6 +27,10 @@ public class DSpotJDTBatchCompiler extends JDTBatchCompiler {
 
     private FileSystem environment;
 
+    private CompilationUnit[] inMemoryCompilationUnits;
+
+    private final Map<String, byte[]> inMemoryClassFiles = new LinkedHashMap<>();
+
     public DSpotJDTBatchCompiler(JDTBasedSpoonCompiler jdtCompiler, FileSystem environment ) {
         super(jdtCompiler);
         this.environment = environment;
@@ -55,8 +64,46 @@ public class DSpotJDTBatchCompiler extends JDTBatchCompiler {
     }
 
 
+    /**
+     * Use the given compilation units, built from source code held in memory, instead of the files given as arguments.
+     * The produced bytecode is then kept in memory, see {@link #getInMemoryClassFiles()}.
+     *
+     * @param inMemoryCompilationUnits compilation units to be compiled
+     */
+    public void setInMemoryCompilationUnits(CompilationUnit[] inMemoryCompilationUnits) {
+        this.inMemoryCompilationUnits = inMemoryCompilationUnits;
+    }
+
+    /**
+     * @return the bytecode produced by the last compilation of in-memory compilation units,
+     * indexed by the internal name of the class, <i>e.g.</i> fr/inria/MyClass$1.
+     */
+    public Map<String, byte[]> getInMemoryClassFiles() {
+        return inMemoryClassFiles;
+    }
+
+    @Override
+    public ICompilerRequestor getBatchRequestor() {
+        final ICompilerRequestor requestor = super.getBatchRequestor();
+        if (this.inMemoryCompilationUnits == null) {
+            return requestor;
+        }
+        return new ICompilerRequestor() {
+            @Override
+            public void acceptResult(CompilationResult compilationResult) {
+                for (ClassFile classFile : compilationResult.getClassFiles()) {
+                    inMemoryClassFiles.put(new String(classFile.fileName()), classFile.getBytes());
+                }
+                requestor.acceptResult(compilationResult);
+            }
+        };
+    }
+
     @Override
     public CompilationUnit[] getCompilationUnits() {
+        if (this.inMemoryCompilationUnits != null) {
+            return this.inMemoryCompilationUnits;
+        }
         int fileCount = this.filenames.length;
         CompilationUnit[] units = new CompilationUnit[fileCount];
         HashtableOfObject knownFileNames = new HashtableOfObject(fileCount);
@@ -1,15 +1,19 @@
 package eu.stamp_project.utils.compilation;
 
 import eu.stamp_project.dspot.AmplificationException;
+import eu.stamp_project.test_framework.TestFramework;
 import eu.stamp_project.testrunner.listener.TestResult;
+import eu.stamp_project.utils.DSpotCache;
+import eu.stamp_project.utils.execution.CachedTestResult;
 import eu.stamp_project.utils.execution.TestRunner;
 import eu.stamp_project.utils.program.InputConfiguration;
-import eu.stamp_project.testrunner.EntryPoint;
 import eu.stamp_project.utils.AmplificationHelper;
 import eu.stamp_project.utils.CloneHelper;
 import eu.stamp_project.utils.DSpotUtils;
+import org.apache.commons.io.FileUtils;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.compiler.IProblem;
+import org.ehcache.Cache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spoon.Launcher;
@@ -17,13 +21,23 @@ import spoon.reflect.declaration.CtClass;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.declaration.ModifierKind;
+import spoon.support.compiler.VirtualFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.codehaus.plexus.util.FileUtils.forceDelete;
@@ -50,6 +64,9 @@ public class TestCompiler {
                                                                                     List<CtMethod<?>> currentTestList,
                                                                                     DSpotCompiler compiler,
                                                                                     InputConfiguration configuration) {
+        if (configuration.shouldCacheTestResults()) {
+            return compileRunAndDiscardUncompilableAndFailingTestMethodsUsingCache(classTest, currentTestList, compiler, configuration);
+        }
         CtType amplifiedTestClass = CloneHelper.cloneTestClassAndAddGivenTest(classTest, currentTestList);
         try {
             final TestResult result = TestCompiler.compileAndRun(
@@ -67,6 +84,187 @@ public class TestCompiler {
         }
     }
 
+    /**
+     * Same as {@link #compileRunAndDiscardUncompilableAndFailingTestMethods(CtType, List, DSpotCompiler, InputConfiguration)},
+     * but uses {@link DSpotCache#getTestResultCache()}.
+     * The key of a test method is a hash of its printed source code, of the rest of its test class, and of the classpath.
+     * Test methods known to be uncompilable or failing are discarded without being compiled.
+     * Test methods known to be passing are compiled, since the test selectors run the compiled test class, but not executed.
+     * Among the other test methods, only one per key is executed.
+     * Only the verdicts that belong to a single test method, i.e. a compilation error located in this test method,
+     * or a pass, are persisted. The other outcomes, i.e. the failures, which can be flaky, and the test methods that
+     * could not be compiled because of the rest of their test class, are kept in memory only,
+     * see {@link DSpotCache#getTransientTestResultCache()}.
+     */
+    private static List<CtMethod<?>> compileRunAndDiscardUncompilableAndFailingTestMethodsUsingCache(CtType<?> classTest,
+                                                                                                   List<CtMethod<?>> currentTestList,
+                                                                                                   DSpotCompiler compiler,
+                                                                                                   InputConfiguration configuration) {
+        final Cache<String, CachedTestResult> cache = DSpotCache.getTestResultCache();
+        final Cache<String, CachedTestResult> transientCache = DSpotCache.getTransientTestResultCache();
+        final String fingerprintOfTestClass = fingerprintOf(classTest, compiler, configuration);
+        final Map<CtMethod<?>, String> keyOfTestMethod = new IdentityHashMap<>();
+        final Map<String, CachedTestResult> resultOfKey = new HashMap<>();
+        final Map<String, CtMethod<?>> testMethodToRunOfKey = new LinkedHashMap<>();
+        final List<CtMethod<?>> testMethodsToCompile = new ArrayList<>();
+        for (CtMethod<?> testMethod : currentTestList) {
+            final String key = keyOf(fingerprintOfTestClass, testMethod);
+            keyOfTestMethod.put(testMethod, key);
+            final CachedTestResult cachedTestResult = resultOfKey.containsKey(key) ?
+                    resultOfKey.get(key) : getFromCache(cache, transientCache, key);
+            if (cachedTestResult == null) {
+                testMethodToRunOfKey.putIfAbsent(key, testMethod);
+                testMethodsToCompile.add(testMethod);
+            } else {
+                resultOfKey.put(key, cachedTestResult);
+                if (cachedTestResult.isPassing()) {
+                    testMethodsToCompile.add(testMethod);
+                }
+            }
+        }
+        LOGGER.info("{} test method(s) to be executed, {} result(s) found in the cache.",
+                testMethodToRunOfKey.size(), resultOfKey.size());
+        if (testMethodsToCompile.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final CtType<?> amplifiedTestClass = CloneHelper.cloneTestClassAndAddGivenTest(classTest, testMethodsToCompile);
+        final String dependencies = configuration.getClasspathClassesProject()
+                + AmplificationHelper.PATH_SEPARATOR + DSpotUtils.getAbsolutePathToDSpotDependencies();
+        DSpotUtils.copyPackageFromResources();
+        final List<CtMethod<?>> uncompilableTestMethods = new ArrayList<>();
+        final boolean compiled =
+                compileAndCollectUncompilableMethods(compiler, amplifiedTestClass, dependencies, uncompilableTestMethods, 0);
+        final Set<String> namesOfUncompilableTestMethods = uncompilableTestMethods.stream()
+                .map(CtMethod::getSimpleName)
+                .collect(Collectors.toSet());
+        // if the compilation has been given up, the remaining test methods have not been compiled, nor are their class files
+        final Set<String> namesOfCompiledTestMethods = !compiled ? Collections.emptySet() : testMethodsToCompile.stream()
+                .map(CtMethod::getSimpleName)
+                .filter(name -> !namesOfUncompilableTestMethods.contains(name))
+                .collect(Collectors.toSet());
+        final List<CtMethod<?>> testMethodsToRun = new ArrayList<>();
+        testMethodToRunOfKey.forEach((key, testMethod) -> {
+            if (namesOfCompiledTestMethods.contains(testMethod.getSimpleName())) {
+                testMethodsToRun.add(testMethod);
+            } else if (namesOfUncompilableTestMethods.contains(testMethod.getSimpleName())) {
+                putInCache(cache, resultOfKey, key, CachedTestResult.uncompilable());
+            } else {
+                putInCache(transientCache, resultOfKey, key, CachedTestResult.uncompilable());
+            }
+        });
+        if (!testMethodsToRun.isEmpty()) {
+            final String classPath = AmplificationHelper.getClassPath(compiler, configuration);
+            try {
+                final TestResult result = amplifiedTestClass.getModifiers().contains(ModifierKind.ABSTRACT) ?
+                        TestRunner.runSubClassesForAbstractTestClass(amplifiedTestClass, testMethodsToRun, classPath) :
+                        TestRunner.runGivenTestMethods(amplifiedTestClass, testMethodsToRun, classPath);
+                final List<CtMethod<?>> passingTestMethods = AmplificationHelper.getPassingTests(testMethodsToRun, result);
+                for (CtMethod<?> testMethod : testMethodsToRun) {
+                    if (passingTestMethods.contains(testMethod)) {
+                        putInCache(cache, resultOfKey, keyOfTestMethod.get(testMethod), CachedTestResult.passing());
+                    } else {
+                        putInCache(transientCache, resultOfKey, keyOfTestMethod.get(testMethod),
+                                CachedTestResult.failing(result.getFailingTests()
+                                        .stream()
+                                        .filter(failure -> testMethod.getSimpleName().equals(failure.testCaseName))
+                                        .findFirst()
+                                        .orElse(null)
+                                )
+                        );
+                    }
+                }
+            } catch (AmplificationException e) {
+                // e.g. a timeout: nothing is cached, and the test methods that have not been executed are discarded
+                if (configuration.isVerbose()) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return currentTestList.stream()
+                .filter(testMethod -> namesOfCompiledTestMethods.contains(testMethod.getSimpleName()))
+                .filter(testMethod -> {
+                    final CachedTestResult cachedTestResult = resultOfKey.get(keyOfTestMethod.get(testMethod));
+                    return cachedTestResult != null && cachedTestResult.isPassing();
+                }).collect(Collectors.toList());
+    }
+
+    private static CachedTestResult getFromCache(Cache<String, CachedTestResult> cache,
+                                                 Cache<String, CachedTestResult> transientCache,
+                                                 String key) {
+        final CachedTestResult cachedTestResult = cache.get(key);
+        return cachedTestResult != null ? cachedTestResult : transientCache.get(key);
+    }
+
+    private static void putInCache(Cache<String, CachedTestResult> cache,
+                                   Map<String, CachedTestResult> resultOfKey,
+                                   String key,
+                                   CachedTestResult cachedTestResult) {
+        resultOfKey.put(key, cachedTestResult);
+        cache.put(key, cachedTestResult);
+    }
+
+    // the fingerprint of the test class is computed from every thing but its test methods,
+    // i.e. its fields, its non-test methods, its super class, and the classpath used to compile and run it
+    private static String fingerprintOf(CtType<?> classTest, DSpotCompiler compiler, InputConfiguration configuration) {
+        final String classPath = AmplificationHelper.getClassPath(compiler, configuration);
+        final StringBuilder fingerprint = new StringBuilder(
+                DSpotCache.getFingerprintOfClasspath().computeIfAbsent(classPath, __ -> fingerprintOfClasspath(configuration, classPath))
+        );
+        fingerprint.append(classTest.getQualifiedName()).append(AmplificationHelper.LINE_SEPARATOR);
+        if (classTest.getSuperclass() != null) {
+            fingerprint.append(classTest.getSuperclass().getQualifiedName()).append(AmplificationHelper.LINE_SEPARATOR);
+        }
+        classTest.getAnnotations().forEach(annotation -> fingerprint.append(annotation).append(AmplificationHelper.LINE_SEPARATOR));
+        classTest.getTypeMembers()
+                .stream()
+                .filter(typeMember -> !(typeMember instanceof CtMethod && TestFramework.get().isTest((CtMethod<?>) typeMember)))
+                .forEach(typeMember -> fingerprint.append(typeMember).append(AmplificationHelper.LINE_SEPARATOR));
+        return DSpotUtils.hash(fingerprint.toString());
+    }
+
+    // the printer of Spoon is already canonical, and the whitespaces in the literals matter
+    private static String keyOf(String fingerprintOfTestClass, CtMethod<?> testMethod) {
+        final StringBuilder printedTestMethod = new StringBuilder(fingerprintOfTestClass);
+        testMethod.getAnnotations().forEach(annotation -> printedTestMethod.append(annotation));
+        testMethod.getThrownTypes().forEach(thrownType -> printedTestMethod.append(thrownType.getQualifiedName()));
+        printedTestMethod.append(testMethod.getBody());
+        return DSpotUtils.hash(printedTestMethod.toString());
+    }
+
+    // the content of the directories of the classpath, i.e. the program classes, is hashed.
+    // the jars are identified by their path, their size and their date of modification.
+    // the sources of the tests are hashed as well, since test methods may use other classes of the test sources.
+    private static String fingerprintOfClasspath(InputConfiguration configuration, String classPath) {
+        final MessageDigest digest = DSpotUtils.newMessageDigest();
+        final List<File> filesToHash = new ArrayList<>();
+        for (String classPathElement : classPath.split(AmplificationHelper.PATH_SEPARATOR)) {
+            final File file = new File(classPathElement);
+            digest.update(classPathElement.getBytes(StandardCharsets.UTF_8));
+            if (file.isFile()) {
+                digest.update((file.length() + "," + file.lastModified()).getBytes(StandardCharsets.UTF_8));
+            } else if (file.isDirectory() &&
+                    !file.getAbsolutePath().equals(new File(configuration.getAbsolutePathToTestClasses()).getAbsolutePath())) {
+                // the directory of the test classes is modified by DSpot itself, we use the test sources instead
+                filesToHash.addAll(FileUtils.listFiles(file, new String[]{"class"}, true));
+            }
+        }
+        final File testSources = new File(configuration.getAbsolutePathToTestSourceCode());
+        if (testSources.isDirectory()) {
+            filesToHash.addAll(FileUtils.listFiles(testSources, new String[]{"java"}, true));
+        }
+        filesToHash.stream()
+                .sorted(Comparator.comparing(File::getAbsolutePath))
+                .forEach(file -> {
+                    digest.update(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+                    try {
+                        digest.update(FileUtils.readFileToByteArray(file));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+        return DSpotUtils.toHexString(digest.digest());
+    }
+
     /**
      * <p>
      * This method will compile the given test class,
@@ -87,16 +285,49 @@ public class TestCompiler {
                                              DSpotCompiler compiler,
                                              List<CtMethod<?>> testsToRun,
                                              InputConfiguration configuration) throws AmplificationException {
+        return compileAndRun(testClass, compiler, testsToRun, configuration, false);
+    }
+
+    /**
+     * @param freshStaticState if true, the test methods do not see the static state left by the previous executions,
+     *                         see {@link TestRunner#runGivenTestMethods(CtType, List, String, boolean)}
+     * @see #compileAndRun(CtType, DSpotCompiler, List, InputConfiguration)
+     */
+    public static TestResult compileAndRun(CtType<?> testClass,
+                                           DSpotCompiler compiler,
+                                           List<CtMethod<?>> testsToRun,
+                                           InputConfiguration configuration,
+                                           boolean freshStaticState) throws AmplificationException {
         final String dependencies = configuration.getClasspathClassesProject()
                 + AmplificationHelper.PATH_SEPARATOR + DSpotUtils.getAbsolutePathToDSpotDependencies();
         DSpotUtils.copyPackageFromResources();
         testsToRun = TestCompiler.compileAndDiscardUncompilableMethods(compiler, testClass, dependencies, testsToRun);
+        return run(testClass, compiler, testsToRun, configuration, freshStaticState);
+    }
+
+    /**
+     * Runs again the given test methods, which have been compiled by {@link #compileAndRun(CtType, DSpotCompiler, List, InputConfiguration)}.
+     *
+     * @param testClass        the test class, already compiled
+     * @param compiler         the compiler used to compile the test class
+     * @param testsToRun       the test methods to be run, should be in testClass
+     * @param configuration
+     * @param freshStaticState if true, the test methods do not see the static state left by the previous executions,
+     *                         see {@link TestRunner#runGivenTestMethods(CtType, List, String, boolean)}
+     * @return an instance of {@link eu.stamp_project.testrunner.listener.TestResult}
+     * that contains the result of the execution of test methods.
+     * @throws AmplificationException in case a timeout has been thrown.
+     */
+    public static TestResult run(CtType<?> testClass,
+                                 DSpotCompiler compiler,
+                                 List<CtMethod<?>> testsToRun,
+                                 InputConfiguration configuration,
+                                 boolean freshStaticState) throws AmplificationException {
         final String classPath = AmplificationHelper.getClassPath(compiler, configuration);
-        EntryPoint.timeoutInMs = 1000 + (configuration.getTimeOutInMs() * testsToRun.size());
         if (testClass.getModifiers().contains(ModifierKind.ABSTRACT)) { // if the test class is abstract, we use one of its implementation
             return TestRunner.runSubClassesForAbstractTestClass(testClass, testsToRun, classPath);
         } else {
-            return TestRunner.runGivenTestMethods(testClass, testsToRun, classPath);
+            return TestRunner.runGivenTestMethods(testClass, testsToRun, classPath, freshStaticState);
         }
     }
 
@@ -117,7 +348,8 @@ public class TestCompiler {
                                                                          CtType<?> testClassToBeCompiled,
                                                                          String dependencies,
                                                                          List<CtMethod<?>> testsToRun) throws AmplificationException {
-        final List<CtMethod<?>> uncompilableMethod = compileAndDiscardUncompilableMethods(compiler, testClassToBeCompiled, dependencies, 0);
+        final List<CtMethod<?>> uncompilableMethod = new ArrayList<>();
+        compileAndCollectUncompilableMethods(compiler, testClassToBeCompiled, dependencies, uncompilableMethod, 0);
         testsToRun.removeAll(uncompilableMethod);
         uncompilableMethod.forEach(testClassToBeCompiled::removeMethod);
         if (testsToRun.isEmpty()) {
@@ -126,31 +358,47 @@ public class TestCompiler {
         return testsToRun;
     }
 
-    private static List<CtMethod<?>> compileAndDiscardUncompilableMethods(DSpotCompiler compiler,
-                                                                          CtType<?> testClassToBeCompiled,
-                                                                          String dependencies,
-                                                                          int numberOfTry) {
+    /*
+        Compiles the given test class, and removes from it the test methods that contain compilation errors,
+        until the compilation succeeds. These test methods are added to uncompilableMethods.
+        Returns false if the compilation did not succeed after several tries, e.g. because of an error that is not located
+        in a test method: in this case, the test methods that remain in the test class have not been compiled.
+     */
+    private static boolean compileAndCollectUncompilableMethods(DSpotCompiler compiler,
+                                                                CtType<?> testClassToBeCompiled,
+                                                                String dependencies,
+                                                                List<CtMethod<?>> uncompilableMethods,
+                                                                int numberOfTry) {
 
-        printJavaFileAndDeleteClassFile(compiler, testClassToBeCompiled);
-        final List<CategorizedProblem> problems = compiler.compileAndReturnProblems(dependencies)
+        final boolean inMemory = InputConfiguration.get().shouldUseInMemoryCompilation();
+        final List<CategorizedProblem> problems;
+        if (inMemory) {
+            problems = compiler.compileInMemoryAndReturnProblems(testClassToBeCompiled, dependencies);
+        } else {
+            printJavaFileAndDeleteClassFile(compiler, testClassToBeCompiled);
+            problems = compiler.compileAndReturnProblems(dependencies);
+        }
+        final List<CategorizedProblem> errors = problems
                 .stream()
                 .filter(IProblem::isError)
                 .collect(Collectors.toList());
         // no problem, the compilation is successful
-        if (problems.isEmpty()) {
-            return Collections.emptyList();
+        if (errors.isEmpty()) {
+            return true;
         } else if (numberOfTry > 3) {
             LOGGER.warn("Trying three time to compile with no success. Give up.");
-            return Collections.emptyList();
+            return false;
         } else {
-            int maxNumber = problems.size() > 20 ? 20 : problems.size();
+            int maxNumber = errors.size() > 20 ? 20 : errors.size();
             LOGGER.error("Error(s) during compilation:");
-            problems.subList(0, maxNumber).forEach(categorizedProblem -> LOGGER.error("{}", categorizedProblem));
+            errors.subList(0, maxNumber).forEach(categorizedProblem -> LOGGER.error("{}", categorizedProblem));
             // Here, we compute the spoon model of the compiled test class,
             // since it does not match with the model given in parameter.
             // TODO report this to Spoon ?
-            final CtClass<?> newModelCtClass = getNewModelCtClass(compiler.getSourceOutputDirectory().getAbsolutePath(), testClassToBeCompiled.getQualifiedName());
-            final HashSet<CtMethod<?>> methodsToRemove = getMethodToRemove(problems, newModelCtClass);
+            final CtClass<?> newModelCtClass = inMemory ?
+                    getNewModelCtClassFromSourceCode(compiler.getInMemorySourceCode(), testClassToBeCompiled.getQualifiedName()) :
+                    getNewModelCtClass(compiler.getSourceOutputDirectory().getAbsolutePath(), testClassToBeCompiled.getQualifiedName());
+            final HashSet<CtMethod<?>> methodsToRemove = getMethodToRemove(errors, newModelCtClass);
             final List<CtMethod<?>> methodsToRemoveInOriginalModel = methodsToRemove.stream()
                     .map(CtMethod::getSimpleName)
                     .map(methodName -> (CtMethod<?>) testClassToBeCompiled.getMethodsByName(methodName).get(0))
@@ -169,10 +417,8 @@ public class TestCompiler {
                             .collect(Collectors.toList())
             );*/
             methodsToRemoveInOriginalModel.forEach(testClassToBeCompiled::removeMethod);
-            final List<CtMethod<?>> recursiveMethodToRemove =
-                    compileAndDiscardUncompilableMethods(compiler, testClassToBeCompiled, dependencies, numberOfTry + 1);
-            methodsToRemoveInOriginalModel.addAll(recursiveMethodToRemove);
-            return new ArrayList<>(methodsToRemoveInOriginalModel);
+            uncompilableMethods.addAll(methodsToRemoveInOriginalModel);
+            return compileAndCollectUncompilableMethods(compiler, testClassToBeCompiled, dependencies, uncompilableMethods, numberOfTry + 1);
         }
     }
 
@@ -201,6 +447,16 @@ public class TestCompiler {
         return launcher.getFactory().Class().get(fullQualifiedName);
     }
 
+    // compute a new spoon model for the given source code, used when the test class has been compiled in memory
+    private static CtClass<?> getNewModelCtClassFromSourceCode(String sourceCode, String fullQualifiedName) {
+        Launcher launcher = new Launcher();
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.getEnvironment().setCommentEnabled(true);
+        launcher.addInputResource(new VirtualFile(sourceCode, fullQualifiedName.replaceAll("\\.", "/") + ".java"));
+        launcher.buildModel();
+        return launcher.getFactory().Class().get(fullQualifiedName);
+    }
+
     // output the .java of the test class to be compiled
     // this method delete also the old .class, i.e. the old compiled file of the same test class, if exists
     private static void printJavaFileAndDeleteClassFile(DSpotCompiler compiler, CtType classTest) {
@@ -0,0 +1,67 @@
+package eu.stamp_project.utils.execution;
+
+import eu.stamp_project.testrunner.runner.Failure;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of the compilation and the execution of one test method, as stored in {@link eu.stamp_project.utils.DSpotCache#getTestResultCache()}.
+ * This class must be serializable since the cache has a persistent tier on the disk.
+ */
+public class CachedTestResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Outcome {UNCOMPILABLE, PASSING, FAILING}
+
+    private final Outcome outcome;
+
+    private final String fullQualifiedNameOfException;
+
+    private final String messageOfFailure;
+
+    private CachedTestResult(Outcome outcome, String fullQualifiedNameOfException, String messageOfFailure) {
+        this.outcome = outcome;
+        this.fullQualifiedNameOfException = fullQualifiedNameOfException;
+        this.messageOfFailure = messageOfFailure;
+    }
+
+    public static CachedTestResult uncompilable() {
+        return new CachedTestResult(Outcome.UNCOMPILABLE, null, null);
+    }
+
+    public static CachedTestResult passing() {
+        return new CachedTestResult(Outcome.PASSING, null, null);
+    }
+
+    /**
+     * @param failure the failure of the test method, can be null if the test runner did not report it.
+     */
+    public static CachedTestResult failing(Failure failure) {
+        return failure == null ?
+                new CachedTestResult(Outcome.FAILING, null, null) :
+                new CachedTestResult(Outcome.FAILING, failure.fullQualifiedNameOfException, failure.messageOfFailure);
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isPassing() {
+        return this.outcome == Outcome.PASSING;
+    }
+
+    public String getFullQualifiedNameOfException() {
+        return fullQualifiedNameOfException;
+    }
+
+    public String getMessageOfFailure() {
+        return messageOfFailure;
+    }
+
+    @Override
+    public String toString() {
+        return this.outcome + (this.fullQualifiedNameOfException == null ? "" :
+                " " + this.fullQualifiedNameOfException + ": " + this.messageOfFailure);
+    }
+}
@@ -1,12 +1,17 @@
 package eu.stamp_project.utils.execution;
 
 import eu.stamp_project.automaticbuilder.maven.DSpotPOMCreator;
+import eu.stamp_project.dspot.AmplificationContext;
 import eu.stamp_project.dspot.AmplificationException;
+import eu.stamp_project.test_framework.TestFramework;
+import eu.stamp_project.testrunner.listener.Coverage;
+import eu.stamp_project.testrunner.listener.CoveragePerTestMethod;
 import eu.stamp_project.testrunner.listener.TestResult;
 import eu.stamp_project.utils.program.InputConfiguration;
 import eu.stamp_project.testrunner.EntryPoint;
 import eu.stamp_project.utils.AmplificationHelper;
 import eu.stamp_project.utils.DSpotUtils;
+import eu.stamp_project.utils.execution.worker.TestWorkerClient;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,7 +19,12 @@ import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
@@ -25,26 +35,90 @@ import java.util.stream.Collectors;
  *
  * This class is a proxy for EntryPoint.
  *
+ * EntryPoint reads its timeout and its JUnit mode from static fields, and reads the results of each execution from a
+ * single file of the project, all shared by the test classes amplified in parallel. Each execution through EntryPoint
+ * therefore sets these fields and runs the tests while holding a single lock.
+ * The test worker, see {@link TestWorkerClient}, is given the timeout of each execution, and does not need it. So, when
+ * test classes are amplified in parallel, the JUnit4 tests are run by the worker of each {@link AmplificationContext},
+ * and only the coverage, the JUnit5 tests and the executions through Maven go through EntryPoint.
  */
 public class TestRunner {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TestRunner.class);
 
+    private static final Object ENTRY_POINT_LOCK = new Object();
+
+    @FunctionalInterface
+    private interface EntryPointExecution<T> {
+        T run() throws TimeoutException;
+    }
+
+    /**
+     * @param numberOfTestMethods the number of test methods executed
+     * @return the timeout of the execution of the given number of test methods, in milliseconds
+     */
+    public static int getTimeoutInMs(int numberOfTestMethods) {
+        return 1000 + (InputConfiguration.get().getTimeOutInMs() * numberOfTestMethods);
+    }
+
+    private static <T> T runWithEntryPoint(int numberOfTestMethods, EntryPointExecution<T> execution) throws TimeoutException {
+        final int timeoutInMs = getTimeoutInMs(numberOfTestMethods);
+        final boolean jUnit5 = InputConfiguration.get().isJUnit5();
+        synchronized (ENTRY_POINT_LOCK) {
+            EntryPoint.timeoutInMs = timeoutInMs;
+            EntryPoint.jUnit5Mode = jUnit5;
+            return execution.run();
+        }
+    }
+
+    /**
+     * Computes the coverage of the given test class, see {@link EntryPoint#runCoverage(String, String, String)}.
+     */
+    public static Coverage runCoverage(String classpath, String targetClasses, CtType<?> testClass) throws TimeoutException {
+        return runWithEntryPoint(TestFramework.getAllTest(testClass).size(),
+                () -> EntryPoint.runCoverage(classpath, targetClasses, testClass.getQualifiedName())
+        );
+    }
+
+    /**
+     * Computes the coverage of each given test method,
+     * see {@link EntryPoint#runCoveragePerTestMethods(String, String, String, String[])}.
+     */
+    public static CoveragePerTestMethod runCoveragePerTestMethods(String classpath, String targetClasses,
+                                                                  String fullQualifiedName, String... testMethodNames) throws TimeoutException {
+        return runWithEntryPoint(testMethodNames.length,
+                () -> EntryPoint.runCoveragePerTestMethods(classpath, targetClasses, fullQualifiedName, testMethodNames)
+        );
+    }
+
+    /**
+     * @return true if the test methods given to {@link #runGivenTestMethods(CtType, List, String, boolean)} are run by the
+     * test worker, see {@link TestWorkerClient}, false if each execution forks a new JVM.
+     */
+    public static boolean runsInTestWorker() {
+        return !InputConfiguration.get().shouldUseMavenToExecuteTest() &&
+                (InputConfiguration.get().shouldUseTestWorker() || AmplificationContext.current() != null) &&
+                !InputConfiguration.get().isJUnit5();
+    }
+
     public static TestResult runSubClassesForAbstractTestClass(CtType<?> testClass, List<CtMethod<?>> testsToRun, String classPath) throws AmplificationException {
         try {
-            return testClass.getFactory().Type()
-                    .getAll()
-                    .stream()
+            final List<CtType<?>> types;
+            synchronized (AmplificationContext.MODEL_LOCK) {
+                types = testClass.getFactory().Type().getAll();
+            }
+            return types.stream()
                     .filter(ctType -> ctType.getSuperclass() != null && testClass.getReference().equals(ctType.getSuperclass()))
                     .map(CtType::getQualifiedName)
                     .map(testClassName -> {
                         try {
-                            return EntryPoint.runTests(
+                            return runWithEntryPoint(testsToRun.size(), () -> EntryPoint.runTests(
                                     classPath + AmplificationHelper.PATH_SEPARATOR + DSpotUtils.getAbsolutePathToDSpotDependencies(),
                                     testClassName,
                                     testsToRun.stream()
                                             .map(CtMethod::getSimpleName)
-                                            .toArray(String[]::new));
+                                            .toArray(String[]::new))
+                            );
                         } catch (TimeoutException e) {
                             throw new RuntimeException(e);
                         }
@@ -62,10 +136,21 @@ public class TestRunner {
     }
 
     public static TestResult runGivenTestMethods(CtType<?> testClass, List<CtMethod<?>> testsToRun, String classPath) throws AmplificationException {
+        return runGivenTestMethods(testClass, testsToRun, classPath, false);
+    }
+
+    /**
+     * @param freshStaticState if true, the test methods do not see the static state of the project classes left by the
+     *                         previous executions. This is always the case, except in the test worker, which then loads
+     *                         the project classes again for this execution.
+     */
+    public static TestResult runGivenTestMethods(CtType<?> testClass, List<CtMethod<?>> testsToRun, String classPath,
+                                                 boolean freshStaticState) throws AmplificationException {
         try {
             return TestRunner.run(classPath + AmplificationHelper.PATH_SEPARATOR + DSpotUtils.getAbsolutePathToDSpotDependencies(),
                     InputConfiguration.get().getAbsolutePathToProjectRoot(),
                     testClass.getQualifiedName(),
+                    freshStaticState,
                     testsToRun.stream()
                             .map(CtMethod::getSimpleName)
                             .toArray(String[]::new)
@@ -82,26 +167,111 @@ public class TestRunner {
     }
 
     public static TestResult run(String classpath, String rootPath, String fullQualifiedName, String... testToRun) throws TimeoutException {
+        return run(classpath, rootPath, fullQualifiedName, false, testToRun);
+    }
+
+    private static TestResult run(String classpath, String rootPath, String fullQualifiedName, boolean freshStaticState,
+                                  String... testToRun) throws TimeoutException {
         if (InputConfiguration.get().shouldUseMavenToExecuteTest()) {
-            EntryPoint.workingDirectory = new File(rootPath);
-            if (! (new File(rootPath + DSpotPOMCreator.getPOMName()).exists())) {
-                DSpotPOMCreator.createNewPom();
-            }
-            eu.stamp_project.testrunner.maven.EntryPoint.preGoals = InputConfiguration.get().getPreGoalsTestExecution();
-            return eu.stamp_project.testrunner.maven.EntryPoint.runTestsSpecificPom(
-                    rootPath,
+            final String pomName = DSpotPOMCreator.getPOMName();
+            return runWithEntryPoint(testToRun.length, () -> {
+                EntryPoint.workingDirectory = new File(rootPath);
+                if (! (new File(rootPath + pomName).exists())) {
+                    DSpotPOMCreator.createNewPom();
+                }
+                eu.stamp_project.testrunner.maven.EntryPoint.preGoals = InputConfiguration.get().getPreGoalsTestExecution();
+                return eu.stamp_project.testrunner.maven.EntryPoint.runTestsSpecificPom(
+                        rootPath,
+                        fullQualifiedName,
+                        pomName,
+                        testToRun
+                );
+            });
+        } else if (runsInTestWorker()) {
+            return TestWorkerClient.get(classpath, rootPath).run(
+                    0,
+                    freshStaticState,
+                    readBytecodesOf(InputConfiguration.get().getAbsolutePathToTestClasses(), fullQualifiedName),
                     fullQualifiedName,
-                    DSpotPOMCreator.getPOMName(),
+                    getTimeoutInMs(testToRun.length),
                     testToRun
             );
         } else {
-            return EntryPoint.runTests(
+            return runWithEntryPoint(testToRun.length, () -> EntryPoint.runTests(
                     classpath,
                     fullQualifiedName,
                     testToRun
+            ));
+        }
+    }
 
-            );
+    /**
+     * Run the given test methods against two versions of the program, in a single test worker that loads both versions
+     * side by side, see {@link TestWorkerClient#getDifferential(String, String, String)}.
+     * The test class is compiled once, and the same bytecode is run against each version.
+     *
+     * @param firstClasspath    the classpath of the first version of the program
+     * @param secondClasspath   the classpath of the second version of the program
+     * @param rootPath          the root of the first version of the program
+     * @param pathToTestClasses the directory that contains the compiled test class
+     * @return the results of the execution on the first version, then on the second version
+     */
+    public static List<TestResult> runOnBothVersions(String firstClasspath, String secondClasspath, String rootPath,
+                                                     String pathToTestClasses, String fullQualifiedName,
+                                                     String... testToRun) throws TimeoutException {
+        final Map<String, byte[]> bytecodes = readBytecodesOf(pathToTestClasses, fullQualifiedName);
+        final TestWorkerClient worker = TestWorkerClient.getDifferential(firstClasspath, secondClasspath, rootPath);
+        final int timeoutInMs = getTimeoutInMs(testToRun.length);
+        return Arrays.asList(
+                worker.run(0, bytecodes, fullQualifiedName, timeoutInMs, testToRun),
+                worker.run(1, bytecodes, fullQualifiedName, timeoutInMs, testToRun)
+        );
+    }
+
+    /**
+     * Run the given test methods against one of the two versions of the program, in the test worker that loads both
+     * versions side by side, see {@link #runOnBothVersions(String, String, String, String, String, String...)}.
+     *
+     * @param version          0 for the first version of the program, 1 for the second one
+     * @param freshStaticState if true, the classes of the program are loaded again for this execution, e.g. to observe
+     *                         the values of the test methods independently of the previous executions
+     * @return the result of the execution on the given version
+     */
+    public static TestResult runOnVersion(int version, boolean freshStaticState, String firstClasspath, String secondClasspath,
+                                          String rootPath, String pathToTestClasses, String fullQualifiedName,
+                                          String... testToRun) throws TimeoutException {
+        return TestWorkerClient.getDifferential(firstClasspath, secondClasspath, rootPath).run(
+                version,
+                freshStaticState,
+                readBytecodesOf(pathToTestClasses, fullQualifiedName),
+                fullQualifiedName,
+                getTimeoutInMs(testToRun.length),
+                testToRun
+        );
+    }
+
+    // read the compiled test class, and its inner classes, to send them to the test worker
+    private static Map<String, byte[]> readBytecodesOf(String pathToTestClasses, String fullQualifiedName) {
+        final int indexOfLastDot = fullQualifiedName.lastIndexOf('.');
+        final String simpleName = fullQualifiedName.substring(indexOfLastDot + 1);
+        final String packagePrefix = indexOfLastDot < 0 ? "" : fullQualifiedName.substring(0, indexOfLastDot + 1);
+        final File packageDirectory = new File(pathToTestClasses, packagePrefix.replace('.', '/'));
+        final File[] classFiles = packageDirectory.listFiles((dir, name) ->
+                name.equals(simpleName + ".class") || name.startsWith(simpleName + "$") && name.endsWith(".class")
+        );
+        final Map<String, byte[]> bytecodes = new HashMap<>();
+        if (classFiles != null) {
+            for (File classFile : classFiles) {
+                final String name = classFile.getName();
+                try {
+                    bytecodes.put(packagePrefix + name.substring(0, name.length() - ".class".length()),
+                            Files.readAllBytes(classFile.toPath()));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
         }
+        return bytecodes;
     }
 
 }
@@ -0,0 +1,34 @@
+package eu.stamp_project.utils.execution.worker;
+
+import org.junit.runner.Description;
+import org.junit.runner.manipulation.Filter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Filter used by the {@link TestWorker} to run only the given test methods.
+ * As {@link JUnit4WorkerListener}, this class must only rely on JUnit and the JDK.
+ */
+public class JUnit4MethodFilter extends Filter {
+
+    private final Set<String> testMethodNames;
+
+    public JUnit4MethodFilter(String[] testMethodNames) {
+        this.testMethodNames = new HashSet<>(Arrays.asList(testMethodNames));
+    }
+
+    @Override
+    public boolean shouldRun(Description description) {
+        if (description.isTest()) {
+            return this.testMethodNames.contains(description.getMethodName());
+        }
+        return description.getChildren().stream().anyMatch(this::shouldRun);
+    }
+
+    @Override
+    public String describe() {
+        return "test methods " + String.join(", ", this.testMethodNames);
+    }
+}
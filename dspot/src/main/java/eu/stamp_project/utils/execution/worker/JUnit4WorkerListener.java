@@ -0,0 +1,46 @@
+package eu.stamp_project.utils.execution.worker;
+
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Listener used by the {@link TestWorker} to collect the outcome of each test method.
+ * This class is defined by the worker inside the class loader of the tests, in order to be linked against the JUnit of the project.
+ * Thus, it must only rely on JUnit and the JDK.
+ */
+public class JUnit4WorkerListener extends RunListener {
+
+    public final List<String> finishedTests = new ArrayList<>();
+
+    public final List<String> ignoredTests = new ArrayList<>();
+
+    public final Map<String, Throwable> failures = new LinkedHashMap<>();
+
+    public final Map<String, Throwable> assumptionFailures = new LinkedHashMap<>();
+
+    @Override
+    public void testFinished(Description description) throws Exception {
+        this.finishedTests.add(description.getMethodName());
+    }
+
+    @Override
+    public void testFailure(Failure failure) throws Exception {
+        this.failures.put(failure.getDescription().getMethodName(), failure.getException());
+    }
+
+    @Override
+    public void testAssumptionFailure(Failure failure) {
+        this.assumptionFailures.put(failure.getDescription().getMethodName(), failure.getException());
+    }
+
+    @Override
+    public void testIgnored(Description description) throws Exception {
+        this.ignoredTests.add(description.getMethodName());
+    }
+}
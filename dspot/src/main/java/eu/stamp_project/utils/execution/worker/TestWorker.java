@@ -0,0 +1,272 @@
+package eu.stamp_project.utils.execution.worker;
+
+import eu.stamp_project.testrunner.runner.Failure;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entry point of the persistent test-execution worker JVM, see {@link TestWorkerClient}.
+ *
+ * The worker loads the classpath of the project once, in a cached class loader.
+ * It can load several versions of the project side by side, e.g. for {@link eu.stamp_project.dspot.selector.ChangeDetectorSelector},
+ * each one in its own isolated class loader.
+ * Then, it reads requests on its standard input: each request contains the version of the project to use, the bytecode
+ * of freshly compiled test classes and the names of the test methods to run.
+ * These test classes are loaded in a throwaway child class loader on top of the cached one,
+ * so that a new version of a test class always shadows the previous one.
+ * The static state of the project classes survives from one run to another in the cached class loader. A request can
+ * ask for fresh static state, e.g. to observe the values of the tests, in which case the project classes are loaded
+ * again, in a class loader dedicated to this request.
+ * The result of the execution is sent back on the standard output as a serialized {@link WorkerTestResult}.
+ *
+ * JUnit is used through reflection since it is loaded by the class loader of the project, not by the worker.
+ * The listener and the filter given to JUnit are defined in the child class loader, to be linked against the JUnit of the project.
+ * The standard output of the tests is redirected to the standard error, since the standard output is used to communicate.
+ */
+public class TestWorker {
+
+    static final int STATUS_OK = 0;
+
+    static final int STATUS_ERROR = 1;
+
+    private static final String OBJECT_LOG_CLASS_NAME = "eu.stamp_project.compare.ObjectLog";
+
+    // these classes extend JUnit's classes, we cannot use class literals since JUnit is not on the classpath of the worker
+    private static final String LISTENER_CLASS_NAME = "eu.stamp_project.utils.execution.worker.JUnit4WorkerListener";
+
+    private static final String FILTER_CLASS_NAME = "eu.stamp_project.utils.execution.worker.JUnit4MethodFilter";
+
+    private final URL[][] projectClasspaths;
+
+    private final ClassLoader[] projectClassLoaders;
+
+    private TestWorker(URL[][] projectClasspaths) {
+        this.projectClasspaths = projectClasspaths;
+        this.projectClassLoaders = new ClassLoader[projectClasspaths.length];
+        for (int i = 0; i < projectClasspaths.length; i++) {
+            this.projectClassLoaders[i] = new URLClassLoader(projectClasspaths[i], null);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        System.setOut(System.err);
+        final URL[][] projectClasspaths = new URL[in.readInt()][];
+        for (int i = 0; i < projectClasspaths.length; i++) {
+            projectClasspaths[i] = toURLs(readString(in));
+        }
+        final TestWorker worker = new TestWorker(projectClasspaths);
+        while (true) {
+            final Map<String, byte[]> bytecodes = new HashMap<>();
+            final int version;
+            final boolean freshStaticState;
+            final String fullQualifiedName;
+            final String[] testMethodNames;
+            try {
+                version = in.readInt();
+                freshStaticState = in.readBoolean();
+                final int numberOfClasses = in.readInt();
+                for (int i = 0; i < numberOfClasses; i++) {
+                    final String name = readString(in);
+                    final byte[] bytecode = new byte[in.readInt()];
+                    in.readFully(bytecode);
+                    bytecodes.put(name, bytecode);
+                }
+                fullQualifiedName = readString(in);
+                testMethodNames = new String[in.readInt()];
+                for (int i = 0; i < testMethodNames.length; i++) {
+                    testMethodNames[i] = readString(in);
+                }
+            } catch (EOFException e) {
+                // DSpot closed the communication, the session is over
+                return;
+            }
+            try {
+                final byte[] result = serialize(worker.run(version, freshStaticState, bytecodes, fullQualifiedName, testMethodNames));
+                out.writeInt(STATUS_OK);
+                out.writeInt(result.length);
+                out.write(result);
+            } catch (Throwable e) {
+                e.printStackTrace();
+                out.writeInt(STATUS_ERROR);
+                writeString(out, e.toString());
+            }
+            out.flush();
+        }
+    }
+
+    private WorkerTestResult run(int version, boolean freshStaticState, Map<String, byte[]> bytecodes,
+                                 String fullQualifiedName, String[] testMethodNames) throws Exception {
+        if (!freshStaticState) {
+            return this.run(this.projectClassLoaders[version], bytecodes, fullQualifiedName, testMethodNames);
+        }
+        try (URLClassLoader projectClassLoader = new URLClassLoader(this.projectClasspaths[version], null)) {
+            return this.run(projectClassLoader, bytecodes, fullQualifiedName, testMethodNames);
+        }
+    }
+
+    private WorkerTestResult run(ClassLoader projectClassLoader, Map<String, byte[]> bytecodes,
+                                 String fullQualifiedName, String[] testMethodNames) throws Exception {
+        bytecodes.put(LISTENER_CLASS_NAME, readOwnBytecode(LISTENER_CLASS_NAME));
+        bytecodes.put(FILTER_CLASS_NAME, readOwnBytecode(FILTER_CLASS_NAME));
+        final ClassLoader testClassLoader = new ChildFirstClassLoader(bytecodes, projectClassLoader);
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(testClassLoader);
+        try {
+            resetObjectLog(projectClassLoader);
+            final Class<?> testClass = testClassLoader.loadClass(fullQualifiedName);
+            final Class<?> requestClass = testClassLoader.loadClass("org.junit.runner.Request");
+            final Class<?> filterClass = testClassLoader.loadClass("org.junit.runner.manipulation.Filter");
+            final Class<?> runListenerClass = testClassLoader.loadClass("org.junit.runner.notification.RunListener");
+            final Class<?> junitCoreClass = testClassLoader.loadClass("org.junit.runner.JUnitCore");
+            final Object listener = testClassLoader.loadClass(LISTENER_CLASS_NAME).newInstance();
+            final Object filter = testClassLoader.loadClass(FILTER_CLASS_NAME)
+                    .getConstructor(String[].class)
+                    .newInstance((Object) testMethodNames);
+            final Object request = requestClass.getMethod("filterWith", filterClass)
+                    .invoke(requestClass.getMethod("aClass", Class.class).invoke(null, testClass), filter);
+            final Object junitCore = junitCoreClass.newInstance();
+            junitCoreClass.getMethod("addListener", runListenerClass).invoke(junitCore, listener);
+            junitCoreClass.getMethod("run", requestClass).invoke(junitCore, request);
+            return buildResult(listener, fullQualifiedName, testMethodNames);
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    // a failure that has no method name, e.g. in a @BeforeClass method or in a static initializer, is reported as a
+    // failure of all the requested test methods, as EntryPoint does: JUnit does not report them as finished
+    @SuppressWarnings("unchecked")
+    private WorkerTestResult buildResult(Object listener, String fullQualifiedName, String[] testMethodNames) throws Exception {
+        final Class<?> listenerClass = listener.getClass();
+        final List<String> finishedTests = (List<String>) listenerClass.getField("finishedTests").get(listener);
+        final List<String> ignoredTests = (List<String>) listenerClass.getField("ignoredTests").get(listener);
+        final Map<String, Throwable> failures = (Map<String, Throwable>) listenerClass.getField("failures").get(listener);
+        final Map<String, Throwable> assumptionFailures = (Map<String, Throwable>) listenerClass.getField("assumptionFailures").get(listener);
+        final WorkerTestResult result = new WorkerTestResult();
+        if (failures.containsKey(null)) {
+            for (String testMethodName : testMethodNames) {
+                if (!ignoredTests.contains(testMethodName)) {
+                    result.addFailingTest(new Failure(testMethodName, fullQualifiedName,
+                            failures.containsKey(testMethodName) ? failures.get(testMethodName) : failures.get(null))
+                    );
+                }
+            }
+            ignoredTests.forEach(result::addIgnoredTest);
+            return result;
+        }
+        for (String finishedTest : finishedTests) {
+            if (failures.containsKey(finishedTest)) {
+                result.addFailingTest(new Failure(finishedTest, fullQualifiedName, failures.get(finishedTest)));
+            } else if (assumptionFailures.containsKey(finishedTest)) {
+                result.addAssumptionFailingTest(new Failure(finishedTest, fullQualifiedName, assumptionFailures.get(finishedTest)));
+            } else {
+                result.addPassingTest(finishedTest);
+            }
+        }
+        ignoredTests.forEach(result::addIgnoredTest);
+        return result;
+    }
+
+    // the ObjectLog is loaded by the cached class loader, its state survives between two runs
+    private void resetObjectLog(ClassLoader projectClassLoader) throws Exception {
+        try {
+            projectClassLoader.loadClass(OBJECT_LOG_CLASS_NAME).getMethod("reset").invoke(null);
+        } catch (ClassNotFoundException ignored) {
+            // the project does not use DSpot's observations
+        }
+    }
+
+    private static byte[] readOwnBytecode(String className) throws IOException {
+        try (InputStream stream = TestWorker.class.getClassLoader()
+                .getResourceAsStream(className.replace('.', '/') + ".class")) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int readBytes;
+            while ((readBytes = stream.read(buffer)) > 0) {
+                bytes.write(buffer, 0, readBytes);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static byte[] serialize(WorkerTestResult result) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(result);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static URL[] toURLs(String classpath) throws MalformedURLException {
+        final String[] entries = classpath.split(File.pathSeparator);
+        final URL[] urls = new URL[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            urls[i] = new File(entries[i]).toURI().toURL();
+        }
+        return urls;
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeString(DataOutputStream out, String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Class loader that defines the given classes itself, and delegates to its parent for all the others.
+     */
+    private static class ChildFirstClassLoader extends ClassLoader {
+
+        private final Map<String, byte[]> bytecodes;
+
+        private ChildFirstClassLoader(Map<String, byte[]> bytecodes, ClassLoader parent) {
+            super(parent);
+            this.bytecodes = bytecodes;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!this.bytecodes.containsKey(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loadedClass = findLoadedClass(name);
+                if (loadedClass == null) {
+                    final byte[] bytecode = this.bytecodes.get(name);
+                    loadedClass = defineClass(name, bytecode, 0, bytecode.length);
+                }
+                if (resolve) {
+                    resolveClass(loadedClass);
+                }
+                return loadedClass;
+            }
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package eu.stamp_project.utils.execution.worker;
+
+import eu.stamp_project.dspot.AmplificationContext;
+import eu.stamp_project.testrunner.EntryPoint;
+import eu.stamp_project.testrunner.listener.TestResult;
+import eu.stamp_project.testrunner.runner.Failure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * DSpot side of the persistent test-execution worker, see {@link TestWorker}.
+ *
+ * The worker JVM is started once per DSpot session and per classpath, instead of forking a new JVM for each run.
+ * Each call to {@link #run(Map, String, int, String...)} sends the bytecode of the amplified test classes to the worker,
+ * and waits for its result.
+ * A worker can also load two versions of the project, see {@link #getDifferential(String, String, String)}: the same
+ * bytecode is then run against each version with {@link #run(int, Map, String, int, String...)}.
+ * If the worker does not answer within the timeout of the run, it is killed, and a new one will be started on the next run.
+ * When test classes are amplified in parallel, each {@link AmplificationContext} has its own worker, so the test classes
+ * do not wait for each other to run their tests.
+ */
+public class TestWorkerClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestWorkerClient.class);
+
+    private static final String PATH_TO_WORKER_LOG = "target/dspot/test-worker.log";
+
+    private static TestWorkerClient instance;
+
+    // the differential worker is kept apart, so it does not stop the worker used to run the tests on the first version
+    private static TestWorkerClient differentialInstance;
+
+    private static final Map<AmplificationContext, TestWorkerClient> instancePerContext = new HashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(TestWorkerClient::reset));
+    }
+
+    /**
+     * Return the worker for the given classpath.
+     * If the current worker has been started with another classpath, it is stopped and a new one is started.
+     *
+     * @param classpath the classpath of the project, used by the worker to load the project classes
+     * @param rootPath  the root of the project, used as working directory of the worker
+     * @return the worker for the given classpath
+     */
+    public static synchronized TestWorkerClient get(String classpath, String rootPath) {
+        final List<String> classpaths = Collections.singletonList(classpath);
+        final AmplificationContext context = AmplificationContext.current();
+        if (context != null) {
+            final TestWorkerClient worker = instancePerContext.get(context);
+            if (worker == null || !worker.isAlive() || !worker.classpaths.equals(classpaths)) {
+                stop(worker);
+                instancePerContext.put(context, new TestWorkerClient(classpaths, rootPath));
+            }
+            return instancePerContext.get(context);
+        }
+        if (instance == null || !instance.isAlive() || !instance.classpaths.equals(classpaths)) {
+            stop(instance);
+            instance = new TestWorkerClient(classpaths, rootPath);
+        }
+        return instance;
+    }
+
+    /**
+     * Return the worker that loads both given versions of the project, side by side, in isolated class loaders.
+     * The first version has the index 0, and the second one the index 1, see {@link #run(int, Map, String, int, String...)}.
+     *
+     * @param firstClasspath  the classpath of the first version of the project
+     * @param secondClasspath the classpath of the second version of the project
+     * @param rootPath        the root of the project, used as working directory of the worker
+     * @return the worker for the given classpaths
+     */
+    public static synchronized TestWorkerClient getDifferential(String firstClasspath, String secondClasspath, String rootPath) {
+        final List<String> classpaths = Arrays.asList(firstClasspath, secondClasspath);
+        if (differentialInstance == null || !differentialInstance.isAlive() || !differentialInstance.classpaths.equals(classpaths)) {
+            stop(differentialInstance);
+            differentialInstance = new TestWorkerClient(classpaths, rootPath);
+        }
+        return differentialInstance;
+    }
+
+    /**
+     * @return the worker used to run the tests, or null if none has been started
+     */
+    static synchronized TestWorkerClient getRunningInstance() {
+        return instance;
+    }
+
+    /**
+     * Stop the current workers, if any.
+     */
+    public static synchronized void reset() {
+        stop(instance);
+        stop(differentialInstance);
+        for (TestWorkerClient worker : new ArrayList<>(instancePerContext.values())) {
+            stop(worker);
+        }
+    }
+
+    /**
+     * Stop the worker of the given context, if any, once its test class has been amplified.
+     */
+    public static synchronized void stop(AmplificationContext context) {
+        stop(instancePerContext.get(context));
+    }
+
+    private static synchronized void stop(TestWorkerClient worker) {
+        if (worker == null) {
+            return;
+        }
+        worker.stop();
+        if (worker == instance) {
+            instance = null;
+        }
+        if (worker == differentialInstance) {
+            differentialInstance = null;
+        }
+        instancePerContext.values().remove(worker);
+    }
+
+    private final List<String> classpaths;
+
+    private final Process process;
+
+    private final DataOutputStream toWorker;
+
+    private final DataInputStream fromWorker;
+
+    private final ExecutorService reader = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "dspot-test-worker-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private TestWorkerClient(List<String> classpaths, String rootPath) {
+        this.classpaths = classpaths;
+        final List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + "/bin/java");
+        if (EntryPoint.JVMArgs != null && !EntryPoint.JVMArgs.isEmpty()) {
+            command.addAll(Arrays.asList(EntryPoint.JVMArgs.split(" ")));
+        }
+        command.add("-cp");
+        command.add(getClasspathOfWorker());
+        command.add(TestWorker.class.getName());
+        final File workingDirectory = EntryPoint.workingDirectory != null ? EntryPoint.workingDirectory : new File(rootPath);
+        final ProcessBuilder processBuilder = new ProcessBuilder(command).directory(workingDirectory);
+        if (EntryPoint.verbose) {
+            processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        } else {
+            final File log = new File(rootPath, PATH_TO_WORKER_LOG);
+            log.getParentFile().mkdirs();
+            processBuilder.redirectError(ProcessBuilder.Redirect.appendTo(log));
+        }
+        try {
+            LOGGER.info("Starting a test worker with {}", String.join(" ", command));
+            this.process = processBuilder.start();
+            this.toWorker = new DataOutputStream(new BufferedOutputStream(this.process.getOutputStream()));
+            this.fromWorker = new DataInputStream(new BufferedInputStream(this.process.getInputStream()));
+            this.toWorker.writeInt(classpaths.size());
+            for (String classpath : classpaths) {
+                TestWorker.writeString(this.toWorker, classpath);
+            }
+            this.toWorker.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // the worker needs only its own classes and the test-runner, the project classes are loaded separately
+    private static String getClasspathOfWorker() {
+        return String.join(File.pathSeparator, getLocationOf(TestWorker.class), getLocationOf(Failure.class));
+    }
+
+    // the location is decoded from its URL, so it can contain spaces or %
+    private static String getLocationOf(Class<?> aClass) {
+        try {
+            return Paths.get(aClass.getProtectionDomain().getCodeSource().getLocation().toURI()).toAbsolutePath().toString();
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Run the given test methods inside the worker.
+     *
+     * @param bytecodes         the bytecode of the test class, and of its inner classes, indexed by their binary names
+     * @param fullQualifiedName the full qualified name of the test class to run
+     * @param timeoutInMs       the time given to the worker to run the test methods, in milliseconds
+     * @param testMethodNames   the names of the test methods to run
+     * @return the result of the execution
+     * @throws TimeoutException if the worker did not answer in time, in this case, the worker is stopped
+     */
+    public TestResult run(Map<String, byte[]> bytecodes, String fullQualifiedName, int timeoutInMs, String... testMethodNames) throws TimeoutException {
+        return this.run(0, false, bytecodes, fullQualifiedName, timeoutInMs, testMethodNames);
+    }
+
+    /**
+     * Run the given test methods inside the worker, against the given version of the project.
+     *
+     * @param version the index of the version of the project, see {@link #getDifferential(String, String, String)}
+     * @see #run(Map, String, int, String...)
+     */
+    public TestResult run(int version, Map<String, byte[]> bytecodes, String fullQualifiedName, int timeoutInMs, String... testMethodNames) throws TimeoutException {
+        return this.run(version, false, bytecodes, fullQualifiedName, timeoutInMs, testMethodNames);
+    }
+
+    /**
+     * Run the given test methods inside the worker, against the given version of the project.
+     *
+     * @param version          the index of the version of the project, see {@link #getDifferential(String, String, String)}
+     * @param freshStaticState if true, the project classes are loaded again for this run, so that the static state
+     *                         left by the previous runs is not seen by the test methods
+     * @see #run(Map, String, int, String...)
+     */
+    public synchronized TestResult run(int version, boolean freshStaticState, Map<String, byte[]> bytecodes,
+                                       String fullQualifiedName, int timeoutInMs, String... testMethodNames) throws TimeoutException {
+        try {
+            this.toWorker.writeInt(version);
+            this.toWorker.writeBoolean(freshStaticState);
+            this.toWorker.writeInt(bytecodes.size());
+            for (Map.Entry<String, byte[]> bytecode : bytecodes.entrySet()) {
+                TestWorker.writeString(this.toWorker, bytecode.getKey());
+                this.toWorker.writeInt(bytecode.getValue().length);
+                this.toWorker.write(bytecode.getValue());
+            }
+            TestWorker.writeString(this.toWorker, fullQualifiedName);
+            this.toWorker.writeInt(testMethodNames.length);
+            for (String testMethodName : testMethodNames) {
+                TestWorker.writeString(this.toWorker, testMethodName);
+            }
+            this.toWorker.flush();
+            final Future<TestResult> result = this.reader.submit(this::readResult);
+            return result.get(timeoutInMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("The test worker timed out, stopping it.");
+            stop(this);
+            throw e;
+        } catch (ExecutionException | IOException | InterruptedException e) {
+            stop(this);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private TestResult readResult() throws IOException, ClassNotFoundException {
+        final int status = this.fromWorker.readInt();
+        if (status != TestWorker.STATUS_OK) {
+            throw new RuntimeException("The test worker failed: " + TestWorker.readString(this.fromWorker));
+        }
+        final byte[] result = new byte[this.fromWorker.readInt()];
+        this.fromWorker.readFully(result);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(result))) {
+            return (TestResult) ois.readObject();
+        }
+    }
+
+    boolean isAlive() {
+        return this.process.isAlive();
+    }
+
+    private void stop() {
+        this.reader.shutdownNow();
+        try {
+            this.toWorker.close();
+        } catch (IOException ignored) {
+            // the worker may be already dead
+        }
+        this.process.destroyForcibly();
+    }
+}
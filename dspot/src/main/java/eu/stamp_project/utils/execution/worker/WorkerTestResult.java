@@ -0,0 +1,106 @@
+package eu.stamp_project.utils.execution.worker;
+
+import eu.stamp_project.testrunner.listener.TestResult;
+import eu.stamp_project.testrunner.runner.Failure;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of the execution of test methods inside the {@link TestWorker}.
+ * It is built inside the worker JVM, then serialized back to DSpot.
+ */
+public class WorkerTestResult implements TestResult, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> runningTests = new ArrayList<>();
+
+    private final List<String> passingTests = new ArrayList<>();
+
+    private final List<Failure> failingTests = new ArrayList<>();
+
+    private final List<Failure> assumptionFailingTests = new ArrayList<>();
+
+    private final List<String> ignoredTests = new ArrayList<>();
+
+    void addPassingTest(String testMethodName) {
+        this.runningTests.add(testMethodName);
+        this.passingTests.add(testMethodName);
+    }
+
+    void addFailingTest(Failure failure) {
+        this.runningTests.add(failure.testCaseName);
+        this.failingTests.add(failure);
+    }
+
+    void addAssumptionFailingTest(Failure failure) {
+        this.runningTests.add(failure.testCaseName);
+        this.assumptionFailingTests.add(failure);
+    }
+
+    void addIgnoredTest(String testMethodName) {
+        this.ignoredTests.add(testMethodName);
+    }
+
+    @Override
+    public TestResult aggregate(TestResult that) {
+        final WorkerTestResult aggregation = new WorkerTestResult();
+        aggregation.runningTests.addAll(this.getRunningTests());
+        aggregation.runningTests.addAll(that.getRunningTests());
+        aggregation.passingTests.addAll(this.getPassingTests());
+        aggregation.passingTests.addAll(that.getPassingTests());
+        aggregation.failingTests.addAll(this.getFailingTests());
+        aggregation.failingTests.addAll(that.getFailingTests());
+        aggregation.assumptionFailingTests.addAll(this.getAssumptionFailingTests());
+        aggregation.assumptionFailingTests.addAll(that.getAssumptionFailingTests());
+        aggregation.ignoredTests.addAll(this.getIgnoredTests());
+        aggregation.ignoredTests.addAll(that.getIgnoredTests());
+        return aggregation;
+    }
+
+    @Override
+    public List<String> getRunningTests() {
+        return this.runningTests;
+    }
+
+    @Override
+    public List<String> getPassingTests() {
+        return this.passingTests;
+    }
+
+    @Override
+    public List<Failure> getFailingTests() {
+        return this.failingTests;
+    }
+
+    @Override
+    public List<Failure> getAssumptionFailingTests() {
+        return this.assumptionFailingTests;
+    }
+
+    @Override
+    public List<String> getIgnoredTests() {
+        return this.ignoredTests;
+    }
+
+    @Override
+    public Failure getFailureOf(String testMethodName) {
+        return this.failingTests.stream()
+                .filter(failure -> failure.testCaseName.equals(testMethodName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(testMethodName + " did not fail"));
+    }
+
+    @Override
+    public String toString() {
+        return "WorkerTestResult{" +
+                "runningTests=" + runningTests +
+                ", passingTests=" + passingTests +
+                ", failingTests=" + failingTests +
+                ", assumptionFailingTests=" + assumptionFailingTests +
+                ", ignoredTests=" + ignoredTests +
+                '}';
+    }
+}
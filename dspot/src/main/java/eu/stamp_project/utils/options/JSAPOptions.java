@@ -142,6 +142,13 @@ public class JSAPOptions {
                 .setKeepOriginalTestMethods(jsapConfig.getBoolean("keep-original-test-methods"))
                 .setDescartesMode(jsapConfig.getBoolean("descartes") && !jsapConfig.getBoolean("gregor"))
                 .setUseMavenToExecuteTest(jsapConfig.getBoolean("use-maven-to-exe-test"))
+                .setUseInMemoryCompilation(jsapConfig.getBoolean("in-memory-compilation"))
+                .setUseTestWorker(jsapConfig.getBoolean("use-test-worker"))
+                .setNbParallelClasses(jsapConfig.getInt("parallel-classes"))
+                .setCacheTestResults(jsapConfig.getBoolean("cache-test-results"))
+                .setMaxNumberOfObservationRuns(jsapConfig.getInt("observation-runs"))
+                .setStandalonePit(jsapConfig.getBoolean("standalone-pit"))
+                .setGreedySelection(jsapConfig.getBoolean("greedy-selection"))
                 .setTargetOneTestClass(jsapConfig.getBoolean("targetOneTestClass"));
         return false;
     }
@@ -349,6 +356,45 @@ public class JSAPOptions {
         useMavenToExecuteTests.setDefault("false");
         useMavenToExecuteTests.setHelp("If enabled, DSpot will use maven to execute the tests.");
 
+        Switch inMemoryCompilation = new Switch("in-memory-compilation");
+        inMemoryCompilation.setLongFlag("in-memory-compilation");
+        inMemoryCompilation.setDefault("false");
+        inMemoryCompilation.setHelp("If enabled, DSpot will compile the amplified test classes in memory, without printing them in target/dspot/tmp_test_sources.");
+
+        Switch useTestWorker = new Switch("use-test-worker");
+        useTestWorker.setLongFlag("use-test-worker");
+        useTestWorker.setDefault("false");
+        useTestWorker.setHelp("If enabled, DSpot will execute the JUnit4 tests in a persistent JVM, that loads the classes of the project only once.");
+
+        FlaggedOption parallelClasses = new FlaggedOption("parallel-classes");
+        parallelClasses.setStringParser(JSAP.INTEGER_PARSER);
+        parallelClasses.setLongFlag("parallel-classes");
+        parallelClasses.setUsageName("integer");
+        parallelClasses.setHelp("[optional] specify the number of test classes to be amplified in parallel. Each test class is amplified with its own compiler output directory, counters, test selector and test worker. When it is greater than 1, this option implies --use-test-worker: the JUnit4 tests of each test class are run in its own test worker. PitMutantScoreSelector and ChangeDetectorSelector always amplify test classes one by one.");
+        parallelClasses.setDefault("1");
+
+        Switch cacheTestResults = new Switch("cache-test-results");
+        cacheTestResults.setLongFlag("cache-test-results");
+        cacheTestResults.setDefault("false");
+        cacheTestResults.setHelp("If enabled, DSpot will cache the results of the compilation and the execution of the amplified test methods, and will not compile nor execute twice the same test method. The compilation errors and the passing test methods are persisted in target/dspot-cache of the project, to be reused by the next runs of DSpot. The failing test methods are cached for the current run only, since they can be flaky.");
+
+        FlaggedOption observationRuns = new FlaggedOption("observation-runs");
+        observationRuns.setStringParser(JSAP.INTEGER_PARSER);
+        observationRuns.setLongFlag("observation-runs");
+        observationRuns.setUsageName("integer");
+        observationRuns.setHelp("[optional] specify the number of executions of the instrumented test methods, used to detect the values that are not deterministic, e.g. based on the time or on random numbers. The instrumented test methods are copied this number of times, and all the copies are run in a single JVM. With --use-test-worker, a single copy is run again in the test worker, from fresh static state, at most this number of times: DSpot stops as soon as an execution observes the same values as the previous ones, i.e. after two executions of deterministic test methods.");
+        observationRuns.setDefault("3");
+
+        Switch standalonePit = new Switch("standalone-pit");
+        standalonePit.setLongFlag("standalone-pit");
+        standalonePit.setDefault("false");
+        standalonePit.setHelp("[optional] run PIT directly from its command line entry point, in a forked JVM, with the classpath computed by DSpot, instead of running it through Maven or Gradle. The jars of PIT, and of Descartes, are taken from the local Maven repository. If they are not found, PIT is run through Maven or Gradle. This option is used only by PitMutantScoreSelector.");
+
+        Switch greedySelection = new Switch("greedy-selection");
+        greedySelection.setLongFlag("greedy-selection");
+        greedySelection.setDefault("false");
+        greedySelection.setHelp("[optional] at the end of the amplification of each test class, keep only a near-minimal subset of the amplified test methods that covers, on each line, as many instructions as all the amplified test methods. This subset is computed with a greedy set cover, before printing the amplified test class. This option is used only by JacocoCoverageSelector.");
+
         try {
             jsap.registerParameter(pathToConfigFile);
             jsap.registerParameter(amplifiers);
@@ -376,6 +422,13 @@ public class JSAPOptions {
             jsap.registerParameter(generateNewTestClass);
             jsap.registerParameter(keepOriginalTestMethods);
             jsap.registerParameter(useMavenToExecuteTests);
+            jsap.registerParameter(inMemoryCompilation);
+            jsap.registerParameter(useTestWorker);
+            jsap.registerParameter(parallelClasses);
+            jsap.registerParameter(cacheTestResults);
+            jsap.registerParameter(observationRuns);
+            jsap.registerParameter(standalonePit);
+            jsap.registerParameter(greedySelection);
             jsap.registerParameter(example);
             jsap.registerParameter(help);
         } catch (JSAPException e) {
@@ -1,13 +1,18 @@
 package eu.stamp_project.utils.pit;
 
 import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 abstract public class AbstractParser<T extends  AbstractPitResult> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractParser.class);
+
     private final String PATH_TO_MUTATIONS_RESULT;
 
     AbstractParser(String PATH_TO_MUTATIONS_RESULT){
@@ -43,5 +48,26 @@ abstract public class AbstractParser<T extends  AbstractPitResult> {
         return results;
     }
 
+    /**
+     * Streams the results in the given directory to the given consumer, without building the list of the results,
+     * and deletes the directory.
+     * If the results cannot be read, the consumer gets only the results read so far.
+     */
+    public void parseAndDelete(String pathToDirectoryResults, Consumer<? super T> consumer) {
+        final File fileResults = getPathOfMutationsFile(pathToDirectoryResults);
+        try {
+            parse(fileResults, consumer);
+        } catch (Exception e) {
+            LOGGER.warn("Could not read the results of PIT in {}", pathToDirectoryResults);
+        }
+        try {
+            FileUtils.deleteDirectory(new File(pathToDirectoryResults));
+        } catch (IOException e) {
+            // ignored
+        }
+    }
+
     abstract public List<T> parse(File fileResults);
+
+    abstract public void parse(File fileResults, Consumer<? super T> consumer) throws Exception;
 }
@@ -1,5 +1,6 @@
 package eu.stamp_project.utils.pit;
 
+import eu.stamp_project.utils.DSpotUtils;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
 
@@ -39,6 +40,10 @@ public abstract class AbstractPitResult {
         this.nameOfMutatedMethod = nameOfLocalisation;
     }
 
+    public String getFullQualifiedNameOfMutatedClass() {
+        return fullQualifiedNameOfMutatedClass;
+    }
+
     public AbstractPitResult.State getStateOfMutant() {
         return stateOfMutant;
     }
@@ -78,5 +83,27 @@ public abstract class AbstractPitResult {
         }
     }
 
+    /**
+     * @return the fields that identify the mutant, whatever its state, and whatever the test that killed it
+     */
+    protected Object[] getIdentity() {
+        return new Object[]{this.fullQualifiedNameOfMutatedClass, this.nameOfMutatedMethod,
+                this.lineNumber, this.fullQualifiedNameMutantOperator};
+    }
+
+    /**
+     * @return a 64 bits hash (FNV-1a) of the identity of the mutant, see {@link #getIdentity()}.
+     * Two mutants with the same identity have the same hash, and the collisions between different mutants are
+     * unlikely enough to be ignored, even with hundreds of thousands of mutants.
+     */
+    public long getIdentityHash() {
+        long hash = DSpotUtils.FNV1A_OFFSET_BASIS;
+        for (Object field : this.getIdentity()) {
+            hash = DSpotUtils.fnv1a(hash, String.valueOf(field));
+            hash = DSpotUtils.fnv1a(hash, "#");
+        }
+        return hash;
+    }
+
     public abstract AbstractPitResult clone();
 }
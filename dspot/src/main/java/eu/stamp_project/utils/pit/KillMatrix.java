@@ -0,0 +1,332 @@
+package eu.stamp_project.utils.pit;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import eu.stamp_project.automaticbuilder.AutomaticBuilderHelper;
+import eu.stamp_project.dspot.AmplificationContext;
+import eu.stamp_project.test_framework.TestFramework;
+import eu.stamp_project.utils.DSpotUtils;
+import eu.stamp_project.utils.TestMethodFingerprint;
+import eu.stamp_project.utils.program.InputConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.reference.CtTypeReference;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * The results of PIT for the original test suite, i.e. which test method killed each mutant, persisted across the
+ * runs of DSpot in its output directory.
+ * The matrix keeps the hash of the bytecode of all the classes of the program, and the fingerprint of each test method,
+ * see {@link TestMethodFingerprint}. The fingerprint of a test method also covers the code it relies on in the tests:
+ * the members of its test class, and of its super classes, that are not test methods, e.g. the methods annotated with
+ * <code>@Before</code> or the helpers, and the classes of the test sources that contain no test method.
+ * On a later run, the results are reused only if no class of the program changed, since a change in any class that a
+ * mutated class or a test method depends on can change which test methods kill a mutant. The results of a mutated
+ * class are then reused if:
+ * <ul>
+ * <li>for a killed mutant, the test method that killed it did not change,</li>
+ * <li>for the other mutants, no test method has been added or changed.</li>
+ * </ul>
+ * The other classes must be analysed again.
+ */
+public class KillMatrix {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KillMatrix.class);
+
+    public static final String FILE_NAME = "pit-kill-matrix.json";
+
+    private static final String NO_TEST_METHOD = "none";
+
+    private static class Mutant {
+
+        private String mutatedClass;
+        private String mutatedMethod;
+        private String methodDescription;
+        private int lineNumber;
+        private String mutator;
+        private String description;
+        private int index;
+        private int block;
+        private String state;
+        private String killerClass;
+        private String killerMethod;
+        private int numberOfTestsRun;
+        private boolean detected;
+
+        private static Mutant of(AbstractPitResult result) {
+            final Mutant mutant = new Mutant();
+            mutant.mutatedClass = result.fullQualifiedNameOfMutatedClass;
+            mutant.mutatedMethod = result.nameOfMutatedMethod;
+            mutant.lineNumber = result.lineNumber;
+            mutant.mutator = result.fullQualifiedNameMutantOperator;
+            mutant.state = result.stateOfMutant.name();
+            mutant.killerClass = result.fullQualifiedNameOfKiller;
+            mutant.killerMethod = result.simpleNameMethod;
+            if (result instanceof PitXMLResult) {
+                final PitXMLResult xmlResult = (PitXMLResult) result;
+                mutant.methodDescription = xmlResult.getmethodDescription();
+                mutant.description = xmlResult.getMutationDescription();
+                mutant.index = xmlResult.getIndex();
+                mutant.block = xmlResult.getBlock();
+                mutant.numberOfTestsRun = xmlResult.numberOfTestsRun;
+                mutant.detected = xmlResult.detected;
+            }
+            return mutant;
+        }
+
+        private AbstractPitResult toResult(boolean xml) {
+            final AbstractPitResult.State state = AbstractPitResult.State.valueOf(this.state);
+            if (xml) {
+                return new PitXMLResult(mutatedClass, state, mutator, killerMethod, killerClass, lineNumber,
+                        mutatedMethod, methodDescription, description, index, block, numberOfTestsRun, detected);
+            } else {
+                return new PitCSVResult(mutatedClass, state, mutator, killerMethod, killerClass, lineNumber, mutatedMethod);
+            }
+        }
+    }
+
+    private String configuration;
+
+    private String hashOfAllClasses;
+
+    private Map<String, String> fingerprintOfTest = new HashMap<>();
+
+    private List<Mutant> mutants = new ArrayList<>();
+
+    /**
+     * @param configuration the configuration of PIT that produced the given results, see {@link #getConfiguration()}
+     * @param results       the results of PIT for the original test suite
+     * @return the matrix of the given results, with the hashes of the current classes and test methods
+     */
+    public static KillMatrix of(String configuration, List<AbstractPitResult> results) {
+        final KillMatrix killMatrix = of(configuration);
+        results.forEach(killMatrix::add);
+        return killMatrix;
+    }
+
+    /**
+     * @param configuration the configuration of PIT that will produce the results, see {@link #getConfiguration()}
+     * @return an empty matrix, with the hashes of the current classes and test methods, to be filled with {@link #add(AbstractPitResult)}
+     */
+    public static KillMatrix of(String configuration) {
+        final KillMatrix killMatrix = new KillMatrix();
+        killMatrix.configuration = configuration;
+        killMatrix.fingerprintOfTest = computeFingerprintOfTests();
+        killMatrix.hashOfAllClasses = computeHashOfAllClasses();
+        return killMatrix;
+    }
+
+    /**
+     * Adds the given result of PIT for the original test suite to this matrix.
+     */
+    public void add(AbstractPitResult result) {
+        this.mutants.add(Mutant.of(result));
+    }
+
+    /**
+     * @return the matrix saved in the given directory, or null if there is none, or if it cannot be read
+     */
+    public static KillMatrix load(String directory) {
+        final File file = new File(directory, FILE_NAME);
+        if (!file.exists()) {
+            return null;
+        }
+        try (Reader reader = new FileReader(file)) {
+            return new Gson().fromJson(reader, KillMatrix.class);
+        } catch (Exception e) {
+            LOGGER.warn("Could not read {}, the original test suite will be analysed again.", file.getAbsolutePath());
+            return null;
+        }
+    }
+
+    public void save(String directory) {
+        final File file = new File(directory, FILE_NAME);
+        file.getParentFile().mkdirs();
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().create().toJson(this, writer);
+        } catch (IOException e) {
+            LOGGER.warn("Could not save the results of PIT in {}", file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return the configuration of PIT that changes its results, a matrix is reused only with the same configuration
+     */
+    public static String getConfiguration() {
+        final InputConfiguration configuration = InputConfiguration.get();
+        return String.join(";",
+                configuration.getPitVersion(),
+                configuration.isDescartesMode() ? "descartes" : "gregor",
+                configuration.getDescartesMutators(),
+                AutomaticBuilderHelper.getFilter(),
+                configuration.getExcludedClasses(),
+                configuration.shouldTargetOneTestClass() ? configuration.getTestClasses().get(0) : "all"
+        );
+    }
+
+    /**
+     * @param configuration the current configuration of PIT, see {@link #getConfiguration()}
+     * @return the mutated classes whose results can be reused, i.e. that do not need to be analysed again
+     */
+    public Set<String> getReusableClasses(String configuration) {
+        if (!this.configuration.equals(configuration) || !computeHashOfAllClasses().equals(this.hashOfAllClasses)) {
+            return new HashSet<>();
+        }
+        final Map<String, String> currentFingerprintOfTest = computeFingerprintOfTests();
+        final boolean testsHaveChanged = currentFingerprintOfTest.entrySet()
+                .stream()
+                .anyMatch(fingerprint -> !fingerprint.getValue().equals(this.fingerprintOfTest.get(fingerprint.getKey())));
+        final Set<String> reusableClasses = this.mutants.stream()
+                .map(mutant -> mutant.mutatedClass)
+                .collect(Collectors.toSet());
+        for (Mutant mutant : this.mutants) {
+            if (!reusableClasses.contains(mutant.mutatedClass)) {
+                continue;
+            }
+            final boolean reusable;
+            if (AbstractPitResult.State.KILLED.name().equals(mutant.state)) {
+                final String killer = getKeyOfTest(mutant.killerClass, mutant.killerMethod);
+                reusable = !NO_TEST_METHOD.equals(mutant.killerMethod) &&
+                        currentFingerprintOfTest.containsKey(killer) &&
+                        currentFingerprintOfTest.get(killer).equals(this.fingerprintOfTest.get(killer));
+            } else {
+                reusable = !testsHaveChanged;
+            }
+            if (!reusable) {
+                reusableClasses.remove(mutant.mutatedClass);
+            }
+        }
+        return reusableClasses;
+    }
+
+    /**
+     * @param mutatedClasses the mutated classes, see {@link #getReusableClasses(String)}
+     * @param xml            true to build XML results, false to build CSV results
+     * @return the results of the mutants of the given classes
+     */
+    public List<AbstractPitResult> getResultsOf(Set<String> mutatedClasses, boolean xml) {
+        final List<AbstractPitResult> results = new ArrayList<>();
+        getResultsOf(mutatedClasses, xml, results::add);
+        return results;
+    }
+
+    /**
+     * Streams the results of the mutants of the given classes to the given consumer.
+     *
+     * @see #getResultsOf(Set, boolean)
+     */
+    public void getResultsOf(Set<String> mutatedClasses, boolean xml, Consumer<? super AbstractPitResult> consumer) {
+        this.mutants.stream()
+                .filter(mutant -> mutatedClasses.contains(mutant.mutatedClass))
+                .map(mutant -> mutant.toResult(xml))
+                .forEach(consumer);
+    }
+
+    private static String getKeyOfTest(String testClass, String testMethod) {
+        return testClass + "#" + testMethod;
+    }
+
+    private static Map<String, String> computeFingerprintOfTests() {
+        final Map<String, String> fingerprintOfTest = new HashMap<>();
+        final List<CtType<?>> types;
+        synchronized (AmplificationContext.MODEL_LOCK) {
+            types = InputConfiguration.get().getFactory().Type().getAll();
+        }
+        final String hashOfSupportClasses = computeHashOfSupportClasses(types);
+        for (CtType<?> type : types) {
+            if (!hasTestMethods(type)) {
+                continue;
+            }
+            final String hashOfSupport = DSpotUtils.hash(hashOfSupportClasses + getNonTestMembersOf(type));
+            type.getMethods()
+                    .stream()
+                    .filter(TestFramework.get()::isTest)
+                    .forEach(testMethod -> fingerprintOfTest.put(
+                            getKeyOfTest(type.getQualifiedName(), testMethod.getSimpleName()),
+                            DSpotUtils.hash(TestMethodFingerprint.of(testMethod) + hashOfSupport))
+                    );
+        }
+        return fingerprintOfTest;
+    }
+
+    private static boolean hasTestMethods(CtType<?> type) {
+        return type.getMethods()
+                .stream()
+                .anyMatch(TestFramework.get()::isTest);
+    }
+
+    // the annotations of the given test class, and its members that are not test methods, and the ones of its super classes
+    private static String getNonTestMembersOf(CtType<?> testClass) {
+        final StringBuilder nonTestMembers = new StringBuilder();
+        CtType<?> currentType = testClass;
+        while (currentType != null && !currentType.isShadow()) {
+            nonTestMembers.append(currentType.getAnnotations());
+            currentType.getTypeMembers()
+                    .stream()
+                    .filter(member -> !(member instanceof CtMethod && TestFramework.get().isTest((CtMethod<?>) member)))
+                    .forEach(member -> nonTestMembers.append(member));
+            final CtTypeReference<?> superclass = currentType.getSuperclass();
+            currentType = superclass == null ? null : superclass.getTypeDeclaration();
+        }
+        return nonTestMembers.toString();
+    }
+
+    // the hash of the classes of the test sources that contain no test method, e.g. the utilities shared by the tests
+    private static String computeHashOfSupportClasses(List<CtType<?>> types) {
+        final String pathToTestSourceCode = new File(InputConfiguration.get().getAbsolutePathToTestSourceCode())
+                .toPath().normalize().toString();
+        return DSpotUtils.hash(types.stream()
+                .filter(type -> !hasTestMethods(type))
+                .filter(type -> {
+                    final SourcePosition position = type.getPosition();
+                    return position.isValidPosition() && position.getFile() != null &&
+                            position.getFile().getAbsoluteFile().toPath().normalize().startsWith(pathToTestSourceCode);
+                })
+                .sorted(Comparator.comparing(CtType::getQualifiedName))
+                .map(CtType::toString)
+                .collect(Collectors.joining()));
+    }
+
+    // the hash of all the class files of the program, in the order of their paths
+    private static String computeHashOfAllClasses() {
+        final File classes = new File(InputConfiguration.get().getAbsolutePathToClasses());
+        if (!classes.isDirectory()) {
+            return "";
+        }
+        final MessageDigest digest = DSpotUtils.newMessageDigest();
+        FileUtils.listFiles(classes, new String[]{"class"}, true)
+                .stream()
+                .sorted(Comparator.comparing(File::getAbsolutePath))
+                .forEach(classFile -> {
+                    digest.update(classes.toPath().relativize(classFile.toPath()).toString().getBytes(StandardCharsets.UTF_8));
+                    try {
+                        digest.update(Files.readAllBytes(classFile.toPath()));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+        return DSpotUtils.toHexString(digest.digest());
+    }
+}
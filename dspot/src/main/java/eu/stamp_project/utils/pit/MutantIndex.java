@@ -0,0 +1,135 @@
+package eu.stamp_project.utils.pit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives a compact id to each mutant, i.e. an int from 0, so that the sets of mutants can be {@link BitSet}s.
+ * The mutants are identified by the hash of their identity, see {@link AbstractPitResult#getIdentityHash()}, so the
+ * results of different runs of PIT on the same program get the same ids.
+ * For each mutant, the index keeps only its line, and its mutated class, mutated method and mutator, as ids of names
+ * shared by all the mutants. The ids are found from the hashes with an open addressing table of primitives, so a
+ * mutant takes a few dozens of bytes, whatever the number of results of PIT that report it.
+ */
+public class MutantIndex {
+
+    private static final int NO_ID = -1;
+
+    // the open addressing table: the hash of each mutant, and its id, or NO_ID if the slot is free
+    private long[] identityHashes = new long[32];
+
+    private int[] idOfSlot = newSlots(32);
+
+    private final Map<String, Integer> idPerName = new HashMap<>();
+
+    private final List<String> names = new ArrayList<>();
+
+    private int size = 0;
+
+    private int[] classOfMutant = new int[16];
+
+    private int[] methodOfMutant = new int[16];
+
+    private int[] mutatorOfMutant = new int[16];
+
+    private int[] lineOfMutant = new int[16];
+
+    /**
+     * @return the id of the given mutant, or -1 if it has not been indexed
+     */
+    public int getId(AbstractPitResult result) {
+        return this.idOfSlot[this.slotOf(result.getIdentityHash())];
+    }
+
+    /**
+     * @return the id of the given mutant, after having indexed it if needed
+     */
+    public int index(AbstractPitResult result) {
+        final long identityHash = result.getIdentityHash();
+        final int slot = this.slotOf(identityHash);
+        if (this.idOfSlot[slot] != NO_ID) {
+            return this.idOfSlot[slot];
+        }
+        final int newId = this.size++;
+        if (newId == this.classOfMutant.length) {
+            this.classOfMutant = Arrays.copyOf(this.classOfMutant, 2 * newId);
+            this.methodOfMutant = Arrays.copyOf(this.methodOfMutant, 2 * newId);
+            this.mutatorOfMutant = Arrays.copyOf(this.mutatorOfMutant, 2 * newId);
+            this.lineOfMutant = Arrays.copyOf(this.lineOfMutant, 2 * newId);
+        }
+        this.classOfMutant[newId] = this.idOfName(result.getFullQualifiedNameOfMutatedClass());
+        this.methodOfMutant[newId] = this.idOfName(result.getNameOfMutatedMethod());
+        this.mutatorOfMutant[newId] = this.idOfName(result.getFullQualifiedNameMutantOperator());
+        this.lineOfMutant[newId] = result.getLineNumber();
+        this.identityHashes[slot] = identityHash;
+        this.idOfSlot[slot] = newId;
+        if (2 * this.size > this.idOfSlot.length) {
+            this.grow();
+        }
+        return newId;
+    }
+
+    /**
+     * @return the number of indexed mutants
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public String getNameOfMutatedClass(int id) {
+        return this.names.get(this.classOfMutant[id]);
+    }
+
+    public String getNameOfMutatedMethod(int id) {
+        return this.names.get(this.methodOfMutant[id]);
+    }
+
+    public String getNameOfMutator(int id) {
+        return this.names.get(this.mutatorOfMutant[id]);
+    }
+
+    public int getLineNumber(int id) {
+        return this.lineOfMutant[id];
+    }
+
+    private int idOfName(String name) {
+        return this.idPerName.computeIfAbsent(name, newName -> {
+            this.names.add(newName);
+            return this.names.size() - 1;
+        });
+    }
+
+    // returns the slot of the given hash, or the free slot where it must be put, with a linear probing
+    private int slotOf(long identityHash) {
+        final int mask = this.idOfSlot.length - 1;
+        int slot = (int) ((identityHash * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (this.idOfSlot[slot] != NO_ID && this.identityHashes[slot] != identityHash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        final long[] oldIdentityHashes = this.identityHashes;
+        final int[] oldIdOfSlot = this.idOfSlot;
+        this.identityHashes = new long[2 * oldIdOfSlot.length];
+        this.idOfSlot = newSlots(2 * oldIdOfSlot.length);
+        for (int oldSlot = 0; oldSlot < oldIdOfSlot.length; oldSlot++) {
+            if (oldIdOfSlot[oldSlot] != NO_ID) {
+                final int slot = this.slotOf(oldIdentityHashes[oldSlot]);
+                this.identityHashes[slot] = oldIdentityHashes[oldSlot];
+                this.idOfSlot[slot] = oldIdOfSlot[oldSlot];
+            }
+        }
+    }
+
+    private static int[] newSlots(int length) {
+        final int[] slots = new int[length];
+        Arrays.fill(slots, NO_ID);
+        return slots;
+    }
+}
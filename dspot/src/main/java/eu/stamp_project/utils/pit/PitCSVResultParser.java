@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Created by Benjamin DANGLOT
@@ -19,6 +20,11 @@ public class PitCSVResultParser extends AbstractParser<PitCSVResult> {
 
     public List<PitCSVResult> parse(File fileResults) {
         final List<PitCSVResult> results = new ArrayList<>();
+        parse(fileResults, results::add);
+        return results;
+    }
+
+    public void parse(File fileResults, Consumer<? super PitCSVResult> consumer) {
         try (BufferedReader buffer = new BufferedReader(new FileReader(fileResults))) {
             buffer.lines().forEach(line -> {
                 String[] splittedLines = line.split(",");
@@ -48,12 +54,11 @@ public class PitCSVResultParser extends AbstractParser<PitCSVResult> {
                     }
                     int lineNumber = Integer.parseInt(splittedLines[4]);
                     String location = splittedLines[3];
-                    results.add(new PitCSVResult(fullQualifiedNameOfMutatedClass, state, fullQualifiedNameMutantOperator, fullQualifiedNameMethod, fullQualifiedNameClass, lineNumber, location));
+                    consumer.accept(new PitCSVResult(fullQualifiedNameOfMutatedClass, state, fullQualifiedNameMutantOperator, fullQualifiedNameMethod, fullQualifiedNameClass, lineNumber, location));
                 }
             });
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        return results;
     }
 }
@@ -0,0 +1,175 @@
+package eu.stamp_project.utils.pit;
+
+import eu.stamp_project.automaticbuilder.AutomaticBuilderHelper;
+import eu.stamp_project.automaticbuilder.maven.DSpotPOMCreator;
+import eu.stamp_project.automaticbuilder.maven.MavenAutomaticBuilder;
+import eu.stamp_project.utils.AmplificationHelper;
+import eu.stamp_project.utils.DSpotUtils;
+import eu.stamp_project.utils.program.InputConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spoon.reflect.declaration.CtType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Runs PIT without Maven nor Gradle.
+ * PIT is run from its command line entry point, in a forked JVM, with the classpath that DSpot already computed,
+ * and the jars of PIT, and of Descartes, taken from the local Maven repository, as configured in the settings of Maven.
+ * This avoids the start of the build tool, and the resolution of the dependencies, for each run of PIT.
+ */
+public class PitRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PitRunner.class);
+
+    public static final String MAIN_CLASS_PIT = "org.pitest.mutationtest.commandline.MutationCoverageReport";
+
+    private static final String PATH_TO_REPORT_DIRECTORY = "target/dspot/pit-reports";
+
+    private static final String PATH_TO_PIT_LOG = "target/dspot/pit.log";
+
+    /**
+     * @return true if the jars needed to run PIT are in the local Maven repository
+     */
+    public static boolean isAvailable() {
+        return getClasspathOfPit() != null;
+    }
+
+    /**
+     * Runs PIT on the given test classes, without mutating the given classes and methods.
+     *
+     * @param excludedClasses the full qualified names of the classes that must not be mutated
+     * @param excludedMethods the names of the methods that must not be mutated, whatever their class
+     * @param testClasses     the test classes to be run against the mutants. If there is none, PIT uses its default tests.
+     * @return the results of PIT, one per mutant
+     */
+    public static List<AbstractPitResult> run(Collection<String> excludedClasses,
+                                              Collection<String> excludedMethods,
+                                              CtType<?>... testClasses) {
+        final List<AbstractPitResult> results = new ArrayList<>();
+        run(results::add, excludedClasses, excludedMethods, testClasses);
+        return results;
+    }
+
+    /**
+     * Runs PIT on the given test classes, without mutating the given classes and methods, and streams its results,
+     * one per mutant, to the given consumer.
+     *
+     * @see #run(Collection, Collection, CtType[])
+     */
+    public static void run(Consumer<? super PitXMLResult> consumer,
+                           Collection<String> excludedClasses,
+                           Collection<String> excludedMethods,
+                           CtType<?>... testClasses) {
+        final InputConfiguration configuration = InputConfiguration.get();
+        final String pathToReportDirectory = new File(configuration.getAbsolutePathToProjectRoot(), PATH_TO_REPORT_DIRECTORY).getAbsolutePath();
+        final List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + "/bin/java");
+        command.add("-cp");
+        command.add(getClasspathOfPit() + AmplificationHelper.PATH_SEPARATOR + getClasspathOfProject());
+        command.add(MAIN_CLASS_PIT);
+        addOption(command, "reportDir", pathToReportDirectory);
+        addOption(command, "timestampedReports", "false");
+        addOption(command, "outputFormats", "XML");
+        addOption(command, "sourceDirs", configuration.getAbsolutePathToSourceCode());
+        addOption(command, "targetClasses", AutomaticBuilderHelper.getFilter());
+        if (testClasses.length > 0) {
+            addOption(command, "targetTests", Arrays.stream(testClasses)
+                    .map(DSpotUtils::ctTypeToFullQualifiedName)
+                    .collect(Collectors.joining(",")));
+        }
+        addOption(command, "timeoutConst", String.valueOf(configuration.getTimeOutInMs()));
+        addOption(command, "mutationEngine", configuration.isDescartesMode() ? "descartes" : "gregor");
+        if (configuration.isDescartesMode()) {
+            if (!configuration.getDescartesMutators().isEmpty()) {
+                addOption(command, "mutators", configuration.getDescartesMutators());
+            }
+        } else {
+            addOption(command, "mutators", "ALL");
+        }
+        if (!configuration.getJVMArgs().isEmpty()) {
+            addOption(command, "jvmArgs", configuration.getJVMArgs());
+        }
+        if (!configuration.getExcludedClasses().isEmpty()) {
+            addOption(command, "excludedTestClasses", configuration.getExcludedClasses());
+        }
+        if (!excludedClasses.isEmpty()) {
+            addOption(command, "excludedClasses", String.join(",", excludedClasses));
+            // all the mutated classes might be excluded
+            addOption(command, "failWhenNoMutations", "false");
+        }
+        if (!excludedMethods.isEmpty()) {
+            addOption(command, "excludedMethods", String.join(",", excludedMethods));
+        }
+        final ProcessBuilder processBuilder = new ProcessBuilder(command)
+                .directory(new File(configuration.getAbsolutePathToProjectRoot()));
+        if (configuration.isVerbose()) {
+            processBuilder.inheritIO();
+        } else {
+            final File log = new File(configuration.getAbsolutePathToProjectRoot(), PATH_TO_PIT_LOG);
+            log.getParentFile().mkdirs();
+            processBuilder.redirectErrorStream(true);
+            processBuilder.redirectOutput(ProcessBuilder.Redirect.appendTo(log));
+        }
+        try {
+            LOGGER.info("Run PIT: {}", String.join(" ", command));
+            if (processBuilder.start().waitFor() != 0) {
+                throw new RuntimeException("PIT failed! Enable verbose mode for more information (--verbose)");
+            }
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        new PitXMLResultParser().parseAndDelete(pathToReportDirectory, consumer);
+    }
+
+    private static void addOption(List<String> command, String name, String value) {
+        command.add("--" + name);
+        command.add(value);
+    }
+
+    private static String getClasspathOfProject() {
+        final InputConfiguration configuration = InputConfiguration.get();
+        return configuration.getFullClassPathWithExtraDependencies() +
+                (configuration.getAdditionalClasspathElements().isEmpty() ? "" :
+                        AmplificationHelper.PATH_SEPARATOR + Arrays.stream(configuration.getAdditionalClasspathElements().split(","))
+                                .map(element -> new File(configuration.getAbsolutePathToProjectRoot(), element).getAbsolutePath())
+                                .collect(Collectors.joining(AmplificationHelper.PATH_SEPARATOR)));
+    }
+
+    // returns null if one of the jars is missing
+    private static String getClasspathOfPit() {
+        final InputConfiguration configuration = InputConfiguration.get();
+        final String pathToLocalRepository = MavenAutomaticBuilder.getPathToLocalRepository();
+        final List<String> jars = new ArrayList<>();
+        jars.add(getPathToJar(pathToLocalRepository, "org.pitest", "pitest", configuration.getPitVersion()));
+        jars.add(getPathToJar(pathToLocalRepository, "org.pitest", "pitest-entry", configuration.getPitVersion()));
+        jars.add(getPathToJar(pathToLocalRepository, "org.pitest", "pitest-command-line", configuration.getPitVersion()));
+        if (configuration.isDescartesMode()) {
+            jars.add(getPathToJar(pathToLocalRepository, "eu.stamp-project", "descartes", configuration.getDescartesVersion()));
+        }
+        if (configuration.isJUnit5()) {
+            jars.add(getPathToJar(pathToLocalRepository, "org.pitest",
+                    DSpotPOMCreator.JUNIT5_PIT_PLUGIN, DSpotPOMCreator.JUNIT5_PIT_PLUGIN_VERSION));
+        }
+        final List<String> missingJars = jars.stream()
+                .filter(jar -> !new File(jar).exists())
+                .collect(Collectors.toList());
+        if (!missingJars.isEmpty()) {
+            LOGGER.warn("Could not find {} to run PIT", String.join(", ", missingJars));
+            return null;
+        }
+        return String.join(AmplificationHelper.PATH_SEPARATOR, jars);
+    }
+
+    private static String getPathToJar(String pathToLocalRepository, String groupId, String artifactId, String version) {
+        return pathToLocalRepository + "/" + groupId.replace(".", "/") + "/" + artifactId + "/" + version + "/" +
+                artifactId + "-" + version + ".jar";
+    }
+}
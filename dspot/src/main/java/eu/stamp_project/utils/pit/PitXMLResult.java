@@ -82,6 +82,12 @@ public class PitXMLResult extends AbstractPitResult {
         return result;
     }
 
+    @Override
+    protected Object[] getIdentity() {
+        return new Object[]{this.fullQualifiedNameOfMutatedClass, this.nameOfMutatedMethod, this.methodDescription,
+                this.lineNumber, this.fullQualifiedNameMutantOperator, this.mutationDescription, this.index, this.block};
+    }
+
     @Override
     public String toString() {
         return "PitXMLResult{" +
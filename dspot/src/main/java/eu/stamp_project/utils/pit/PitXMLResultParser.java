@@ -1,12 +1,18 @@
 package eu.stamp_project.utils.pit;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import org.xml.sax.Attributes;
-import org.xml.sax.helpers.DefaultHandler;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * Created by Andrew Bwogi
@@ -15,98 +21,123 @@ import org.xml.sax.helpers.DefaultHandler;
  */
 public class PitXMLResultParser extends AbstractParser<PitXMLResult> {
 
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
     public PitXMLResultParser(){
         super("/mutations.xml");
     }
 
     public List<PitXMLResult> parse(File fileResults) {
+        final List<PitXMLResult> results = new ArrayList<>();
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser saxParser = factory.newSAXParser();
-            class Handler extends DefaultHandler {
-                private StringBuilder stringBuilder;
-                final List<PitXMLResult> results = new ArrayList<>();
-                String sourceFile, methodDescription, mutatedClass, mutatedMethod, mutator, killingTest, description,
-                        fullQualifiedNameMethod, fullQualifiedNameClass;
-                int numberOfTestsRun, lineNumber, index, block;
-                AbstractPitResult.State state;
-                boolean detected;
-                boolean startElement = false;
+            parse(fileResults, results::add);
+            return results;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
 
-                @Override
-                public void startElement(String uri, String localName, String qName, Attributes attributes) {
-                    startElement = true;
-                    stringBuilder = new StringBuilder();
-                    if (qName.equalsIgnoreCase("mutation")) {
-                        detected = Boolean.parseBoolean(attributes.getValue("detected"));
-                        numberOfTestsRun = Integer.parseInt(attributes.getValue("numberOfTestsRun"));
-                        try {
-                            state = AbstractPitResult.State.valueOf(attributes.getValue("status"));
-                        } catch (Exception e) {
-                            state = AbstractPitResult.State.NO_COVERAGE;
-                        }
+    /**
+     * Streams the mutants of the given report, one by one, to the given consumer.
+     * The report is read with StAX, so the memory used does not depend on the size of the report.
+     * The names, e.g. of the mutated classes and methods, and of the mutators, are shared by all the results of the
+     * report, and the elements that are not used by DSpot, e.g. the source files, are skipped.
+     *
+     * @param fileResults the mutations.xml report of PIT
+     * @param consumer    the consumer of the results
+     */
+    public void parse(File fileResults, Consumer<? super PitXMLResult> consumer) throws Exception {
+        final Map<String, String> symbols = new HashMap<>();
+        try (InputStream input = new BufferedInputStream(new FileInputStream(fileResults))) {
+            final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(input);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && "mutation".equalsIgnoreCase(reader.getLocalName())) {
+                        consumer.accept(parseMutation(reader, symbols));
                     }
                 }
+            } finally {
+                reader.close();
+            }
+        }
+    }
 
-                @Override
-                public void characters(char ch[], int start, int length) {
-                    stringBuilder.append(new String(ch, start, length));
-                }
-
-                @Override
-                public void endElement(String uri, String localName, String qName) {
-                    startElement = false;
-                    if (qName.equalsIgnoreCase("sourceFile")) {
-                        sourceFile = stringBuilder.toString();
-                    } else if (qName.equalsIgnoreCase("mutatedClass")) {
-                        mutatedClass = stringBuilder.toString();
-                    } else if (qName.equalsIgnoreCase("mutatedMethod")) {
-                        mutatedMethod = stringBuilder.toString();
-                    } else if (qName.equalsIgnoreCase("methodDescription")) {
-                        methodDescription = stringBuilder.toString();
-                    } else if (qName.equalsIgnoreCase("lineNumber")) {
-                        lineNumber = Integer.parseInt(stringBuilder.toString());
-                    } else if (qName.equalsIgnoreCase("mutator")) {
-                        mutator = stringBuilder.toString();
-                    } else if (qName.equalsIgnoreCase("index")) {
-                        index = Integer.parseInt(stringBuilder.toString());
-                    } else if (qName.equalsIgnoreCase("block")) {
-                        block = Integer.parseInt(stringBuilder.toString());
-                    } else if (qName.equalsIgnoreCase("killingTest")) {
-                        killingTest = stringBuilder.toString();
-                    } else if (qName.equalsIgnoreCase("description")) {
-                        description = stringBuilder.toString();
-                    } else if (qName.equalsIgnoreCase("mutation")) {
-                        if (killingTest.trim().equals("")) {
-                            fullQualifiedNameMethod = "none";
-                            fullQualifiedNameClass = "none";
-                        } else {
-                            final String[] nameOfTheKiller = killingTest.split("\\(");
-                            if (nameOfTheKiller.length > 1) {
-                                fullQualifiedNameMethod = nameOfTheKiller[0];
-                                fullQualifiedNameClass = nameOfTheKiller[1].substring(0, nameOfTheKiller[1].length() - 1);
-                            } else {
-                                fullQualifiedNameMethod = "none";
-                                fullQualifiedNameClass = nameOfTheKiller[0].substring(0, nameOfTheKiller[0].length() / 2);
-                            }
-                        }
-                        results.add(new PitXMLResult(mutatedClass, state,
-                                mutator, fullQualifiedNameMethod, fullQualifiedNameClass,
-                                lineNumber, mutatedMethod, methodDescription, description, index, block,
-                                numberOfTestsRun, detected));
-                    }
-                }
+    private PitXMLResult parseMutation(XMLStreamReader reader, Map<String, String> symbols) throws XMLStreamException {
+        final boolean detected = Boolean.parseBoolean(reader.getAttributeValue(null, "detected"));
+        final int numberOfTestsRun = Integer.parseInt(reader.getAttributeValue(null, "numberOfTestsRun"));
+        AbstractPitResult.State state;
+        try {
+            state = AbstractPitResult.State.valueOf(reader.getAttributeValue(null, "status"));
+        } catch (Exception e) {
+            state = AbstractPitResult.State.NO_COVERAGE;
+        }
+        String methodDescription = null, mutatedClass = null, mutatedMethod = null, mutator = null, description = null;
+        String killingTest = "";
+        int lineNumber = 0, index = 0, block = 0;
+        while (reader.next() != XMLStreamConstants.END_ELEMENT) { // until the end of the mutation
+            if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            final String name = reader.getLocalName();
+            if (name.equalsIgnoreCase("mutatedClass")) {
+                mutatedClass = intern(symbols, reader.getElementText());
+            } else if (name.equalsIgnoreCase("mutatedMethod")) {
+                mutatedMethod = intern(symbols, reader.getElementText());
+            } else if (name.equalsIgnoreCase("methodDescription")) {
+                methodDescription = intern(symbols, reader.getElementText());
+            } else if (name.equalsIgnoreCase("lineNumber")) {
+                lineNumber = Integer.parseInt(reader.getElementText().trim());
+            } else if (name.equalsIgnoreCase("mutator")) {
+                mutator = intern(symbols, reader.getElementText());
+            } else if (name.equalsIgnoreCase("index")) {
+                index = Integer.parseInt(reader.getElementText().trim());
+            } else if (name.equalsIgnoreCase("block")) {
+                block = Integer.parseInt(reader.getElementText().trim());
+            } else if (name.equalsIgnoreCase("killingTest")) {
+                killingTest = reader.getElementText();
+            } else if (name.equalsIgnoreCase("description")) {
+                description = intern(symbols, reader.getElementText());
+            } else {
+                skipElement(reader);
+            }
+        }
+        final String fullQualifiedNameMethod;
+        final String fullQualifiedNameClass;
+        if (killingTest.trim().equals("")) {
+            fullQualifiedNameMethod = "none";
+            fullQualifiedNameClass = "none";
+        } else {
+            final String[] nameOfTheKiller = killingTest.split("\\(");
+            if (nameOfTheKiller.length > 1) {
+                fullQualifiedNameMethod = intern(symbols, nameOfTheKiller[0]);
+                fullQualifiedNameClass = intern(symbols, nameOfTheKiller[1].substring(0, nameOfTheKiller[1].length() - 1));
+            } else {
+                fullQualifiedNameMethod = "none";
+                fullQualifiedNameClass = intern(symbols, nameOfTheKiller[0].substring(0, nameOfTheKiller[0].length() / 2));
+            }
+        }
+        return new PitXMLResult(mutatedClass, state,
+                mutator, fullQualifiedNameMethod, fullQualifiedNameClass,
+                lineNumber, mutatedMethod, methodDescription, description, index, block,
+                numberOfTestsRun, detected);
+    }
 
-                public List<PitXMLResult> getResults() {
-                    return results;
-                }
+    // the reader must be on the start of the element to skip, it ends on its end
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
             }
-            Handler handler = new Handler();
-            saxParser.parse(fileResults, handler);
-            return handler.getResults();
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-        return new ArrayList<>();
+    }
+
+    private String intern(Map<String, String> symbols, String value) {
+        final String symbol = symbols.putIfAbsent(value, value);
+        return symbol == null ? value : symbol;
     }
 }
@@ -3,6 +3,7 @@ package eu.stamp_project.utils.program;
 import eu.stamp_project.Main;
 import eu.stamp_project.automaticbuilder.AutomaticBuilder;
 import eu.stamp_project.automaticbuilder.AutomaticBuilderFactory;
+import eu.stamp_project.dspot.AmplificationContext;
 import eu.stamp_project.dspot.amplifier.Amplifier;
 import eu.stamp_project.dspot.selector.PitMutantScoreSelector;
 import eu.stamp_project.dspot.selector.TestSelector;
@@ -11,6 +12,7 @@ import eu.stamp_project.utils.options.BudgetizerEnum;
 import eu.stamp_project.testrunner.EntryPoint;
 import eu.stamp_project.utils.AmplificationHelper;
 import eu.stamp_project.utils.DSpotUtils;
+import eu.stamp_project.utils.execution.worker.TestWorkerClient;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -130,6 +132,7 @@ public class InputConfiguration {
         DSpotCache.reset();
         Main.GLOBAL_REPORT.reset();
         AmplificationHelper.reset();
+        TestWorkerClient.reset();
     }
 
     /**
@@ -907,6 +910,109 @@ public class InputConfiguration {
         return this;
     }
 
+    /**
+     * This boolean say if we must execute the tests in a persistent worker JVM,
+     * rather than forking a new JVM for each execution.
+     */
+    private boolean useTestWorker = false;
+
+    public boolean shouldUseTestWorker() {
+        return useTestWorker;
+    }
+
+    public InputConfiguration setUseTestWorker(boolean useTestWorker) {
+        this.useTestWorker = useTestWorker;
+        return this;
+    }
+
+    /**
+     * This boolean say if we must compile the amplified test classes in memory,
+     * i.e. without printing their .java files on the disk and reading them back.
+     */
+    private boolean useInMemoryCompilation = false;
+
+    public boolean shouldUseInMemoryCompilation() {
+        return useInMemoryCompilation;
+    }
+
+    public InputConfiguration setUseInMemoryCompilation(boolean useInMemoryCompilation) {
+        this.useInMemoryCompilation = useInMemoryCompilation;
+        return this;
+    }
+
+    /**
+     * This boolean say if we must cache the results of the compilation and the execution of the amplified test methods.
+     * See {@link eu.stamp_project.utils.DSpotCache#getTestResultCache()}.
+     */
+    private boolean cacheTestResults = false;
+
+    public boolean shouldCacheTestResults() {
+        return cacheTestResults;
+    }
+
+    public InputConfiguration setCacheTestResults(boolean cacheTestResults) {
+        this.cacheTestResults = cacheTestResults;
+        return this;
+    }
+
+    /**
+     * The number of test classes that DSpot amplifies in parallel.
+     * Each test class is amplified in its own {@link eu.stamp_project.dspot.AmplificationContext}.
+     */
+    private int nbParallelClasses = 1;
+
+    public int getNbParallelClasses() {
+        return nbParallelClasses;
+    }
+
+    public InputConfiguration setNbParallelClasses(int nbParallelClasses) {
+        this.nbParallelClasses = nbParallelClasses;
+        return this;
+    }
+
+    /**
+     * The number of executions of the instrumented test methods used to generate assertions, in a single JVM or in the test worker.
+     * See {@link eu.stamp_project.dspot.assertgenerator.MethodsAssertGenerator#addAssertions(spoon.reflect.declaration.CtType, java.util.List)}.
+     */
+    private int maxNumberOfObservationRuns = 3;
+
+    public int getMaxNumberOfObservationRuns() {
+        return maxNumberOfObservationRuns;
+    }
+
+    public InputConfiguration setMaxNumberOfObservationRuns(int maxNumberOfObservationRuns) {
+        this.maxNumberOfObservationRuns = maxNumberOfObservationRuns;
+        return this;
+    }
+
+    /**
+     * If true, PIT is run without Maven nor Gradle, see {@link eu.stamp_project.utils.pit.PitRunner}.
+     */
+    private boolean standalonePit = false;
+
+    public boolean isStandalonePit() {
+        return standalonePit;
+    }
+
+    public InputConfiguration setStandalonePit(boolean standalonePit) {
+        this.standalonePit = standalonePit;
+        return this;
+    }
+
+    /**
+     * If true, only a near-minimal subset of the amplified test methods is output, see {@link eu.stamp_project.dspot.selector.TestSelector#keepCoveringSubset()}.
+     */
+    private boolean greedySelection = false;
+
+    public boolean shouldUseGreedySelection() {
+        return greedySelection;
+    }
+
+    public InputConfiguration setGreedySelection(boolean greedySelection) {
+        this.greedySelection = greedySelection;
+        return this;
+    }
+
     /**
      * pre goals to run in case tests' execution done by maven
      */
@@ -939,13 +1045,20 @@ public class InputConfiguration {
 
     /**
      * This boolean says if the current amplification is in JUnit5 or not.
+     * When test classes are amplified in parallel, it is kept by the context of each test class, see {@link AmplificationContext}.
      */
     public boolean isJUnit5() {
-        return this.isJUnit5;
+        final AmplificationContext context = AmplificationContext.current();
+        return context != null ? context.isJUnit5() : this.isJUnit5;
     }
 
     public void setJUnit5(boolean JUnit5) {
-        isJUnit5 = JUnit5;
+        final AmplificationContext context = AmplificationContext.current();
+        if (context != null) {
+            context.setJUnit5(JUnit5);
+        } else {
+            isJUnit5 = JUnit5;
+        }
     }
 
     private boolean targetOneTestClass = false;
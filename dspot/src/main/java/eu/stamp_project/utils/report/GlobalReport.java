@@ -31,14 +31,14 @@ public class GlobalReport implements Report, ErrorReport, OutputReport, TestSele
     /* REPORT METHODS */
 
     @Override
-    public void output() {
+    public synchronized void output() {
         this.testSelectorReport.output();
         this.errorReport.output();
         this.outputReport.output();
     }
 
     @Override
-    public void reset() {
+    public synchronized void reset() {
         this.testSelectorReport.reset();
         this.errorReport.reset();
         this.outputReport.reset();
@@ -47,12 +47,12 @@ public class GlobalReport implements Report, ErrorReport, OutputReport, TestSele
     /* ERROR REPORT METHODS */
 
     @Override
-    public void addInputError(Error error) {
+    public synchronized void addInputError(Error error) {
         this.errorReport.addInputError(error);
     }
 
     @Override
-    public void addError(Error error) {
+    public synchronized void addError(Error error) {
         this.errorReport.addError(error);
     }
 
@@ -69,19 +69,19 @@ public class GlobalReport implements Report, ErrorReport, OutputReport, TestSele
     /* TEST SELECTOR REPORT METHODS */
 
     @Override
-    public void addTestSelectorReportForTestClass(CtType<?> testClass, TestSelectorElementReport report) {
+    public synchronized void addTestSelectorReportForTestClass(CtType<?> testClass, TestSelectorElementReport report) {
         this.testSelectorReport.addTestSelectorReportForTestClass(testClass, report);
     }
 
     /* OUTPUT REPORT METHODS */
 
     @Override
-    public void addNumberAmplifiedTestMethodsToTotal(int numberOfAmplifiedTestMethods) {
+    public synchronized void addNumberAmplifiedTestMethodsToTotal(int numberOfAmplifiedTestMethods) {
         this.outputReport.addNumberAmplifiedTestMethodsToTotal(numberOfAmplifiedTestMethods);
     }
 
     @Override
-    public void addPrintedTestClasses(String line) {
+    public synchronized void addPrintedTestClasses(String line) {
         this.outputReport.addPrintedTestClasses(line);
     }
 }
\ No newline at end of file
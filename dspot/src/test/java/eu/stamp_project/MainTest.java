@@ -206,6 +206,39 @@ public class MainTest {
         assertNotNull(amplifiedTestClass);
     }
 
+    @Test
+    public void testParallelAmplificationWithAssertions() throws Exception {
+
+        /*
+            Amplify two test classes in parallel, from the end to the end, with the generation of assertions.
+            The test classes amplified in parallel run their instrumented tests in their own test worker, which
+            must be able to observe the values of the tests.
+         */
+
+        try {
+            Main.main(new String[]{
+                    "--clean",
+                    "--verbose",
+                    "--path-to-properties", "src/test/resources/test-projects/test-projects.properties",
+                    "--test-criterion", "JacocoCoverageSelector",
+                    "--iteration", "1",
+                    "--amplifiers", "TestDataMutator",
+                    "--test", "example.TestSuiteExample:example.TestSuiteExample2",
+                    "--parallel-classes", "2",
+                    "--no-minimize"
+            });
+        } finally {
+            InputConfiguration.get().setNbParallelClasses(1);
+        }
+        assertTrue(new File("target/trash/example.TestSuiteExample_report.json").exists());
+        assertTrue(new File("target/trash/example.TestSuiteExample2_report.json").exists());
+        final File amplifiedTestClass = new File("target/trash/example/TestSuiteExample.java");
+        assertTrue(amplifiedTestClass.exists());
+        try (BufferedReader reader = new BufferedReader(new FileReader(amplifiedTestClass))) {
+            assertTrue(reader.lines().anyMatch(line -> line.contains("AssertGenerator add assertion")));
+        }
+    }
+
     @Test
     public void testOnProjectWithResources() throws Exception {
         Main.main(new String[]{
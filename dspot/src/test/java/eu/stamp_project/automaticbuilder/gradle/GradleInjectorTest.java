@@ -4,6 +4,9 @@ import eu.stamp_project.AbstractTest;
 import eu.stamp_project.utils.AmplificationHelper;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -104,4 +107,23 @@ public class GradleInjectorTest extends AbstractTest {
         assertTrue(pitTask, pitTask.startsWith(expectedStarts));
         assertTrue(pitTask, pitTask.endsWith(expectedEnd));
     }
+
+    @Test
+    public void testOnGradleFromActiveonWithExcludedClassesAndMethods() {
+        /*
+            test the injection of the classes and the methods that must not be mutated,
+                e.g. because all their mutants are already killed
+         */
+        final GradleInjector gradleInjector = new GradleInjector("src/test/resources/build.gradle");
+        final String pitTask = gradleInjector.getPitTask(
+                Collections.singletonList("fr.inria.sample.Killed"),
+                Arrays.asList("getKilled", "isKilled")
+        );
+        assertTrue(pitTask, pitTask.endsWith(
+                "    excludedClasses = ['fr.inria.filter.failing.*','fr.inria.sample.Killed']" + AmplificationHelper.LINE_SEPARATOR +
+                "    excludedMethods = ['getKilled','isKilled']" + AmplificationHelper.LINE_SEPARATOR +
+                "    failWhenNoMutations = false" + AmplificationHelper.LINE_SEPARATOR +
+                "}" + AmplificationHelper.LINE_SEPARATOR)
+        );
+    }
 }
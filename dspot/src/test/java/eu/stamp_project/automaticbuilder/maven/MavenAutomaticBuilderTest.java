@@ -190,4 +190,33 @@ public class MavenAutomaticBuilderTest {
 
         }
     }
+
+    @Test
+    public void testGetPathToLocalRepository() throws Exception {
+
+        /*
+            The local repository is read from the user settings, then from the global settings of the Maven home.
+            By default, it is ~/.m2/repository.
+         */
+
+        final File userHome = new File("target/dspot/user-home");
+        final File mavenHome = new File("target/dspot/maven-home");
+        FileUtils.deleteDirectory(userHome);
+        FileUtils.deleteDirectory(mavenHome);
+        assertEquals(userHome.getPath() + "/.m2/repository",
+                MavenAutomaticBuilder.getPathToLocalRepository(userHome.getPath(), mavenHome.getPath()));
+
+        FileUtils.write(new File(mavenHome, "conf/settings.xml"),
+                "<settings><localRepository>/tmp/global-repository</localRepository></settings>", "UTF-8");
+        assertEquals("/tmp/global-repository",
+                MavenAutomaticBuilder.getPathToLocalRepository(userHome.getPath(), mavenHome.getPath()));
+
+        FileUtils.write(new File(userHome, ".m2/settings.xml"),
+                "<settings><localRepository>${user.home}/repository</localRepository></settings>", "UTF-8");
+        assertEquals(userHome.getPath() + "/repository",
+                MavenAutomaticBuilder.getPathToLocalRepository(userHome.getPath(), mavenHome.getPath()));
+
+        FileUtils.deleteDirectory(userHome);
+        FileUtils.deleteDirectory(mavenHome);
+    }
 }
@@ -6,8 +6,12 @@ import org.junit.Test;
 import java.io.File;
 import java.util.*;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Benjamin DANGLOT
@@ -93,4 +97,136 @@ public class ObjectLogTest {
         assertEquals(20, observationValues.get("(myInternalClass ).getB()"));
 //        assertTrue(add__0.getNotDeterministValues().contains("(myInternalClass ).random()"));
     }
+
+    public static class Child {
+        public int getValue() {
+            return 42;
+        }
+        public boolean isPositive() {
+            return true;
+        }
+    }
+
+    public static class Parent {
+        private int nbCallsOfGetChild = 0;
+        public Child getChild() {
+            nbCallsOfGetChild++;
+            return new Child();
+        }
+        public int getSlow() throws InterruptedException {
+            Thread.sleep(5000);
+            return 0;
+        }
+    }
+
+    @Test
+    public void testChainOfGettersAndTimeOut() throws Exception {
+
+        /*
+            The getter of a chain is invoked once, whatever the number of getters invoked on its result.
+            The getter that does not return within the time out is not observed, and does not prevent the next observations.
+         */
+
+        final Parent parent = new Parent();
+        ObjectLog.log(parent, "parent", "chain__0");
+        assertEquals(1, parent.nbCallsOfGetChild);
+        Map<String, Object> observationValues = ObjectLog.getObservations().get("chain__0").getObservationValues();
+        assertEquals(42, observationValues.get("((eu.stamp_project.compare.ObjectLogTest.Child)((eu.stamp_project.compare.ObjectLogTest.Parent)parent).getChild()).getValue()"));
+        assertEquals(true, observationValues.get("((eu.stamp_project.compare.ObjectLogTest.Child)((eu.stamp_project.compare.ObjectLogTest.Parent)parent).getChild()).isPositive()"));
+        assertFalse(observationValues.keySet().stream().anyMatch(key -> key.contains("getSlow")));
+
+        ObjectLog.log(new Parent(), "parent", "chain__1");
+        assertEquals(42, ObjectLog.getObservations().get("chain__1").getObservationValues()
+                .get("((eu.stamp_project.compare.ObjectLogTest.Child)((eu.stamp_project.compare.ObjectLogTest.Parent)parent).getChild()).getValue()"));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+
+        /*
+            The observations are appended to a binary log, that is read back without any Java serialization.
+            Reading the log replays the observations, so the non deterministic values are detected as well.
+         */
+
+        final Map<String, Integer> map = new HashMap<>();
+        map.put("one", 1);
+        for (int i = 0; i < 2; i++) {
+            ObjectLog.log(1, "integer", "values__0");
+            ObjectLog.log('c', "character", "values__0");
+            ObjectLog.log("string", "string", "values__0");
+            ObjectLog.log(new int[]{1, 2}, "array", "values__0");
+            ObjectLog.log(new String[]{"one", null}, "arrayOfStrings", "values__0");
+            ObjectLog.log(Arrays.asList(1, 2), "list", "values__0");
+            ObjectLog.log(map, "map", "values__0");
+            ObjectLog.log(null, "null", "values__0");
+            ObjectLog.log(i, "nonDeterministic", "values__1");
+        }
+        ObjectLog.save();
+
+        final Map<String, Observation> observations = ObjectLog.load();
+        assertEquals(2, observations.size());
+        final Map<String, Object> values = observations.get("values__0").getObservationValues();
+        assertEquals(ObjectLog.getObservations().get("values__0").getObservationValues().keySet(), values.keySet());
+        assertEquals(1, values.get("integer"));
+        assertEquals('c', values.get("character"));
+        assertEquals("string", values.get("string"));
+        assertArrayEquals(new int[]{1, 2}, (int[]) values.get("array"));
+        assertArrayEquals(new String[]{"one", null}, (String[]) values.get("arrayOfStrings"));
+        assertEquals(Arrays.asList(1, 2), values.get("list"));
+        assertEquals(map, values.get("map"));
+        assertNull(values.get("null"));
+        assertTrue(observations.get("values__0").getNotDeterministValues().isEmpty());
+        assertTrue(observations.get("values__1").getNotDeterministValues().contains("nonDeterministic"));
+    }
+
+    @Test
+    public void testMergeObservationsOfSeveralRuns() throws Exception {
+
+        /*
+            The observations of several runs are merged: the values that differ from a run to another are not deterministic.
+            A run agrees with the previous ones if it does not reveal any new non deterministic value.
+         */
+
+        final Observation firstRun = new Observation();
+        firstRun.add("(object).getA()", 1);
+        firstRun.add("(object).getTime()", 1000L);
+        final Observation secondRun = new Observation();
+        secondRun.add("(object).getA()", 1);
+        secondRun.add("(object).getTime()", 2000L);
+        final Observation thirdRun = new Observation();
+        thirdRun.add("(object).getA()", 1);
+        thirdRun.add("(object).getTime()", 3000L);
+
+        assertFalse(firstRun.merge(secondRun));
+        assertTrue(firstRun.getNotDeterministValues().contains("(object).getTime()"));
+        assertFalse(firstRun.getNotDeterministValues().contains("(object).getA()"));
+        assertTrue(firstRun.merge(thirdRun));
+    }
+
+    @Test
+    public void testSaveStopsTheWatchdog() throws Exception {
+
+        /*
+            The thread that invokes the observed methods is stopped when the observations are saved,
+            otherwise it would retain the class loader of each run of the observations in the test worker.
+         */
+
+        ObjectLog.log(new MyInternalClass(1, 2), "myInternalClass", "watchdog__0");
+        assertTrue(getWatchdogThreads().stream().anyMatch(Thread::isAlive));
+        ObjectLog.save();
+        for (Thread watchdog : getWatchdogThreads()) {
+            watchdog.join(1000L);
+            assertFalse(watchdog.isAlive());
+        }
+    }
+
+    private static List<Thread> getWatchdogThreads() {
+        final List<Thread> watchdogs = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("dspot-observation-watchdog".equals(thread.getName())) {
+                watchdogs.add(thread);
+            }
+        }
+        return watchdogs;
+    }
 }
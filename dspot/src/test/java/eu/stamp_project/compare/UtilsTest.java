@@ -129,4 +129,32 @@ public class UtilsTest {
 
         assertFalse(Utils.isPrimitiveArray(new Object[]{}));
     }
+
+    @Test
+    public void testIsSerializable() throws Exception {
+        assertTrue(Utils.isSerializable(null));
+        assertTrue(Utils.isSerializable(1));
+        assertTrue(Utils.isSerializable("a string"));
+        assertTrue(Utils.isSerializable(new int[]{1, 2}));
+        assertTrue(Utils.isSerializable(new Integer[]{1, 2}));
+        assertFalse(Utils.isSerializable(new Object()));
+        assertFalse(Utils.isSerializable(new Object[]{new Object()}));
+
+        final ArrayList<Object> list = new ArrayList<>();
+        list.add(1);
+        assertTrue(Utils.isSerializable(list));
+        assertFalse(Utils.isSerializable(list.subList(0, 1))); // the sub list is not serializable
+        list.add(new Object());
+        assertFalse(Utils.isSerializable(list));
+
+        final HashMap<Object, Object> map = new HashMap<>();
+        map.put("key", Collections.singletonList(1));
+        assertTrue(Utils.isSerializable(map));
+        map.put("anotherKey", new Object());
+        assertFalse(Utils.isSerializable(map));
+
+        final TreeSet<Integer> setWithNonSerializableComparator = new TreeSet<>((o1, o2) -> o2 - o1);
+        setWithNonSerializableComparator.add(1);
+        assertFalse(Utils.isSerializable(setWithNonSerializableComparator));
+    }
 }
@@ -17,10 +17,14 @@ import spoon.reflect.declaration.CtClass;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -42,6 +46,35 @@ public class DSpotTest extends AbstractTest {
         assertEquals("-Xmx2048m -Xms1024m -Dis.admin.user=admin -Dis.admin.passwd=$2pRSid#", EntryPoint.JVMArgs);
     }
 
+    @Test
+    public void testParallelAmplificationWithoutCopy() throws Exception {
+
+        /*
+            The test classes are amplified in parallel only if the test selector and the amplifiers provide a copy of
+            themselves, see TestSelector#copy() and Amplifier#copy(). Here, the test selector is configured by the user,
+            and inherits the copy of TakeAllSelector: the test classes are amplified one by one, with this very test
+            selector, instead of a copy that would not have its configuration.
+         */
+
+        final Set<String> amplifiedTestClasses = new HashSet<>();
+        final TestSelector configuredTestSelector = new TakeAllSelector() {
+            @Override
+            public List<CtMethod<?>> selectToAmplify(CtType<?> classTest, List<CtMethod<?>> testsToBeAmplified) {
+                amplifiedTestClasses.add(classTest.getQualifiedName());
+                return super.selectToAmplify(classTest, testsToBeAmplified);
+            }
+        };
+        InputConfiguration.get().setNbParallelClasses(2);
+        try {
+            new DSpot(1, Collections.singletonList(new TestMethodCallAdder()), configuredTestSelector)
+                    .amplifyTestClasses(Arrays.asList("fr.inria.sample.TestClassWithoutAssert", "fr.inria.sample.TestClassWithAssert"));
+        } finally {
+            InputConfiguration.get().setNbParallelClasses(1);
+        }
+        assertEquals(new HashSet<>(Arrays.asList("fr.inria.sample.TestClassWithoutAssert", "fr.inria.sample.TestClassWithAssert")),
+                amplifiedTestClasses);
+    }
+
     @Test
     public void testUsingAmplifiedTestClassFromTheStart() throws Exception {
 
@@ -85,6 +118,42 @@ public class DSpotTest extends AbstractTest {
         assertEquals(2, dSpot.numberOfMethod);
     }
 
+    @Test
+    public void testParallelAmplificationOfTestClasses() throws Exception {
+
+        /*
+            When --parallel-classes is greater than 1, each test class is amplified in its own AmplificationContext,
+            i.e. with its own compiler output directory and its own test selector.
+         */
+
+        InputConfiguration.get().setNbParallelClasses(2);
+        try {
+            final Set<AmplificationContext> contexts = Collections.synchronizedSet(new HashSet<>());
+            final DSpot dSpot = new DSpot(new TakeAllSelector()) {
+                @Override
+                protected CtType<?> _amplify(CtType<?> test, List<CtMethod<?>> methods) {
+                    contexts.add(AmplificationContext.current());
+                    return super._amplify(test, methods);
+                }
+            };
+            final List<CtType<?>> amplifiedTestClasses = dSpot.amplifyTestClasses(
+                    Arrays.asList("fr.inria.preparation.MustBeRenamedFromStart", "fr.inria.filter.passing.PassingTest")
+            );
+            assertEquals(2, amplifiedTestClasses.size());
+            assertEquals("fr.inria.preparation.MustBeRenamedFromStart", amplifiedTestClasses.get(0).getQualifiedName());
+            assertEquals("fr.inria.filter.passing.PassingTest", amplifiedTestClasses.get(1).getQualifiedName());
+            assertEquals(2, contexts.size());
+            assertFalse(contexts.contains(null));
+            assertEquals(2, contexts.stream()
+                    .map(context -> context.getCompiler().getSourceOutputDirectory())
+                    .distinct()
+                    .count()
+            );
+        } finally {
+            InputConfiguration.get().setNbParallelClasses(1);
+        }
+    }
+
     private class MockDSpot extends DSpot {
 
         public int numberOfMethod = 0;
@@ -15,6 +15,7 @@ import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -205,6 +206,65 @@ public class TestDataMutatorTest extends AbstractTest {
         }
     }
 
+    @Test
+    public void testMutationOfSeveralLiterals() throws Exception {
+        /*
+            Each mutant changes only the literal it comes from:
+                the literal is found in each clone by its path in the original test method
+         */
+
+        final String nameMethod = "methodThatClassmethodWithCharArray";
+        CtClass<Object> literalMutationClass = Utils.getFactory().Class().get("fr.inria.amp.LiteralMutation");
+        RandomHelper.setSeedRandom(42L);
+        TestDataMutator mutator = getTestDataMutator(literalMutationClass);
+        CtMethod method = literalMutationClass.getMethod(nameMethod);
+        List<CtMethod> mutantMethods = mutator.amplify(method, 0).collect(Collectors.toList());
+
+        assertEquals(12, mutantMethods.size());
+        for (int i = 0; i < mutantMethods.size(); i++) {
+            final List<CtLiteral> mutantLiterals = mutantMethods.get(i).getBody().getElements(new TypeFilter<>(CtLiteral.class));
+            assertEquals(2, mutantLiterals.size());
+            if (i < 6) {
+                assertEquals('b', mutantLiterals.get(1).getValue());
+            } else {
+                assertEquals('a', mutantLiterals.get(0).getValue());
+            }
+        }
+        // the original test method is not modified
+        assertEquals('a', method.getBody().getElements(new TypeFilter<>(CtLiteral.class)).get(0).getValue());
+    }
+
+    @Test
+    public void testLazyIntMutation() throws Exception {
+        /*
+            The mutations are variants of the test method: an edit of the test method,
+            and the test method is cloned only when a variant is materialized
+         */
+
+        final String nameMethod = "methodInteger";
+        CtClass<Object> literalMutationClass = Utils.getFactory().Class().get("fr.inria.amp.LiteralMutation");
+        RandomHelper.setSeedRandom(42L);
+        TestDataMutator amplifier = getTestDataMutator(literalMutationClass);
+        CtMethod method = literalMutationClass.getMethod(nameMethod);
+        List<Integer> expectedValues = Arrays.asList(22, 24, 46, (23 / 2), 32, 0);
+
+        List<TestMethodVariant> variants = amplifier.amplifyLazily(method, 0).collect(Collectors.toList());
+
+        assertEquals(6, variants.size());
+        // only the materialized variant builds an amplified test method
+        CtMethod<?> mutantMethod = variants.get(3).materialize();
+        assertEquals(nameMethod + SUFFIX_MUTATION + "Number" + 1, mutantMethod.getSimpleName());
+        CtLiteral mutantLiteral = mutantMethod.getBody().getElements(new TypeFilter<>(CtLiteral.class)).get(0);
+        assertTrue(expectedValues.contains(mutantLiteral.getValue()));
+        assertEquals(23, method.getBody().getElements(new TypeFilter<>(CtLiteral.class)).get(0).getValue());
+
+        // each materialization builds a new amplified test method
+        final CtMethod<?> sameMutantMethod = variants.get(3).materialize();
+        assertNotSame(mutantMethod, sameMutantMethod);
+        assertEquals(mutantLiteral.getValue(), sameMutantMethod.getBody().getElements(new TypeFilter<>(CtLiteral.class)).get(0).getValue());
+        assertEquals(1, method.getBody().getStatements().size());
+    }
+
     private TestDataMutator getTestDataMutator(CtClass<Object> literalMutationClass) {
         TestDataMutator amplifier = new TestDataMutator();
         amplifier.reset(literalMutationClass);
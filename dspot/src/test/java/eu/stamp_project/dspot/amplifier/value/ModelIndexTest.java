@@ -0,0 +1,66 @@
+package eu.stamp_project.dspot.amplifier.value;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import org.junit.Test;
+import spoon.Launcher;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtNamedElement;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.factory.Factory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ModelIndexTest extends AbstractTest {
+
+    @Test
+    public void testModelIndex() throws Exception {
+
+        /*
+            The index gives the implementors of an interface, the factory methods of a type, in the order of the model,
+            and the public constructors and the callable methods of a type.
+            Only the index of the last model is kept.
+         */
+
+        final Factory factory = Utils.getFactory();
+        final ModelIndex modelIndex = ModelIndex.of(factory);
+        assertSame(modelIndex, ModelIndex.of(factory));
+
+        final CtType<?> factoryTest = factory.Class().get("fr.inria.factory.FactoryTest");
+        final CtClass<?> aClass = (CtClass<?>) factoryTest.getNestedType("aClass");
+        final CtType<?> aInterface = factoryTest.getNestedType("aInterface");
+
+        final List<CtClass<?>> implementors = modelIndex.getImplementorsOf(aInterface.getReference());
+        assertEquals(Collections.singletonList(aClass), implementors);
+
+        assertEquals(Arrays.asList("createAClass", "build"), namesOf(modelIndex.getFactoryMethodsOf(aClass.getReference())));
+        assertTrue(modelIndex.getFactoryMethodsOf(aInterface.getReference()).isEmpty());
+
+        // the constructors of aClass are private
+        assertTrue(modelIndex.getPublicConstructorsOf(aClass).isEmpty());
+        assertEquals(Collections.singletonList("getX"), namesOf(modelIndex.getCallableMethodsOf(aClass)));
+
+        // the lists returned can be modified by the caller
+        implementors.clear();
+        assertEquals(1, modelIndex.getImplementorsOf(aInterface.getReference()).size());
+
+        // the index of another model replaces the index of this model
+        final ModelIndex indexOfAnotherModel = ModelIndex.of(new Launcher().getFactory());
+        assertNotSame(modelIndex, indexOfAnotherModel);
+        final ModelIndex newModelIndex = ModelIndex.of(factory);
+        assertNotSame(modelIndex, newModelIndex);
+        assertEquals(Collections.singletonList(aClass), newModelIndex.getImplementorsOf(aInterface.getReference()));
+    }
+
+    private static List<String> namesOf(List<? extends CtNamedElement> elements) {
+        return elements.stream().map(CtNamedElement::getSimpleName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,69 @@
+package eu.stamp_project.dspot.assertgenerator;
+
+import eu.stamp_project.compare.Observation;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ObservationIndexTest {
+
+    @Test
+    public void testGetObservationPointsOf() throws Exception {
+
+        /*
+            The observation points are indexed by the name of their test method, in the order of their ids.
+            Their ids are parsed once, when the index is built.
+         */
+
+        final Map<String, Observation> observations = new LinkedHashMap<>();
+        final Observation observationAtTheEnd = new Observation();
+        observations.put("test__2", new Observation());
+        observations.put("anotherTest__1", new Observation());
+        observations.put("test__5___end", observationAtTheEnd);
+
+        final ObservationIndex observationIndex = new ObservationIndex(observations);
+        final List<ObservationIndex.ObservationPoint> observationPoints = observationIndex.getObservationPointsOf("test");
+        assertEquals(2, observationPoints.size());
+        assertEquals("test__2", observationPoints.get(0).getId());
+        assertEquals(2, observationPoints.get(0).getIndexOfStatement());
+        assertFalse(observationPoints.get(0).isAtTheEnd());
+        assertEquals(5, observationPoints.get(1).getIndexOfStatement());
+        assertTrue(observationPoints.get(1).isAtTheEnd());
+        assertSame(observationAtTheEnd, observationPoints.get(1).getObservation());
+
+        assertEquals(1, observationIndex.getObservationPointsOf("anotherTest").size());
+        assertTrue(observationIndex.getObservationPointsOf("unknownTest").isEmpty());
+    }
+
+    @Test
+    public void testTestNameWithSeparator() throws Exception {
+
+        /*
+            The name of a test method may contain the separator of the ids, i.e. __.
+            The index of the statement is the part of the id after the last separator.
+            The ids that cannot be parsed are ignored.
+         */
+
+        final Map<String, Observation> observations = new LinkedHashMap<>();
+        observations.put("test__foo__2", new Observation());
+        observations.put("test__foo__3___end", new Observation());
+        observations.put("test__foo", new Observation());
+        observations.put("noSeparator", new Observation());
+
+        final ObservationIndex observationIndex = new ObservationIndex(observations);
+        final List<ObservationIndex.ObservationPoint> observationPoints = observationIndex.getObservationPointsOf("test__foo");
+        assertEquals(2, observationPoints.size());
+        assertEquals(2, observationPoints.get(0).getIndexOfStatement());
+        assertEquals(3, observationPoints.get(1).getIndexOfStatement());
+        assertTrue(observationPoints.get(1).isAtTheEnd());
+        assertTrue(observationIndex.getObservationPointsOf("test").isEmpty());
+        assertTrue(observationIndex.getObservationPointsOf("noSeparator").isEmpty());
+    }
+}
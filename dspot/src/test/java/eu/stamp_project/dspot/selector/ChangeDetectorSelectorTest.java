@@ -4,14 +4,25 @@ import eu.stamp_project.Utils;
 import eu.stamp_project.automaticbuilder.maven.DSpotPOMCreator;
 import eu.stamp_project.testrunner.EntryPoint;
 import eu.stamp_project.utils.AmplificationHelper;
+import eu.stamp_project.utils.execution.worker.TestWorkerClient;
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
+import spoon.reflect.code.CtBlock;
+import spoon.reflect.code.CtCatch;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtTry;
 import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.visitor.filter.TypeFilter;
 
 import java.io.File;
+import java.util.Collections;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Benjamin DANGLOT
@@ -76,6 +87,91 @@ public class ChangeDetectorSelectorTest extends AbstractSelectorTest {
                 "\tat eu.stamp_project.testrunner.runner.JUnit4Runner.main(JUnit4Runner.java:27)" + AmplificationHelper.LINE_SEPARATOR;
     }
 
+    @Test
+    public void testSelectorWithDifferentialExecution() throws Exception {
+
+        /*
+            With the test worker, the amplified tests are compiled once,
+                and run against both versions of the program in the same worker.
+            The amplified test that passes on the first version and fails on the second one is kept.
+         */
+
+        Utils.getInputConfiguration().setUseTestWorker(true);
+        try {
+            this.testSelectorUnderTest.init();
+            this.testSelectorUnderTest.selectToKeep(
+                    this.testSelectorUnderTest.selectToAmplify(
+                            getTestClass(), Collections.singletonList(getTest())
+                    )
+            );
+            assertTrue(this.testSelectorUnderTest.getAmplifiedTestCases().isEmpty());
+
+            this.testSelectorUnderTest.selectToKeep(
+                    this.testSelectorUnderTest.selectToAmplify(
+                            getTestClass(), Collections.singletonList(getAmplifiedTest())
+                    )
+            );
+            assertEquals(1, this.testSelectorUnderTest.getAmplifiedTestCases().size());
+            assertTrue(this.testSelectorUnderTest.report().output(this.getTestClass())
+                    .startsWith("1 amplified test fails on the new versions." + AmplificationHelper.LINE_SEPARATOR +
+                            "test2(example.TestSuiteExample): String index out of range: -1")
+            );
+        } finally {
+            Utils.getInputConfiguration().setUseTestWorker(false);
+            TestWorkerClient.reset();
+        }
+    }
+
+    @Test
+    public void testSelectorWithDifferentialExecutionObservingDifferentValues() throws Exception {
+
+        /*
+            With the test worker, an amplified test that passes on both versions of the program is kept
+                if it observes different values on the second version.
+            Here, the exception thrown by the second version is caught, and the value of s differs at the end of the test.
+         */
+
+        final CtMethod<?> amplifiedTest = getAmplifiedTest();
+        amplifiedTest.setSimpleName("test2_observingDifferentValues");
+        final Factory factory = amplifiedTest.getFactory();
+        final CtInvocation<?> invocationOfCharAt = (CtInvocation<?>) amplifiedTest.getElements(new TypeFilter<>(CtInvocation.class))
+                .stream()
+                .filter(invocation -> "charAt".equals(((CtInvocation<?>) invocation).getExecutable().getSimpleName()))
+                .findFirst()
+                .get();
+        final CtLocalVariable<String> observedValue = factory.createLocalVariable(factory.Type().stringType(), "s", factory.createLiteral("a"));
+        final CtTry tryBlock = factory.Core().createTry();
+        tryBlock.setBody(factory.createCtBlock(invocationOfCharAt.clone()));
+        final CtCatch ctCatch = factory.Core().createCatch();
+        ctCatch.setParameter(factory.Code().createCatchVariable(factory.Type().createReference(StringIndexOutOfBoundsException.class), "e"));
+        ctCatch.setBody(factory.createCtBlock(factory.Code().createVariableAssignment(observedValue.getReference(), false, factory.createLiteral("b"))));
+        tryBlock.addCatcher(ctCatch);
+        final CtBlock body = factory.Core().createBlock();
+        body.addStatement(amplifiedTest.getBody().getStatement(0).clone());
+        body.addStatement(observedValue);
+        body.addStatement(tryBlock);
+        amplifiedTest.setBody(body);
+
+        Utils.getInputConfiguration().setUseTestWorker(true);
+        try {
+            this.testSelectorUnderTest.init();
+            this.testSelectorUnderTest.selectToKeep(
+                    this.testSelectorUnderTest.selectToAmplify(
+                            getTestClass(), Collections.singletonList(amplifiedTest)
+                    )
+            );
+            assertEquals(1, this.testSelectorUnderTest.getAmplifiedTestCases().size());
+            assertTrue(this.testSelectorUnderTest.report().output(this.getTestClass())
+                    .startsWith("1 amplified test fails on the new versions." + AmplificationHelper.LINE_SEPARATOR +
+                            "test2_observingDifferentValues(example.TestSuiteExample): " +
+                            "s expected:<a> on the first version but was:<b> on the second version")
+            );
+        } finally {
+            Utils.getInputConfiguration().setUseTestWorker(false);
+            TestWorkerClient.reset();
+        }
+    }
+
     @Test
     public void testOnMultiModuleProject() throws Exception {
 
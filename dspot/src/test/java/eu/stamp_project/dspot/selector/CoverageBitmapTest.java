@@ -0,0 +1,82 @@
+package eu.stamp_project.dspot.selector;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoverageBitmapTest {
+
+    @Test
+    public void test() {
+
+        /*
+            The coverages are compared with their bitmaps of covered lines:
+                - two coverages are equal if they have the same execution path
+                - a coverage is better than another if it covers more instructions, or a line that the other does not cover
+                - the union covers the lines of both coverages
+         */
+
+        final CoverageBitmap.ClassIndex classIndex = new CoverageBitmap.ClassIndex();
+        final CoverageBitmap coverage = CoverageBitmap.of("fr/inria/A:0,2,1;fr/inria/B:0,0", 3, 10, classIndex);
+        final CoverageBitmap sameCoverage = CoverageBitmap.of("fr/inria/A:0,2,1;fr/inria/B:0,0", 3, 10, classIndex);
+        final CoverageBitmap moreInstructions = CoverageBitmap.of("fr/inria/A:0,3,1;fr/inria/B:0,0", 4, 10, classIndex);
+        final CoverageBitmap otherLines = CoverageBitmap.of("fr/inria/A:1,0,0;fr/inria/B:0,1", 2, 10, classIndex);
+
+        assertEquals(coverage, sameCoverage);
+        assertEquals(coverage.getDigest(), sameCoverage.getDigest());
+        assertNotEquals(coverage, moreInstructions);
+        assertNotEquals(coverage.getDigest(), moreInstructions.getDigest());
+
+        assertTrue(moreInstructions.subsumes(coverage));
+        assertTrue(coverage.subsumes(moreInstructions));
+        assertTrue(moreInstructions.isBetterThan(coverage));
+        assertFalse(coverage.isBetterThan(sameCoverage));
+        assertFalse(coverage.subsumes(otherLines));
+        assertTrue(otherLines.isBetterThan(coverage));
+
+        final CoverageBitmap union = coverage.union(otherLines);
+        assertEquals(4, union.getNumberOfCoveredLines());
+        assertTrue(union.subsumes(coverage));
+        assertTrue(union.subsumes(otherLines));
+        assertEquals(union, otherLines.union(coverage));
+    }
+
+    @Test
+    public void testToBitSet() {
+
+        /*
+            The bitmap of a coverage has an element per instruction covered on each line,
+            so that a covering subset keeps the coverage that covers more instructions on the same lines
+         */
+
+        final CoverageBitmap.ClassIndex classIndex = new CoverageBitmap.ClassIndex();
+        final CoverageBitmap coverage = CoverageBitmap.of("fr/inria/A:0,2,1;fr/inria/B:0,0", 3, 10, classIndex);
+        final CoverageBitmap moreInstructions = CoverageBitmap.of("fr/inria/A:0,3,1;fr/inria/B:0,0", 4, 10, classIndex);
+        final CoverageBitmap otherLines = CoverageBitmap.of("fr/inria/A:1,0,0;fr/inria/B:0,1", 2, 10, classIndex);
+        final int[][] offsetOfLines = classIndex.getOffsetOfLines();
+
+        final BitSet coveredInstructions = coverage.toBitSet(offsetOfLines);
+        final BitSet moreCoveredInstructions = moreInstructions.toBitSet(offsetOfLines);
+        assertEquals(3, coveredInstructions.cardinality());
+        assertEquals(4, moreCoveredInstructions.cardinality());
+        final BitSet notCoveredByMoreInstructions = (BitSet) coveredInstructions.clone();
+        notCoveredByMoreInstructions.andNot(moreCoveredInstructions);
+        assertTrue(notCoveredByMoreInstructions.isEmpty());
+        assertFalse(coveredInstructions.intersects(otherLines.toBitSet(offsetOfLines)));
+
+        final List<CoverageBitmap> coveringSubset = GreedySetCover.select(
+                Arrays.asList(coverage, moreInstructions, otherLines),
+                candidate -> candidate.toBitSet(offsetOfLines),
+                new BitSet()
+        );
+        assertEquals(Arrays.asList(moreInstructions, otherLines), coveringSubset);
+        assertEquals(6, coverage.union(moreInstructions).union(otherLines).toBitSet(offsetOfLines).cardinality());
+    }
+}
@@ -0,0 +1,75 @@
+package eu.stamp_project.dspot.selector;
+
+import eu.stamp_project.Utils;
+import eu.stamp_project.testrunner.listener.CoveragePerTestMethod;
+import org.junit.Before;
+import org.junit.Test;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.factory.Factory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CoverageSessionTest {
+
+    @Before
+    public void setUp() throws Exception {
+        Utils.reset();
+        Utils.init("src/test/resources/regression/test-projects_2/test-projects.properties");
+    }
+
+    @Test
+    public void testGetCoverageOf() throws Exception {
+
+        /*
+            The coverage of each test method is computed once per session:
+                - a second call on the same test methods does not run them again
+                - a test method that has been modified is run again
+         */
+
+        final CtClass<?> testClass = Utils.findClass("example.TestSuiteOverlapExample");
+        final List<List<String>> runs = new ArrayList<>();
+        final CoverageSession coverageSession = new CoverageSession(testClass) {
+            @Override
+            CoveragePerTestMethod runCoveragePerTestMethods(String... names) throws TimeoutException {
+                runs.add(Arrays.asList(names));
+                return super.runCoveragePerTestMethods(names);
+            }
+        };
+        final CtMethod<?> test1 = Utils.findMethod(testClass, "test1");
+        final CtMethod<?> test2 = Utils.findMethod(testClass, "test2");
+
+        final Map<String, CoverageBitmap> coverage = coverageSession.getCoverageOf(Arrays.asList(test1, test2));
+        assertEquals(Arrays.asList(Arrays.asList("test1", "test2")), runs);
+        assertEquals(Arrays.asList("test1", "test2"), new ArrayList<>(coverage.keySet()));
+
+        final Map<String, CoverageBitmap> sameCoverage = coverageSession.getCoverageOf(Arrays.asList(test1, test2));
+        assertEquals(1, runs.size());
+        assertSame(coverage.get("test1"), sameCoverage.get("test1"));
+        assertSame(coverage.get("test2"), sameCoverage.get("test2"));
+
+        final Factory factory = Utils.getFactory();
+        final CtLocalVariable<Integer> newStatement = factory.createLocalVariable(
+                factory.Type().integerPrimitiveType(), "newStatement", factory.createLiteral(0)
+        );
+        test2.getBody().addStatement(newStatement);
+        try {
+            final Map<String, CoverageBitmap> coverageAfterModification = coverageSession.getCoverageOf(Arrays.asList(test1, test2));
+            assertEquals(2, runs.size());
+            assertEquals(Arrays.asList("test2"), runs.get(1));
+            assertSame(coverage.get("test1"), coverageAfterModification.get("test1"));
+            assertTrue(coverageAfterModification.containsKey("test2"));
+        } finally {
+            test2.getBody().removeStatement(newStatement);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package eu.stamp_project.dspot.selector;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class GreedySetCoverTest {
+
+    private static BitSet bitSetOf(int... elements) {
+        final BitSet bitSet = new BitSet();
+        Arrays.stream(elements).forEach(bitSet::set);
+        return bitSet;
+    }
+
+    @Test
+    public void test() {
+
+        /*
+            The greedy set cover keeps the candidates that cover the most new elements first,
+                and drops the candidates that cover only elements already covered.
+            The selected candidates are returned in their original order.
+         */
+
+        final List<BitSet> candidates = Arrays.asList(
+                bitSetOf(0, 1),
+                bitSetOf(2),
+                bitSetOf(0, 1, 2, 3),
+                bitSetOf(4),
+                bitSetOf(3, 4),
+                bitSetOf()
+        );
+        assertEquals(Arrays.asList(candidates.get(2), candidates.get(3)),
+                GreedySetCover.select(candidates, candidate -> candidate, new BitSet()));
+        assertEquals(Collections.singletonList(candidates.get(3)),
+                GreedySetCover.select(candidates, candidate -> candidate, bitSetOf(0, 1, 2, 3)));
+        assertEquals(Collections.emptyList(),
+                GreedySetCover.select(Collections.<BitSet>emptyList(), candidate -> candidate, new BitSet()));
+    }
+}
@@ -1,14 +1,13 @@
 package eu.stamp_project.dspot.selector;
 
 import eu.stamp_project.AbstractTest;
-import eu.stamp_project.utils.pit.AbstractPitResult;
 import eu.stamp_project.utils.program.InputConfiguration;
 import org.junit.After;
 import org.junit.Test;
 
 import java.lang.reflect.Field;
 import java.util.Collections;
-import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -45,9 +44,9 @@ public class OneTestClassPitScoreMutantSelectorTest extends AbstractTest {
     public void test() throws NoSuchFieldException, IllegalAccessException {
         final PitMutantScoreSelector pitMutantScoreSelector = new PitMutantScoreSelector();
         pitMutantScoreSelector.init();
-        final Field field = pitMutantScoreSelector.getClass().getDeclaredField("originalKilledMutants");
+        final Field field = pitMutantScoreSelector.getClass().getDeclaredField("numberOfMutantKilledOriginallyByClass");
         field.setAccessible(true);
-        List<AbstractPitResult> originalResult = (List<AbstractPitResult>) field.get(pitMutantScoreSelector);
-        assertTrue(originalResult.stream().allMatch(abstractPitResult -> abstractPitResult.getFullQualifiedNameOfKiller().equals(FULL_QUALIFIED_NAME_TEST_CLASS)));
+        Map<String, Integer> numberOfMutantKilledOriginallyByClass = (Map<String, Integer>) field.get(pitMutantScoreSelector);
+        assertTrue(numberOfMutantKilledOriginallyByClass.keySet().stream().allMatch(FULL_QUALIFIED_NAME_TEST_CLASS::equals));
     }
 }
@@ -6,6 +6,11 @@ import eu.stamp_project.utils.AmplificationHelper;
 import org.junit.Test;
 import spoon.reflect.declaration.CtMethod;
 
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
 /**
  * Created by Benjamin DANGLOT
  * benjamin.danglot@inria.fr
@@ -81,4 +86,19 @@ public class PitScoreMutantSelectorTest {
         overlapDelegator.setUp();
         overlapDelegator.testRemoveOverlappingTests();
     }
+
+    @Test
+    public void testGetClassesCoveredBy() {
+
+        /*
+            The mutants of the classes that are not executed by the amplified tests are not given to PIT:
+                the covered classes are read from the execution path of JaCoCo,
+                and if the execution path cannot be read, all the mutants are given to PIT.
+         */
+
+        assertEquals(Collections.singleton("example.Example"),
+                PitMutantScoreSelector.getClassesCoveredBy("example/Example:0,2,1;example/Unused:0,0,0"));
+        assertNull(PitMutantScoreSelector.getClassesCoveredBy("example/Example"));
+        assertNull(PitMutantScoreSelector.getClassesCoveredBy("example/Example:0,a"));
+    }
 }
@@ -72,6 +72,19 @@ public class DSpotUtilsTest extends AbstractTest {
         }
     }
 
+    @Test
+    public void testFnv1a() {
+
+        /*
+            fnv1a computes the 64 bits FNV-1a hash of a string, and can continue the hash of a previous string
+         */
+
+        assertEquals(DSpotUtils.FNV1A_OFFSET_BASIS, DSpotUtils.fnv1a(DSpotUtils.FNV1A_OFFSET_BASIS, ""));
+        assertEquals(0xaf63dc4c8601ec8cL, DSpotUtils.fnv1a(DSpotUtils.FNV1A_OFFSET_BASIS, "a"));
+        assertEquals(DSpotUtils.fnv1a(DSpotUtils.FNV1A_OFFSET_BASIS, "ab#"),
+                DSpotUtils.fnv1a(DSpotUtils.fnv1a(DSpotUtils.FNV1A_OFFSET_BASIS, "a"), "b#"));
+    }
+
     @Test
     public void testGetAllTestClasses() {
 
@@ -0,0 +1,70 @@
+package eu.stamp_project.utils;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import org.junit.Test;
+import spoon.reflect.code.BinaryOperatorKind;
+import spoon.reflect.code.CtBinaryOperator;
+import spoon.reflect.code.CtLiteral;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.reference.CtLocalVariableReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TestMethodFingerprintTest extends AbstractTest {
+
+    @Test
+    public void testFingerprint() throws Exception {
+
+        /*
+            The fingerprint does not depend on the name of the test method, on its comments, on the names of its local
+            variables, nor on the way its constants are written.
+            It depends on the values of its literals.
+         */
+
+        final Factory factory = Utils.getFactory();
+        final CtMethod<?> testMethod = Utils.findMethod("fr.inria.ampl.ToBeAmplifiedLiteralTest", "testInt");
+        final String fingerprint = TestMethodFingerprint.of(testMethod);
+        assertEquals(fingerprint, TestMethodFingerprint.of(testMethod.clone()));
+
+        final CtMethod<?> clone = testMethod.clone();
+        clone.setSimpleName("testInt_literalMutationNumber1");
+        clone.getBody().getStatement(0).addComment(factory.createInlineComment("a comment"));
+        clone.getElements(new TypeFilter<CtLocalVariable<?>>(CtLocalVariable.class) {
+            @Override
+            public boolean matches(CtLocalVariable<?> element) {
+                return "i1".equals(element.getSimpleName());
+            }
+        }).forEach(localVariable -> localVariable.setSimpleName("__DSPOT_i1"));
+        clone.getElements(new TypeFilter<CtLocalVariableReference<?>>(CtLocalVariableReference.class) {
+            @Override
+            public boolean matches(CtLocalVariableReference<?> element) {
+                return "i1".equals(element.getSimpleName());
+            }
+        }).forEach(reference -> reference.setSimpleName("__DSPOT_i1"));
+        final CtLiteral<?> two = clone.getElements(new TypeFilter<CtLiteral<?>>(CtLiteral.class) {
+            @Override
+            public boolean matches(CtLiteral<?> element) {
+                return Integer.valueOf(2).equals(element.getValue());
+            }
+        }).get(0);
+        final CtBinaryOperator<Integer> threeMinusOne =
+                factory.createBinaryOperator(factory.createLiteral(3), factory.createLiteral(1), BinaryOperatorKind.MINUS);
+        threeMinusOne.setType(factory.Type().integerPrimitiveType());
+        two.replace(threeMinusOne);
+        assertEquals(fingerprint, TestMethodFingerprint.of(clone));
+
+        final CtMethod<?> cloneWithAnotherLiteral = testMethod.clone();
+        cloneWithAnotherLiteral.getElements(new TypeFilter<CtLiteral<?>>(CtLiteral.class) {
+            @Override
+            public boolean matches(CtLiteral<?> element) {
+                return Integer.valueOf(2).equals(element.getValue());
+            }
+        }).get(0).replace(factory.createLiteral(3));
+        assertNotEquals(fingerprint, TestMethodFingerprint.of(cloneWithAnotherLiteral));
+    }
+}
@@ -0,0 +1,109 @@
+package eu.stamp_project.utils;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import org.junit.Test;
+import spoon.reflect.declaration.CtMethod;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestMethodLineageTest extends AbstractTest {
+
+    @Test
+    public void testLineage() throws Exception {
+
+        /*
+            The lineage gives the parent and the original test method of each test method,
+            and sums the inputs and the assertions added to a test method and to all its parents.
+            The counters are attached to the test methods, not to their names.
+            Resetting the counters keeps the lineage, and forgetting the parents keeps the original test methods.
+         */
+
+        final TestMethodLineage lineage = new TestMethodLineage();
+        final CtMethod<?> original = Utils.findMethod("fr.inria.ampl.ToBeAmplifiedLiteralTest", "testInt");
+        final CtMethod<?> clone = original.clone();
+        final CtMethod<?> amplified = original.clone();
+        final CtMethod<?> amplifiedTwice = original.clone();
+
+        lineage.addClone(clone, original);
+        lineage.addClone(amplified, clone);
+        lineage.addAmplifiedTestMethod(amplified, original);
+        lineage.addAmplifiedTestMethod(amplifiedTwice, amplified);
+        assertSame(original, lineage.getOriginal(amplified));
+        assertSame(original, lineage.getOriginal(original));
+        assertNull(lineage.getOriginal(amplifiedTwice));
+        assertSame(amplified, lineage.getParent(amplifiedTwice));
+        assertNull(lineage.getParent(original));
+        assertEquals(2, lineage.getNumberOfTestMethodsWithParent());
+        assertEquals(3, lineage.getNumberOfTestMethodsWithOriginal());
+
+        lineage.addInput(original, 1);
+        lineage.addInput(amplified, 2);
+        lineage.addInput(amplifiedTwice, 3);
+        lineage.addAssertion(amplifiedTwice, 4);
+        lineage.addInput(clone, 5);
+        assertEquals(3, lineage.getInput(amplifiedTwice));
+        assertEquals(6, lineage.getInputSinceOrigin(amplifiedTwice));
+        assertEquals(4, lineage.getAssertionSinceOrigin(amplifiedTwice));
+        assertEquals(11, lineage.getAllInput());
+        assertEquals(4, lineage.getAllAssertion());
+
+        lineage.resetCounters();
+        assertEquals(0, lineage.getInputSinceOrigin(amplifiedTwice));
+        assertEquals(0, lineage.getAllInput());
+        assertEquals(0, lineage.getAllAssertion());
+        assertSame(amplified, lineage.getParent(amplifiedTwice));
+        assertSame(original, lineage.getOriginal(amplified));
+
+        lineage.addInput(amplifiedTwice, 3);
+        lineage.addInput(amplified, 2);
+        assertSame(amplified, lineage.removeParent(amplifiedTwice));
+        assertEquals(3, lineage.getInputSinceOrigin(amplifiedTwice));
+        lineage.removeParents();
+        assertEquals(0, lineage.getNumberOfTestMethodsWithParent());
+        assertEquals(4, lineage.size());
+        assertSame(original, lineage.getOriginal(amplified));
+        assertSame(original, lineage.getOriginal(clone));
+        assertEquals(3, lineage.getInput(amplifiedTwice));
+        assertEquals(5, lineage.getAllInput());
+        lineage.removeOriginals();
+        assertNull(lineage.getOriginal(amplified));
+    }
+
+    @Test
+    public void testConcurrentLineage() throws Exception {
+
+        /*
+            The test methods can be added to the lineage by the threads of a parallel stream, e.g. of the budgetizers,
+            without losing any parent, original test method or counter.
+         */
+
+        final TestMethodLineage lineage = new TestMethodLineage();
+        final CtMethod<?> original = Utils.findMethod("fr.inria.ampl.ToBeAmplifiedLiteralTest", "testInt");
+        final List<CtMethod<?>> amplifiedTestMethods = IntStream.range(0, 2000)
+                .mapToObj(i -> original.clone())
+                .collect(Collectors.toList());
+        amplifiedTestMethods.parallelStream().forEach(amplified -> {
+            lineage.addClone(amplified, original);
+            lineage.addAmplifiedTestMethod(amplified, original);
+            lineage.addInput(amplified, 1);
+            lineage.addAssertion(original, 1);
+        });
+        assertEquals(2001, lineage.size());
+        assertEquals(2000, lineage.getAllInput());
+        assertEquals(2000, lineage.getAssertion(original));
+        assertEquals(2000, lineage.getNumberOfTestMethodsWithParent());
+        assertTrue(amplifiedTestMethods.stream().allMatch(amplified ->
+                lineage.getParent(amplified) == original &&
+                        lineage.getOriginal(amplified) == original &&
+                        lineage.getAssertionSinceOrigin(amplified) == 2000
+        ));
+    }
+}
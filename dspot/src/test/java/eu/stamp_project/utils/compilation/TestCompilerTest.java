@@ -2,13 +2,24 @@ package eu.stamp_project.utils.compilation;
 
 import eu.stamp_project.AbstractTest;
 import eu.stamp_project.Utils;
+import eu.stamp_project.utils.DSpotCache;
+import eu.stamp_project.utils.execution.CachedTestResult;
 import eu.stamp_project.utils.program.InputConfiguration;
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
+import spoon.reflect.code.CtLiteral;
 import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.visitor.filter.TypeFilter;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -45,4 +56,135 @@ public class TestCompilerTest extends AbstractTest {
                 ).size()
         );
     }
+
+    @Test
+    public void testInMemoryCompilation() throws Exception {
+
+        /*
+            Same as above, but the test class is compiled in memory:
+                - no .java is printed in the tmp_test_sources folder
+                - the bytecode of the test class is still available to run the tests
+         */
+
+        InputConfiguration.get().setUseInMemoryCompilation(true);
+        try {
+            final CtClass<?> testClass = Utils.findClass("fr.inria.filter.passing.PassingTest");
+            final File javaFile = new File(Utils.getCompiler().getSourceOutputDirectory(),
+                    "fr/inria/filter/passing/PassingTest.java");
+            FileUtils.deleteQuietly(javaFile);
+            assertEquals(2,
+                    TestCompiler.compileRunAndDiscardUncompilableAndFailingTestMethods(
+                            testClass,
+                            Arrays.asList(
+                                    Utils.findMethod(testClass, "testAssertion"),
+                                    Utils.findMethod(testClass, "testNPEExpected"),
+                                    Utils.findMethod(testClass, "failingTestCase")
+                            ),
+                            Utils.getCompiler(),
+                            InputConfiguration.get()
+                    ).size()
+            );
+            assertFalse(javaFile.exists());
+            assertTrue(Utils.getCompiler().getInMemoryClassFiles().containsKey("fr/inria/filter/passing/PassingTest"));
+        } finally {
+            InputConfiguration.get().setUseInMemoryCompilation(false);
+        }
+    }
+
+    @Test
+    public void testCacheOfTestResults() throws Exception {
+
+        /*
+            Same as above, but the results are cached:
+                - the passes are stored in the persistent cache
+                - the failures, which can be flaky, are stored in memory only, with the details of the failure
+                - the second call gives the same results, from the cache
+         */
+
+        InputConfiguration.get().setCacheTestResults(true);
+        try {
+            DSpotCache.getTestResultCache().clear();
+            DSpotCache.getTransientTestResultCache().clear();
+            final CtClass<?> testClass = Utils.findClass("fr.inria.filter.passing.PassingTest");
+            for (int i = 0; i < 2; i++) {
+                assertEquals(2,
+                        TestCompiler.compileRunAndDiscardUncompilableAndFailingTestMethods(
+                                testClass,
+                                new ArrayList<>(Arrays.asList(
+                                        Utils.findMethod(testClass, "testAssertion"),
+                                        Utils.findMethod(testClass, "testNPEExpected"),
+                                        Utils.findMethod(testClass, "failingTestCase")
+                                )),
+                                Utils.getCompiler(),
+                                InputConfiguration.get()
+                        ).size()
+                );
+                final List<CachedTestResult> cachedTestResults = new ArrayList<>();
+                DSpotCache.getTestResultCache().forEach(entry -> cachedTestResults.add(entry.getValue()));
+                assertEquals(2, cachedTestResults.size());
+                assertEquals(2, cachedTestResults.stream().filter(CachedTestResult::isPassing).count());
+                final List<CachedTestResult> transientCachedTestResults = new ArrayList<>();
+                DSpotCache.getTransientTestResultCache().forEach(entry -> transientCachedTestResults.add(entry.getValue()));
+                assertEquals(1, transientCachedTestResults.size());
+                assertEquals(1, transientCachedTestResults.stream()
+                        .filter(cachedTestResult -> cachedTestResult.getOutcome() == CachedTestResult.Outcome.FAILING)
+                        .filter(cachedTestResult -> cachedTestResult.getFullQualifiedNameOfException() != null)
+                        .count()
+                );
+            }
+        } finally {
+            DSpotCache.getTestResultCache().clear();
+            DSpotCache.getTransientTestResultCache().clear();
+            InputConfiguration.get().setCacheTestResults(false);
+        }
+    }
+
+    @Test
+    public void testCacheOfTestResultsWithWhitespacesInLiterals() throws Exception {
+
+        /*
+            Two test methods that differ only by the whitespaces inside a literal have different keys in the cache:
+            each one gets its own verdict.
+         */
+
+        InputConfiguration.get().setCacheTestResults(true);
+        try {
+            DSpotCache.getTestResultCache().clear();
+            DSpotCache.getTransientTestResultCache().clear();
+            final CtClass<?> testClass = Utils.findClass("fr.inria.filter.passing.PassingTest");
+            final CtMethod<?> passingTestMethod = withArgumentOfAssertion(testClass, "passingWithOneSpace", "\"a b\".contains(\"  \")");
+            final CtMethod<?> failingTestMethod = withArgumentOfAssertion(testClass, "failingWithTwoSpaces", "\"a  b\".contains(\"  \")");
+            for (int i = 0; i < 2; i++) {
+                final List<CtMethod<?>> passingTestMethods = TestCompiler.compileRunAndDiscardUncompilableAndFailingTestMethods(
+                        testClass,
+                        new ArrayList<>(Arrays.asList(passingTestMethod, failingTestMethod)),
+                        Utils.getCompiler(),
+                        InputConfiguration.get()
+                );
+                assertEquals(Collections.singletonList(passingTestMethod), passingTestMethods);
+                final List<CachedTestResult> cachedTestResults = new ArrayList<>();
+                DSpotCache.getTestResultCache().forEach(entry -> cachedTestResults.add(entry.getValue()));
+                assertEquals(1, cachedTestResults.size());
+                assertEquals(1, cachedTestResults.stream().filter(CachedTestResult::isPassing).count());
+                final List<CachedTestResult> transientCachedTestResults = new ArrayList<>();
+                DSpotCache.getTransientTestResultCache().forEach(entry -> transientCachedTestResults.add(entry.getValue()));
+                assertEquals(1, transientCachedTestResults.size());
+                assertEquals(CachedTestResult.Outcome.FAILING, transientCachedTestResults.get(0).getOutcome());
+            }
+        } finally {
+            DSpotCache.getTestResultCache().clear();
+            DSpotCache.getTransientTestResultCache().clear();
+            InputConfiguration.get().setCacheTestResults(false);
+        }
+    }
+
+    // a copy of PassingTest#testAssertion, i.e. assertFalse(false), with the given argument for assertFalse()
+    private static CtMethod<?> withArgumentOfAssertion(CtClass<?> testClass, String name, String argument) {
+        final CtMethod<?> testMethod = Utils.findMethod(testClass, "testAssertion").clone();
+        testMethod.setSimpleName(name);
+        testMethod.getElements(new TypeFilter<>(CtLiteral.class))
+                .get(0)
+                .replace(testClass.getFactory().createCodeSnippetExpression(argument));
+        return testMethod;
+    }
 }
@@ -0,0 +1,133 @@
+package eu.stamp_project.utils.execution.worker;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import eu.stamp_project.dspot.assertgenerator.AssertGenerator;
+import eu.stamp_project.test_framework.TestFramework;
+import eu.stamp_project.testrunner.listener.TestResult;
+import eu.stamp_project.utils.compilation.TestCompiler;
+import eu.stamp_project.utils.program.InputConfiguration;
+import org.junit.After;
+import org.junit.Test;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestWorkerClientTest extends AbstractTest {
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        InputConfiguration.get().setUseTestWorker(true);
+        TestWorkerClient.reset();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        InputConfiguration.get().setUseTestWorker(false);
+        TestWorkerClient.reset();
+    }
+
+    @Test
+    public void testRunInWorker() throws Exception {
+
+        /*
+            The tests are executed in the persistent worker, which is reused from one execution to another.
+            The failing test methods are discarded as when tests are executed in a new JVM.
+         */
+
+        assertNull(TestWorkerClient.getRunningInstance());
+
+        CtClass<?> testClass = Utils.findClass("fr.inria.filter.failing.FailingTest");
+        assertTrue(TestCompiler.compileRunAndDiscardUncompilableAndFailingTestMethods(
+                testClass,
+                Arrays.asList(
+                        Utils.findMethod(testClass, "testAssertionError"),
+                        Utils.findMethod(testClass, "testFailingWithException")
+                ),
+                Utils.getCompiler(),
+                InputConfiguration.get()
+        ).isEmpty());
+        // the tests have been run by the worker, which is still alive
+        final TestWorkerClient worker = TestWorkerClient.getRunningInstance();
+        assertNotNull(worker);
+        assertTrue(worker.isAlive());
+
+        testClass = Utils.findClass("fr.inria.filter.passing.PassingTest");
+        assertEquals(2,
+                TestCompiler.compileRunAndDiscardUncompilableAndFailingTestMethods(
+                        testClass,
+                        Arrays.asList(
+                                Utils.findMethod(testClass, "testAssertion"),
+                                Utils.findMethod(testClass, "testNPEExpected"),
+                                Utils.findMethod(testClass, "failingTestCase")
+                        ),
+                        Utils.getCompiler(),
+                        InputConfiguration.get()
+                ).size()
+        );
+        // the same worker has run the tests of both test classes
+        assertSame(worker, TestWorkerClient.getRunningInstance());
+        assertTrue(worker.isAlive());
+    }
+
+    @Test
+    public void testFailingBeforeClassInWorker() throws Exception {
+
+        /*
+            A failure outside of the test methods, e.g. in a method annotated with @BeforeClass, has no method name:
+            the worker reports all the test methods to run as failing with this failure.
+         */
+
+        final CtClass<?> testClass = Utils.findClass("fr.inria.filter.failing.FailingBeforeClassTest");
+        final TestResult result = TestCompiler.compileAndRun(
+                testClass,
+                Utils.getCompiler(),
+                Arrays.asList(
+                        Utils.findMethod(testClass, "testPassing"),
+                        Utils.findMethod(testClass, "testPassingToo")
+                ),
+                InputConfiguration.get()
+        );
+        assertTrue(result.getPassingTests().isEmpty());
+        assertEquals(2, result.getFailingTests().size());
+        assertTrue(result.getFailingTests()
+                .stream()
+                .allMatch(failure -> failure.messageOfFailure.contains("the test class cannot be set up"))
+        );
+    }
+
+    @Test
+    public void testObserveInWorker() throws Exception {
+
+        /*
+            The instrumented test classes are run in the worker, whose classpath contains the classes of the package compare
+            but not the test runner: the ObjectLog must be usable from there, and the assertions are generated
+            from the observations of the worker.
+            The second amplification reuses the worker, and its cached class loader.
+         */
+
+        final CtClass<?> testClass = Utils.findClass("fr.inria.multipleobservations.TestClassToBeTest");
+        final CtMethod<?> test = Utils.findMethod(testClass, "test");
+        final AssertGenerator assertGenerator = new AssertGenerator(InputConfiguration.get(), Utils.getCompiler());
+        List<CtMethod<?>> amplifiedTestMethods = assertGenerator.assertionAmplification(testClass, Collections.singletonList(test));
+        assertEquals(1, amplifiedTestMethods.size());
+        assertEquals(4, amplifiedTestMethods.get(0).getElements(TestFramework.ASSERTIONS_FILTER).size());
+        final TestWorkerClient worker = TestWorkerClient.getRunningInstance();
+        assertNotNull(worker);
+        assertTrue(worker.isAlive());
+
+        amplifiedTestMethods = assertGenerator.assertionAmplification(testClass, Collections.singletonList(test));
+        assertEquals(4, amplifiedTestMethods.get(0).getElements(TestFramework.ASSERTIONS_FILTER).size());
+        assertSame(worker, TestWorkerClient.getRunningInstance());
+    }
+}
@@ -0,0 +1,88 @@
+package eu.stamp_project.utils.pit;
+
+import eu.stamp_project.AbstractTest;
+import eu.stamp_project.Utils;
+import eu.stamp_project.utils.program.InputConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.declaration.CtField;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.factory.Factory;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KillMatrixTest extends AbstractTest {
+
+    @Test
+    public void test() throws Exception {
+
+        /*
+            The results of PIT are saved in the output directory, and reused by a later run with the same configuration.
+            When a test method changes, the killed mutants are reused only if their killer did not change,
+            and the other mutants are not reused.
+            When a class of the program changes, no mutant is reused, even the killed ones: their killers might rely on
+            the class that changed.
+         */
+
+        final List<AbstractPitResult> results = Arrays.asList(
+                new PitXMLResult("fr.inria.sample.ClassWithBoolean", AbstractPitResult.State.KILLED,
+                        "org.pitest.mutationtest.engine.gregor.mutators.ReturnValsMutator",
+                        "testWithALambda", "fr.inria.sample.TestClassWithAssert",
+                        17, "getTrue", "()Z", "replaced return of integer sized value with (x == 0 ? 1 : 0)",
+                        0, 0, 1, true),
+                new PitXMLResult("fr.inria.sample.ClassWithFieldRead", AbstractPitResult.State.SURVIVED,
+                        "org.pitest.mutationtest.engine.gregor.mutators.ReturnValsMutator",
+                        "none", "none",
+                        12, "getValue", "()I", "replaced return of integer sized value with (x == 0 ? 1 : 0)",
+                        0, 0, 1, false)
+        );
+        KillMatrix.of("configuration", results).save(InputConfiguration.get().getOutputDirectory());
+
+        final KillMatrix killMatrix = KillMatrix.load(InputConfiguration.get().getOutputDirectory());
+        assertEquals(new HashSet<>(Arrays.asList("fr.inria.sample.ClassWithBoolean", "fr.inria.sample.ClassWithFieldRead")),
+                killMatrix.getReusableClasses("configuration"));
+        assertEquals(results, killMatrix.getResultsOf(killMatrix.getReusableClasses("configuration"), true));
+        assertTrue(killMatrix.getReusableClasses("another configuration").isEmpty());
+
+        final Factory factory = Utils.getFactory();
+        final CtMethod<?> anotherTestMethod = Utils.findMethod("fr.inria.sample.TestClassWithAssert", "testWithTryWithResource");
+        final CtLocalVariable<Integer> newStatement = factory.createLocalVariable(
+                factory.Type().integerPrimitiveType(), "newStatement", factory.createLiteral(0)
+        );
+        anotherTestMethod.getBody().addStatement(newStatement);
+        try {
+            assertEquals(new HashSet<>(Arrays.asList("fr.inria.sample.ClassWithBoolean")),
+                    killMatrix.getReusableClasses("configuration"));
+        } finally {
+            anotherTestMethod.getBody().removeStatement(newStatement);
+        }
+
+        // a change in a member of the test class that is not a test method changes all its test methods
+        final CtField<Integer> newField = factory.createField(
+                Utils.findClass("fr.inria.sample.TestClassWithAssert"), new HashSet<>(),
+                factory.Type().integerPrimitiveType(), "newField"
+        );
+        try {
+            assertTrue(killMatrix.getReusableClasses("configuration").isEmpty());
+        } finally {
+            Utils.findClass("fr.inria.sample.TestClassWithAssert").removeField(newField);
+        }
+        assertEquals(new HashSet<>(Arrays.asList("fr.inria.sample.ClassWithBoolean", "fr.inria.sample.ClassWithFieldRead")),
+                killMatrix.getReusableClasses("configuration"));
+
+        final File anotherClass = new File(InputConfiguration.get().getAbsolutePathToClasses(), "fr/inria/sample/AnotherClass.class");
+        FileUtils.writeByteArrayToFile(anotherClass, new byte[]{0});
+        try {
+            assertTrue(killMatrix.getReusableClasses("configuration").isEmpty());
+        } finally {
+            FileUtils.forceDelete(anotherClass);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package eu.stamp_project.utils.pit;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MutantIndexTest {
+
+    @Test
+    public void test() throws Exception {
+
+        /*
+            The mutants get the same ids, whatever the run of PIT that reports them, and whatever their state.
+            The mutants that have not been indexed have no id.
+         */
+
+        final File mutations = new File("src/test/resources/mutations_test-projects.xml");
+        final List<PitXMLResult> firstRun = new PitXMLResultParser().parse(mutations);
+        final MutantIndex mutantIndex = new MutantIndex();
+        firstRun.forEach(mutantIndex::index);
+        assertEquals(firstRun.stream().distinct().count(), mutantIndex.size());
+
+        final List<PitXMLResult> secondRun = new PitXMLResultParser().parse(mutations);
+        for (int i = 0; i < firstRun.size(); i++) {
+            assertEquals(mutantIndex.getId(firstRun.get(i)), mutantIndex.getId(secondRun.get(i)));
+            assertEquals(firstRun.get(i).getFullQualifiedNameOfMutatedClass(), mutantIndex.getNameOfMutatedClass(mutantIndex.getId(secondRun.get(i))));
+            assertEquals(firstRun.get(i).getNameOfMutatedMethod(), mutantIndex.getNameOfMutatedMethod(mutantIndex.getId(secondRun.get(i))));
+            assertEquals(firstRun.get(i).getFullQualifiedNameMutantOperator(), mutantIndex.getNameOfMutator(mutantIndex.getId(secondRun.get(i))));
+            assertEquals(firstRun.get(i).getLineNumber(), mutantIndex.getLineNumber(mutantIndex.getId(secondRun.get(i))));
+        }
+
+        final PitXMLResult mutant = firstRun.get(0);
+        final PitXMLResult killedMutant = new PitXMLResult(mutant.getFullQualifiedNameOfMutatedClass(),
+                AbstractPitResult.State.KILLED, mutant.getFullQualifiedNameMutantOperator(), "none", "none",
+                mutant.getLineNumber(), mutant.getNameOfMutatedMethod(), mutant.getmethodDescription(),
+                mutant.getMutationDescription(), mutant.getIndex(), mutant.getBlock(), 1, true);
+        assertEquals(mutantIndex.getId(mutant), mutantIndex.getId(killedMutant));
+        final PitXMLResult otherMutant = new PitXMLResult(mutant.getFullQualifiedNameOfMutatedClass(),
+                mutant.getStateOfMutant(), mutant.getFullQualifiedNameMutantOperator(), "none", "none",
+                mutant.getLineNumber() + 1000, mutant.getNameOfMutatedMethod(), mutant.getmethodDescription(),
+                mutant.getMutationDescription(), mutant.getIndex(), mutant.getBlock(), 1, true);
+        assertEquals(-1, mutantIndex.getId(otherMutant));
+        assertEquals(firstRun.stream().distinct().count(), mutantIndex.index(otherMutant));
+    }
+}
@@ -0,0 +1,37 @@
+package eu.stamp_project.utils.pit;
+
+import eu.stamp_project.Utils;
+import eu.stamp_project.utils.program.InputConfiguration;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+public class PitRunnerTest {
+
+    @Test
+    public void testRun() throws Exception {
+
+        /*
+            PitRunner runs PIT from its command line entry point, with the jars of PIT taken from the local repository.
+            It gives the same results as the run of PIT through Maven.
+            This test is skipped if the jars of PIT are not in the local repository.
+         */
+
+        Utils.init("src/test/resources/test-projects/test-projects.properties");
+        InputConfiguration.get().setDescartesMode(false);
+        InputConfiguration.get().setFilter("");
+        assumeTrue(PitRunner.isAvailable());
+
+        Utils.getBuilder().compile();
+        final List<AbstractPitResult> pitResults = PitRunner.run(Collections.emptyList(), Collections.emptyList(),
+                Utils.findClass("example.TestSuiteExample2"));
+
+        assertEquals(28, pitResults.size());
+        assertEquals(9, pitResults.stream().filter(pitResult -> pitResult.getStateOfMutant() == AbstractPitResult.State.SURVIVED).count());
+        assertEquals(15, pitResults.stream().filter(pitResult -> pitResult.getStateOfMutant() == AbstractPitResult.State.KILLED).count());
+    }
+}
@@ -2,8 +2,10 @@ package eu.stamp_project.utils.pit;
 
 import org.junit.Test;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Andrew Bwogi
@@ -24,4 +26,19 @@ public class PitXMLParserAndResultTest {
         assertEquals(15, pitXMLResults.stream().filter(pitResult -> pitResult.getStateOfMutant() == AbstractPitResult.State.KILLED).count(), nbErrors);
         assertEquals(4, pitXMLResults.stream().filter(pitResult -> pitResult.getStateOfMutant() == AbstractPitResult.State.NO_COVERAGE).count(), nbErrors);
     }
+
+    @Test
+    public void testStreamedResultsShareTheirNames() throws Exception {
+
+        /*
+            The results are streamed to a consumer, and share the strings of their names.
+         */
+
+        final List<PitXMLResult> pitXMLResults = new ArrayList<>();
+        new PitXMLResultParser().parse(new File("src/test/resources/mutations_test-projects.xml"), pitXMLResults::add);
+        assertEquals(28, pitXMLResults.size());
+        assertTrue(pitXMLResults.stream()
+                .allMatch(pitResult -> pitResult.getFullQualifiedNameOfMutatedClass() == pitXMLResults.get(0).getFullQualifiedNameOfMutatedClass())
+        );
+    }
 }
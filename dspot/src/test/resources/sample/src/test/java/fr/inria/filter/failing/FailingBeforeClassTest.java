@@ -0,0 +1,24 @@
+package fr.inria.filter.failing;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class FailingBeforeClassTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        throw new IllegalStateException("the test class cannot be set up");
+    }
+
+    @Test
+    public void testPassing() throws Exception {
+        assertTrue(true);
+    }
+
+    @Test
+    public void testPassingToo() throws Exception {
+        assertTrue(true);
+    }
+}